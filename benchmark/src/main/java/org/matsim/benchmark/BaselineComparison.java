@@ -0,0 +1,183 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares the results of a benchmark run with a stored baseline, to spot performance regressions between releases.
+ * <p></p>
+ * Both files are the CSV results of JMH, as written with <code>-rf csv -rff &lt;file&gt;</code>. The baselines are
+ * kept in the <code>baselines</code> directory of this module, one file per release, named after the version (e.g.
+ * <code>baselines/12.0.csv</code>), and are created on the same machine with the same JVM as the runs they are compared
+ * with. A typical release check is thus:
+ * <pre>
+ * java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main -rf csv -rff results.csv
+ * java -cp matsim-benchmark.jar:libs/* org.matsim.benchmark.BaselineComparison baselines/12.0.csv results.csv
+ * </pre>
+ * A benchmark counts as regressed if its score is worse than the baseline by more than the tolerance (10% by default,
+ * can be given as third argument) and by more than the score errors of both runs together. Benchmarks which are only in
+ * one of the files are listed, but do not count as regressions. The exit code is 1 if there are regressions.
+ */
+public final class BaselineComparison {
+
+	private static final double DEFAULT_TOLERANCE = 0.1;
+
+	private BaselineComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("usage: BaselineComparison <baseline.csv> <results.csv> [tolerance]");
+			System.exit(2);
+		}
+		double tolerance = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+		Map<String, Result> baseline = readResults(args[0]);
+		Map<String, Result> results = readResults(args[1]);
+
+		int regressions = 0;
+		for (Map.Entry<String, Result> e : results.entrySet()) {
+			Result result = e.getValue();
+			Result base = baseline.get(e.getKey());
+			if (base == null) {
+				System.out.println("NEW        " + e.getKey() + ": " + result);
+				continue;
+			}
+			// for the time modes, the score is the time per operation; for the throughput mode, it is the inverse
+			double change = result.higherIsBetter() ? base.score / result.score - 1 : result.score / base.score - 1;
+			boolean significant = Math.abs(result.score - base.score) > result.error + base.error;
+			String status;
+			if (change > tolerance && significant) {
+				status = "REGRESSION";
+				regressions++;
+			} else if (change < -tolerance && significant) {
+				status = "IMPROVED  ";
+			} else {
+				status = "OK        ";
+			}
+			System.out.println(status + " " + e.getKey() + ": " + base + " -> " + result
+					+ String.format(Locale.ROOT, " (%+.1f%%)", 100 * change));
+		}
+		for (String key : baseline.keySet()) {
+			if (!results.containsKey(key)) {
+				System.out.println("MISSING    " + key);
+			}
+		}
+		System.out.println(regressions + " regression(s) with a tolerance of " + (100 * tolerance) + "%");
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	/**
+	 * @return the results by benchmark, mode, threads and parameters
+	 */
+	static Map<String, Result> readResults(String filename) throws IOException {
+		Map<String, Result> results = new LinkedHashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+			List<String> header = parseLine(reader.readLine());
+			int benchmarkIndex = header.indexOf("Benchmark");
+			int modeIndex = header.indexOf("Mode");
+			int threadsIndex = header.indexOf("Threads");
+			int scoreIndex = header.indexOf("Score");
+			int unitIndex = header.indexOf("Unit");
+			int errorIndex = -1;
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i).startsWith("Score Error")) {
+					errorIndex = i;
+				}
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				List<String> values = parseLine(line);
+				StringBuilder key = new StringBuilder(values.get(benchmarkIndex));
+				key.append(" [").append(values.get(modeIndex)).append(", threads=").append(values.get(threadsIndex));
+				for (int i = 0; i < header.size(); i++) {
+					if (header.get(i).startsWith("Param: ") && i < values.size() && !values.get(i).isEmpty()) {
+						key.append(", ").append(header.get(i).substring(7)).append('=').append(values.get(i));
+					}
+				}
+				key.append(']');
+				double error = errorIndex < 0 ? Double.NaN : Double.parseDouble(values.get(errorIndex));
+				results.put(key.toString(), new Result(values.get(modeIndex), Double.parseDouble(values.get(scoreIndex)),
+						Double.isNaN(error) ? 0 : error, values.get(unitIndex)));
+			}
+		}
+		return results;
+	}
+
+	private static List<String> parseLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	static final class Result {
+		final String mode;
+		final double score;
+		final double error;
+		final String unit;
+
+		Result(String mode, double score, double error, String unit) {
+			this.mode = mode;
+			this.score = score;
+			this.error = error;
+			this.unit = unit;
+		}
+
+		boolean higherIsBetter() {
+			return "thrpt".equals(this.mode);
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%.3f +- %.3f %s", this.score, this.error, this.unit);
+		}
+	}
+
+}
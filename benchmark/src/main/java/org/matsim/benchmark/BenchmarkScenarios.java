@@ -0,0 +1,186 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ActivityParams;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Creates the synthetic scenarios of the benchmarks, so that their size can be chosen by a parameter: a square grid
+ * network of two-lane links in both directions, and a population of car commuters with a home-work-home plan between
+ * random links. Everything is derived from a fixed random seed, so that all runs of a benchmark see the same scenario.
+ */
+public final class BenchmarkScenarios {
+
+	public static final String HOME = "home";
+	public static final String WORK = "work";
+
+	private static final double LINK_LENGTH = 200;
+
+	private BenchmarkScenarios() {
+	}
+
+	/**
+	 * @return a config with scoring parameters for the activities of the generated plans
+	 */
+	public static Config createConfig() {
+		Config config = ConfigUtils.createConfig();
+		ActivityParams home = new ActivityParams(HOME);
+		home.setTypicalDuration(12 * 3600);
+		config.planCalcScore().addActivityParams(home);
+		ActivityParams work = new ActivityParams(WORK);
+		work.setTypicalDuration(8 * 3600);
+		work.setOpeningTime(7 * 3600);
+		work.setClosingTime(19 * 3600);
+		config.planCalcScore().addActivityParams(work);
+		return config;
+	}
+
+	/**
+	 * Creates a network with <code>gridSize</code> x <code>gridSize</code> nodes, with links in both directions between
+	 * neighbouring nodes.
+	 */
+	public static void createGridNetwork(final Network network, final int gridSize) {
+		NetworkFactory nf = network.getFactory();
+		Node[][] nodes = new Node[gridSize][gridSize];
+		for (int x = 0; x < gridSize; x++) {
+			for (int y = 0; y < gridSize; y++) {
+				nodes[x][y] = nf.createNode(Id.createNodeId(x + "_" + y), new Coord(x * LINK_LENGTH, y * LINK_LENGTH));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < gridSize; x++) {
+			for (int y = 0; y < gridSize; y++) {
+				if (x + 1 < gridSize) {
+					addLink(network, nodes[x][y], nodes[x + 1][y]);
+					addLink(network, nodes[x + 1][y], nodes[x][y]);
+				}
+				if (y + 1 < gridSize) {
+					addLink(network, nodes[x][y], nodes[x][y + 1]);
+					addLink(network, nodes[x][y + 1], nodes[x][y]);
+				}
+			}
+		}
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to) {
+		Link link = network.getFactory().createLink(Id.createLinkId(from.getId() + "-" + to.getId()), from, to);
+		link.setLength(LINK_LENGTH);
+		// alternate between main roads and side streets, so that the routers have something to choose
+		boolean mainRoad = (from.getCoord().getX() + from.getCoord().getY()) % (5 * LINK_LENGTH) == 0;
+		link.setFreespeed(mainRoad ? 16.67 : 8.33);
+		link.setCapacity(mainRoad ? 1800 : 900);
+		link.setNumberOfLanes(mainRoad ? 2 : 1);
+		network.addLink(link);
+	}
+
+	/**
+	 * Adds <code>agents</code> persons with a home-work-home plan between random links of the network. The legs are
+	 * not routed.
+	 */
+	public static void createPopulation(final Population population, final Network network, final int agents) {
+		Random random = new Random(4711);
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		PopulationFactory pf = population.getFactory();
+		for (int i = 0; i < agents; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Link homeLink = links.get(random.nextInt(links.size()));
+			Link workLink = links.get(random.nextInt(links.size()));
+
+			Activity home = pf.createActivityFromLinkId(HOME, homeLink.getId());
+			home.setCoord(homeLink.getCoord());
+			home.setEndTime(6 * 3600 + random.nextInt(3 * 3600));
+			plan.addActivity(home);
+			plan.addLeg(pf.createLeg(TransportMode.car));
+			Activity work = pf.createActivityFromLinkId(WORK, workLink.getId());
+			work.setCoord(workLink.getCoord());
+			work.setEndTime(15 * 3600 + random.nextInt(3 * 3600));
+			plan.addActivity(work);
+			plan.addLeg(pf.createLeg(TransportMode.car));
+			Activity home2 = pf.createActivityFromLinkId(HOME, homeLink.getId());
+			home2.setCoord(homeLink.getCoord());
+			plan.addActivity(home2);
+
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+	}
+
+	/**
+	 * @return a scenario with a grid network and a routed population, ready to be simulated
+	 */
+	public static Scenario createScenario(final Config config, final int gridSize, final int agents) {
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGridNetwork(scenario.getNetwork(), gridSize);
+		createPopulation(scenario.getPopulation(), scenario.getNetwork(), agents);
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		return scenario;
+	}
+
+	/**
+	 * Simulates the scenario with the QSim.
+	 *
+	 * @return all events of the simulation, in the order in which they were created
+	 */
+	public static List<Event> simulate(final Scenario scenario) {
+		final List<Event> events = new ArrayList<>();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				events.add(event);
+			}
+		});
+		eventsManager.initProcessing();
+		new QSimBuilder(scenario.getConfig())
+				.useDefaults()
+				.build(scenario, eventsManager)
+				.run();
+		eventsManager.finishProcessing();
+		return events;
+	}
+
+}
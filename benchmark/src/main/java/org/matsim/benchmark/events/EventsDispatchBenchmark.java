@@ -0,0 +1,156 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of dispatching one event to one handler through {@link EventsManagerImpl}, for a core event type
+ * (hand-written call) and for a custom event type (generated call).  The <code>baseline*</code> benchmarks dispatch the
+ * same events through {@link BaselineEventsManagerImpl}, the unchanged copy of EventsManagerImpl from before the calls
+ * were generated (callHandlerFast() for the core event type, reflection for the custom one).
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main EventsDispatchBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventsDispatchBenchmark {
+
+	private static final int EVENTS = 1024;
+
+	private final LinkEnterEvent[] linkEnterEvents = new LinkEnterEvent[EVENTS];
+	private final CustomEvent[] customEvents = new CustomEvent[EVENTS];
+
+	private EventsManagerImpl linkEnterManager;
+	private EventsManagerImpl customManager;
+	private BaselineEventsManagerImpl baselineLinkEnterManager;
+	private BaselineEventsManagerImpl baselineCustomManager;
+
+	private CountingHandler handler;
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < EVENTS; i++) {
+			this.linkEnterEvents[i] = new LinkEnterEvent(i, Id.create(i, Vehicle.class), Id.create(i % 100, Link.class));
+			this.customEvents[i] = new CustomEvent(i);
+		}
+		this.handler = new CountingHandler();
+
+		// one manager per event type, so that each only contains the handler that is measured
+		this.linkEnterManager = new EventsManagerImpl();
+		this.linkEnterManager.addHandler((LinkEnterEventHandler) event -> this.handler.count++);
+		this.customManager = new EventsManagerImpl();
+		this.customManager.addHandler((CustomEventHandler) event -> this.handler.count++);
+		this.baselineLinkEnterManager = new BaselineEventsManagerImpl();
+		this.baselineLinkEnterManager.addHandler((LinkEnterEventHandler) event -> this.handler.count++);
+		this.baselineCustomManager = new BaselineEventsManagerImpl();
+		this.baselineCustomManager.addHandler((CustomEventHandler) event -> this.handler.count++);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void linkEnterEvent(Blackhole blackhole) {
+		for (LinkEnterEvent event : this.linkEnterEvents) {
+			this.linkEnterManager.processEvent(event);
+		}
+		blackhole.consume(this.handler.count);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void customEvent(Blackhole blackhole) {
+		for (CustomEvent event : this.customEvents) {
+			this.customManager.processEvent(event);
+		}
+		blackhole.consume(this.handler.count);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void baselineLinkEnterEvent(Blackhole blackhole) {
+		for (LinkEnterEvent event : this.linkEnterEvents) {
+			this.baselineLinkEnterManager.processEvent(event);
+		}
+		blackhole.consume(this.handler.count);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public void baselineCustomEvent(Blackhole blackhole) {
+		for (CustomEvent event : this.customEvents) {
+			this.baselineCustomManager.processEvent(event);
+		}
+		blackhole.consume(this.handler.count);
+	}
+
+	public static class CustomEvent extends Event {
+		public CustomEvent(double time) {
+			super(time);
+		}
+
+		@Override
+		public String getEventType() {
+			return "custom";
+		}
+	}
+
+	public interface CustomEventHandler extends EventHandler {
+		void handleEvent(CustomEvent event);
+	}
+
+	private static class CountingHandler implements LinkEnterEventHandler, CustomEventHandler {
+		long count = 0;
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.count++;
+		}
+
+		@Override
+		public void handleEvent(CustomEvent event) {
+			this.count++;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.events;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of the {@link EventsManager} implementations, as they are chosen by the controler from the
+ * <code>parallelEventHandling</code> config group: one hour of link enter and leave events, passed to a number of
+ * handlers which count the vehicles per link, with {@link EventsManager#afterSimStep(double)} after every second.
+ * The score is the time for the whole hour, including {@link EventsManager#finishProcessing()}, i.e. until all events
+ * have been handled.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main EventsManagerBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventsManagerBenchmark {
+
+	private static final int STEPS = 3600;
+	private static final int LINKS = 10000;
+	private static final int THREADS = 4;
+
+	public enum Implementation {
+		/** single-threaded, without any synchronization */
+		EventsManagerImpl {
+			@Override
+			EventsManager create(Config config) {
+				return EventsUtils.createEventsManager();
+			}
+		},
+		SimStepParallelEventsManagerImpl {
+			@Override
+			EventsManager create(Config config) {
+				config.parallelEventHandling().setNumberOfThreads(THREADS);
+				config.parallelEventHandling().setSynchronizeOnSimSteps(true);
+				return EventsUtils.createEventsManager(config);
+			}
+		},
+		ParallelEventsManagerImpl {
+			@Override
+			EventsManager create(Config config) {
+				config.parallelEventHandling().setNumberOfThreads(THREADS);
+				config.parallelEventHandling().setSynchronizeOnSimSteps(false);
+				return EventsUtils.createEventsManager(config);
+			}
+		},
+		ParallelEventsManager {
+			@Override
+			EventsManager create(Config config) {
+				config.parallelEventHandling().setOneThreadPerHandler(true);
+				config.parallelEventHandling().setSynchronizeOnSimSteps(true);
+				return EventsUtils.createEventsManager(config);
+			}
+		},
+		RingBufferEventsManagerImpl {
+			@Override
+			EventsManager create(Config config) {
+				config.parallelEventHandling().setNumberOfThreads(THREADS);
+				config.parallelEventHandling().setSynchronizeOnSimSteps(true);
+				config.parallelEventHandling().setUseRingBuffer(true);
+				return EventsUtils.createEventsManager(config);
+			}
+		};
+
+		abstract EventsManager create(Config config);
+	}
+
+	@Param
+	private Implementation implementation;
+
+	@Param({"1", "8"})
+	private int handlers;
+
+	/** must be even, as the events come in pairs */
+	@Param({"100", "1000"})
+	private int eventsPerStep;
+
+	private EventsManager events;
+	private CountingHandler[] countingHandlers;
+	private Event[][] eventsByStep;
+
+	@Setup
+	public void setup() {
+		this.events = this.implementation.create(ConfigUtils.createConfig());
+		this.countingHandlers = new CountingHandler[this.handlers];
+		for (int i = 0; i < this.handlers; i++) {
+			this.countingHandlers[i] = new CountingHandler();
+			this.events.addHandler(this.countingHandlers[i]);
+		}
+
+		// every vehicle leaves a link and enters the next one
+		this.eventsByStep = new Event[STEPS][this.eventsPerStep];
+		for (int step = 0; step < STEPS; step++) {
+			for (int i = 0; i < this.eventsPerStep; i += 2) {
+				Id<Vehicle> vehicleId = Id.create(i, Vehicle.class);
+				int link = (step * this.eventsPerStep + i) % LINKS;
+				this.eventsByStep[step][i] = new LinkLeaveEvent(step, vehicleId, Id.create(link, Link.class));
+				this.eventsByStep[step][i + 1] = new LinkEnterEvent(step, vehicleId, Id.create((link + 1) % LINKS, Link.class));
+			}
+		}
+	}
+
+	@Benchmark
+	public void processHour(Blackhole blackhole) {
+		this.events.resetHandlers(0);
+		this.events.initProcessing();
+		for (int step = 0; step < STEPS; step++) {
+			for (Event event : this.eventsByStep[step]) {
+				this.events.processEvent(event);
+			}
+			this.events.afterSimStep(step);
+		}
+		this.events.finishProcessing();
+		for (CountingHandler handler : this.countingHandlers) {
+			blackhole.consume(handler.vehiclesOnLinks[0]);
+		}
+	}
+
+	private static class CountingHandler implements LinkEnterEventHandler, LinkLeaveEventHandler {
+		final int[] vehiclesOnLinks = new int[LINKS];
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.vehiclesOnLinks[event.getLinkId().index() % LINKS]++;
+		}
+
+		@Override
+		public void handleEvent(LinkLeaveEvent event) {
+			this.vehiclesOnLinks[event.getLinkId().index() % LINKS]--;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			Arrays.fill(this.vehiclesOnLinks, 0);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.benchmark.BenchmarkScenarios;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures writing and reading the events of one simulated day of car commuters on a grid network, plain and
+ * gzipped.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main EventsIOBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventsIOBenchmark {
+
+	private static final int GRID_SIZE = 50;
+
+	@Param({"10000", "50000"})
+	private int agents;
+
+	@Param({"xml", "xml.gz"})
+	private String extension;
+
+	private List<Event> events;
+	private File directory;
+	private String writeFile;
+	private String readFile;
+
+	@Setup
+	public void setup() throws IOException {
+		Scenario scenario = BenchmarkScenarios.createScenario(BenchmarkScenarios.createConfig(), GRID_SIZE, this.agents);
+		this.events = BenchmarkScenarios.simulate(scenario);
+
+		this.directory = Files.createTempDirectory("eventsIO").toFile();
+		this.writeFile = new File(this.directory, "written." + this.extension).getPath();
+		this.readFile = new File(this.directory, "events." + this.extension).getPath();
+		writeEvents(this.readFile);
+	}
+
+	@TearDown
+	public void tearDown() {
+		new File(this.writeFile).delete();
+		new File(this.readFile).delete();
+		this.directory.delete();
+	}
+
+	private void writeEvents(String filename) {
+		EventWriterXML writer = new EventWriterXML(filename);
+		for (Event event : this.events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+	}
+
+	@Benchmark
+	public void write() {
+		writeEvents(this.writeFile);
+	}
+
+	@Benchmark
+	public void read(Blackhole blackhole) {
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler((BasicEventHandler) blackhole::consume);
+		new MatsimEventsReader(eventsManager).readFile(this.readFile);
+	}
+
+}
@@ -0,0 +1,110 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.PopulationWriter;
+import org.matsim.benchmark.BenchmarkScenarios;
+import org.matsim.core.config.Config;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures writing and reading a population of routed car commuters in the population_v6 format, plain and gzipped,
+ * with one and with several threads.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main PopulationIOBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PopulationIOBenchmark {
+
+	private static final int GRID_SIZE = 100;
+
+	@Param({"10000", "100000"})
+	private int agents;
+
+	@Param({"1", "4"})
+	private int numberOfThreads;
+
+	@Param({"xml", "xml.gz"})
+	private String extension;
+
+	private Scenario scenario;
+	private File directory;
+	private String writeFile;
+	private String readFile;
+
+	@Setup
+	public void setup() throws IOException {
+		Config config = BenchmarkScenarios.createConfig();
+		config.global().setNumberOfThreads(this.numberOfThreads);
+		this.scenario = BenchmarkScenarios.createScenario(config, GRID_SIZE, this.agents);
+
+		this.directory = Files.createTempDirectory("populationIO").toFile();
+		this.writeFile = new File(this.directory, "written." + this.extension).getPath();
+		this.readFile = new File(this.directory, "population." + this.extension).getPath();
+		new PopulationWriter(this.scenario.getPopulation()).writeV6(this.readFile);
+	}
+
+	@TearDown
+	public void tearDown() {
+		new File(this.writeFile).delete();
+		new File(this.readFile).delete();
+		this.directory.delete();
+	}
+
+	@Benchmark
+	public void write() {
+		PopulationWriter writer = new PopulationWriter(this.scenario.getPopulation());
+		writer.setNumberOfThreads(this.numberOfThreads);
+		writer.writeV6(this.writeFile);
+	}
+
+	@Benchmark
+	public void read(Blackhole blackhole) {
+		Scenario scenario = ScenarioUtils.createScenario(this.scenario.getConfig());
+		new PopulationReader(scenario).readFile(this.readFile);
+		blackhole.consume(scenario.getPopulation());
+	}
+
+}
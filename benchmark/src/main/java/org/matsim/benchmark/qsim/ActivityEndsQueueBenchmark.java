@@ -0,0 +1,140 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.qsim;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.core.mobsim.qsim.ActivityEngineDefaultImpl;
+import org.matsim.core.mobsim.qsim.DefaultTeleportationEngine;
+import org.matsim.core.utils.collections.CalendarQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures one day of activity ends in {@link ActivityEngineDefaultImpl} resp. teleportation arrivals in
+ * {@link DefaultTeleportationEngine}: every agent is added with a random end time, and the due agents are polled in
+ * steps of one second, as in the qsim.  <code>priorityQueue</code> is the queue the engines used before, with one
+ * entry object per agent; <code>calendarQueue</code> is the queue they use now.
+ * <p></p>
+ * Run with <code>java -Xmx8g -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main ActivityEndsQueueBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ActivityEndsQueueBenchmark {
+
+	private static final double END_OF_DAY = 24 * 3600;
+
+	@Param({"1000000", "10000000"})
+	private int agents;
+
+	private Agent[] agentArray;
+	private double[] endTimes;
+
+	private static final Comparator<Agent> LARGER_ID_FIRST = new Comparator<Agent>() {
+		@Override
+		public int compare(Agent o1, Agent o2) {
+			return Integer.compare(o2.id, o1.id);
+		}
+	};
+
+	@Setup
+	public void setup() {
+		Random random = new Random(4711);
+		this.agentArray = new Agent[this.agents];
+		this.endTimes = new double[this.agents];
+		for (int i = 0; i < this.agents; i++) {
+			this.agentArray[i] = new Agent(i);
+			// most activities end in the morning and afternoon peaks
+			double peak = random.nextBoolean() ? 7.5 * 3600 : 17 * 3600;
+			this.endTimes[i] = Math.max(0, Math.min(END_OF_DAY - 1, Math.floor(peak + random.nextGaussian() * 2 * 3600)));
+		}
+	}
+
+	@Benchmark
+	public void priorityQueue(Blackhole blackhole) {
+		PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(500, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry o1, Entry o2) {
+				int cmp = Double.compare(o1.time, o2.time);
+				return cmp != 0 ? cmp : LARGER_ID_FIRST.compare(o1.agent, o2.agent);
+			}
+		});
+		for (int i = 0; i < this.agents; i++) {
+			queue.add(new Entry(this.agentArray[i], this.endTimes[i]));
+		}
+		for (double now = 0; now < END_OF_DAY; now++) {
+			while (queue.peek() != null && queue.peek().time <= now) {
+				blackhole.consume(queue.poll().agent);
+			}
+		}
+	}
+
+	@Benchmark
+	public void calendarQueue(Blackhole blackhole) {
+		CalendarQueue<Agent> queue = new CalendarQueue<>(LARGER_ID_FIRST);
+		for (int i = 0; i < this.agents; i++) {
+			synchronized (queue) {
+				// the activity engine synchronizes, as agents are added from the threads of the qsim
+				queue.add(this.agentArray[i], this.endTimes[i]);
+			}
+		}
+		for (double now = 0; now < END_OF_DAY; now++) {
+			Agent agent;
+			while ((agent = queue.poll(now)) != null) {
+				blackhole.consume(agent);
+			}
+		}
+	}
+
+	private static final class Agent {
+		final int id;
+
+		Agent(int id) {
+			this.id = id;
+		}
+	}
+
+	private static final class Entry {
+		final Agent agent;
+		final double time;
+
+		Entry(Agent agent, double time) {
+			this.agent = agent;
+			this.time = time;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.qsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.TrafficDynamics;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of congested links in the QueueWithBuffer of the QNetsimEngine: all agents depart within
+ * ten minutes on a corridor with a bottleneck in the middle, so that the queue spills back over the upstream links and
+ * most of the simulated time is spent moving vehicles into and out of full links (and, with kinematic waves, moving
+ * holes back upstream).
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main LinkThroughputBenchmark</code>; add
+ * <code>-prof gc</code> to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinkThroughputBenchmark {
+
+	private static final int CORRIDOR_LINKS = 20;
+
+	@Param({"10000", "50000"})
+	private int agents;
+
+	@Param({"queue", "kinematicWaves"})
+	private TrafficDynamics trafficDynamics;
+
+	private Scenario scenario;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setTrafficDynamics(this.trafficDynamics);
+		config.qsim().setNumberOfThreads(1);
+		this.scenario = ScenarioUtils.createScenario(config);
+
+		Network network = this.scenario.getNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node previous = nf.createNode(Id.createNodeId(0), new Coord(0, 0));
+		network.addNode(previous);
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 1; i <= CORRIDOR_LINKS; i++) {
+			Node node = nf.createNode(Id.createNodeId(i), new Coord(i * 500, 0));
+			network.addNode(node);
+			Link link = nf.createLink(Id.createLinkId(i), previous, node);
+			link.setLength(500);
+			link.setFreespeed(27.78);
+			link.setNumberOfLanes(2);
+			// the bottleneck in the middle of the corridor has a quarter of the capacity
+			link.setCapacity(i == CORRIDOR_LINKS / 2 ? 1000 : 4000);
+			network.addLink(link);
+			linkIds.add(link.getId());
+			previous = node;
+		}
+
+		PopulationFactory pf = this.scenario.getPopulation().getFactory();
+		Id<Link> firstLinkId = linkIds.get(0);
+		Id<Link> lastLinkId = linkIds.get(linkIds.size() - 1);
+		for (int i = 0; i < this.agents; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", firstLinkId);
+			// all agents want to leave within ten minutes, which is far more than the bottleneck can carry
+			home.setEndTime(6 * 3600 + (i * 600.0) / this.agents);
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(firstLinkId, linkIds.subList(1, linkIds.size() - 1), lastLinkId);
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", lastLinkId));
+			person.addPlan(plan);
+			this.scenario.getPopulation().addPerson(person);
+		}
+		PrepareForSimUtils.createDefaultPrepareForSim(this.scenario).run();
+	}
+
+	@Benchmark
+	public void congestedCorridor() {
+		EventsManager events = EventsUtils.createEventsManager();
+		new QSimBuilder(this.scenario.getConfig())
+				.useDefaults()
+				.build(this.scenario, events)
+				.run();
+	}
+
+}
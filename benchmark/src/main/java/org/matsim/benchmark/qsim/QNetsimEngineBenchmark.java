@@ -0,0 +1,85 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.qsim;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.benchmark.BenchmarkScenarios;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a whole day of the QSim on a grid network with car commuters, i.e. mostly the time steps of the
+ * QNetsimEngine, with one and with several threads. The events are passed to an events manager without handlers, so
+ * that they cost as little as possible.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main QNetsimEngineBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QNetsimEngineBenchmark {
+
+	@Param({"50", "100"})
+	private int gridSize;
+
+	@Param({"10000", "100000"})
+	private int agents;
+
+	@Param({"1", "4"})
+	private int numberOfThreads;
+
+	private Scenario scenario;
+
+	@Setup
+	public void setup() {
+		Config config = BenchmarkScenarios.createConfig();
+		config.qsim().setNumberOfThreads(this.numberOfThreads);
+		config.qsim().setEndTime(30 * 3600);
+		this.scenario = BenchmarkScenarios.createScenario(config, this.gridSize, this.agents);
+	}
+
+	@Benchmark
+	public void simulateDay() {
+		EventsManager events = EventsUtils.createEventsManager();
+		new QSimBuilder(this.scenario.getConfig())
+				.useDefaults()
+				.build(this.scenario, events)
+				.run();
+	}
+
+}
@@ -0,0 +1,156 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.benchmark.BenchmarkScenarios;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.AStarEuclideanFactory;
+import org.matsim.core.router.AStarLandmarksFactory;
+import org.matsim.core.router.ContractionHierarchiesFactory;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.FastAStarEuclideanFactory;
+import org.matsim.core.router.FastAStarLandmarksFactory;
+import org.matsim.core.router.FastDijkstraFactory;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time of one least cost path query of each {@link LeastCostPathCalculator} on a grid network, between
+ * random pairs of nodes at random times of the day. The preprocessing of the routers (landmarks, contraction) is done
+ * in the setup and not measured.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main LeastCostPathCalculatorBenchmark</code>;
+ * add e.g. <code>-p router=FastDijkstra,FastAStarLandmarks</code> to compare only some of the routers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeastCostPathCalculatorBenchmark {
+
+	private static final int QUERIES = 256;
+
+	public enum Router {
+		Dijkstra {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new DijkstraFactory();
+			}
+		},
+		FastDijkstra {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new FastDijkstraFactory();
+			}
+		},
+		AStarEuclidean {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new AStarEuclideanFactory();
+			}
+		},
+		FastAStarEuclidean {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new FastAStarEuclideanFactory();
+			}
+		},
+		AStarLandmarks {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new AStarLandmarksFactory(1);
+			}
+		},
+		FastAStarLandmarks {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new FastAStarLandmarksFactory(1);
+			}
+		},
+		ContractionHierarchies {
+			@Override
+			LeastCostPathCalculatorFactory createFactory() {
+				return new ContractionHierarchiesFactory(900, 30 * 3600);
+			}
+		};
+
+		abstract LeastCostPathCalculatorFactory createFactory();
+	}
+
+	@Param
+	private Router router;
+
+	@Param({"50", "200"})
+	private int gridSize;
+
+	private LeastCostPathCalculator calculator;
+	private final Node[] fromNodes = new Node[QUERIES];
+	private final Node[] toNodes = new Node[QUERIES];
+	private final double[] departureTimes = new double[QUERIES];
+
+	@Setup
+	public void setup() {
+		Network network = NetworkUtils.createNetwork();
+		BenchmarkScenarios.createGridNetwork(network, this.gridSize);
+		FreespeedTravelTimeAndDisutility travelTimeAndDisutility = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		this.calculator = this.router.createFactory().createPathCalculator(network, travelTimeAndDisutility, travelTimeAndDisutility);
+
+		Random random = new Random(4711);
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		for (int i = 0; i < QUERIES; i++) {
+			this.fromNodes[i] = nodes.get(random.nextInt(nodes.size()));
+			this.toNodes[i] = nodes.get(random.nextInt(nodes.size()));
+			this.departureTimes[i] = random.nextInt(24 * 3600);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public void calcLeastCostPath(Blackhole blackhole) {
+		for (int i = 0; i < QUERIES; i++) {
+			blackhole.consume(this.calculator.calcLeastCostPath(this.fromNodes[i], this.toNodes[i], this.departureTimes[i], null, null));
+		}
+	}
+
+}
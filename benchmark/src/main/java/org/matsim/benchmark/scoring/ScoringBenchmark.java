@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.scoring;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.benchmark.BenchmarkScenarios;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.scoring.EventsToScore;
+import org.matsim.core.scoring.functions.CharyparNagelScoringFunctionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the scoring of one simulated day of car commuters with {@link EventsToScore} and the default
+ * {@link CharyparNagelScoringFunctionFactory}: the events are recorded once, and then passed to the scoring again in
+ * every iteration of the benchmark, from the creation of the scoring functions to the final scores.  With more than
+ * one scoring partition, the events are processed by a parallel events manager with one thread per partition.
+ * <p></p>
+ * Run with <code>java -cp matsim-benchmark.jar:libs/* org.openjdk.jmh.Main ScoringBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScoringBenchmark {
+
+	private static final int GRID_SIZE = 50;
+
+	@Param({"10000", "50000"})
+	private int agents;
+
+	@Param({"1", "4"})
+	private int scoringPartitions;
+
+	private List<Event> events;
+	private EventsManager eventsManager;
+	private EventsToScore eventsToScore;
+	private int iteration = 0;
+
+	@Setup
+	public void setup() {
+		Config config = BenchmarkScenarios.createConfig();
+		config.planCalcScore().setNumberOfScoringPartitions(this.scoringPartitions);
+		Scenario scenario = BenchmarkScenarios.createScenario(config, GRID_SIZE, this.agents);
+		this.events = BenchmarkScenarios.simulate(scenario);
+
+		if (this.scoringPartitions > 1) {
+			config.parallelEventHandling().setNumberOfThreads(this.scoringPartitions);
+			config.parallelEventHandling().setSynchronizeOnSimSteps(true);
+			this.eventsManager = EventsUtils.createEventsManager(config);
+		} else {
+			this.eventsManager = EventsUtils.createEventsManager();
+		}
+		this.eventsToScore = EventsToScore.createWithoutScoreUpdating(scenario, new CharyparNagelScoringFunctionFactory(scenario), this.eventsManager);
+	}
+
+	@Benchmark
+	public void scoreDay() {
+		this.eventsManager.resetHandlers(this.iteration);
+		this.eventsToScore.beginIteration(this.iteration);
+		this.eventsManager.initProcessing();
+		double time = Double.NEGATIVE_INFINITY;
+		for (Event event : this.events) {
+			if (event.getTime() > time) {
+				if (time != Double.NEGATIVE_INFINITY) {
+					this.eventsManager.afterSimStep(time);
+				}
+				time = event.getTime();
+			}
+			this.eventsManager.processEvent(event);
+		}
+		this.eventsManager.finishProcessing();
+		this.eventsToScore.finish();
+		this.iteration++;
+	}
+
+}
@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.optimizer.VehicleData.Stop;
+import org.matsim.contrib.util.PartialSort;
+import org.matsim.contrib.util.distance.DistanceUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.collections.QuadTree;
+
+/**
+ * Spatial index of the vehicle entries, used to consider only the vehicles nearest (straight line) to a request
+ * instead of the whole fleet. An entry is indexed at all locations where a pickup can be inserted into its schedule:
+ * the start location (i.e. the current location or, for driving vehicles, the diversion point) and the links of the
+ * stops. The distance of an entry is the distance of its nearest location.
+ * <p></p>
+ * The index is filled and updated by the {@link VehicleData} it is passed to.
+ */
+public class SpatialVehicleIndex {
+	private final QuadTree<Entry> quadTree;
+	private final double maxRadius;
+	private int entryCount;
+
+	public SpatialVehicleIndex(Network network) {
+		double[] bounds = NetworkUtils.getBoundingBox(network.getNodes().values());
+		quadTree = new QuadTree<>(bounds[0], bounds[1], bounds[2], bounds[3]);
+		maxRadius = Math.hypot(bounds[2] - bounds[0], bounds[3] - bounds[1]);
+	}
+
+	void clear() {
+		quadTree.clear();
+		entryCount = 0;
+	}
+
+	void add(Entry entry) {
+		for (Link link : getLocations(entry)) {
+			quadTree.put(link.getCoord().getX(), link.getCoord().getY(), entry);
+		}
+		entryCount++;
+	}
+
+	void remove(Entry entry) {
+		for (Link link : getLocations(entry)) {
+			quadTree.remove(link.getCoord().getX(), link.getCoord().getY(), entry);
+		}
+		entryCount--;
+	}
+
+	/**
+	 * @return the k entries nearest to the link, or all entries if there are not more than k
+	 */
+	public List<Entry> findNearest(Link link, int k) {
+		Coord coord = link.getCoord();
+		// start with the radius within which k entries would be found if they were evenly distributed
+		double area = (quadTree.getMaxEasting() - quadTree.getMinEasting()) * (quadTree.getMaxNorthing()
+				- quadTree.getMinNorthing());
+		double radius = Math.max(Math.sqrt(area * k / (Math.PI * Math.max(entryCount, 1))), 1);
+		Set<Entry> candidates = new LinkedHashSet<>();// deterministic order of equidistant entries
+		while (true) {
+			candidates.addAll(quadTree.getDisk(coord.getX(), coord.getY(), radius));
+			// all entries within the radius are nearer than the entries outside
+			if (candidates.size() >= k || radius >= maxRadius) {
+				return PartialSort.kSmallestElements(k, candidates.stream(), e -> calcSquaredDistance(coord, e));
+			}
+			radius *= 2;
+		}
+	}
+
+	private static double calcSquaredDistance(Coord coord, Entry entry) {
+		double minDistance = Double.POSITIVE_INFINITY;
+		for (Link link : getLocations(entry)) {
+			minDistance = Math.min(minDistance, DistanceUtils.calculateSquaredDistance(coord, link.getCoord()));
+		}
+		return minDistance;
+	}
+
+	private static Collection<Link> getLocations(Entry entry) {
+		Set<Link> links = new LinkedHashSet<>();
+		links.add(entry.start.link);
+		for (Stop s : entry.stops) {
+			links.add(s.task.getLink());
+		}
+		return links;
+	}
+}
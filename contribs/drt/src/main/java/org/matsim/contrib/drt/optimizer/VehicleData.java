@@ -106,11 +106,21 @@ public class VehicleData {
 	private final double currentTime;
 	private final EntryFactory entryFactory;
 	private final Map<Id<DvrpVehicle>, Entry> entries;
+	private final SpatialVehicleIndex vehicleIndex;// null if not used
 
 	public VehicleData(double currentTime, Stream<? extends DvrpVehicle> vehicles, EntryFactory entryFactory,
 			ForkJoinPool forkJoinPool) {
+		this(currentTime, vehicles, entryFactory, forkJoinPool, null);
+	}
+
+	/**
+	 * @param vehicleIndex if not null, it is cleared, filled with the entries and then kept up to date
+	 */
+	public VehicleData(double currentTime, Stream<? extends DvrpVehicle> vehicles, EntryFactory entryFactory,
+			ForkJoinPool forkJoinPool, SpatialVehicleIndex vehicleIndex) {
 		this.currentTime = currentTime;
 		this.entryFactory = entryFactory;
+		this.vehicleIndex = vehicleIndex;
 		try {
 			entries = forkJoinPool.submit(() -> vehicles.parallel()//
 					.map(v -> entryFactory.create(v, currentTime))//
@@ -120,17 +130,33 @@ public class VehicleData {
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
+
+		if (vehicleIndex != null) {
+			vehicleIndex.clear();
+			entries.values().forEach(vehicleIndex::add);
+		}
 	}
 
 	public void updateEntry(DvrpVehicle vehicle) {
 		Entry e = entryFactory.create(vehicle, currentTime);
-		if (e != null) {
-			entries.put(vehicle.getId(), e);
-		} else {
-			entries.remove(vehicle.getId());
+		Entry oldEntry = e != null ? entries.put(vehicle.getId(), e) : entries.remove(vehicle.getId());
+		if (vehicleIndex != null) {
+			if (oldEntry != null) {
+				vehicleIndex.remove(oldEntry);
+			}
+			if (e != null) {
+				vehicleIndex.add(e);
+			}
 		}
 	}
 
+	/**
+	 * @return the entry of the vehicle, or <code>null</code> if the vehicle cannot serve any more requests
+	 */
+	public Entry getEntry(Id<DvrpVehicle> vehicleId) {
+		return entries.get(vehicleId);
+	}
+
 	public int getSize() {
 		return entries.size();
 	}
@@ -0,0 +1,169 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator.Insertion;
+import org.matsim.contrib.drt.optimizer.insertion.SingleVehicleInsertionProblem.BestInsertion;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
+import org.matsim.contrib.drt.run.DrtConfigGroup.OperationalScheme;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
+import org.matsim.contrib.dvrp.run.ModalProviders;
+import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Evaluates the insertions of a batch of requests, i.e. of all requests submitted in one optimisation step. Unlike
+ * {@link ParallelMultiVehicleInsertionProblem}, which runs the four path searches of one request on (up to) four
+ * threads, the requests of a batch are processed in parallel, each on one thread with its own path searches, so the
+ * work scales with the number of threads.
+ * <p></p>
+ * Before the path searches, the insertions are filtered with the beeline estimates of the detour times, tightened by
+ * the lower bounds of a {@link ZonalTravelTimeMatrix} of the estimated travel times, so that fewer links have to be
+ * reached by the searches. The matrix only covers the nodes where requests can start and end, i.e. those of the stop
+ * links in a stop-based scheme. All requests are evaluated against the same vehicle data: the best insertion into a vehicle
+ * is only valid as long as the vehicle has not got another request of the batch.
+ */
+public class BatchInsertionProblem {
+	private final DrtConfigGroup drtCfg;
+	private final MobsimTimer timer;
+	private final InsertionCostCalculator.PenaltyCalculator penaltyCalculator;
+	private final InsertionCostCalculator insertionCostCalculator;
+	private final ZonalTravelTimeMatrix travelTimeMatrix;
+	private final ThreadLocal<DetourPathCalculator> detourPathCalculators;
+
+	/**
+	 * @param requestNodes the nodes where requests can start and end, covered by the travel time matrix
+	 */
+	public BatchInsertionProblem(Network network, Collection<? extends Node> requestNodes, TravelTime travelTime,
+			TravelDisutility travelDisutility, DrtConfigGroup drtCfg, MobsimTimer timer,
+			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
+		this.drtCfg = drtCfg;
+		this.timer = timer;
+		this.penaltyCalculator = penaltyCalculator;
+		insertionCostCalculator = new InsertionCostCalculator(drtCfg, timer, penaltyCalculator);
+		travelTimeMatrix = ZonalTravelTimeMatrix.createGridMatrix(network, requestNodes, travelTime,
+				drtCfg.getTravelTimeMatrixCellSize(), drtCfg.getTravelTimeMatrixUpdatePeriod());
+		detourPathCalculators = ThreadLocal.withInitial(
+				() -> new DetourPathCalculator(network, travelTime, travelDisutility, drtCfg.getStopDuration()));
+	}
+
+	/**
+	 * @param vEntries the vehicles to consider for a given request (read concurrently)
+	 * @return for each request (in the order of the list): the best insertion into each vehicle that can serve it
+	 */
+	public List<Map<Id<DvrpVehicle>, BestInsertion>> findBestInsertions(List<DrtRequest> drtRequests,
+			Function<DrtRequest, Collection<Entry>> vEntries, ForkJoinPool forkJoinPool) {
+		travelTimeMatrix.updateIfDue(timer.getTimeOfDay(), forkJoinPool);
+		return forkJoinPool.submit(() -> drtRequests.parallelStream()//
+				.map(r -> findBestInsertions(r, vEntries.apply(r)))//
+				.collect(Collectors.toList()))//
+				.join();
+	}
+
+	private Map<Id<DvrpVehicle>, BestInsertion> findBestInsertions(DrtRequest drtRequest, Collection<Entry> vEntries) {
+		DetourLinksProvider detourLinksProvider = new DetourLinksProvider(drtCfg, timer, drtRequest, penaltyCalculator,
+				travelTimeMatrix);
+		detourLinksProvider.findInsertionsAndLinks(vEntries);
+		Map<Entry, List<Insertion>> filteredInsertions = detourLinksProvider.getFilteredInsertions();
+		if (filteredInsertions.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		// the searches of a request run one after the other, the requests are processed in parallel
+		PathDataProvider pathDataProvider = detourPathCalculators.get()
+				.calcPathData(drtRequest, detourLinksProvider.getDetourLinksSet(), Runnable::run);
+		SingleVehicleInsertionProblem insertionProblem = new SingleVehicleInsertionProblem(pathDataProvider,
+				insertionCostCalculator);
+		Map<Id<DvrpVehicle>, BestInsertion> bestInsertions = new HashMap<>();
+		for (Map.Entry<Entry, List<Insertion>> e : filteredInsertions.entrySet()) {
+			insertionProblem.findBestInsertion(drtRequest, e.getKey(), e.getValue())
+					.ifPresent(best -> bestInsertions.put(best.vehicleEntry.vehicle.getId(), best));
+		}
+		return bestInsertions;
+	}
+
+	public static class BatchInsertionProblemProvider extends ModalProviders.AbstractProvider<BatchInsertionProblem> {
+		@Inject
+		@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING)
+		private Network network;
+
+		@Inject
+		@Named(DvrpTravelTimeModule.DVRP_ESTIMATED)
+		private TravelTime travelTime;
+
+		@Inject
+		private MobsimTimer timer;
+
+		private final DrtConfigGroup drtCfg;
+
+		public BatchInsertionProblemProvider(DrtConfigGroup drtCfg) {
+			super(drtCfg.getMode());
+			this.drtCfg = drtCfg;
+		}
+
+		@Override
+		public BatchInsertionProblem get() {
+			TravelDisutility travelDisutility = getModalInstance(TravelDisutilityFactory.class).createTravelDisutility(
+					travelTime);
+			Collection<? extends Node> requestNodes = drtCfg.getOperationalScheme() == OperationalScheme.stopbased ?
+					getStopLinkNodes(network, getModalInstance(TransitSchedule.class)) :
+					network.getNodes().values();
+			return new BatchInsertionProblem(network, requestNodes, travelTime, travelDisutility, drtCfg, timer,
+					getModalInstance(InsertionCostCalculator.PenaltyCalculator.class));
+		}
+
+		// the estimates start at the to-node of a link and end at the from-node of a link
+		private static Set<Node> getStopLinkNodes(Network network, TransitSchedule schedule) {
+			Set<Node> nodes = new LinkedHashSet<>();
+			for (TransitStopFacility stop : schedule.getFacilities().values()) {
+				Link link = network.getLinks().get(stop.getLinkId());
+				nodes.add(link.getFromNode());
+				nodes.add(link.getToNode());
+			}
+			return nodes;
+		}
+	}
+}
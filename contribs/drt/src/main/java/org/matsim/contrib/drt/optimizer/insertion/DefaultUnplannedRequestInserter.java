@@ -19,17 +19,28 @@
 
 package org.matsim.contrib.drt.optimizer.insertion;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.contrib.drt.optimizer.SpatialVehicleIndex;
 import org.matsim.contrib.drt.optimizer.VehicleData;
 import org.matsim.contrib.drt.optimizer.insertion.SingleVehicleInsertionProblem.BestInsertion;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.drt.scheduler.RequestInsertionScheduler;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.fleet.Fleet;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestAcceptedEvent;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEvent;
@@ -55,11 +66,28 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 
 	private final ForkJoinPool forkJoinPool;
 	private final ParallelMultiVehicleInsertionProblem insertionProblem;
+	private final BatchInsertionProblem batchInsertionProblem;
+	private final SpatialVehicleIndex vehicleIndex;
 
 	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
 			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
 			VehicleData.EntryFactory vehicleDataEntryFactory, PrecalculablePathDataProvider pathDataProvider,
 			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
+		this(drtCfg, fleet, mobsimTimer, eventsManager, insertionScheduler, vehicleDataEntryFactory, pathDataProvider,
+				penaltyCalculator, null, null);
+	}
+
+	/**
+	 * @param batchInsertionProblem if not <code>null</code>, all requests submitted in one optimisation step are
+	 *                              evaluated in parallel, before they are scheduled one after the other
+	 * @param vehicleIndex          if not <code>null</code>, only the {@link DrtConfigGroup#getNearestVehiclesLimit()}
+	 *                              vehicles nearest to the pickup location are considered for each request
+	 */
+	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
+			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
+			VehicleData.EntryFactory vehicleDataEntryFactory, PrecalculablePathDataProvider pathDataProvider,
+			InsertionCostCalculator.PenaltyCalculator penaltyCalculator, BatchInsertionProblem batchInsertionProblem,
+			SpatialVehicleIndex vehicleIndex) {
 		this.drtCfg = drtCfg;
 		this.fleet = fleet;
 		this.mobsimTimer = mobsimTimer;
@@ -70,6 +98,8 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		forkJoinPool = new ForkJoinPool(drtCfg.getNumberOfThreads());
 		insertionProblem = new ParallelMultiVehicleInsertionProblem(pathDataProvider, drtCfg, mobsimTimer, forkJoinPool,
 				penaltyCalculator);
+		this.batchInsertionProblem = batchInsertionProblem;
+		this.vehicleIndex = vehicleIndex;
 		insertionScheduler.initSchedules();
 	}
 
@@ -85,37 +115,89 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		}
 
 		VehicleData vData = new VehicleData(mobsimTimer.getTimeOfDay(), fleet.getVehicles().values().stream(),
-				vehicleDataEntryFactory, forkJoinPool);
+				vehicleDataEntryFactory, forkJoinPool, vehicleIndex);
+
+		if (batchInsertionProblem != null) {
+			scheduleUnplannedRequestsInBatch(unplannedRequests, vData);
+			return;
+		}
 
 		Iterator<DrtRequest> reqIter = unplannedRequests.iterator();
 		while (reqIter.hasNext()) {
 			DrtRequest req = reqIter.next();
-			Optional<BestInsertion> best = insertionProblem.findBestInsertion(req, vData.getEntries());
-			if (!best.isPresent()) {
-				eventsManager.processEvent(
-						new PassengerRequestRejectedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
-								req.getPassengerId(), NO_INSERTION_FOUND_CAUSE));
-				if (drtCfg.isPrintDetailedWarnings()) {
-					log.warn("No insertion found for drt request "
-							+ req
-							+ " from passenger id="
-							+ req.getPassengerId()
-							+ " fromLinkId="
-							+ req.getFromLink().getId());
+			Optional<BestInsertion> best = insertionProblem.findBestInsertion(req, getVehicleEntries(req, vData));
+			scheduleRequest(req, best, vData);
+			reqIter.remove();
+		}
+	}
+
+	/**
+	 * The best insertions of all requests are searched for in parallel, on the vehicle data at the beginning of the
+	 * step. The requests are then scheduled in their order. Once a vehicle has got a request, the insertions into it
+	 * found for the later requests are outdated, so for each of them, the insertions into the updated vehicles are
+	 * searched for again (in most cases, these are only few vehicles).
+	 */
+	private void scheduleUnplannedRequestsInBatch(Collection<DrtRequest> unplannedRequests, VehicleData vData) {
+		List<DrtRequest> requests = new ArrayList<>(unplannedRequests);
+		List<Map<Id<DvrpVehicle>, BestInsertion>> batchInsertions = batchInsertionProblem.findBestInsertions(requests,
+				req -> getVehicleEntries(req, vData), forkJoinPool);
+
+		Set<Id<DvrpVehicle>> updatedVehicleIds = new HashSet<>();
+		Iterator<DrtRequest> reqIter = unplannedRequests.iterator();
+		for (int i = 0; i < requests.size(); i++) {
+			DrtRequest req = reqIter.next();
+			Optional<BestInsertion> best = batchInsertions.get(i)
+					.values()
+					.stream()
+					.filter(b -> !updatedVehicleIds.contains(b.vehicleEntry.vehicle.getId()))
+					.min(Comparator.comparingDouble(b -> b.cost));
+
+			if (!updatedVehicleIds.isEmpty()) {
+				List<VehicleData.Entry> updatedEntries = updatedVehicleIds.stream()
+						.map(vData::getEntry)
+						.filter(Objects::nonNull)
+						.collect(Collectors.toList());
+				Optional<BestInsertion> bestUpdated = insertionProblem.findBestInsertion(req, updatedEntries);
+				if (bestUpdated.isPresent() && (!best.isPresent() || bestUpdated.get().cost < best.get().cost)) {
+					best = bestUpdated;
 				}
-			} else {
-				eventsManager.processEvent(
-						new PassengerRequestAcceptedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
-								req.getPassengerId()));
-				BestInsertion bestInsertion = best.get();
-				insertionScheduler.scheduleRequest(bestInsertion.vehicleEntry, req, bestInsertion.insertion);
-				vData.updateEntry(bestInsertion.vehicleEntry.vehicle);
-				eventsManager.processEvent(
-						new PassengerRequestScheduledEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
-								req.getPassengerId(), bestInsertion.vehicleEntry.vehicle.getId(),
-								req.getPickupTask().getEndTime(), req.getDropoffTask().getBeginTime()));
 			}
+
+			scheduleRequest(req, best, vData);
+			best.ifPresent(b -> updatedVehicleIds.add(b.vehicleEntry.vehicle.getId()));
 			reqIter.remove();
 		}
 	}
+
+	private Collection<VehicleData.Entry> getVehicleEntries(DrtRequest req, VehicleData vData) {
+		return vehicleIndex == null ? vData.getEntries()
+				: vehicleIndex.findNearest(req.getFromLink(), drtCfg.getNearestVehiclesLimit());
+	}
+
+	private void scheduleRequest(DrtRequest req, Optional<BestInsertion> best, VehicleData vData) {
+		if (!best.isPresent()) {
+			eventsManager.processEvent(
+					new PassengerRequestRejectedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
+							req.getPassengerId(), NO_INSERTION_FOUND_CAUSE));
+			if (drtCfg.isPrintDetailedWarnings()) {
+				log.warn("No insertion found for drt request "
+						+ req
+						+ " from passenger id="
+						+ req.getPassengerId()
+						+ " fromLinkId="
+						+ req.getFromLink().getId());
+			}
+		} else {
+			eventsManager.processEvent(
+					new PassengerRequestAcceptedEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
+							req.getPassengerId()));
+			BestInsertion bestInsertion = best.get();
+			insertionScheduler.scheduleRequest(bestInsertion.vehicleEntry, req, bestInsertion.insertion);
+			vData.updateEntry(bestInsertion.vehicleEntry.vehicle);
+			eventsManager.processEvent(
+					new PassengerRequestScheduledEvent(mobsimTimer.getTimeOfDay(), drtCfg.getMode(), req.getId(),
+							req.getPassengerId(), bestInsertion.vehicleEntry.vehicle.getId(),
+							req.getPickupTask().getEndTime(), req.getDropoffTask().getBeginTime()));
+		}
+	}
 }
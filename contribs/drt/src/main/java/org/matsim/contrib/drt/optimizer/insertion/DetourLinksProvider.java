@@ -91,6 +91,14 @@ class DetourLinksProvider {
 
 	public DetourLinksProvider(DrtConfigGroup drtCfg, MobsimTimer timer, DrtRequest drtRequest,
 			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
+		this(drtCfg, timer, drtRequest, penaltyCalculator, null);
+	}
+
+	/**
+	 * @param travelTimeEstimator if not null, used to tighten the (optimistic) beeline estimates of the detour times
+	 */
+	public DetourLinksProvider(DrtConfigGroup drtCfg, MobsimTimer timer, DrtRequest drtRequest,
+			InsertionCostCalculator.PenaltyCalculator penaltyCalculator, DetourTimeEstimator travelTimeEstimator) {
 		this.drtRequest = drtRequest;
 
 		// initial capacities of concurrent maps according to insertion stats for AT Berlin 10pct
@@ -105,10 +113,12 @@ class DetourLinksProvider {
 		// TODO use more sophisticated DetourTimeEstimator
 		double optimisticBeelineSpeed = OPTIMISTIC_BEELINE_SPEED_COEFF * drtCfg.getEstimatedDrtSpeed()
 				/ drtCfg.getEstimatedBeelineDistanceFactor();
+		DetourTimeEstimator beelineEstimator = (from, to) -> DistanceUtils.calculateDistance(from, to)
+				/ optimisticBeelineSpeed;
 		insertionFilter = new SingleVehicleInsertionFilter(//
-				new DetourTimesProvider(
-						(from, to) -> DistanceUtils.calculateDistance(from, to) / optimisticBeelineSpeed,
-						drtCfg.getStopDuration()), //
+				new DetourTimesProvider(travelTimeEstimator == null ? beelineEstimator
+						: (from, to) -> Math.max(beelineEstimator.estimateTime(from, to),
+								travelTimeEstimator.estimateTime(from, to)), drtCfg.getStopDuration()), //
 				new InsertionCostCalculator(drtCfg, timer, penaltyCalculator));
 	}
 
@@ -120,6 +130,16 @@ class DetourLinksProvider {
 		detourLinksSet = new DetourLinksSet(linksToPickup, linksFromPickup, linksToDropoff, linksFromDropoff);
 	}
 
+	/**
+	 * Sequential variant of {@link #findInsertionsAndLinks(ForkJoinPool, Collection)}, for requests that are
+	 * themselves processed in parallel.
+	 */
+	void findInsertionsAndLinks(Collection<Entry> vEntries) {
+		vEntries.forEach(this::addDetourLinks);
+		processNearestInsertionsAtEnd();
+		detourLinksSet = new DetourLinksSet(linksToPickup, linksFromPickup, linksToDropoff, linksFromDropoff);
+	}
+
 	/**
 	 * Designed to be called in parallel for each vEntry in VehicleData.entries
 	 * 
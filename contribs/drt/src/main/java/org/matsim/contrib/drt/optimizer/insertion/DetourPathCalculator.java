@@ -0,0 +1,108 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Calculates the paths to and from the pickup and dropoff links of a request (i.e. the detours), as needed to evaluate
+ * its insertions. Each of the four searches has its own {@link OneToManyPathSearch}, so they can run in parallel, but
+ * one request at a time.
+ */
+class DetourPathCalculator {
+	private final OneToManyPathSearch toPickupPathSearch;
+	private final OneToManyPathSearch fromPickupPathSearch;
+	private final OneToManyPathSearch toDropoffPathSearch;
+	private final OneToManyPathSearch fromDropoffPathSearch;
+
+	private final double stopDuration;
+
+	DetourPathCalculator(Network network, TravelTime travelTime, TravelDisutility travelDisutility,
+			double stopDuration) {
+		toPickupPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
+		fromPickupPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
+		toDropoffPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
+		fromDropoffPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
+		this.stopDuration = stopDuration;
+	}
+
+	/**
+	 * @param executor runs the four path searches (e.g. {@code Runnable::run} to run them in the calling thread)
+	 */
+	PathDataProvider calcPathData(DrtRequest drtRequest, DetourLinksSet detourLinksSet, Executor executor) {
+		Link pickup = drtRequest.getFromLink();
+		Link dropoff = drtRequest.getToLink();
+
+		double earliestPickupTime = drtRequest.getEarliestStartTime(); // optimistic
+		double minTravelTime = 15 * 60; // FIXME inaccurate temp solution: fixed 15 min
+		double earliestDropoffTime = earliestPickupTime + minTravelTime + stopDuration;
+
+		// with vehicle insertion filtering -- pathsToPickup is the most computationally demanding task, while
+		// pathsFromDropoff is the least demanding one
+
+		// highest computation time (approx. 45% total CPU time)
+		CompletableFuture<Map<Id<Link>, PathData>> pathsToPickupFuture = CompletableFuture.supplyAsync(() -> {
+			// calc backward dijkstra from pickup to ends of selected stops + starts
+			return toPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourStartLinks.values(),
+					earliestPickupTime);
+		}, executor);
+
+		// medium computation time (approx. 25% total CPU time)
+		CompletableFuture<Map<Id<Link>, PathData>> pathsFromPickupFuture = CompletableFuture.supplyAsync(() -> {
+			// calc forward dijkstra from pickup to beginnings of selected stops + dropoff
+			return fromPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourEndLinks.values(),
+					earliestPickupTime);
+		}, executor);
+
+		// medium computation time (approx. 25% total CPU time)
+		CompletableFuture<Map<Id<Link>, PathData>> pathsToDropoffFuture = CompletableFuture.supplyAsync(() -> {
+			// calc backward dijkstra from dropoff to ends of selected stops
+			return toDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourStartLinks.values(),
+					earliestDropoffTime);
+		}, executor);
+
+		// lowest computation time (approx. 5% total CPU time)
+		CompletableFuture<Map<Id<Link>, PathData>> pathsFromDropoffFuture = CompletableFuture.supplyAsync(() -> {
+			// calc forward dijkstra from dropoff to beginnings of selected stops
+			return fromDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourEndLinks.values(),
+					earliestDropoffTime);
+		}, executor);
+
+		// start from earliest (fastest) to latest (slowest)
+		Map<Id<Link>, PathData> pathsFromDropoffMap = pathsFromDropoffFuture.join();
+		Map<Id<Link>, PathData> pathsToDropoffMap = pathsToDropoffFuture.join();
+		Map<Id<Link>, PathData> pathsFromPickupMap = pathsFromPickupFuture.join();
+		Map<Id<Link>, PathData> pathsToPickupMap = pathsToPickupFuture.join();
+
+		return (request, vEntry) -> PrecalculablePathDataProvider.getPathDataSet(request, vEntry, pathsToPickupMap,
+				pathsFromPickupMap, pathsToDropoffMap, pathsFromDropoffMap);
+	}
+}
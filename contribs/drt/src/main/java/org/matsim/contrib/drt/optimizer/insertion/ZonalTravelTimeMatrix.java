@@ -0,0 +1,267 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.priorityqueue.ArrayIndex;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Lower bounds of the travel times between zones, i.e. sets of nodes, used to estimate detour times without a path
+ * search. Usually, the zones are the cells of a square grid laid over the nodes where requests can start and end (see
+ * {@link #createGridMatrix}). The entry for two zones is the shortest travel time from any node of the first zone to
+ * any node of the second one (0 within a zone), calculated with one multi-source search per zone, which stops once all
+ * zone nodes are reached. The matrix is recalculated once the update period has passed, with the travel times (usually
+ * those of the DvrpTravelTimeEstimator) at the time of the update.
+ * <p></p>
+ * Since the estimates never exceed the travel time of the actual path (given the link travel times used for the
+ * update), they can be used for filtering out infeasible insertions. Zones that cannot be reached from each other, and
+ * nodes outside of all zones, have the estimate 0.
+ */
+public class ZonalTravelTimeMatrix implements DetourTimeEstimator {
+	private static final Logger log = Logger.getLogger(ZonalTravelTimeMatrix.class);
+
+	// the matrix takes 4 bytes per pair of zones, i.e. at most 1 GiB
+	static final int MAX_ZONE_COUNT = 1 << 14;
+
+	/**
+	 * @param zoneNodes the nodes that get a cell, e.g. the nodes of all stop links; all other nodes have the estimate 0
+	 */
+	public static ZonalTravelTimeMatrix createGridMatrix(Network network, Collection<? extends Node> zoneNodes,
+			TravelTime travelTime, double cellSize, double updatePeriod) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		for (Node n : zoneNodes) {
+			minX = Math.min(minX, n.getCoord().getX());
+			minY = Math.min(minY, n.getCoord().getY());
+			maxX = Math.max(maxX, n.getCoord().getX());
+		}
+
+		// only the cells with nodes are zones
+		long cols = (long)((maxX - minX) / cellSize) + 1;
+		Map<Long, List<Node>> cells = new HashMap<>();
+		List<List<Node>> zones = new ArrayList<>();
+		for (Node n : zoneNodes) {
+			long col = (long)((n.getCoord().getX() - minX) / cellSize);
+			long row = (long)((n.getCoord().getY() - minY) / cellSize);
+			cells.computeIfAbsent(row * cols + col, k -> {
+				List<Node> zone = new ArrayList<>();
+				zones.add(zone);
+				return zone;
+			}).add(n);
+		}
+		if (zones.size() > MAX_ZONE_COUNT) {
+			throw new IllegalArgumentException(tooManyZonesMessage(zones.size())
+					+ " Increase the cell size (currently " + cellSize + " m)");
+		}
+		return new ZonalTravelTimeMatrix(network, travelTime, zones, updatePeriod);
+	}
+
+	private final TravelTime travelTime;
+	private final double updatePeriod;
+
+	private final Link[] links;
+	private final int[] linkToNodes;
+	private final int[] firstOutLink;// per node, into outLinks; (n + 1) entries
+	private final int[] outLinks;
+	private final ArrayIndex[] nodeHandles;
+
+	private final int[] nodeIndices;// by Id.index(); -1 if not in the network
+	private final int[] nodeZones;// -1 if not in any zone
+	private final int[][] zoneNodes;
+	private final int zoneNodeCount;
+	private final int zoneCount;
+
+	private volatile float[] travelTimes;// zoneCount x zoneCount, row = from zone; infinity if unreachable
+	private double nextUpdateTime = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * @param zones the nodes of every zone; a node must not be part of several zones
+	 */
+	public ZonalTravelTimeMatrix(Network network, TravelTime travelTime, List<? extends Collection<? extends Node>> zones,
+			double updatePeriod) {
+		this.travelTime = travelTime;
+		this.updatePeriod = updatePeriod;
+
+		zoneCount = zones.size();
+		if (zoneCount > MAX_ZONE_COUNT) {
+			throw new IllegalArgumentException(tooManyZonesMessage(zoneCount) + " Use fewer zones");
+		}
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		int maxIdIndex = -1;
+		for (Node n : nodes) {
+			maxIdIndex = Math.max(maxIdIndex, n.getId().index());
+		}
+		nodeIndices = new int[maxIdIndex + 1];
+		Arrays.fill(nodeIndices, -1);
+		for (int i = 0; i < nodes.length; i++) {
+			nodeIndices[nodes[i].getId().index()] = i;
+		}
+		nodeHandles = ArrayIndex.createIndices(nodes.length);
+
+		nodeZones = new int[nodes.length];
+		Arrays.fill(nodeZones, -1);
+		zoneNodes = new int[zoneCount][];
+		int count = 0;
+		for (int z = 0; z < zoneCount; z++) {
+			zoneNodes[z] = zones.get(z).stream().mapToInt(this::getNodeIndex).toArray();
+			for (int n : zoneNodes[z]) {
+				if (n < 0) {
+					throw new IllegalArgumentException("A node of zone " + z + " is not part of the network");
+				}
+				if (nodeZones[n] >= 0) {
+					throw new IllegalArgumentException(
+							"Node " + nodes[n].getId() + " is part of zones " + nodeZones[n] + " and " + z);
+				}
+				nodeZones[n] = z;
+				count++;
+			}
+		}
+		zoneNodeCount = count;
+
+		links = network.getLinks().values().toArray(new Link[0]);
+		int[] linkFromNodes = new int[links.length];
+		linkToNodes = new int[links.length];
+		firstOutLink = new int[nodes.length + 1];
+		for (int l = 0; l < links.length; l++) {
+			linkFromNodes[l] = nodeIndices[links[l].getFromNode().getId().index()];
+			linkToNodes[l] = nodeIndices[links[l].getToNode().getId().index()];
+			firstOutLink[linkFromNodes[l] + 1]++;
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			firstOutLink[i + 1] += firstOutLink[i];
+		}
+		outLinks = new int[links.length];
+		int[] next = Arrays.copyOf(firstOutLink, nodes.length);
+		for (int l = 0; l < links.length; l++) {
+			outLinks[next[linkFromNodes[l]]++] = l;
+		}
+	}
+
+	private static String tooManyZonesMessage(int zoneCount) {
+		return "The travel time matrix would have " + zoneCount + " zones and take " + (4L * zoneCount * zoneCount
+				>> 20) + " MB, at most " + MAX_ZONE_COUNT + " zones (" + (4L * MAX_ZONE_COUNT * MAX_ZONE_COUNT >> 20)
+				+ " MB) are supported.";
+	}
+
+	/**
+	 * Recalculates the matrix if the update period has passed since the last calculation.
+	 */
+	public void updateIfDue(double now, ForkJoinPool forkJoinPool) {
+		if (now < nextUpdateTime) {
+			return;
+		}
+		nextUpdateTime = now + updatePeriod;
+
+		double[] linkTravelTimes = new double[links.length];
+		for (int l = 0; l < links.length; l++) {
+			linkTravelTimes[l] = travelTime.getLinkTravelTime(links[l], now, null, null);
+		}
+
+		float[] newTravelTimes = new float[zoneCount * zoneCount];
+		forkJoinPool.submit(() -> IntStream.range(0, zoneCount).parallel().forEach(fromZone -> {
+			double[] nodeTimes = calcTravelTimesFromZone(fromZone, linkTravelTimes);
+			int offset = fromZone * zoneCount;
+			for (int toZone = 0; toZone < zoneCount; toZone++) {
+				double minTime = Double.POSITIVE_INFINITY;
+				for (int n : zoneNodes[toZone]) {
+					minTime = Math.min(minTime, nodeTimes[n]);
+				}
+				newTravelTimes[offset + toZone] = roundDown(minTime);
+			}
+		})).join();
+		travelTimes = newTravelTimes;
+		log.info("Zonal travel time matrix with " + zoneCount + " zones updated at " + now);
+	}
+
+	/**
+	 * Dijkstra starting at all nodes of the zone, until all nodes of all zones are reached.
+	 */
+	private double[] calcTravelTimesFromZone(int zone, double[] linkTravelTimes) {
+		double[] nodeTimes = new double[nodeZones.length];
+		Arrays.fill(nodeTimes, Double.POSITIVE_INFINITY);
+		BinaryMinHeap<ArrayIndex> heap = new BinaryMinHeap<>(nodeZones.length);
+		for (int n : zoneNodes[zone]) {
+			nodeTimes[n] = 0;
+			heap.add(nodeHandles[n], 0);
+		}
+		int remainingZoneNodes = zoneNodeCount;
+		while (!heap.isEmpty()) {
+			int n = heap.poll().getArrayIndex();
+			if (nodeZones[n] >= 0 && --remainingZoneNodes == 0) {
+				break;
+			}
+			double time = nodeTimes[n];
+			for (int i = firstOutLink[n]; i < firstOutLink[n + 1]; i++) {
+				int l = outLinks[i];
+				int toNode = linkToNodes[l];
+				double toNodeTime = time + linkTravelTimes[l];
+				if (toNodeTime < nodeTimes[toNode]) {
+					nodeTimes[toNode] = toNodeTime;
+					heap.decreaseKey(nodeHandles[toNode], toNodeTime);
+				}
+			}
+		}
+		return nodeTimes;
+	}
+
+	private static float roundDown(double time) {
+		float f = (float)time;
+		return f > time ? Math.nextDown(f) : f;
+	}
+
+	@Override
+	public double estimateTime(Link from, Link to) {
+		int fromNode = getNodeIndex(from.getToNode());
+		int toNode = getNodeIndex(to.getFromNode());
+		if (fromNode < 0 || toNode < 0 || nodeZones[fromNode] < 0 || nodeZones[toNode] < 0) {
+			return 0;
+		}
+		float time = travelTimes[nodeZones[fromNode] * zoneCount + nodeZones[toNode]];
+		return time == Float.POSITIVE_INFINITY ? 0 : time;
+	}
+
+	/**
+	 * @return the lower bound of the travel time between the zones (given in the order of the constructor), or
+	 * infinity if the second zone cannot be reached from the first one
+	 */
+	public double getTravelTime(int fromZone, int toZone) {
+		return travelTimes[fromZone * zoneCount + toZone];
+	}
+
+	private int getNodeIndex(Node node) {
+		int index = node.getId().index();
+		return index < nodeIndices.length ? nodeIndices[index] : -1;
+	}
+}
@@ -20,8 +20,10 @@ package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToIntBiFunction;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
@@ -31,6 +33,7 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
 import org.matsim.contrib.drt.optimizer.rebalancing.RebalancingStrategy.Relocation;
+import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.TransportProblem.Solver;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.schedule.Schedules;
@@ -46,18 +49,32 @@ import com.google.inject.name.Named;
 public class AggregatedMinCostRelocationCalculator implements MinCostRelocationCalculator {
 	private final DrtZonalSystem zonalSystem;
 	private final Network network;
+	private final ToIntBiFunction<String, String> costFunction;
+	private final Solver solver;
+	private final Map<String, Link> destinationLinks = new HashMap<>();
 
 	public AggregatedMinCostRelocationCalculator(DrtZonalSystem zonalSystem,
 			@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network) {
+		this(zonalSystem, network, null, Solver.SUCCESSIVE_SHORTEST_PATHS);
+	}
+
+	/**
+	 * @param costFunction zone-to-zone relocation costs; if null, the straight line distances between the zone
+	 *                     centroids are used
+	 */
+	public AggregatedMinCostRelocationCalculator(DrtZonalSystem zonalSystem, Network network,
+			ToIntBiFunction<String, String> costFunction, Solver solver) {
 		this.zonalSystem = zonalSystem;
 		this.network = network;
+		this.costFunction = costFunction != null ? costFunction : this::calcStraightLineDistance;
+		this.solver = solver;
 	}
 
 	@Override
 	public List<Relocation> calcRelocations(List<Pair<String, Integer>> supply, List<Pair<String, Integer>> demand,
 			Map<String, List<DvrpVehicle>> rebalancableVehiclesPerZone) {
 		List<Triple<String, String, Integer>> interZonalRelocations = new TransportProblem<String, String>(
-				this::calcStraightLineDistance).solve(supply, demand);
+				costFunction, solver).solve(supply, demand);
 		return calcRelocations(rebalancableVehiclesPerZone, interZonalRelocations);
 	}
 
@@ -72,10 +89,7 @@ public class AggregatedMinCostRelocationCalculator implements MinCostRelocationC
 		for (Triple<String, String, Integer> r : interZonalRelocations) {
 			List<DvrpVehicle> rebalancableVehicles = rebalancableVehiclesPerZone.get(r.getLeft());
 
-			String toZone = r.getMiddle();
-			Geometry z = zonalSystem.getZone(toZone);
-			Coord zoneCentroid = MGC.point2Coord(z.getCentroid());
-			Link destinationLink = NetworkUtils.getNearestLink(network, zoneCentroid);
+			Link destinationLink = destinationLinks.computeIfAbsent(r.getMiddle(), this::findDestinationLink);
 
 			int flow = r.getRight();
 			for (int f = 0; f < flow; f++) {
@@ -88,6 +102,12 @@ public class AggregatedMinCostRelocationCalculator implements MinCostRelocationC
 		return relocations;
 	}
 
+	private Link findDestinationLink(String zone) {
+		Geometry z = zonalSystem.getZone(zone);
+		Coord zoneCentroid = MGC.point2Coord(z.getCentroid());
+		return NetworkUtils.getNearestLink(network, zoneCentroid);
+	}
+
 	private DvrpVehicle findNearestVehicle(List<DvrpVehicle> rebalancableVehicles, Link destinationLink) {
 		Coord toCoord = destinationLink.getFromNode().getCoord();
 		return rebalancableVehicles.stream().min(Comparator.comparing(v -> DistanceUtils.calculateSquaredDistance(//
@@ -20,17 +20,23 @@
 
 package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
+import java.util.function.ToIntBiFunction;
+
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
 import org.matsim.contrib.drt.analysis.zonal.ZonalDemandAggregator;
 import org.matsim.contrib.drt.optimizer.rebalancing.RebalancingStrategy;
+import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.MinCostFlowRebalancingParams.RelocationCost;
 import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.MinCostFlowRebalancingStrategy.RebalancingTargetCalculator;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.dvrp.fleet.Fleet;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeModule;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
+import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.router.util.TravelTime;
 
 /**
  * @author michalm
@@ -60,10 +66,24 @@ public class DrtModeMinCostFlowRebalancingModule extends AbstractDvrpModeModule
 						getter -> new LinearRebalancingTargetCalculator(getter.getModal(ZonalDemandAggregator.class),
 								params))).asEagerSingleton();
 
-				bindModal(MinCostRelocationCalculator.class).toProvider(modalProvider(
-						getter -> new AggregatedMinCostRelocationCalculator(getter.getModal(DrtZonalSystem.class),
-								getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING))))
-						.asEagerSingleton();
+				if (params.getRelocationCost() == RelocationCost.TRAVEL_TIME) {
+					addModalComponent(ZonalTravelTimeCache.class, modalProvider(
+							getter -> new ZonalTravelTimeCache(getter.getModal(DrtZonalSystem.class),
+									getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING),
+									getter.getNamed(TravelTime.class, DvrpTravelTimeModule.DVRP_ESTIMATED),
+									getter.get(MobsimTimer.class), params.getTravelTimeBinSize(),
+									drtCfg.getNumberOfThreads())));
+				}
+
+				bindModal(MinCostRelocationCalculator.class).toProvider(modalProvider(getter -> {
+					ToIntBiFunction<String, String> costFunction = null;// straight line distance
+					if (params.getRelocationCost() == RelocationCost.TRAVEL_TIME) {
+						costFunction = getter.getModal(ZonalTravelTimeCache.class);
+					}
+					return new AggregatedMinCostRelocationCalculator(getter.getModal(DrtZonalSystem.class),
+							getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING), costFunction,
+							params.getSolver());
+				})).asEagerSingleton();
 			}
 		});
 
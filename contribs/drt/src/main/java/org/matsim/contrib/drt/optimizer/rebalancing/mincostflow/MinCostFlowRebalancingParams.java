@@ -20,9 +20,11 @@ package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
 
 import java.util.Map;
 
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
+import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.TransportProblem.Solver;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ReflectiveConfigGroup;
 
@@ -58,6 +60,27 @@ public final class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	static final String CELL_SIZE_EXP = "size of square cells used for demand aggregation."
 			+ " Depends on demand, supply and network. Often used with values in the range of 500 - 2000 m";
 
+	public static final String SOLVER = "solver";
+	static final String SOLVER_EXP = "Specifies the algorithm used to solve the zonal transport problem."
+			+ " SUCCESSIVE_SHORTEST_PATHS becomes slow for more than a few hundred zones with surplus or deficit"
+			+ " of vehicles, NETWORK_SIMPLEX scales to thousands of zones. The default value is"
+			+ " SUCCESSIVE_SHORTEST_PATHS.";
+
+	public enum RelocationCost {
+		STRAIGHT_LINE_DISTANCE, TRAVEL_TIME
+	}
+
+	public static final String RELOCATION_COST = "relocationCost";
+	static final String RELOCATION_COST_EXP = "Cost of relocating vehicles between two zones."
+			+ " STRAIGHT_LINE_DISTANCE is the distance between the zone centroids, TRAVEL_TIME is the current"
+			+ " travel time between the zone centroids (cached for 'travelTimeBinSize')."
+			+ " The default value is STRAIGHT_LINE_DISTANCE.";
+
+	public static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
+	static final String TRAVEL_TIME_BIN_SIZE_EXP = "Used only with relocationCost=TRAVEL_TIME. Specifies for how"
+			+ " long the zone-to-zone travel times are reused before they are calculated again. Must be positive."
+			+ " Default is 3600 s.";
+
 	@Positive
 	private int interval = 1800;// [s]
 
@@ -76,6 +99,15 @@ public final class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	@Positive
 	private double cellSize = Double.NaN;// [m]
 
+	@NotNull
+	private Solver solver = Solver.SUCCESSIVE_SHORTEST_PATHS;
+
+	@NotNull
+	private RelocationCost relocationCost = RelocationCost.STRAIGHT_LINE_DISTANCE;
+
+	@Positive
+	private double travelTimeBinSize = 3600;// [s]
+
 	public MinCostFlowRebalancingParams() {
 		super(SET_NAME);
 	}
@@ -100,6 +132,9 @@ public final class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 		map.put(TARGET_ALPHA, TARGET_ALPHA_EXP);
 		map.put(TARGET_BETA, TARGET_BETA_EXP);
 		map.put(CELL_SIZE, CELL_SIZE_EXP);
+		map.put(SOLVER, SOLVER_EXP);
+		map.put(RELOCATION_COST, RELOCATION_COST_EXP);
+		map.put(TRAVEL_TIME_BIN_SIZE, TRAVEL_TIME_BIN_SIZE_EXP);
 		return map;
 	}
 
@@ -198,4 +233,52 @@ public final class MinCostFlowRebalancingParams extends ReflectiveConfigGroup {
 	public void setCellSize(double cellSize) {
 		this.cellSize = cellSize;
 	}
+
+	/**
+	 * @return -- {@value #SOLVER_EXP}
+	 */
+	@StringGetter(SOLVER)
+	public Solver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * @param solver -- {@value #SOLVER_EXP}
+	 */
+	@StringSetter(SOLVER)
+	public void setSolver(Solver solver) {
+		this.solver = solver;
+	}
+
+	/**
+	 * @return -- {@value #RELOCATION_COST_EXP}
+	 */
+	@StringGetter(RELOCATION_COST)
+	public RelocationCost getRelocationCost() {
+		return relocationCost;
+	}
+
+	/**
+	 * @param relocationCost -- {@value #RELOCATION_COST_EXP}
+	 */
+	@StringSetter(RELOCATION_COST)
+	public void setRelocationCost(RelocationCost relocationCost) {
+		this.relocationCost = relocationCost;
+	}
+
+	/**
+	 * @return -- {@value #TRAVEL_TIME_BIN_SIZE_EXP}
+	 */
+	@StringGetter(TRAVEL_TIME_BIN_SIZE)
+	public double getTravelTimeBinSize() {
+		return travelTimeBinSize;
+	}
+
+	/**
+	 * @param travelTimeBinSize -- {@value #TRAVEL_TIME_BIN_SIZE_EXP}
+	 */
+	@StringSetter(TRAVEL_TIME_BIN_SIZE)
+	public void setTravelTimeBinSize(double travelTimeBinSize) {
+		this.travelTimeBinSize = travelTimeBinSize;
+	}
 }
@@ -0,0 +1,325 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import java.util.Arrays;
+
+/**
+ * Primal network simplex for the (unbalanced) transportation problem: ship min(total supply, total demand) units from
+ * the producers to the consumers at minimum total cost. The producer-consumer arcs are uncapacitated. The problem is
+ * balanced with a dummy producer or consumer, connected at zero cost.
+ * <p></p>
+ * The initial basis consists of artificial arcs (with a big-M cost) between each node and an artificial root. Entering
+ * arcs are chosen by block search pricing, leaving arcs by the rule for strongly feasible trees, which prevents cycling
+ * on degenerate pivots. The spanning tree is kept as parent pointers plus tree adjacency lists, and the potentials are
+ * updated only in the subtree that is re-hung in a pivot.
+ * <p></p>
+ * With P producers and C consumers, a pivot takes O(P + C + sqrt(P * C)) time, and typically O(P + C) pivots are
+ * needed.
+ */
+final class TransportNetworkSimplex {
+	private final int producers;// incl. dummy
+	private final int consumers;// incl. dummy
+	private final int[][] costs;// without dummies
+	private final int realArcs;
+	private final int root;
+	private final long artificialCost;
+
+	// arcs: real arcs (i * consumers + j) followed by one artificial arc per node (realArcs + node)
+	private final int[] flows;
+
+	// spanning tree
+	private final int[] parent;
+	private final int[] pred;
+	private final boolean[] predUp;// pred arc directed from node to parent
+	private final long[] potentials;
+	private final int[][] treeArcs;
+	private final int[] treeArcCounts;
+
+	private final int[] marks;
+	private int mark = 0;
+
+	private final int blockSize;
+	private int nextArc = 0;
+
+	/**
+	 * @param supply positive supply of each producer
+	 * @param demand positive demand of each consumer
+	 * @param costs  non-negative costs, supply.length x demand.length
+	 */
+	TransportNetworkSimplex(int[] supply, int[] demand, int[][] costs) {
+		this.costs = costs;
+		long totalSupply = Arrays.stream(supply).asLongStream().sum();
+		long totalDemand = Arrays.stream(demand).asLongStream().sum();
+		producers = supply.length + (totalDemand > totalSupply ? 1 : 0);
+		consumers = demand.length + (totalSupply > totalDemand ? 1 : 0);
+		realArcs = producers * consumers;
+		root = producers + consumers;
+
+		int maxCost = 0;
+		for (int[] row : costs) {
+			for (int c : row) {
+				maxCost = Math.max(maxCost, c);
+			}
+		}
+		artificialCost = (maxCost + 1L) * (root + 1);
+
+		flows = new int[realArcs + root];
+		parent = new int[root + 1];
+		pred = new int[root + 1];
+		predUp = new boolean[root + 1];
+		potentials = new long[root + 1];
+		treeArcs = new int[root + 1][];
+		treeArcCounts = new int[root + 1];
+		marks = new int[root + 1];
+		blockSize = Math.max((int)Math.sqrt(realArcs + root), 10);
+
+		treeArcs[root] = new int[root];
+		parent[root] = -1;
+		pred[root] = -1;
+		for (int v = 0; v < root; v++) {
+			int arc = realArcs + v;
+			boolean producer = v < producers;
+			int amount;
+			if (producer) {
+				amount = v < supply.length ? supply[v] : (int)(totalDemand - totalSupply);
+			} else {
+				int j = v - producers;
+				amount = j < demand.length ? demand[j] : (int)(totalSupply - totalDemand);
+			}
+			flows[arc] = amount;
+			parent[v] = root;
+			pred[v] = arc;
+			predUp[v] = producer;
+			potentials[v] = producer ? -artificialCost : artificialCost;
+			treeArcs[v] = new int[] { arc };
+			treeArcCounts[v] = 1;
+			treeArcs[root][treeArcCounts[root]++] = arc;
+		}
+	}
+
+	/**
+	 * @return total cost of the optimal flow
+	 */
+	long solve() {
+		int in;
+		while ((in = findEnteringArc()) >= 0) {
+			pivot(in);
+		}
+
+		for (int v = 0; v < root; v++) {
+			if (flows[realArcs + v] > 0) {
+				throw new IllegalStateException("Artificial arc with positive flow in the optimal solution");
+			}
+		}
+
+		long totalCost = 0;
+		for (int i = 0; i < costs.length; i++) {
+			for (int j = 0; j < costs[i].length; j++) {
+				totalCost += (long)flows[i * consumers + j] * costs[i][j];
+			}
+		}
+		return totalCost;
+	}
+
+	/**
+	 * @return flow from producer i to consumer j (after {@link #solve()})
+	 */
+	int getFlow(int i, int j) {
+		return flows[i * consumers + j];
+	}
+
+	private int source(int arc) {
+		if (arc < realArcs) {
+			return arc / consumers;
+		}
+		int v = arc - realArcs;
+		return predUpInitially(v) ? v : root;
+	}
+
+	private int target(int arc) {
+		if (arc < realArcs) {
+			return producers + arc % consumers;
+		}
+		int v = arc - realArcs;
+		return predUpInitially(v) ? root : v;
+	}
+
+	private boolean predUpInitially(int v) {
+		return v < producers;// artificial arcs: producer -> root, root -> consumer
+	}
+
+	private long cost(int arc) {
+		if (arc >= realArcs) {
+			return artificialCost;
+		}
+		int i = arc / consumers;
+		int j = arc % consumers;
+		return i < costs.length && j < costs[i].length ? costs[i][j] : 0;
+	}
+
+	private long reducedCost(int arc) {
+		return cost(arc) + potentials[source(arc)] - potentials[target(arc)];
+	}
+
+	// block search pricing; non-tree arcs have zero flow, tree arcs have zero reduced cost
+	private int findEnteringArc() {
+		int arcs = realArcs + root;
+		int bestArc = -1;
+		long bestReducedCost = 0;
+		int counter = 0;
+		for (int k = 0; k < arcs; k++) {
+			int arc = nextArc;
+			nextArc = nextArc + 1 == arcs ? 0 : nextArc + 1;
+			long rc = reducedCost(arc);
+			if (rc < bestReducedCost) {
+				bestReducedCost = rc;
+				bestArc = arc;
+			}
+			if (++counter == blockSize) {
+				if (bestArc >= 0) {
+					return bestArc;
+				}
+				counter = 0;
+			}
+		}
+		return bestArc;
+	}
+
+	private void pivot(int in) {
+		int s = source(in);
+		int t = target(in);
+		int join = findJoin(s, t);
+
+		// leaving arc: the last blocking arc on the cycle oriented along "in" and starting at join
+		// (only arcs against the orientation block, as the arcs are uncapacitated)
+		long delta = Long.MAX_VALUE;
+		int out = -1;
+		boolean outOnSourceSide = false;
+		for (int u = s; u != join; u = parent[u]) {
+			if (predUp[u] && flows[pred[u]] < delta) {
+				delta = flows[pred[u]];
+				out = u;
+				outOnSourceSide = true;
+			}
+		}
+		for (int u = t; u != join; u = parent[u]) {
+			if (!predUp[u] && flows[pred[u]] <= delta) {
+				delta = flows[pred[u]];
+				out = u;
+				outOnSourceSide = false;
+			}
+		}
+		if (out < 0) {
+			throw new IllegalStateException("Unbounded transport problem");
+		}
+
+		if (delta > 0) {
+			int d = (int)delta;
+			flows[in] += d;
+			for (int u = s; u != join; u = parent[u]) {
+				flows[pred[u]] += predUp[u] ? -d : d;
+			}
+			for (int u = t; u != join; u = parent[u]) {
+				flows[pred[u]] += predUp[u] ? d : -d;
+			}
+		}
+
+		long rc = reducedCost(in);
+		removeTreeArc(out, pred[out]);
+		removeTreeArc(parent[out], pred[out]);
+		addTreeArc(s, in);
+		addTreeArc(t, in);
+
+		// re-hang the subtree of "out" below the other end of "in", reversing the path from x up to "out"
+		int x = outOnSourceSide ? s : t;
+		int p = outOnSourceSide ? t : s;
+		int a = in;
+		boolean up = outOnSourceSide;// s -> t points up if s is the child
+		int v = x;
+		while (true) {
+			int oldParent = parent[v];
+			int oldPred = pred[v];
+			boolean oldUp = predUp[v];
+			parent[v] = p;
+			pred[v] = a;
+			predUp[v] = up;
+			if (v == out) {
+				break;
+			}
+			p = v;
+			a = oldPred;
+			up = !oldUp;
+			v = oldParent;
+		}
+
+		shiftPotentials(x, outOnSourceSide ? -rc : rc);
+	}
+
+	private int findJoin(int s, int t) {
+		mark++;
+		for (int u = s; u >= 0; u = parent[u]) {
+			marks[u] = mark;
+		}
+		int u = t;
+		while (marks[u] != mark) {
+			u = parent[u];
+		}
+		return u;
+	}
+
+	private void shiftPotentials(int subtreeRoot, long shift) {
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = subtreeRoot;
+		while (size > 0) {
+			int v = stack[--size];
+			potentials[v] += shift;
+			for (int k = 0; k < treeArcCounts[v]; k++) {
+				int arc = treeArcs[v][k];
+				if (arc != pred[v]) {
+					if (size == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * size);
+					}
+					int s = source(arc);
+					stack[size++] = s == v ? target(arc) : s;
+				}
+			}
+		}
+	}
+
+	private void addTreeArc(int v, int arc) {
+		if (treeArcCounts[v] == treeArcs[v].length) {
+			treeArcs[v] = Arrays.copyOf(treeArcs[v], 2 * treeArcs[v].length + 1);
+		}
+		treeArcs[v][treeArcCounts[v]++] = arc;
+	}
+
+	private void removeTreeArc(int v, int arc) {
+		int[] arcs = treeArcs[v];
+		for (int k = 0; k < treeArcCounts[v]; k++) {
+			if (arcs[k] == arc) {
+				arcs[k] = arcs[--treeArcCounts[v]];
+				return;
+			}
+		}
+		throw new IllegalStateException("Arc " + arc + " not in tree at node " + v);
+	}
+}
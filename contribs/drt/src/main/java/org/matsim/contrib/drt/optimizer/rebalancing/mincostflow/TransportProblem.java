@@ -34,13 +34,66 @@ import graphs.flows.MinCostFlow.Edge;
  * @author michalm
  */
 public class TransportProblem<P, C> {
+	public enum Solver {
+		SUCCESSIVE_SHORTEST_PATHS, NETWORK_SIMPLEX
+	}
+
 	private final ToIntBiFunction<P, C> costFunction;
+	private final Solver solver;
 
 	public TransportProblem(ToIntBiFunction<P, C> costFunction) {
+		this(costFunction, Solver.SUCCESSIVE_SHORTEST_PATHS);
+	}
+
+	public TransportProblem(ToIntBiFunction<P, C> costFunction, Solver solver) {
 		this.costFunction = costFunction;
+		this.solver = solver;
 	}
 
 	public List<Triple<P, C, Integer>> solve(List<Pair<P, Integer>> supply, List<Pair<C, Integer>> demand) {
+		switch (solver) {
+			case SUCCESSIVE_SHORTEST_PATHS:
+				return solveWithMinCostFlow(supply, demand);
+			case NETWORK_SIMPLEX:
+				return solveWithNetworkSimplex(supply, demand);
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	private List<Triple<P, C, Integer>> solveWithNetworkSimplex(List<Pair<P, Integer>> supply,
+			List<Pair<C, Integer>> demand) {
+		if (supply.isEmpty() || demand.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		int[] supplyValues = supply.stream().mapToInt(Pair::getValue).toArray();
+		int[] demandValues = demand.stream().mapToInt(Pair::getValue).toArray();
+		int[][] costs = new int[supply.size()][demand.size()];
+		for (int i = 0; i < supply.size(); i++) {
+			P producer = supply.get(i).getKey();
+			for (int j = 0; j < demand.size(); j++) {
+				costs[i][j] = costFunction.applyAsInt(producer, demand.get(j).getKey());
+			}
+		}
+
+		TransportNetworkSimplex simplex = new TransportNetworkSimplex(supplyValues, demandValues, costs);
+		simplex.solve();
+
+		List<Triple<P, C, Integer>> flows = new ArrayList<>();
+		for (int i = 0; i < supply.size(); i++) {
+			for (int j = 0; j < demand.size(); j++) {
+				int flow = simplex.getFlow(i, j);
+				if (flow > 0) {
+					flows.add(Triple.of(supply.get(i).getKey(), demand.get(j).getKey(), flow));
+				}
+			}
+		}
+		return flows;
+	}
+
+	private List<Triple<P, C, Integer>> solveWithMinCostFlow(List<Pair<P, Integer>> supply,
+			List<Pair<C, Integer>> demand) {
 		final int P = supply.size();
 		final int C = demand.size();
 		final int N = P + C + 2;
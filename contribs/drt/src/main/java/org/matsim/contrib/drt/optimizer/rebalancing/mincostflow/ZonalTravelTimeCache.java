@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntBiFunction;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
+import org.matsim.contrib.drt.optimizer.insertion.ZonalTravelTimeMatrix;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Travel times between the zone centroids (i.e. the nodes closest to them), used as relocation costs. They are taken
+ * from a {@link ZonalTravelTimeMatrix} over the centroid nodes, which is recalculated (in parallel) at most once per
+ * time bin, so rebalancing every few minutes does not repeat the path searches.
+ * <p></p>
+ * Should be used with the current travel times (i.e. those of the DvrpTravelTimeEstimator).
+ */
+public class ZonalTravelTimeCache implements ToIntBiFunction<String, String>, MobsimBeforeCleanupListener {
+	// for zones that cannot be reached from each other
+	static final int UNREACHABLE_TRAVEL_TIME = 24 * 3600;
+
+	private final MobsimTimer timer;
+	private final ForkJoinPool forkJoinPool;
+
+	private final Map<String, Integer> matrixZones = new HashMap<>();// zones with the same centroid node share one
+	private final ZonalTravelTimeMatrix matrix;
+
+	public ZonalTravelTimeCache(DrtZonalSystem zonalSystem, Network network, TravelTime travelTime, MobsimTimer timer,
+			double timeBinSize, int numberOfThreads) {
+		this.timer = timer;
+		this.forkJoinPool = new ForkJoinPool(numberOfThreads);
+
+		Map<Node, Integer> nodeZones = new HashMap<>();
+		List<Set<Node>> centroidNodes = new ArrayList<>();
+		for (String zone : zonalSystem.getZones().keySet()) {
+			Node node = NetworkUtils.getNearestNode(network, zonalSystem.getZoneCentroid(zone));
+			matrixZones.put(zone, nodeZones.computeIfAbsent(node, n -> {
+				centroidNodes.add(Collections.singleton(n));
+				return centroidNodes.size() - 1;
+			}));
+		}
+		matrix = new ZonalTravelTimeMatrix(network, travelTime, centroidNodes, timeBinSize);
+	}
+
+	@Override
+	public int applyAsInt(String fromZone, String toZone) {
+		matrix.updateIfDue(timer.getTimeOfDay(), forkJoinPool);
+		double time = matrix.getTravelTime(matrixZones.get(fromZone), matrixZones.get(toZone));
+		return time == Double.POSITIVE_INFINITY ? UNREACHABLE_TRAVEL_TIME : (int)time;
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(@SuppressWarnings("rawtypes") MobsimBeforeCleanupEvent e) {
+		forkJoinPool.shutdown();
+	}
+}
@@ -121,7 +121,35 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 	static final String NUMBER_OF_THREADS_EXP =
 			"Number of threads used for parallel evaluation of request insertion into existing schedules."
 					+ " Scales well up to 4, due to path data provision, the most computationally intensive part,"
-					+ " using up to 4 threads. Default value is 'min(4, no. of cores available to JVM)'";
+					+ " using up to 4 threads (unless batchInsertion is enabled, which scales with the number of"
+					+ " requests per optimisation step). Default value is 'min(4, no. of cores available to JVM)'";
+
+	public static final String BATCH_INSERTION = "batchInsertion";
+	static final String BATCH_INSERTION_EXP =
+			"If true, all requests submitted in one optimisation step are evaluated in parallel (one thread per request),"
+					+ " with the detour times bounded from below by a zonal travel time matrix, and then scheduled in their"
+					+ " order. Recommended for large fleets and high demand, with numberOfThreads higher than 4."
+					+ " False by default.";
+
+	public static final String NEAREST_VEHICLES_LIMIT = "nearestVehiclesLimit";
+	static final String NEAREST_VEHICLES_LIMIT_EXP =
+			"Limits the number of vehicles considered for inserting a request to the 'nearestVehiclesLimit' vehicles"
+					+ " nearest to the pickup location (straight line to the current location, diversion point or any"
+					+ " scheduled stop of a vehicle). Used to speed up computations for large fleets, at the cost of"
+					+ " more rejections when the nearest vehicles are busy (e.g. at peak times, only distant idle"
+					+ " vehicles may be able to serve a request), so the limit should be checked against a run without it."
+					+ " The default value is 0, which means that all vehicles are considered.";
+
+	public static final String TRAVEL_TIME_MATRIX_CELL_SIZE = "travelTimeMatrixCellSize";
+	static final String TRAVEL_TIME_MATRIX_CELL_SIZE_EXP =
+			"Size (in meters) of the square zones of the travel time matrix used with batchInsertion. Only zones with"
+					+ " nodes where requests can start or end (i.e. of stop links in the stopbased scheme) are used,"
+					+ " at most 16384 (the matrix then takes 1 GB). Default is 1000.";
+
+	public static final String TRAVEL_TIME_MATRIX_UPDATE_PERIOD = "travelTimeMatrixUpdatePeriod";
+	static final String TRAVEL_TIME_MATRIX_UPDATE_PERIOD_EXP =
+			"Period (in seconds) of recalculating the travel time matrix used with batchInsertion from the currently"
+					+ " estimated travel times. Default is 3600.";
 
 	@NotBlank
 	private String mode = TransportMode.drt; // travel mode (passengers'/customers' perspective)
@@ -173,6 +201,17 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 	private int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(),
 			ParallelPathDataProvider.MAX_THREADS);
 
+	private boolean batchInsertion = false;
+
+	@PositiveOrZero
+	private int nearestVehiclesLimit = 0;// 0 means no limit
+
+	@Positive
+	private double travelTimeMatrixCellSize = 1000;// [m]
+
+	@Positive
+	private double travelTimeMatrixUpdatePeriod = 3600;// [s]
+
 	public enum OperationalScheme {
 		stopbased, door2door
 	}
@@ -242,6 +281,10 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_EXP);
 		map.put(PRINT_WARNINGS, PRINT_WARNINGS_EXP);
 		map.put(REQUEST_REJECTION, REQUEST_REJECTION_EXP);
+		map.put(BATCH_INSERTION, BATCH_INSERTION_EXP);
+		map.put(NEAREST_VEHICLES_LIMIT, NEAREST_VEHICLES_LIMIT_EXP);
+		map.put(TRAVEL_TIME_MATRIX_CELL_SIZE, TRAVEL_TIME_MATRIX_CELL_SIZE_EXP);
+		map.put(TRAVEL_TIME_MATRIX_UPDATE_PERIOD, TRAVEL_TIME_MATRIX_UPDATE_PERIOD_EXP);
 		return map;
 	}
 
@@ -533,6 +576,70 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 		this.printDetailedWarnings = printDetailedWarnings;
 	}
 
+	/**
+	 * @return -- {@value #BATCH_INSERTION_EXP}
+	 */
+	@StringGetter(BATCH_INSERTION)
+	public boolean isBatchInsertion() {
+		return batchInsertion;
+	}
+
+	/**
+	 * @param -- {@value #BATCH_INSERTION_EXP}
+	 */
+	@StringSetter(BATCH_INSERTION)
+	public void setBatchInsertion(boolean batchInsertion) {
+		this.batchInsertion = batchInsertion;
+	}
+
+	/**
+	 * @return -- {@value #NEAREST_VEHICLES_LIMIT_EXP}
+	 */
+	@StringGetter(NEAREST_VEHICLES_LIMIT)
+	public int getNearestVehiclesLimit() {
+		return nearestVehiclesLimit;
+	}
+
+	/**
+	 * @param -- {@value #NEAREST_VEHICLES_LIMIT_EXP}
+	 */
+	@StringSetter(NEAREST_VEHICLES_LIMIT)
+	public void setNearestVehiclesLimit(int nearestVehiclesLimit) {
+		this.nearestVehiclesLimit = nearestVehiclesLimit;
+	}
+
+	/**
+	 * @return -- {@value #TRAVEL_TIME_MATRIX_CELL_SIZE_EXP}
+	 */
+	@StringGetter(TRAVEL_TIME_MATRIX_CELL_SIZE)
+	public double getTravelTimeMatrixCellSize() {
+		return travelTimeMatrixCellSize;
+	}
+
+	/**
+	 * @param -- {@value #TRAVEL_TIME_MATRIX_CELL_SIZE_EXP}
+	 */
+	@StringSetter(TRAVEL_TIME_MATRIX_CELL_SIZE)
+	public void setTravelTimeMatrixCellSize(double travelTimeMatrixCellSize) {
+		this.travelTimeMatrixCellSize = travelTimeMatrixCellSize;
+	}
+
+	/**
+	 * @return -- {@value #TRAVEL_TIME_MATRIX_UPDATE_PERIOD_EXP}
+	 */
+	@StringGetter(TRAVEL_TIME_MATRIX_UPDATE_PERIOD)
+	public double getTravelTimeMatrixUpdatePeriod() {
+		return travelTimeMatrixUpdatePeriod;
+	}
+
+	/**
+	 * @param -- {@value #TRAVEL_TIME_MATRIX_UPDATE_PERIOD_EXP}
+	 */
+	@StringSetter(TRAVEL_TIME_MATRIX_UPDATE_PERIOD)
+	public void setTravelTimeMatrixUpdatePeriod(double travelTimeMatrixUpdatePeriod) {
+		this.travelTimeMatrixUpdatePeriod = travelTimeMatrixUpdatePeriod;
+	}
+
 	/**
 	 * @return 'minCostFlowRebalancing' parameter set defined in the DRT config or null if the parameters were not
 	 * specified
@@ -19,6 +19,8 @@
 
 package org.matsim.contrib.drt.scheduler;
 
+import java.util.Arrays;
+
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.schedule.DrtStayTask;
@@ -26,6 +28,7 @@ import org.matsim.contrib.drt.schedule.DrtTaskFactory;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
 import org.matsim.contrib.dvrp.path.VrpPaths;
+import org.matsim.contrib.dvrp.router.DvrpPathCache;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.schedule.Schedule;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
@@ -49,10 +52,24 @@ public class EmptyVehicleRelocator {
 	public EmptyVehicleRelocator(@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network,
 			@Named(DvrpTravelTimeModule.DVRP_ESTIMATED) TravelTime travelTime, TravelDisutility travelDisutility,
 			MobsimTimer timer, DrtTaskFactory taskFactory) {
+		this(network, travelTime, travelDisutility, timer, taskFactory, null);
+	}
+
+	/**
+	 * @param pathCache if not null, the paths are looked up in the (shared) cache first
+	 */
+	public EmptyVehicleRelocator(Network network, TravelTime travelTime, TravelDisutility travelDisutility,
+			MobsimTimer timer, DrtTaskFactory taskFactory, DvrpPathCache pathCache) {
 		this.travelTime = travelTime;
 		this.timer = timer;
 		this.taskFactory = taskFactory;
-		router = new FastAStarEuclideanFactory().createPathCalculator(network, travelDisutility, travelTime);
+		double overdoFactor = 1;// exact least cost paths
+		LeastCostPathCalculator router = new FastAStarEuclideanFactory(overdoFactor).createPathCalculator(network,
+				travelDisutility, travelTime);
+		this.router = pathCache == null ?
+				router :
+				pathCache.wrap(router, network, travelTime, travelDisutility,
+						Arrays.asList(FastAStarEuclideanFactory.class, overdoFactor));
 	}
 
 	public void relocateVehicle(DvrpVehicle vehicle, Link link) {
@@ -23,8 +23,10 @@ package org.matsim.contrib.edrt.run;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.optimizer.DefaultDrtOptimizer;
 import org.matsim.contrib.drt.optimizer.DrtOptimizer;
+import org.matsim.contrib.drt.optimizer.SpatialVehicleIndex;
 import org.matsim.contrib.drt.optimizer.VehicleData;
 import org.matsim.contrib.drt.optimizer.depot.DepotFinder;
+import org.matsim.contrib.drt.optimizer.insertion.BatchInsertionProblem;
 import org.matsim.contrib.drt.optimizer.insertion.DefaultUnplannedRequestInserter;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionCostCalculator;
 import org.matsim.contrib.drt.optimizer.insertion.ParallelPathDataProvider;
@@ -45,6 +47,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerEngine;
 import org.matsim.contrib.dvrp.passenger.PassengerEngineQSimModule;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestCreator;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestValidator;
+import org.matsim.contrib.dvrp.router.DvrpPathCache;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
 import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
@@ -125,9 +128,21 @@ public class EDrtModeQSimModule extends AbstractDvrpModeQSimModule {
 						getter.getModal(RequestInsertionScheduler.class),
 						getter.getModal(VehicleData.EntryFactory.class),
 						getter.getModal(PrecalculablePathDataProvider.class),
-						getter.getModal(InsertionCostCalculator.PenaltyCalculator.class))));
+						getter.getModal(InsertionCostCalculator.PenaltyCalculator.class),
+						drtCfg.isBatchInsertion() ? getter.getModal(BatchInsertionProblem.class) : null,
+						drtCfg.getNearestVehiclesLimit() > 0 ? getter.getModal(SpatialVehicleIndex.class) : null)));
 		bindModal(UnplannedRequestInserter.class).to(modalKey(DefaultUnplannedRequestInserter.class));
 
+		if (drtCfg.getNearestVehiclesLimit() > 0) {
+			bindModal(SpatialVehicleIndex.class).toProvider(modalProvider(getter -> new SpatialVehicleIndex(
+					getter.getNamed(Network.class, DvrpRoutingNetworkProvider.DVRP_ROUTING)))).asEagerSingleton();
+		}
+
+		if (drtCfg.isBatchInsertion()) {
+			bindModal(BatchInsertionProblem.class).toProvider(
+					new BatchInsertionProblem.BatchInsertionProblemProvider(drtCfg)).asEagerSingleton();
+		}
+
 		bindModal(VehicleData.EntryFactory.class).toProvider(
 				EDrtVehicleDataEntryFactory.EDrtVehicleDataEntryFactoryProvider.class).asEagerSingleton();
 
@@ -150,12 +165,16 @@ public class EDrtModeQSimModule extends AbstractDvrpModeQSimModule {
 					@Inject
 					private MobsimTimer timer;
 
+					@Inject
+					private DvrpPathCache pathCache;
+
 					@Override
 					public EmptyVehicleRelocator get() {
 						DrtTaskFactory taskFactory = getModalInstance(DrtTaskFactory.class);
 						TravelDisutility travelDisutility = getModalInstance(
 								TravelDisutilityFactory.class).createTravelDisutility(travelTime);
-						return new EmptyVehicleRelocator(network, travelTime, travelDisutility, timer, taskFactory);
+						return new EmptyVehicleRelocator(network, travelTime, travelDisutility, timer, taskFactory,
+								pathCache);
 					}
 				}).asEagerSingleton();
 
@@ -0,0 +1,230 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.optimizer.VehicleData.Stop;
+import org.matsim.contrib.drt.schedule.DrtStopTask;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.util.LinkTimePair;
+import org.matsim.contrib.util.distance.DistanceUtils;
+import org.matsim.core.network.NetworkUtils;
+
+import com.google.common.collect.ImmutableList;
+
+public class SpatialVehicleIndexTest {
+	private static final int GRID_SIZE = 21;
+	private static final double SPACING = 100;
+
+	private final Random random = new Random(42);
+	private final Network network = NetworkUtils.createNetwork();
+	private final List<Link> links = new ArrayList<>();
+	private final Map<Id<DvrpVehicle>, Entry> currentEntries = new HashMap<>();
+	private final VehicleData.EntryFactory entryFactory = (vehicle, time) -> currentEntries.get(vehicle.getId());
+	private final List<DvrpVehicle> vehicles = new ArrayList<>();
+
+	private SpatialVehicleIndex index;
+
+	@Before
+	public void init() {
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y),
+						new Coord(x * SPACING, y * SPACING));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLinks(nodes[x][y], nodes[x + 1][y]);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLinks(nodes[x][y], nodes[x][y + 1]);
+				}
+			}
+		}
+		index = new SpatialVehicleIndex(network);
+	}
+
+	@Test
+	public void findNearest_sameAsBruteForce() {
+		VehicleData vehicleData = createVehicleData(100, () -> randomLink(), 4);
+		for (int i = 0; i < 100; i++) {
+			assertNearest(vehicleData, randomLink(), 1 + random.nextInt(30));
+		}
+		// all vehicles, or more than there are
+		assertNearest(vehicleData, randomLink(), 100);
+		assertNearest(vehicleData, randomLink(), 150);
+	}
+
+	@Test
+	public void findNearest_radiusDoubling() {
+		// all vehicles in one corner, the requests in the opposite one
+		List<Link> corner = links.stream()
+				.filter(l -> l.getCoord().getX() < 2 * SPACING && l.getCoord().getY() < 2 * SPACING)
+				.collect(Collectors.toList());
+		VehicleData vehicleData = createVehicleData(50, () -> corner.get(random.nextInt(corner.size())), 2);
+		Link farAway = links.stream()
+				.max(Comparator.comparingDouble(l -> l.getCoord().getX() + l.getCoord().getY()))
+				.get();
+		for (int k = 1; k <= 50; k++) {
+			assertNearest(vehicleData, farAway, k);
+		}
+	}
+
+	@Test
+	public void findNearest_vehiclesAtManyLocations() {
+		Link link = links.get(0);
+		// a vehicle with the start and all stops around the link (and duplicate locations)
+		DvrpVehicle busy = addVehicle(entryAt(link, link, links.get(1), links.get(2), link));
+		// other vehicles a bit further away
+		DvrpVehicle idle = addVehicle(entryAt(links.get(links.size() / 2)));
+		DvrpVehicle idle2 = addVehicle(entryAt(links.get(links.size() - 1)));
+		VehicleData vehicleData = new VehicleData(0, vehicles.stream(), entryFactory, ForkJoinPool.commonPool(),
+				index);
+
+		assertThat(vehicleIds(index.findNearest(link, 2))).containsExactly(busy.getId(), idle.getId());
+		assertThat(vehicleIds(index.findNearest(link, 3))).containsExactly(busy.getId(), idle.getId(),
+				idle2.getId());
+		assertNearest(vehicleData, link, 2);
+	}
+
+	@Test
+	public void updateEntry() {
+		VehicleData vehicleData = createVehicleData(30, () -> randomLink(), 3);
+		for (int i = 0; i < 200; i++) {
+			DvrpVehicle vehicle = vehicles.get(random.nextInt(vehicles.size()));
+			if (random.nextInt(10) == 0) {
+				currentEntries.remove(vehicle.getId());// cannot serve any more requests
+			} else {
+				currentEntries.put(vehicle.getId(), createRandomEntry(vehicle, () -> randomLink(), 3));
+			}
+			vehicleData.updateEntry(vehicle);
+
+			assertNearest(vehicleData, randomLink(), 1 + random.nextInt(10));
+			// no leftovers of the removed or outdated entries
+			assertThat(index.findNearest(randomLink(), vehicles.size())).containsExactlyInAnyOrderElementsOf(
+					vehicleData.getEntries());
+		}
+	}
+
+	private void assertNearest(VehicleData vehicleData, Link link, int k) {
+		List<Entry> nearest = index.findNearest(link, k);
+		List<Entry> expected = vehicleData.getEntries()
+				.stream()
+				.sorted(Comparator.comparingDouble(e -> distance(link, e)))
+				.limit(k)
+				.collect(Collectors.toList());
+
+		// equidistant entries may come in any order
+		assertThat(nearest).doesNotHaveDuplicates();
+		assertThat(nearest.stream().map(e -> distance(link, e)).collect(Collectors.toList())).isEqualTo(
+				expected.stream().map(e -> distance(link, e)).collect(Collectors.toList()));
+	}
+
+	private static double distance(Link link, Entry entry) {
+		double distance = DistanceUtils.calculateDistance(link.getCoord(), entry.start.link.getCoord());
+		for (Stop s : entry.stops) {
+			distance = Math.min(distance, DistanceUtils.calculateDistance(link.getCoord(), s.task.getLink().getCoord()));
+		}
+		return distance;
+	}
+
+	private VehicleData createVehicleData(int count, Supplier<Link> links, int maxStops) {
+		for (int i = 0; i < count; i++) {
+			DvrpVehicle vehicle = createVehicle(links.get());
+			vehicles.add(vehicle);
+			currentEntries.put(vehicle.getId(), createRandomEntry(vehicle, links, maxStops));
+		}
+		return new VehicleData(0, vehicles.stream(), entryFactory, ForkJoinPool.commonPool(), index);
+	}
+
+	private Entry createRandomEntry(DvrpVehicle vehicle, Supplier<Link> links, int maxStops) {
+		ImmutableList.Builder<Stop> stops = ImmutableList.builder();
+		int stopCount = random.nextInt(maxStops + 1);
+		for (int s = 0; s < stopCount; s++) {
+			stops.add(new Stop(new DrtStopTask(0, 0, links.get()), 0));
+		}
+		return new Entry(vehicle, new LinkTimePair(links.get(), 0), 0, stops.build());
+	}
+
+	private DvrpVehicle addVehicle(Function<DvrpVehicle, Entry> entry) {
+		DvrpVehicle vehicle = createVehicle(links.get(0));
+		vehicles.add(vehicle);
+		currentEntries.put(vehicle.getId(), entry.apply(vehicle));
+		return vehicle;
+	}
+
+	private static Function<DvrpVehicle, Entry> entryAt(Link start, Link... stopLinks) {
+		ImmutableList.Builder<Stop> stops = ImmutableList.builder();
+		for (Link link : stopLinks) {
+			stops.add(new Stop(new DrtStopTask(0, 0, link), 0));
+		}
+		return vehicle -> new Entry(vehicle, new LinkTimePair(start, 0), 0, stops.build());
+	}
+
+	private DvrpVehicle createVehicle(Link startLink) {
+		return new DvrpVehicleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+				.id(Id.create("v" + vehicles.size(), DvrpVehicle.class))
+				.startLinkId(startLink.getId())
+				.capacity(4)
+				.serviceBeginTime(0)
+				.serviceEndTime(3600)
+				.build(), startLink);
+	}
+
+	private static List<Id<DvrpVehicle>> vehicleIds(List<Entry> entries) {
+		return entries.stream().map(e -> e.vehicle.getId()).collect(Collectors.toList());
+	}
+
+	private Link randomLink() {
+		return links.get(random.nextInt(links.size()));
+	}
+
+	private void addLinks(Node a, Node b) {
+		links.add(NetworkUtils.createAndAddLink(network, Id.createLinkId(a.getId() + "-" + b.getId()), a, b,
+				SPACING, 10, 1000, 1));
+		links.add(NetworkUtils.createAndAddLink(network, Id.createLinkId(b.getId() + "-" + a.getId()), b, a,
+				SPACING, 10, 1000, 1));
+	}
+}
@@ -0,0 +1,192 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.router.TimeAsTravelDisutility;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.utils.leastcostpathtree.LeastCostPathTree;
+
+public class ZonalTravelTimeMatrixTest {
+	private static final int GRID_SIZE = 10;
+	private static final double SPACING = 100;
+
+	private final TravelTime travelTime = new FreeSpeedTravelTime();
+
+	@Test
+	public void estimatesAreLowerBounds() {
+		Network network = createGridNetwork();
+		ZonalTravelTimeMatrix matrix = createMatrix(network, 250);
+
+		double estimateSum = 0;
+		double exactSum = 0;
+		for (Link from : network.getLinks().values()) {
+			LeastCostPathTree tree = calcTree(network, from.getToNode());
+			for (Link to : network.getLinks().values()) {
+				double estimate = matrix.estimateTime(from, to);
+				double exact = tree.getTree().get(to.getFromNode().getId()).getTime();
+				assertThat(estimate).isBetween(0., exact);
+				estimateSum += estimate;
+				exactSum += exact;
+			}
+		}
+		// still useful for filtering
+		assertThat(estimateSum).isGreaterThan(0.5 * exactSum);
+	}
+
+	@Test
+	public void estimatesAreExact_oneNodePerCell() {
+		Network network = createGridNetwork();
+		ZonalTravelTimeMatrix matrix = createMatrix(network, SPACING / 2);
+
+		for (Link from : network.getLinks().values()) {
+			LeastCostPathTree tree = calcTree(network, from.getToNode());
+			for (Link to : network.getLinks().values()) {
+				double exact = tree.getTree().get(to.getFromNode().getId()).getTime();
+				assertThat(matrix.estimateTime(from, to)).isBetween(exact - 1e-3, exact);
+			}
+		}
+	}
+
+	@Test
+	public void unreachableCells() {
+		Network network = NetworkUtils.createNetwork();
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(1000, 0));
+		Node c = NetworkUtils.createAndAddNode(network, Id.createNodeId("c"), new Coord(2000, 0));
+		Link ab = NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 1000, 10, 1000, 1);
+		Link bc = NetworkUtils.createAndAddLink(network, Id.createLinkId("bc"), b, c, 1000, 10, 1000, 1);
+		ZonalTravelTimeMatrix matrix = createMatrix(network, 500);
+
+		assertThat(matrix.estimateTime(ab, bc)).isEqualTo(0);// same node
+		assertThat(matrix.estimateTime(ab, ab)).isEqualTo(0);// b -> a is not possible
+		assertThat(matrix.estimateTime(bc, ab)).isEqualTo(0);// c -> a is not possible
+	}
+
+	@Test
+	public void onlyGivenNodesHaveZones() {
+		Network network = createGridNetwork();
+		Node a = network.getNodes().get(Id.createNodeId("0_0"));
+		Node b = network.getNodes().get(Id.createNodeId("9_9"));
+		ZonalTravelTimeMatrix matrix = ZonalTravelTimeMatrix.createGridMatrix(network, Arrays.asList(a, b),
+				travelTime, SPACING / 2, 3600);
+		matrix.updateIfDue(0, ForkJoinPool.commonPool());
+
+		Link toA = a.getInLinks().values().iterator().next();
+		Link fromA = a.getOutLinks().values().iterator().next();
+		Link toB = b.getInLinks().values().iterator().next();
+		Link fromB = b.getOutLinks().values().iterator().next();
+		double exact = calcTree(network, a).getTree().get(b.getId()).getTime();
+		assertThat(matrix.estimateTime(toA, fromB)).isBetween(exact - 1e-3, exact);
+		assertThat(matrix.getTravelTime(0, 1)).isBetween(exact - 1e-3, exact);
+		// no zone
+		assertThat(matrix.estimateTime(fromA, fromB)).isEqualTo(0);
+		assertThat(matrix.estimateTime(toA, toB)).isEqualTo(0);
+	}
+
+	@Test
+	public void unreachableZones() {
+		Network network = NetworkUtils.createNetwork();
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 1000, 10, 1000, 1);
+		ZonalTravelTimeMatrix matrix = new ZonalTravelTimeMatrix(network, travelTime,
+				Arrays.asList(Collections.singleton(a), Collections.singleton(b)), 3600);
+		matrix.updateIfDue(0, ForkJoinPool.commonPool());
+
+		assertThat(matrix.getTravelTime(0, 1)).isEqualTo(100);
+		assertThat(matrix.getTravelTime(1, 0)).isEqualTo(Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void tooManyCells() {
+		Network network = NetworkUtils.createNetwork();
+		for (int i = 0; i <= ZonalTravelTimeMatrix.MAX_ZONE_COUNT; i++) {
+			NetworkUtils.createAndAddNode(network, Id.createNodeId("n" + i), new Coord(i, 0));
+		}
+		assertThatThrownBy(() -> ZonalTravelTimeMatrix.createGridMatrix(network, network.getNodes().values(),
+				travelTime, 1, 3600))//
+				.isExactlyInstanceOf(IllegalArgumentException.class)//
+				.hasMessageContaining("take 1024 MB")//
+				.hasMessageContaining("Increase the cell size");
+
+		// fine with larger cells
+		ZonalTravelTimeMatrix.createGridMatrix(network, network.getNodes().values(), travelTime, 2, 3600);
+	}
+
+	private ZonalTravelTimeMatrix createMatrix(Network network, double cellSize) {
+		ZonalTravelTimeMatrix matrix = ZonalTravelTimeMatrix.createGridMatrix(network, network.getNodes().values(),
+				travelTime, cellSize, 3600);
+		matrix.updateIfDue(0, ForkJoinPool.commonPool());
+		return matrix;
+	}
+
+	private LeastCostPathTree calcTree(Network network, Node origin) {
+		LeastCostPathTree tree = new LeastCostPathTree(travelTime, new TimeAsTravelDisutility(travelTime));
+		tree.calculate(network, origin, 0);
+		return tree;
+	}
+
+	private static Network createGridNetwork() {
+		Random random = new Random(42);
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y),
+						new Coord(x * SPACING, y * SPACING));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y], random);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(Network network, Node a, Node b, Random random) {
+		for (Node[] fromTo : new Node[][] { { a, b }, { b, a } }) {
+			Id<Link> id = Id.createLinkId(fromTo[0].getId() + "-" + fromTo[1].getId());
+			double freespeed = 5 + 15 * random.nextDouble();
+			NetworkUtils.createAndAddLink(network, id, fromTo[0], fromTo[1], SPACING, freespeed, 1000, 1);
+		}
+	}
+}
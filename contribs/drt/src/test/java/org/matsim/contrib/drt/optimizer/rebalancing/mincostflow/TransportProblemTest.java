@@ -0,0 +1,99 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
+import org.junit.Test;
+import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.TransportProblem.Solver;
+
+public class TransportProblemTest {
+	@Test
+	public void networkSimplex_sameCostAsSuccessiveShortestPaths() {
+		Random random = new Random(42);
+		for (int run = 0; run < 200; run++) {
+			int producers = 1 + random.nextInt(30);
+			int consumers = 1 + random.nextInt(30);
+			int maxCost = random.nextBoolean() ? 5 : 10_000;// many ties (degenerate pivots) vs. few ties
+			int[][] costs = new int[producers][consumers];
+			for (int[] row : costs) {
+				for (int j = 0; j < consumers; j++) {
+					row[j] = random.nextInt(maxCost + 1);
+				}
+			}
+			List<Pair<Integer, Integer>> supply = createNodes(producers, random);
+			List<Pair<Integer, Integer>> demand = createNodes(consumers, random);
+
+			long expectedCost = solve(Solver.SUCCESSIVE_SHORTEST_PATHS, supply, demand, costs);
+			long actualCost = solve(Solver.NETWORK_SIMPLEX, supply, demand, costs);
+			assertEquals("run " + run, expectedCost, actualCost);
+		}
+	}
+
+	@Test
+	public void emptySupplyOrDemand() {
+		List<Pair<Integer, Integer>> nodes = createNodes(3, new Random(1));
+		TransportProblem<Integer, Integer> problem = new TransportProblem<>((i, j) -> 1, Solver.NETWORK_SIMPLEX);
+		assertTrue(problem.solve(nodes, new ArrayList<>()).isEmpty());
+		assertTrue(problem.solve(new ArrayList<>(), nodes).isEmpty());
+	}
+
+	private static List<Pair<Integer, Integer>> createNodes(int count, Random random) {
+		List<Pair<Integer, Integer>> nodes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			nodes.add(Pair.of(i, 1 + random.nextInt(10)));
+		}
+		return nodes;
+	}
+
+	private static long solve(Solver solver, List<Pair<Integer, Integer>> supply, List<Pair<Integer, Integer>> demand,
+			int[][] costs) {
+		List<Triple<Integer, Integer, Integer>> flows = new TransportProblem<Integer, Integer>(
+				(i, j) -> costs[i][j], solver).solve(supply, demand);
+
+		int[] shipped = new int[supply.size()];
+		int[] received = new int[demand.size()];
+		long totalCost = 0;
+		int totalFlow = 0;
+		for (Triple<Integer, Integer, Integer> f : flows) {
+			shipped[f.getLeft()] += f.getRight();
+			received[f.getMiddle()] += f.getRight();
+			totalCost += (long)f.getRight() * costs[f.getLeft()][f.getMiddle()];
+			totalFlow += f.getRight();
+		}
+		for (int i = 0; i < shipped.length; i++) {
+			assertTrue(shipped[i] <= supply.get(i).getValue());
+		}
+		for (int j = 0; j < received.length; j++) {
+			assertTrue(received[j] <= demand.get(j).getValue());
+		}
+		int totalSupply = supply.stream().mapToInt(Pair::getValue).sum();
+		int totalDemand = demand.stream().mapToInt(Pair::getValue).sum();
+		assertEquals(Math.min(totalSupply, totalDemand), totalFlow);
+		return totalCost;
+	}
+}
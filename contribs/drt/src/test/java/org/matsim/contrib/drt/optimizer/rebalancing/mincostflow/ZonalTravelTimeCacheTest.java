@@ -0,0 +1,73 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.rebalancing.mincostflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.drt.analysis.zonal.DrtZonalSystem;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelTime;
+
+public class ZonalTravelTimeCacheTest {
+	@Test
+	public void travelTimesBetweenCentroidNodes() {
+		Network network = NetworkUtils.createNetwork();
+		Node a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		Node b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 1000, 10, 1000, 1);
+
+		GeometryFactory factory = new GeometryFactory();
+		Map<String, Geometry> zones = new HashMap<>();
+		zones.put("a", factory.createPoint(new Coordinate(0, 0)));
+		zones.put("a2", factory.createPoint(new Coordinate(100, 0)));// same centroid node as zone a
+		zones.put("b", factory.createPoint(new Coordinate(1000, 0)));
+
+		// slower after one hour
+		TravelTime travelTime = (link, time, person, vehicle) -> time < 3600 ? 100 : 200;
+		MobsimTimer timer = new MobsimTimer();
+		ZonalTravelTimeCache cache = new ZonalTravelTimeCache(new DrtZonalSystem(network, zones), network, travelTime,
+				timer, 3600, 1);
+
+		timer.setTime(0);
+		assertThat(cache.applyAsInt("a", "b")).isEqualTo(100);
+		assertThat(cache.applyAsInt("a2", "b")).isEqualTo(100);
+		assertThat(cache.applyAsInt("a", "a2")).isEqualTo(0);
+		assertThat(cache.applyAsInt("b", "a")).isEqualTo(ZonalTravelTimeCache.UNREACHABLE_TRAVEL_TIME);
+
+		timer.setTime(1800);// still the first time bin
+		assertThat(cache.applyAsInt("a", "b")).isEqualTo(100);
+
+		timer.setTime(3600);
+		assertThat(cache.applyAsInt("a", "b")).isEqualTo(200);
+		cache.notifyMobsimBeforeCleanup(null);
+	}
+}
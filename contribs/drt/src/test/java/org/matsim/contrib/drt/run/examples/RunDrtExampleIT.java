@@ -24,18 +24,22 @@ package org.matsim.contrib.drt.run.examples;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.function.Consumer;
 
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.drt.run.DrtControlerCreator;
 import org.matsim.contrib.dvrp.passenger.PassengerRequest;
+import org.matsim.contrib.dvrp.passenger.PassengerRequestRejectedEventHandler;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestValidator;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
 import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
 import org.matsim.testcases.MatsimTestUtils;
@@ -103,6 +107,49 @@ public class RunDrtExampleIT {
 				personIdValidator.isValidateRequestWasCalled());
 	}
 
+	@Test
+	public void testRunDrtExampleWithBatchInsertion() {
+		// all plans (not only the test ones), so that there are rejections
+		int sequentialRejections = runDoor2DoorExampleAndCountRejections("sequential", config -> {
+		});
+		int batchRejections = runDoor2DoorExampleAndCountRejections("batch",
+				config -> DrtConfigGroup.get(config).setBatchInsertion(true));
+		Assert.assertTrue("batch insertion: " + batchRejections + " rejections, sequential insertion: "
+				+ sequentialRejections, batchRejections <= sequentialRejections);
+	}
+
+	@Test
+	public void testRunDrtExampleWithNearestVehiclesLimit() {
+		// at the low demand of the test plans, the 20 nearest vehicles (out of 200) suffice to serve all requests
+		int rejections = runDoor2DoorExampleAndCountRejections("", config -> {
+			config.plans().setInputFile("cb-drtplans_test.xml.gz");
+			DrtConfigGroup.get(config).setNearestVehiclesLimit(20);
+		});
+		Assert.assertEquals(0, rejections);
+	}
+
+	private int runDoor2DoorExampleAndCountRejections(String run, Consumer<Config> configModifier) {
+		String configFile = "./src/main/resources/drt_example/drtconfig_door2door.xml";
+		Config config = ConfigUtils.loadConfig(configFile, new DrtConfigGroup(), new DvrpConfigGroup(),
+				new OTFVisConfigGroup());
+		configModifier.accept(config);
+
+		config.controler().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controler().setOutputDirectory(utils.getOutputDirectory() + run);
+		Controler controler = DrtControlerCreator.createControlerWithSingleModeDrt(config, false);
+
+		MutableInt rejections = new MutableInt();
+		controler.addOverridingModule(new AbstractModule() {
+			@Override
+			public void install() {
+				addEventHandlerBinding().toInstance(
+						(PassengerRequestRejectedEventHandler)event -> rejections.increment());
+			}
+		});
+		controler.run();
+		return rejections.intValue();
+	}
+
 	@Test
 	public void testRunDrtStopbasedExample() {
 		String configFile = "./src/main/resources/drt_example/drtconfig_stopbased.xml";
@@ -0,0 +1,284 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup.PathCacheEvictionPolicy;
+import org.matsim.contrib.util.CSVLineBuilder;
+import org.matsim.contrib.util.CompactCSVWriter;
+import org.matsim.core.controler.IterationCounter;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeCleanupListener;
+import org.matsim.core.mobsim.framework.listeners.MobsimInitializedListener;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.io.IOUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Least cost paths shared by all dvrp optimisers (of all modes) in a QSim, keyed by (from node, to node, time bin).
+ * The paths are calculated for the beginning of the time bin. The cache is bounded either by the number of paths or by
+ * their total number of links, the least recently used paths are evicted first. With
+ * {@link PathCacheEvictionPolicy#FREQUENCY}, a path is only admitted to the cache once it has been requested before
+ * (counted approximately in a {@link FrequencySketch}), so that one-off paths do not evict frequently reused ones.
+ * <p></p>
+ * Paths are only shared by calculators working on the same network and travel time, with equal travel disutilities
+ * (e.g. two {@link TimeAsTravelDisutility} based on the same travel time) and with equal calculator configurations
+ * (e.g. an A* with an overdo factor above 1 does not return least cost paths). The cache is cleared before each QSim
+ * run, since the (offline) travel time estimates change between iterations. With online travel time estimation,
+ * cached paths may get outdated within the time bin.
+ * <p></p>
+ * The hits, misses and evictions of each iteration are written to {@value #STATS_FILE}.
+ */
+public class DvrpPathCache implements MobsimInitializedListener, MobsimBeforeCleanupListener, ShutdownListener {
+	private static final Logger log = Logger.getLogger(DvrpPathCache.class);
+
+	public static final String STATS_FILE = "dvrp_path_cache_stats.txt";
+	private static final String[] HEADER = { "iter", "hits", "misses", "hitRate", "evictions", "size" };
+
+	private final double timeBinSize;
+	private final Cache<PathKey, Path> cache;// null if disabled
+	private final FrequencySketch frequencySketch;// null unless FREQUENCY
+	private final IterationCounter iterationCounter;
+	private final CompactCSVWriter statsWriter;
+
+	private CacheStats previousStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
+	@Inject
+	public DvrpPathCache(DvrpConfigGroup dvrpCfg, OutputDirectoryHierarchy controlerIO,
+			IterationCounter iterationCounter) {
+		this.timeBinSize = dvrpCfg.getPathCacheTimeBinSize();
+		this.iterationCounter = iterationCounter;
+
+		long maximumWeight = dvrpCfg.getPathCacheMaximumWeight();
+		long maximumSize = dvrpCfg.getPathCacheMaximumSize();
+		if (maximumWeight > 0 || maximumSize > 0) {
+			cache = createCache(maximumWeight, maximumSize);
+			frequencySketch = dvrpCfg.getPathCacheEvictionPolicy() == PathCacheEvictionPolicy.FREQUENCY ?
+					new FrequencySketch(maximumWeight > 0 ? maximumWeight : maximumSize) :
+					null;
+			statsWriter = new CompactCSVWriter(IOUtils.getBufferedWriter(controlerIO.getOutputFilename(STATS_FILE)));
+			statsWriter.writeNext(HEADER);
+		} else {
+			cache = null;
+			frequencySketch = null;
+			statsWriter = null;
+		}
+	}
+
+	private static Cache<PathKey, Path> createCache(long maximumWeight, long maximumSize) {
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+		if (maximumWeight > 0) {
+			// the nodes and links of a path take most of its memory
+			return builder.maximumWeight(maximumWeight)
+					.weigher((PathKey key, Path path) -> path.links.size() + 1)
+					.build();
+		}
+		return builder.maximumSize(maximumSize).build();
+	}
+
+	public boolean isEnabled() {
+		return cache != null;
+	}
+
+	/**
+	 * @param calculatorConfig everything (besides the network, travel time and disutility) that the paths returned by
+	 *                         the calculator depend on, e.g. the type of the calculator and its A* overdo factor
+	 * @return a calculator that looks up the paths in this cache before calculating them with the given calculator,
+	 * or the given calculator if the cache is disabled
+	 */
+	public LeastCostPathCalculator wrap(LeastCostPathCalculator calculator, Network network, TravelTime travelTime,
+			TravelDisutility travelDisutility, Object calculatorConfig) {
+		if (cache == null) {
+			return calculator;
+		}
+		List<Object> context = Arrays.asList(network, travelTime, travelDisutility, calculatorConfig);
+		return new LeastCostPathCalculatorWithSharedCache(calculator, this, context);
+	}
+
+	int getTimeBin(double time) {
+		return (int)(time / timeBinSize);
+	}
+
+	double getTimeBinStart(int timeBin) {
+		return timeBin * timeBinSize;
+	}
+
+	Path getPath(Object context, Node fromNode, Node toNode, int timeBin) {
+		PathKey key = new PathKey(context, fromNode.getId(), toNode.getId(), timeBin);
+		if (frequencySketch != null) {
+			frequencySketch.increment(key.hashCode());
+		}
+		return cache.getIfPresent(key);
+	}
+
+	void putPath(Object context, Node fromNode, Node toNode, int timeBin, Path path) {
+		PathKey key = new PathKey(context, fromNode.getId(), toNode.getId(), timeBin);
+		if (frequencySketch != null && frequencySketch.getFrequency(key.hashCode()) < 2) {
+			return;// requested for the first time
+		}
+		cache.put(key, path);
+	}
+
+	@Override
+	public void notifyMobsimInitialized(@SuppressWarnings("rawtypes") MobsimInitializedEvent e) {
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+		if (frequencySketch != null) {
+			frequencySketch.clear();
+		}
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(@SuppressWarnings("rawtypes") MobsimBeforeCleanupEvent e) {
+		if (cache == null) {
+			return;
+		}
+		// the cache stats are cumulative, and the cache is used only during the QSim
+		CacheStats cumulativeStats = cache.stats();
+		CacheStats stats = cumulativeStats.minus(previousStats);
+		previousStats = cumulativeStats;
+		log.info("DVRP path cache: " + stats);
+		statsWriter.writeNext(new CSVLineBuilder().add(iterationCounter.getIterationNumber() + "")
+				.add(stats.hitCount() + "")
+				.add(stats.missCount() + "")
+				.addf("%.4f", stats.hitRate())
+				.add(stats.evictionCount() + "")
+				.add(cache.size() + ""));
+		statsWriter.flush();
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		if (statsWriter != null) {
+			statsWriter.close();
+		}
+	}
+
+	/**
+	 * Count-min sketch of the recent requests (4 rows of byte counters, capped at 15). To forget old requests, all
+	 * counters are halved once the number of increments reaches 10 times the width of the sketch. Thread-safe.
+	 */
+	static final class FrequencySketch {
+		private static final int ROWS = 4;
+		private static final int MAX_COUNT = 15;
+		private static final int MAX_WIDTH = 1 << 22;
+		private static final int[] SEEDS = { 0x97cb3127, 0x5fa5c5a5, 0xc2b2ae35, 0x27d4eb2f };
+
+		private final byte[] counters;
+		private final int width;// power of 2
+		private final int sampleSize;
+		private int increments;
+
+		FrequencySketch(long expectedEntries) {
+			width = Integer.highestOneBit((int)Math.min(Math.max(expectedEntries, 16), MAX_WIDTH) * 2 - 1);
+			counters = new byte[ROWS * width];
+			sampleSize = 10 * width;
+		}
+
+		synchronized void increment(int hash) {
+			for (int row = 0; row < ROWS; row++) {
+				int i = index(hash, row);
+				if (counters[i] < MAX_COUNT) {
+					counters[i]++;
+				}
+			}
+			if (++increments == sampleSize) {
+				for (int i = 0; i < counters.length; i++) {
+					counters[i] >>= 1;
+				}
+				increments /= 2;
+			}
+		}
+
+		synchronized int getFrequency(int hash) {
+			int frequency = MAX_COUNT;
+			for (int row = 0; row < ROWS; row++) {
+				frequency = Math.min(frequency, counters[index(hash, row)]);
+			}
+			return frequency;
+		}
+
+		synchronized void clear() {
+			Arrays.fill(counters, (byte)0);
+			increments = 0;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			h ^= h >>> 16;
+			return row * width + (h & (width - 1));
+		}
+	}
+
+	private static final class PathKey {
+		private final Object context;
+		private final Id<Node> fromNodeId;
+		private final Id<Node> toNodeId;
+		private final int timeBin;
+
+		private PathKey(Object context, Id<Node> fromNodeId, Id<Node> toNodeId, int timeBin) {
+			this.context = context;
+			this.fromNodeId = fromNodeId;
+			this.toNodeId = toNodeId;
+			this.timeBin = timeBin;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof PathKey)) {
+				return false;
+			}
+			PathKey other = (PathKey)o;
+			return timeBin == other.timeBin
+					&& fromNodeId.equals(other.fromNodeId)
+					&& toNodeId.equals(other.toNodeId)
+					&& context.equals(other.context);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(fromNodeId, toNodeId, timeBin, context);
+		}
+	}
+}
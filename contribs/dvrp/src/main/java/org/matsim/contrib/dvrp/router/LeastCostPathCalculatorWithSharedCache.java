@@ -0,0 +1,69 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Looks up the paths in a {@link DvrpPathCache} before calculating them. Unlike
+ * {@link DefaultLeastCostPathCalculatorWithCache}, the paths are shared with the other calculators of the same cache.
+ * Use {@link DvrpPathCache#wrap} to create it.
+ */
+public class LeastCostPathCalculatorWithSharedCache implements LeastCostPathCalculatorWithCache {
+	private final LeastCostPathCalculator calculator;
+	private final DvrpPathCache pathCache;
+	private final Object context;
+
+	private final CacheStats cacheStats = new CacheStats();
+
+	LeastCostPathCalculatorWithSharedCache(LeastCostPathCalculator calculator, DvrpPathCache pathCache,
+			Object context) {
+		this.calculator = calculator;
+		this.pathCache = pathCache;
+		this.context = context;
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node fromNode, Node toNode, double startTime, Person person, Vehicle vehicle) {
+		int timeBin = pathCache.getTimeBin(startTime);
+		Path path = pathCache.getPath(context, fromNode, toNode, timeBin);
+
+		if (path == null) {
+			cacheStats.incMisses();
+			path = calculator.calcLeastCostPath(fromNode, toNode, pathCache.getTimeBinStart(timeBin), person,
+					vehicle);
+			if (path != null) {
+				pathCache.putPath(context, fromNode, toNode, timeBin, path);
+			}
+		} else {
+			cacheStats.incHits();
+		}
+
+		return path;
+	}
+
+	@Override
+	public CacheStats getCacheStats() {
+		return cacheStats;
+	}
+}
@@ -25,7 +25,7 @@ import org.matsim.core.router.util.*;
 import org.matsim.vehicles.Vehicle;
 
 public class TimeAsTravelDisutility implements TravelDisutility {
-	private TravelTime travelTime;
+	private final TravelTime travelTime;
 
 	public TimeAsTravelDisutility(TravelTime travelTime) {
 		this.travelTime = travelTime;
@@ -41,4 +41,19 @@ public class TimeAsTravelDisutility implements TravelDisutility {
 	public double getLinkMinimumTravelDisutility(Link link) {
 		return link.getLength() / link.getFreespeed();
 	}
+
+	/**
+	 * Disutilities based on the same travel time are equal, which allows them to share cached paths, see
+	 * {@link DvrpPathCache}.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return o == this || o != null && o.getClass() == getClass()
+				&& ((TimeAsTravelDisutility)o).travelTime == travelTime;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(travelTime);
+	}
 }
@@ -24,6 +24,7 @@ import java.util.Map;
 import javax.annotation.Nullable;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
@@ -83,6 +84,35 @@ public final class DvrpConfigGroup extends ReflectiveConfigGroup {
 			+ " whereas if 'time < currentTime' it is 1."
 			////
 			+ " If beta is sufficiently large, 'beta >> 0', only the currently observed TT is used.";
+	public static final String PATH_CACHE_MAXIMUM_SIZE = "pathCacheMaximumSize";
+	static final String PATH_CACHE_MAXIMUM_SIZE_EXP = "Maximum number of paths kept in the path cache shared by the"
+			+ " dvrp optimisers (e.g. for repeated routing to the same depots or rebalancing zones)."
+			+ " Ignored if pathCacheMaximumWeight is positive."
+			+ " The default value is 0, which means that paths are not cached (unless pathCacheMaximumWeight is set).";
+
+	public static final String PATH_CACHE_MAXIMUM_WEIGHT = "pathCacheMaximumWeight";
+	static final String PATH_CACHE_MAXIMUM_WEIGHT_EXP = "Maximum total number of links of the paths kept in the path"
+			+ " cache. If positive, it bounds the cache instead of pathCacheMaximumSize, so that long paths take up"
+			+ " more of the cache (and memory) than short ones. The default value is 0, which means that the cache"
+			+ " is bounded by pathCacheMaximumSize.";
+
+	public static final String PATH_CACHE_EVICTION_POLICY = "pathCacheEvictionPolicy";
+	static final String PATH_CACHE_EVICTION_POLICY_EXP = "LRU: every calculated path is cached, the least recently"
+			+ " used paths are evicted first. FREQUENCY: a calculated path is cached only if it has already been"
+			+ " requested in the same time bin (counted approximately in a frequency sketch), so that paths needed"
+			+ " only once (e.g. to random request locations) do not evict frequently reused ones (e.g. to depots"
+			+ " or zone centroids); among the cached paths, the least recently used ones are evicted first."
+			+ " The default value is LRU.";
+
+	public enum PathCacheEvictionPolicy {
+		LRU, FREQUENCY
+	}
+
+	public static final String PATH_CACHE_TIME_BIN_SIZE = "pathCacheTimeBinSize";
+	static final String PATH_CACHE_TIME_BIN_SIZE_EXP = "Size of the time bins (in seconds) of the path cache."
+			+ " Paths are calculated for the beginning of a time bin and reused for all departures within it."
+			+ " The default value is 900 seconds.";
+
 	// In DVRP 'time < currentTime' may only happen for backward path search, a adding proper search termination
 	// criterion should prevent this from happening
 
@@ -99,6 +129,18 @@ public final class DvrpConfigGroup extends ReflectiveConfigGroup {
 	@PositiveOrZero
 	private double travelTimeEstimationBeta = 0; // [s], 0 ==> only offline TT estimation
 
+	@PositiveOrZero
+	private int pathCacheMaximumSize = 0; // 0 ==> no path caching
+
+	@PositiveOrZero
+	private long pathCacheMaximumWeight = 0; // 0 ==> bounded by pathCacheMaximumSize
+
+	@NotNull
+	private PathCacheEvictionPolicy pathCacheEvictionPolicy = PathCacheEvictionPolicy.LRU;
+
+	@Positive
+	private double pathCacheTimeBinSize = 900; // [s]
+
 	public DvrpConfigGroup() {
 		super(GROUP_NAME);
 	}
@@ -133,6 +175,10 @@ public final class DvrpConfigGroup extends ReflectiveConfigGroup {
 		map.put(MOBSIM_MODE, MOBSIM_MODE_EXP);
 		map.put(TRAVEL_TIME_ESTIMATION_ALPHA, TRAVEL_TIME_ESTIMATION_ALPHA_EXP);
 		map.put(TRAVEL_TIME_ESTIMATION_BETA, TRAVEL_TIME_ESTIMATION_BETA_EXP);
+		map.put(PATH_CACHE_MAXIMUM_SIZE, PATH_CACHE_MAXIMUM_SIZE_EXP);
+		map.put(PATH_CACHE_MAXIMUM_WEIGHT, PATH_CACHE_MAXIMUM_WEIGHT_EXP);
+		map.put(PATH_CACHE_EVICTION_POLICY, PATH_CACHE_EVICTION_POLICY_EXP);
+		map.put(PATH_CACHE_TIME_BIN_SIZE, PATH_CACHE_TIME_BIN_SIZE_EXP);
 		return map;
 	}
 
@@ -199,4 +245,68 @@ public final class DvrpConfigGroup extends ReflectiveConfigGroup {
 	public void setTravelTimeEstimationBeta(double travelTimeEstimationBeta) {
 		this.travelTimeEstimationBeta = travelTimeEstimationBeta;
 	}
+
+	/**
+	 * @return {@value #PATH_CACHE_MAXIMUM_SIZE_EXP}
+	 */
+	@StringGetter(PATH_CACHE_MAXIMUM_SIZE)
+	public int getPathCacheMaximumSize() {
+		return pathCacheMaximumSize;
+	}
+
+	/**
+	 * @param pathCacheMaximumSize {@value #PATH_CACHE_MAXIMUM_SIZE_EXP}
+	 */
+	@StringSetter(PATH_CACHE_MAXIMUM_SIZE)
+	public void setPathCacheMaximumSize(int pathCacheMaximumSize) {
+		this.pathCacheMaximumSize = pathCacheMaximumSize;
+	}
+
+	/**
+	 * @return {@value #PATH_CACHE_MAXIMUM_WEIGHT_EXP}
+	 */
+	@StringGetter(PATH_CACHE_MAXIMUM_WEIGHT)
+	public long getPathCacheMaximumWeight() {
+		return pathCacheMaximumWeight;
+	}
+
+	/**
+	 * @param pathCacheMaximumWeight {@value #PATH_CACHE_MAXIMUM_WEIGHT_EXP}
+	 */
+	@StringSetter(PATH_CACHE_MAXIMUM_WEIGHT)
+	public void setPathCacheMaximumWeight(long pathCacheMaximumWeight) {
+		this.pathCacheMaximumWeight = pathCacheMaximumWeight;
+	}
+
+	/**
+	 * @return {@value #PATH_CACHE_EVICTION_POLICY_EXP}
+	 */
+	@StringGetter(PATH_CACHE_EVICTION_POLICY)
+	public PathCacheEvictionPolicy getPathCacheEvictionPolicy() {
+		return pathCacheEvictionPolicy;
+	}
+
+	/**
+	 * @param pathCacheEvictionPolicy {@value #PATH_CACHE_EVICTION_POLICY_EXP}
+	 */
+	@StringSetter(PATH_CACHE_EVICTION_POLICY)
+	public void setPathCacheEvictionPolicy(PathCacheEvictionPolicy pathCacheEvictionPolicy) {
+		this.pathCacheEvictionPolicy = pathCacheEvictionPolicy;
+	}
+
+	/**
+	 * @return {@value #PATH_CACHE_TIME_BIN_SIZE_EXP}
+	 */
+	@StringGetter(PATH_CACHE_TIME_BIN_SIZE)
+	public double getPathCacheTimeBinSize() {
+		return pathCacheTimeBinSize;
+	}
+
+	/**
+	 * @param pathCacheTimeBinSize {@value #PATH_CACHE_TIME_BIN_SIZE_EXP}
+	 */
+	@StringSetter(PATH_CACHE_TIME_BIN_SIZE)
+	public void setPathCacheTimeBinSize(double pathCacheTimeBinSize) {
+		this.pathCacheTimeBinSize = pathCacheTimeBinSize;
+	}
 }
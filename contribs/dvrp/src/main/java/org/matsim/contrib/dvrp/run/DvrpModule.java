@@ -21,6 +21,7 @@ package org.matsim.contrib.dvrp.run;
 
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.dvrp.passenger.PassengerModule;
+import org.matsim.contrib.dvrp.router.DvrpPathCache;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
 import org.matsim.contrib.dvrp.vrpagent.VrpAgentQueryHelper;
@@ -58,6 +59,10 @@ public final class DvrpModule extends AbstractModule {
 				.toProvider(DvrpRoutingNetworkProvider.class)
 				.asEagerSingleton();
 
+		bind(DvrpPathCache.class).asEagerSingleton();
+		addMobsimListenerBinding().to(DvrpPathCache.class);
+		addControlerListenerBinding().to(DvrpPathCache.class);
+
 		installQSimModule(new DynActivityEngineModule());
 		installQSimModule(new AbstractQSimModule() {
 			@Override
@@ -0,0 +1,251 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.contrib.dvrp.router.LeastCostPathCalculatorWithCache.CacheStats;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup.PathCacheEvictionPolicy;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class DvrpPathCacheTest {
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private final Network network = NetworkUtils.createNetwork();
+	private final TravelTime travelTime = new FreeSpeedTravelTime();
+	private final List<Double> calculatedStartTimes = new ArrayList<>();
+	private final LeastCostPathCalculator calculator = new LeastCostPathCalculator() {
+		@Override
+		public Path calcLeastCostPath(Node fromNode, Node toNode, double starttime, Person person, Vehicle vehicle) {
+			calculatedStartTimes.add(starttime);
+			List<Link> links = new ArrayList<>(fromNode.getOutLinks().values());// just to give paths different weights
+			return new Path(Arrays.asList(fromNode, toNode), links, 0, 0);
+		}
+	};
+
+	private Node a;
+	private Node b;
+	private Node c;
+	private int iteration;
+
+	@Before
+	public void init() {
+		a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(0, 1000));
+		c = NetworkUtils.createAndAddNode(network, Id.createNodeId("c"), new Coord(1000, 0));
+	}
+
+	@Test
+	public void testDisabled() {
+		DvrpPathCache pathCache = createPathCache(0);
+		assertThat(pathCache.isEnabled()).isFalse();
+		assertThat(wrap(pathCache, 1)).isSameAs(calculator);
+	}
+
+	@Test
+	public void testHitsMissesAndTimeBins() {
+		DvrpPathCache pathCache = createPathCache(100);
+		LeastCostPathCalculatorWithCache cached = (LeastCostPathCalculatorWithCache)wrap(pathCache, 1);
+
+		Path path = cached.calcLeastCostPath(a, b, 100, null, null);
+		assertThat(cached.calcLeastCostPath(a, b, 899, null, null)).isSameAs(path);
+		assertThat(cached.calcLeastCostPath(a, b, 900, null, null)).isNotSameAs(path);
+		assertThat(cached.calcLeastCostPath(b, a, 100, null, null)).isNotSameAs(path);
+
+		// paths are calculated for the beginning of the time bin
+		assertThat(calculatedStartTimes).containsExactly(0., 900., 0.);
+		assertHitsAndMisses(cached.getCacheStats(), 1, 3);
+	}
+
+	@Test
+	public void testSharingBetweenCalculators() {
+		DvrpPathCache pathCache = createPathCache(100);
+		Path path = wrap(pathCache, 1).calcLeastCostPath(a, b, 0, null, null);
+
+		// equal disutility and calculator config
+		assertThat(wrap(pathCache, 1).calcLeastCostPath(a, b, 0, null, null)).isSameAs(path);
+
+		// A* with overdo factor > 1 does not return least cost paths
+		assertThat(wrap(pathCache, 1.5).calcLeastCostPath(a, b, 0, null, null)).isNotSameAs(path);
+
+		// other disutility
+		TimeAsTravelDisutility otherDisutility = new TimeAsTravelDisutility(new FreeSpeedTravelTime());
+		assertThat(pathCache.wrap(calculator, network, travelTime, otherDisutility, 1.)
+				.calcLeastCostPath(a, b, 0, null, null)).isNotSameAs(path);
+
+		assertThat(calculatedStartTimes).hasSize(3);
+	}
+
+	@Test
+	public void testEviction() {
+		DvrpPathCache pathCache = createPathCache(2);
+		LeastCostPathCalculatorWithCache cached = (LeastCostPathCalculatorWithCache)wrap(pathCache, 1);
+
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(a, c, 0, null, null);
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(b, c, 0, null, null);// evicts (a, c), the least recently used one
+		assertHitsAndMisses(cached.getCacheStats(), 1, 3);
+
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(a, c, 0, null, null);
+		assertHitsAndMisses(cached.getCacheStats(), 2, 4);
+	}
+
+	@Test
+	public void testMaximumWeight() {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ac"), a, c, 1000, 10, 1000, 1);
+		DvrpConfigGroup dvrpCfg = createDvrpConfig(0);
+		dvrpCfg.setPathCacheMaximumWeight(4);// (number of links + 1) per path
+		DvrpPathCache pathCache = createPathCache(dvrpCfg);
+		assertThat(pathCache.isEnabled()).isTrue();
+		LeastCostPathCalculatorWithCache cached = (LeastCostPathCalculatorWithCache)wrap(pathCache, 1);
+
+		cached.calcLeastCostPath(b, c, 0, null, null);// weight 1
+		cached.calcLeastCostPath(c, b, 0, null, null);// weight 1
+		cached.calcLeastCostPath(b, c, 0, null, null);
+		cached.calcLeastCostPath(a, b, 0, null, null);// weight 3, evicts (c, b), the least recently used one
+		assertHitsAndMisses(cached.getCacheStats(), 1, 3);
+
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(c, b, 0, null, null);
+		assertHitsAndMisses(cached.getCacheStats(), 2, 4);
+	}
+
+	@Test
+	public void testFrequencyPolicy() {
+		DvrpConfigGroup dvrpCfg = createDvrpConfig(1);
+		dvrpCfg.setPathCacheEvictionPolicy(PathCacheEvictionPolicy.FREQUENCY);
+		LeastCostPathCalculatorWithCache cached = (LeastCostPathCalculatorWithCache)wrap(createPathCache(dvrpCfg),
+				1);
+
+		cached.calcLeastCostPath(a, b, 0, null, null);// not admitted, first request
+		cached.calcLeastCostPath(a, b, 0, null, null);// admitted
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		assertHitsAndMisses(cached.getCacheStats(), 1, 2);
+
+		// one-off paths do not evict (a, b), unlike with LRU
+		cached.calcLeastCostPath(a, c, 0, null, null);
+		cached.calcLeastCostPath(b, c, 0, null, null);
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		assertHitsAndMisses(cached.getCacheStats(), 2, 4);
+	}
+
+	@Test
+	public void testFrequencySketch() {
+		DvrpPathCache.FrequencySketch sketch = new DvrpPathCache.FrequencySketch(16);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(42);
+		}
+		sketch.increment(7);
+		assertThat(sketch.getFrequency(42)).isEqualTo(15);// capped
+		assertThat(sketch.getFrequency(7)).isBetween(1, 15);
+
+		// halved after 10 x 16 increments
+		for (int i = 0; i < 10 * 16 - 21; i++) {
+			sketch.increment(i * 31 + 1000);
+		}
+		assertThat(sketch.getFrequency(42)).isEqualTo(7);
+
+		sketch.clear();
+		assertThat(sketch.getFrequency(42)).isEqualTo(0);
+	}
+
+	@Test
+	public void testStatsPerIteration() throws IOException {
+		DvrpPathCache pathCache = createPathCache(2);
+		LeastCostPathCalculator cached = wrap(pathCache, 1);
+
+		iteration = 0;
+		pathCache.notifyMobsimInitialized(null);
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(a, c, 0, null, null);
+		cached.calcLeastCostPath(b, c, 0, null, null);
+		pathCache.notifyMobsimBeforeCleanup(null);
+
+		iteration = 1;
+		pathCache.notifyMobsimInitialized(null);// the cache is cleared
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		cached.calcLeastCostPath(a, b, 0, null, null);
+		pathCache.notifyMobsimBeforeCleanup(null);
+		pathCache.notifyShutdown(null);
+
+		List<String> lines = Files.readAllLines(Paths.get(utils.getOutputDirectory(), DvrpPathCache.STATS_FILE));
+		assertThat(lines).hasSize(3);
+		assertThat(lines.get(0).split("\t")).containsExactly("iter", "hits", "misses", "hitRate", "evictions",
+				"size");
+		assertThat(lines.get(1).split("\t")).containsExactly("0", "1", "3", String.format("%.4f", 0.25), "1", "2");
+		assertThat(lines.get(2).split("\t")).containsExactly("1", "1", "1", String.format("%.4f", 0.5), "0", "1");
+	}
+
+	private DvrpPathCache createPathCache(int maximumSize) {
+		return createPathCache(createDvrpConfig(maximumSize));
+	}
+
+	private static DvrpConfigGroup createDvrpConfig(int maximumSize) {
+		DvrpConfigGroup dvrpCfg = new DvrpConfigGroup();
+		dvrpCfg.setPathCacheMaximumSize(maximumSize);
+		dvrpCfg.setPathCacheTimeBinSize(900);
+		return dvrpCfg;
+	}
+
+	private DvrpPathCache createPathCache(DvrpConfigGroup dvrpCfg) {
+		OutputDirectoryHierarchy controlerIO = new OutputDirectoryHierarchy(utils.getOutputDirectory(),
+				OverwriteFileSetting.deleteDirectoryIfExists);
+		return new DvrpPathCache(dvrpCfg, controlerIO, () -> iteration);
+	}
+
+	private LeastCostPathCalculator wrap(DvrpPathCache pathCache, double overdoFactor) {
+		return pathCache.wrap(calculator, network, travelTime, new TimeAsTravelDisutility(travelTime), overdoFactor);
+	}
+
+	private static void assertHitsAndMisses(CacheStats cacheStats, int hits, int misses) {
+		assertThat(cacheStats.getHits()).isEqualTo(hits);
+		assertThat(cacheStats.getMisses()).isEqualTo(misses);
+	}
+}
@@ -70,7 +70,7 @@ public class AssignmentRequestInserter implements UnplannedRequestInserter {
 		this.params = params;
 
 		assignmentProblem = new VehicleAssignmentProblem<>(travelTime, multiNodeRouter, backwardMultiNodeRouter, router,
-				params.getNearestRequestsLimit(), params.getNearestVehiclesLimit());
+				params.getNearestRequestsLimit(), params.getNearestVehiclesLimit(), params.getSolver());
 
 		assignmentCostProvider = new TaxiToRequestAssignmentCostProvider(params);
 	}
@@ -26,6 +26,7 @@ import javax.validation.constraints.Positive;
 
 import org.matsim.contrib.taxi.optimizer.AbstractTaxiOptimizerParams;
 import org.matsim.contrib.taxi.optimizer.assignment.TaxiToRequestAssignmentCostProvider.Mode;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.Solver;
 import org.matsim.core.config.Config;
 
 public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerParams {
@@ -88,6 +89,15 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 	@Positive
 	private double nullPathCost = 48 * 3600;
 
+	public static final String SOLVER = "solver";
+	static final String SOLVER_EXP = "Specifies the algorithm used to solve the assignment problem."
+			+ " HUNGARIAN solves it on the full cost matrix in O(n^3), which becomes too slow for more than a few"
+			+ " thousand vehicles and requests. SPARSE considers only the vehicle-request pairs within"
+			+ " 'nearestRequestsLimit'/'nearestVehiclesLimit' (so 'nullPathCost' is not used) and scales to much"
+			+ " larger fleets. The default value is HUNGARIAN.";
+	@NotNull
+	private Solver solver = Solver.HUNGARIAN;
+
 	@Positive
 	private int reoptimizationTimeStep = 10;
 
@@ -114,6 +124,7 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 		map.put(NEAREST_REQUESTS_LIMIT, NEAREST_REQUESTS_LIMIT_EXP);
 		map.put(NEAREST_VEHICLES_LIMIT, NEAREST_VEHICLES_LIMIT_EXP);
 		map.put(NULL_PATH_COST, NULL_PATH_COST_EXP);
+		map.put(SOLVER, SOLVER_EXP);
 		return map;
 	}
 
@@ -213,6 +224,22 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 		this.nullPathCost = nullPathCost;
 	}
 
+	/**
+	 * @return {@value #SOLVER_EXP}
+	 */
+	@StringGetter(SOLVER)
+	public Solver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * @param solver {@value #SOLVER_EXP}
+	 */
+	@StringSetter(SOLVER)
+	public void setSolver(Solver solver) {
+		this.solver = solver;
+	}
+
 	@StringGetter(REOPTIMIZATION_TIME_STEP)
 	public int getReoptimizationTimeStep() {
 		return reoptimizationTimeStep;
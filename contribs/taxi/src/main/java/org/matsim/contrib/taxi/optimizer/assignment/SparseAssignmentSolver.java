@@ -0,0 +1,255 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Solves the assignment problem on a sparse bipartite graph, i.e. when only some of the worker-job pairs are allowed
+ * (e.g. only the k nearest jobs of each worker). Like {@link HungarianAlgorithm}, it finds a matching with the maximum
+ * number of assigned workers, and among these the one with the minimum cost. Pairs without an edge are never
+ * assigned.
+ * <p></p>
+ * Uses the successive shortest augmenting paths with vertex potentials (the Hungarian method): after a greedy initial
+ * matching, each unassigned worker is matched by a Dijkstra search over the edges of the graph. Each worker also has
+ * a private dummy job, which stands for leaving the worker unassigned; its cost is so high that a matching with more
+ * assigned workers is always cheaper. A search usually ends
+ * within a small neighbourhood of the worker, so the running time is close to O(n * k * log(n * k)) for n workers with
+ * k edges each, instead of O(n^3) on the full matrix.
+ */
+public class SparseAssignmentSolver {
+	private final int rows;
+	private final int cols;
+
+	private final int[] edgeCounts;
+	private final int[][] edgeCols;
+	private final double[][] edgeCosts;
+
+	private final double[] labelByWorker;
+	private final double[] labelByJob;
+	private final int[] matchJobByWorker;
+	private final int[] matchWorkerByJob;
+
+	// search state; a job has been reached/scanned in the current search if its stamp equals the current stamp
+	private final double[] distByJob;
+	private final int[] parentWorkerByJob;
+	private final int[] reachedStamps;
+	private final int[] scannedStamps;
+	private final int[] scannedJobs;
+	private final PriorityQueue<JobDist> queue = new PriorityQueue<>();
+	private int stamp = 0;
+
+	public SparseAssignmentSolver(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		edgeCounts = new int[rows];
+		edgeCols = new int[rows][];
+		edgeCosts = new double[rows][];
+
+		labelByWorker = new double[rows];
+		int jobs = cols + rows;// incl. the dummy jobs
+		labelByJob = new double[jobs];
+		matchJobByWorker = new int[rows];
+		Arrays.fill(matchJobByWorker, -1);
+		matchWorkerByJob = new int[jobs];
+		Arrays.fill(matchWorkerByJob, -1);
+
+		distByJob = new double[jobs];
+		parentWorkerByJob = new int[jobs];
+		reachedStamps = new int[jobs];
+		scannedStamps = new int[jobs];
+		scannedJobs = new int[jobs];
+	}
+
+	/**
+	 * Allows assigning the worker to the job at the given cost. Each pair must be added at most once.
+	 */
+	public void addEdge(int worker, int job, double cost) {
+		int count = edgeCounts[worker];
+		if (count == 0) {
+			edgeCols[worker] = new int[8];
+			edgeCosts[worker] = new double[8];
+		} else if (count == edgeCols[worker].length) {
+			edgeCols[worker] = Arrays.copyOf(edgeCols[worker], 2 * count);
+			edgeCosts[worker] = Arrays.copyOf(edgeCosts[worker], 2 * count);
+		}
+		edgeCols[worker][count] = job;
+		edgeCosts[worker][count] = cost;
+		edgeCounts[worker] = count + 1;
+	}
+
+	/**
+	 * Execute the algorithm.
+	 *
+	 * @return the minimum cost matching of workers to jobs. A matching value of -1 indicates that the corresponding
+	 * worker is unassigned.
+	 */
+	public int[] execute() {
+		addDummyEdges();
+		greedyMatch();
+		for (int w = 0; w < rows; w++) {
+			if (matchJobByWorker[w] == -1 && edgeCounts[w] > 0) {
+				augment(w);
+			}
+		}
+
+		int[] assignments = new int[rows];
+		for (int w = 0; w < rows; w++) {
+			int j = matchJobByWorker[w];
+			assignments[w] = j < cols ? j : -1;
+		}
+		return assignments;
+	}
+
+	/**
+	 * The cost of a dummy job exceeds the largest possible cost difference between two matchings, so one more
+	 * assigned worker always outweighs any increase in the cost of the other assignments.
+	 */
+	private void addDummyEdges() {
+		double minCost = Double.POSITIVE_INFINITY;
+		double maxCost = Double.NEGATIVE_INFINITY;
+		for (int w = 0; w < rows; w++) {
+			for (int e = 0; e < edgeCounts[w]; e++) {
+				minCost = Math.min(minCost, edgeCosts[w][e]);
+				maxCost = Math.max(maxCost, edgeCosts[w][e]);
+			}
+		}
+		double dummyCost = maxCost + (rows + 1) * (maxCost - minCost + 1);
+		for (int w = 0; w < rows; w++) {
+			if (edgeCounts[w] > 0) {
+				addEdge(w, cols + w, dummyCost);
+			}
+		}
+	}
+
+	/**
+	 * Labels each worker with the minimum cost of its edges (the job labels are 0), which makes all reduced costs
+	 * non-negative, and assigns the worker to the job of this edge if the job is still unassigned.
+	 */
+	private void greedyMatch() {
+		for (int w = 0; w < rows; w++) {
+			int minIdx = -1;
+			double minCost = Double.POSITIVE_INFINITY;
+			for (int e = 0; e < edgeCounts[w]; e++) {
+				if (edgeCosts[w][e] < minCost) {
+					minCost = edgeCosts[w][e];
+					minIdx = e;
+				}
+			}
+			if (minIdx == -1) {
+				continue;
+			}
+			labelByWorker[w] = minCost;
+			int j = edgeCols[w][minIdx];
+			if (matchWorkerByJob[j] == -1) {
+				match(w, j);
+			}
+		}
+	}
+
+	/**
+	 * Searches for the shortest (w.r.t. the reduced costs) alternating path from the worker to an unassigned job, and
+	 * augments the matching along it. The labels are then updated so that the reduced costs remain non-negative and
+	 * are 0 for all matched pairs.
+	 */
+	private void augment(int root) {
+		stamp++;
+		queue.clear();
+		int scannedCount = 0;
+		relaxEdges(root, 0);
+
+		while (!queue.isEmpty()) {
+			JobDist jd = queue.poll();
+			int j = jd.job;
+			if (scannedStamps[j] == stamp) {
+				continue;// outdated queue entry
+			}
+			scannedStamps[j] = stamp;
+			scannedJobs[scannedCount++] = j;
+
+			int w = matchWorkerByJob[j];
+			if (w != -1) {
+				relaxEdges(w, jd.dist);
+				continue;
+			}
+
+			// unassigned job found: update the labels of the scanned jobs and their workers (incl. the root)
+			double pathDist = jd.dist;
+			labelByWorker[root] += pathDist;
+			for (int i = 0; i < scannedCount; i++) {
+				int scannedJob = scannedJobs[i];
+				double delta = pathDist - distByJob[scannedJob];
+				labelByJob[scannedJob] -= delta;
+				int matchedWorker = matchWorkerByJob[scannedJob];
+				if (matchedWorker != -1) {
+					labelByWorker[matchedWorker] += delta;
+				}
+			}
+
+			// flip the alternating path
+			while (true) {
+				int parent = parentWorkerByJob[j];
+				int previousJob = matchJobByWorker[parent];
+				match(parent, j);
+				if (parent == root) {
+					return;
+				}
+				j = previousJob;
+			}
+		}
+	}
+
+	private void relaxEdges(int w, double workerDist) {
+		for (int e = 0; e < edgeCounts[w]; e++) {
+			int j = edgeCols[w][e];
+			if (scannedStamps[j] == stamp) {
+				continue;
+			}
+			double dist = workerDist + edgeCosts[w][e] - labelByWorker[w] - labelByJob[j];
+			if (reachedStamps[j] != stamp || dist < distByJob[j]) {
+				reachedStamps[j] = stamp;
+				distByJob[j] = dist;
+				parentWorkerByJob[j] = w;
+				queue.add(new JobDist(j, dist));
+			}
+		}
+	}
+
+	private void match(int w, int j) {
+		matchJobByWorker[w] = j;
+		matchWorkerByJob[j] = w;
+	}
+
+	private static class JobDist implements Comparable<JobDist> {
+		private final int job;
+		private final double dist;
+
+		private JobDist(int job, double dist) {
+			this.job = job;
+			this.dist = dist;
+		}
+
+		@Override
+		public int compareTo(JobDist o) {
+			return Double.compare(dist, o.dist);
+		}
+	}
+}
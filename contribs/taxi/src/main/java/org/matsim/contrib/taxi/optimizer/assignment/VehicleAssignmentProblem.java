@@ -21,7 +21,10 @@ package org.matsim.contrib.taxi.optimizer.assignment;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
@@ -47,6 +50,16 @@ public class VehicleAssignmentProblem<D> {
 		double calc(VehicleData.Entry departure, DestEntry<D> dest, PathData pathData);
 	}
 
+	public enum Solver {
+		HUNGARIAN, // HungarianAlgorithm on the full cost matrix (incl. pairs without path data)
+
+		SPARSE;// SparseAssignmentSolver on the pairs with path data (i.e. within the nearest-neighbour limits)
+	}
+
+	private interface PathDataConsumer {
+		void accept(int v, int d, PathData pathData);
+	}
+
 	private final TravelTime travelTime;
 	private final LeastCostPathCalculator router;
 
@@ -56,6 +69,8 @@ public class VehicleAssignmentProblem<D> {
 	private final StraightLineKnnFinder<VehicleData.Entry, DestEntry<D>> destinationFinder;
 	private final StraightLineKnnFinder<DestEntry<D>, VehicleData.Entry> vehicleFinder;
 
+	private final Solver solver;
+
 	private AssignmentCost<D> assignmentCost;
 	private VehicleData vData;
 	private AssignmentDestinationData<D> dData;
@@ -69,8 +84,16 @@ public class VehicleAssignmentProblem<D> {
 	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator multiNodeRouter,
 			BackwardMultiNodePathCalculator backwardMultiNodeRouter, LeastCostPathCalculator router,
 			int nearestDestinationLimit, int nearestVehicleLimit) {
+		this(travelTime, multiNodeRouter, backwardMultiNodeRouter, router, nearestDestinationLimit,
+				nearestVehicleLimit, Solver.HUNGARIAN);
+	}
+
+	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator multiNodeRouter,
+			BackwardMultiNodePathCalculator backwardMultiNodeRouter, LeastCostPathCalculator router,
+			int nearestDestinationLimit, int nearestVehicleLimit, Solver solver) {
 		this.travelTime = travelTime;
 		this.router = router;
+		this.solver = solver;
 
 		forwardPathSearch = OneToManyPathSearch.create(multiNodeRouter);
 		backwardPathSearch = OneToManyPathSearch.create(backwardMultiNodeRouter);
@@ -88,10 +111,36 @@ public class VehicleAssignmentProblem<D> {
 		this.dData = dData;
 		this.assignmentCost = assignmentCost;
 
+		if (solver == Solver.SPARSE) {
+			return findSparseAssignments();
+		}
+
 		PathData[][] pathDataMatrix = createPathDataMatrix();
 		double[][] costMatrix = createCostMatrix(pathDataMatrix);
 		int[] assignments = new HungarianAlgorithm(costMatrix).execute();
-		return createDispatches(assignments, pathDataMatrix, travelTime);
+		return createDispatches(assignments, (v, d) -> pathDataMatrix[v][d]);
+	}
+
+	/**
+	 * Only the vehicle-destination pairs with path data can be assigned, so neither the path data nor the costs are
+	 * stored in a full matrix. Unlike with the HungarianAlgorithm, no vehicle is dispatched to a destination outside
+	 * of its neighbourhood; such a destination waits for the next optimisation step instead.
+	 */
+	private List<Dispatch<D>> findSparseAssignments() {
+		SparseAssignmentSolver sparseSolver = new SparseAssignmentSolver(vData.getSize(), dData.getSize());
+		Map<Long, PathData> pathDataMap = new HashMap<>();
+		calcPathData((v, d, pathData) -> {
+			if (pathData != null) {
+				sparseSolver.addEdge(v, d, assignmentCost.calc(vData.getEntry(v), dData.getEntry(d), pathData));
+				pathDataMap.put(getPairKey(v, d), pathData);
+			}
+		});
+		int[] assignments = sparseSolver.execute();
+		return createDispatches(assignments, (v, d) -> pathDataMap.get(getPairKey(v, d)));
+	}
+
+	private long getPairKey(int v, int d) {
+		return (long)v * dData.getSize() + d;
 	}
 
 	// private static int calcPathsForVehiclesCount = 0;
@@ -99,12 +148,16 @@ public class VehicleAssignmentProblem<D> {
 
 	private PathData[][] createPathDataMatrix() {
 		PathData[][] pathDataMatrix = (PathData[][])Array.newInstance(PathData.class, vData.getSize(), dData.getSize());
+		calcPathData((v, d, pathData) -> pathDataMatrix[v][d] = pathData);
+		return pathDataMatrix;
+	}
 
+	private void calcPathData(PathDataConsumer consumer) {
 		if (dData.getSize() > vData.getSize()) {
-			calcPathsForVehicles(pathDataMatrix);
+			calcPathsForVehicles(consumer);
 			// calcPathsForVehiclesCount++;
 		} else {
-			calcPathsForDestinations(pathDataMatrix);
+			calcPathsForDestinations(consumer);
 			// calcPathsForDestinationsCount++;
 		}
 
@@ -114,11 +167,9 @@ public class VehicleAssignmentProblem<D> {
 		// System.err.println("dests = " + dData.getSize() + " vehs = " + vData.getSize()
 		// + " idleVehs = " + vData.getIdleCount());
 		// }
-
-		return pathDataMatrix;
 	}
 
-	private void calcPathsForVehicles(PathData[][] pathDataMatrix) {
+	private void calcPathsForVehicles(PathDataConsumer consumer) {
 		for (int v = 0; v < vData.getSize(); v++) {
 			VehicleData.Entry departure = vData.getEntry(v);
 
@@ -129,13 +180,13 @@ public class VehicleAssignmentProblem<D> {
 
 			for (int i = 0; i < filteredDests.size(); i++) {
 				int d = filteredDests.get(i).idx;
-				pathDataMatrix[v][d] = paths[i];
+				consumer.accept(v, d, paths[i]);
 			}
 		}
 	}
 
 	// TODO does not support adv reqs
-	private void calcPathsForDestinations(PathData[][] pathDataMatrix) {
+	private void calcPathsForDestinations(PathDataConsumer consumer) {
 		for (int d = 0; d < dData.getSize(); d++) {
 			DestEntry<D> dest = dData.getEntry(d);
 
@@ -146,7 +197,7 @@ public class VehicleAssignmentProblem<D> {
 
 			for (int i = 0; i < filteredVehs.size(); i++) {
 				int v = filteredVehs.get(i).idx;
-				pathDataMatrix[v][d] = paths[i];
+				consumer.accept(v, d, paths[i]);
 			}
 		}
 	}
@@ -165,7 +216,7 @@ public class VehicleAssignmentProblem<D> {
 		return costMatrix;
 	}
 
-	private List<Dispatch<D>> createDispatches(int[] assignments, PathData[][] pathDataMatrix, TravelTime travelTime) {
+	private List<Dispatch<D>> createDispatches(int[] assignments, BiFunction<Integer, Integer, PathData> pathDataLookup) {
 		List<Dispatch<D>> dispatches = new ArrayList<>(Math.min(vData.getSize(), dData.getSize()));
 		for (int v = 0; v < assignments.length; v++) {
 			int d = assignments[v];
@@ -176,7 +227,7 @@ public class VehicleAssignmentProblem<D> {
 
 			VehicleData.Entry departure = vData.getEntry(v);
 			DestEntry<D> dest = dData.getEntry(d);
-			PathData pathData = pathDataMatrix[v][d];
+			PathData pathData = pathDataLookup.apply(v, d);
 
 			// TODO if null is frequent we may be more efficient by increasing the neighbourhood
 			VrpPathWithTravelData vrpPath = pathData == null ? //
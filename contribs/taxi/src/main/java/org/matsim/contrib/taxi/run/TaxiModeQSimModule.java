@@ -28,6 +28,7 @@ import org.matsim.contrib.dvrp.passenger.PassengerEngine;
 import org.matsim.contrib.dvrp.passenger.PassengerEngineQSimModule;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestCreator;
 import org.matsim.contrib.dvrp.passenger.PassengerRequestValidator;
+import org.matsim.contrib.dvrp.router.DvrpPathCache;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
 import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
@@ -109,12 +110,16 @@ public class TaxiModeQSimModule extends AbstractDvrpModeQSimModule {
 					@Named(DvrpTravelTimeModule.DVRP_ESTIMATED)
 					private TravelTime travelTime;
 
+					@Inject
+					private DvrpPathCache pathCache;
+
 					@Override
 					public TaxiScheduler get() {
 						Fleet fleet = getModalInstance(Fleet.class);
 						TravelDisutility travelDisutility = getModalInstance(
 								TravelDisutilityFactory.class).createTravelDisutility(travelTime);
-						return new TaxiScheduler(taxiCfg, fleet, network, timer, travelTime, travelDisutility);
+						return new TaxiScheduler(taxiCfg, fleet, network, timer, travelTime, travelDisutility,
+								pathCache);
 					}
 				}).asEagerSingleton();
 
@@ -20,6 +20,7 @@
 package org.matsim.contrib.taxi.scheduler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.matsim.api.core.v01.network.Link;
@@ -29,6 +30,7 @@ import org.matsim.contrib.dvrp.fleet.Fleet;
 import org.matsim.contrib.dvrp.path.VrpPathWithTravelData;
 import org.matsim.contrib.dvrp.path.VrpPathWithTravelDataImpl;
 import org.matsim.contrib.dvrp.path.VrpPaths;
+import org.matsim.contrib.dvrp.router.DvrpPathCache;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.schedule.DriveTask;
 import org.matsim.contrib.dvrp.schedule.Schedule;
@@ -70,13 +72,26 @@ public class TaxiScheduler implements TaxiScheduleInquiry {
 	public TaxiScheduler(TaxiConfigGroup taxiCfg, Fleet fleet,
 			@Named(DvrpRoutingNetworkProvider.DVRP_ROUTING) Network network, MobsimTimer timer,
 			@Named(DvrpTravelTimeModule.DVRP_ESTIMATED) TravelTime travelTime, TravelDisutility travelDisutility) {
+		this(taxiCfg, fleet, network, timer, travelTime, travelDisutility, null);
+	}
+
+	/**
+	 * @param pathCache if not null, the paths are looked up in the (shared) cache first
+	 */
+	public TaxiScheduler(TaxiConfigGroup taxiCfg, Fleet fleet, Network network, MobsimTimer timer,
+			TravelTime travelTime, TravelDisutility travelDisutility, DvrpPathCache pathCache) {
 		this.taxiCfg = taxiCfg;
 		this.fleet = fleet;
 		this.timer = timer;
 		this.travelTime = travelTime;
 
-		router = new FastAStarEuclideanFactory(taxiCfg.getAStarEuclideanOverdoFactor()).createPathCalculator(network,
+		double overdoFactor = taxiCfg.getAStarEuclideanOverdoFactor();
+		LeastCostPathCalculator router = new FastAStarEuclideanFactory(overdoFactor).createPathCalculator(network,
 				travelDisutility, travelTime);
+		this.router = pathCache == null ?
+				router :
+				pathCache.wrap(router, network, travelTime, travelDisutility,
+						Arrays.asList(FastAStarEuclideanFactory.class, overdoFactor));
 		initFleet();
 	}
 
@@ -0,0 +1,97 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SparseAssignmentSolverTest {
+	private static final double NO_EDGE = 1e7;
+
+	@Test
+	public void testSameAsHungarianAlgorithm() {
+		Random random = new Random(4711);
+		int[][] sizes = { { 1, 1 }, { 5, 5 }, { 10, 30 }, { 30, 10 }, { 50, 50 }, { 80, 60 } };
+		for (int[] size : sizes) {
+			for (int run = 0; run < 10; run++) {
+				int rows = size[0];
+				int cols = size[1];
+				double[][] costMatrix = new double[rows][cols];
+				SparseAssignmentSolver solver = new SparseAssignmentSolver(rows, cols);
+				for (int w = 0; w < rows; w++) {
+					for (int j = 0; j < cols; j++) {
+						// about 20% of the pairs are allowed; the costs are rounded to avoid ties of different sums
+						if (random.nextDouble() < 0.2) {
+							costMatrix[w][j] = 1000 + random.nextInt(1000) + random.nextDouble() / 1000;
+							solver.addEdge(w, j, costMatrix[w][j]);
+						} else {
+							costMatrix[w][j] = NO_EDGE;
+						}
+					}
+				}
+
+				int[] expected = new HungarianAlgorithm(costMatrix).execute();
+				int[] actual = solver.execute();
+
+				int expectedCount = 0;
+				double expectedCost = 0;
+				for (int w = 0; w < rows; w++) {
+					if (expected[w] != -1 && costMatrix[w][expected[w]] < NO_EDGE) {
+						expectedCount++;
+						expectedCost += costMatrix[w][expected[w]];
+					}
+				}
+
+				boolean[] assignedJobs = new boolean[cols];
+				int actualCount = 0;
+				double actualCost = 0;
+				for (int w = 0; w < rows; w++) {
+					int j = actual[w];
+					if (j != -1) {
+						assertTrue(costMatrix[w][j] < NO_EDGE);
+						assertTrue(!assignedJobs[j]);
+						assignedJobs[j] = true;
+						actualCount++;
+						actualCost += costMatrix[w][j];
+					}
+				}
+
+				assertEquals(expectedCount, actualCount);
+				assertEquals(expectedCost, actualCost, 1e-6);
+			}
+		}
+	}
+
+	@Test
+	public void testMoreAssignmentsBeforeLowerCost() {
+		// worker 0 could take job 0 at a lower cost, but then worker 1 would remain unassigned
+		SparseAssignmentSolver solver = new SparseAssignmentSolver(2, 2);
+		solver.addEdge(0, 0, 1);
+		solver.addEdge(0, 1, 100);
+		solver.addEdge(1, 0, 50);
+		int[] assignments = solver.execute();
+		assertEquals(1, assignments[0]);
+		assertEquals(0, assignments[1]);
+	}
+}
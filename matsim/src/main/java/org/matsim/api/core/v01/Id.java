@@ -20,6 +20,7 @@
 
 package org.matsim.api.core.v01;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -35,12 +36,16 @@ import org.matsim.vehicles.Vehicle;
  * 
  * Note that Ids should not contain any whitespace characters (spaces, tabs, newlines, ...), 
  * as this may lead to problems when Ids are written to file and read back in.
+ * <p></p>
+ * Every Id also gets a dense integer index per type (0, 1, 2, ... in the order in which the Ids of that type are created),
+ * see {@link #index()} and {@link #get(int, Class)}.  This allows to store data per Id in arrays instead of maps, see e.g.
+ * {@link IdMap}.
  * 
  *  @author mrieser / Senozon AG
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, Registry> cache = new ConcurrentHashMap<>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -58,20 +63,52 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	 * This method supports a cache where ids are stored and re-used per type.   
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
-		Map<String, Id<?>> map = cache.get(type);
-		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
-		}
+		Registry registry = cache.computeIfAbsent(type, k -> new Registry());
 		Gbl.assertNotNull(key);
-		Id<?> id = map.get(key);
+		Id<?> id = registry.idsByKey.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			id = registry.create(key);
 		}
 		
 		return (Id<T>) id;
 	}
+
+	/**
+	 * @return the Id of the given type with the given key, or <code>null</code> if no such Id was created so far.
+	 */
+	public static <T> Id<T> get(final String key, final Class<T> type) {
+		Registry registry = cache.get(type);
+		if (registry == null) {
+			return null;
+		}
+		return (Id<T>) registry.idsByKey.get(key);
+	}
+
+	/**
+	 * @return the Id of the given type with the given {@link #index()}.
+	 * @throws IndexOutOfBoundsException if there is no such Id
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		Registry registry = cache.get(type);
+		if (registry == null || index < 0 || index >= registry.size) {
+			throw new IndexOutOfBoundsException("there is no Id of type " + type.getName() + " with index " + index);
+		}
+		return (Id<T>) registry.idsByIndex[index];
+	}
+
+	/**
+	 * @return the number of Ids of the given type that were created so far, i.e. one more than the largest {@link #index()}.
+	 */
+	public static <T> int getNumberOfIds(final Class<T> type) {
+		Registry registry = cache.get(type);
+		return registry == null ? 0 : registry.size;
+	}
+
+	/**
+	 * @return the index of this Id, which is unique among the Ids of the same type.  The indices of a type are dense, i.e.
+	 * they go from 0 to {@link #getNumberOfIds(Class)}-1.
+	 */
+	public abstract int index();
 	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
@@ -113,9 +150,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
@@ -129,6 +173,34 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 		}
 	}
 	
+	/**
+	 * All Ids of one type.  Lookups by key do not lock; new Ids are created under the lock of the registry so that every key
+	 * gets exactly one Id and every Id gets its own index.
+	 */
+	private static final class Registry {
+
+		private final Map<String, Id<?>> idsByKey = new ConcurrentHashMap<>();
+
+		// written before the new Id is published through idsByKey, so whoever has an Id also sees it here:
+		private volatile Id<?>[] idsByIndex = new Id<?>[16];
+		private volatile int size = 0;
+
+		synchronized Id<?> create(final String key) {
+			Id<?> id = this.idsByKey.get(key);
+			if (id == null) {
+				int index = this.size;
+				if (index == this.idsByIndex.length) {
+					this.idsByIndex = Arrays.copyOf(this.idsByIndex, 2 * index);
+				}
+				id = new IdImpl<>(key, index);
+				this.idsByIndex[index] = id;
+				this.size = index + 1;
+				this.idsByKey.put(key, id);
+			}
+			return id;
+		}
+	}
+
 	public static <T> String writeId( Id<T> id ) {
 		if ( id==null ) {
 			return "null" ;
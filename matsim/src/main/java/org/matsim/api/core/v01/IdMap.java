@@ -0,0 +1,208 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map with {@link Id}s as keys that stores the values in an array addressed by {@link Id#index()}.  Lookups are a single
+ * array access, and there are no entry objects per mapping.
+ * <p></p>
+ * The map iterates in the order of the indices, i.e. in the order in which the Ids were created (not in the order in which
+ * they were put into the map).  <code>null</code> values are not supported.  Not thread-safe.
+ */
+public final class IdMap<T, V> extends AbstractMap<Id<T>, V> {
+
+	// the keys are kept so that Ids of another type which happen to have the same index are not mistaken for ours:
+	private Id<?>[] keys;
+	private Object[] data;
+	private int size = 0;
+	private int modCount = 0;
+
+	/**
+	 * Creates a map with room for all Ids of the given type created so far.
+	 */
+	public IdMap(Class<T> idClass) {
+		this(Math.max(16, Id.getNumberOfIds(idClass)));
+	}
+
+	public IdMap(int initialCapacity) {
+		this.keys = new Id<?>[Math.max(1, initialCapacity)];
+		this.data = new Object[this.keys.length];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		if (!(key instanceof Id)) {
+			return null;
+		}
+		int index = ((Id<?>) key).index();
+		if (index >= this.data.length || this.keys[index] != key) {
+			return null;
+		}
+		return (V) this.data[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(Id<T> key, V value) {
+		if (value == null) {
+			throw new NullPointerException("IdMap does not support null values.");
+		}
+		int index = key.index();
+		if (index >= this.data.length) {
+			int newLength = Math.max(index + 1, Math.max(16, this.data.length * 3 / 2));
+			this.keys = Arrays.copyOf(this.keys, newLength);
+			this.data = Arrays.copyOf(this.data, newLength);
+		}
+		Object oldValue = this.data[index];
+		this.keys[index] = key;
+		this.data[index] = value;
+		if (oldValue == null) {
+			this.size++;
+			this.modCount++;
+		}
+		return (V) oldValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(Object key) {
+		V oldValue = get(key);
+		if (oldValue != null) {
+			int index = ((Id<?>) key).index();
+			this.keys[index] = null;
+			this.data[index] = null;
+			this.size--;
+			this.modCount++;
+		}
+		return oldValue;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.keys, null);
+		Arrays.fill(this.data, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Map.Entry<Id<T>, V>> entrySet() {
+		return new AbstractSet<Map.Entry<Id<T>, V>>() {
+			@Override
+			public Iterator<Map.Entry<Id<T>, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return IdMap.this.size;
+			}
+
+			@Override
+			public void clear() {
+				IdMap.this.clear();
+			}
+		};
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<Id<T>, V>> {
+		private int expectedModCount = modCount;
+		private int nextIndex = -1;
+		private int currentIndex = -1;
+
+		EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			do {
+				this.nextIndex++;
+			} while (this.nextIndex < data.length && data[this.nextIndex] == null);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < data.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Map.Entry<Id<T>, V> next() {
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.currentIndex = this.nextIndex;
+			advance();
+			final int index = this.currentIndex;
+			return new SimpleEntry<Id<T>, V>((Id<T>) keys[index], (V) data[index]) {
+				@Override
+				public V setValue(V value) {
+					super.setValue(value);
+					return put(getKey(), value);
+				}
+			};
+		}
+
+		@Override
+		public void remove() {
+			if (this.currentIndex < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			keys[this.currentIndex] = null;
+			data[this.currentIndex] = null;
+			size--;
+			modCount++;
+			this.expectedModCount = modCount;
+			this.currentIndex = -1;
+		}
+	}
+}
@@ -39,6 +39,7 @@ public final class PopulationWriter implements MatsimWriter {
 	private final Population population;
 	private final Network network;
 	private final Map<Class<?>,AttributeConverter<?>> attributeConverters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 	public PopulationWriter(
 			final CoordinateTransformation transformation,
@@ -71,6 +72,13 @@ public final class PopulationWriter implements MatsimWriter {
 		this.attributeConverters.putAll( converters );
 	}
 
+	/**
+	 * Sets the number of threads used to write the population in the most current format.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Writes the population in the most current format (currently population_v6.dtd).
 	 */
@@ -110,6 +118,7 @@ public final class PopulationWriter implements MatsimWriter {
 		final org.matsim.core.population.io.PopulationWriter writer =
 				new org.matsim.core.population.io.PopulationWriter( transformation , this.population, this.network);
 		writer.putAttributeConverters( attributeConverters );
+		writer.setNumberOfThreads( numberOfThreads );
 		writer.writeV6(filename);
 	}
 
@@ -37,9 +37,9 @@ import java.util.Set;
 public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger( ControlerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks, ContractionHierarchies}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, bin}
 
 	public static final String GROUP_NAME = "controler";
 
@@ -56,6 +56,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
 	private static final String DUMP_DATA_AT_END = "dumpDataAtEnd";
+	private static final String WRITE_SCENARIO_SNAPSHOT = "writeScenarioSnapshot";
+	private static final String INPUT_SCENARIO_SNAPSHOT_FILE = "inputScenarioSnapshotFile";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim}
@@ -81,6 +83,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private int writeSnapshotsInterval = 1;
 	private boolean createGraphs = true;
 	private boolean dumpDataAtEnd = true;
+	private boolean writeScenarioSnapshot = false;
+	private String inputScenarioSnapshotFile = null;
 	private OverwriteFileSetting overwriteFileSetting = OverwriteFileSetting.failIfDirectoryExists;
 
 	public ControlerConfigGroup() {
@@ -91,9 +95,10 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
-				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
+				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + ", "  + RoutingAlgorithmType.FastAStarLandmarks + " or " +
+				RoutingAlgorithmType.ContractionHierarchies + " (contracts the network once, re-computes only the edge costs per time bin every iteration)");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, bin (compact binary format, see EventWriterBinary)."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
@@ -120,6 +125,12 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
+		map.put(WRITE_SCENARIO_SNAPSHOT, "Default=false. If true, the network and the (routed) population are written into a binary file after " +
+				"PrepareForSim, which a later run can load much faster than the xml files, see " + INPUT_SCENARIO_SNAPSHOT_FILE + ". " +
+				"(Not related to the visualizer snapshots.)");
+		map.put(INPUT_SCENARIO_SNAPSHOT_FILE, "A scenario snapshot written by an earlier run. If it was created from the same input files " +
+				"(network, facilities, plans, vehicles, transit schedule, ...) and the same network, routing and main mode settings as given in " +
+				"this config, the network and the population are read from it instead of from these files.");
 		return map;
 	}
 
@@ -342,6 +353,26 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public void setDumpDataAtEnd(boolean dumpDataAtEnd) {
 		this.dumpDataAtEnd = dumpDataAtEnd;
 	}
+
+	@StringGetter(WRITE_SCENARIO_SNAPSHOT)
+	public boolean isWriteScenarioSnapshot() {
+		return writeScenarioSnapshot;
+	}
+
+	@StringSetter(WRITE_SCENARIO_SNAPSHOT)
+	public void setWriteScenarioSnapshot(boolean writeScenarioSnapshot) {
+		this.writeScenarioSnapshot = writeScenarioSnapshot;
+	}
+
+	@StringGetter(INPUT_SCENARIO_SNAPSHOT_FILE)
+	public String getInputScenarioSnapshotFile() {
+		return inputScenarioSnapshotFile;
+	}
+
+	@StringSetter(INPUT_SCENARIO_SNAPSHOT_FILE)
+	public void setInputScenarioSnapshotFile(String inputScenarioSnapshotFile) {
+		this.inputScenarioSnapshotFile = inputScenarioSnapshotFile;
+	}
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
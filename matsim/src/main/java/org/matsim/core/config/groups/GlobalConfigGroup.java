@@ -42,12 +42,16 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String REPLANNING_THREAD_SCHEDULING = "replanningThreadScheduling";
+
+	public enum ReplanningThreadScheduling { roundRobin, sharedQueue }
 
 	private long randomSeed = 4711L;
 	@PositiveOrZero
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis" ;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
+	private ReplanningThreadScheduling replanningThreadScheduling = ReplanningThreadScheduling.roundRobin;
 
 	@Override
 	public Map<String, String> getComments() {
@@ -55,6 +59,10 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(REPLANNING_THREAD_SCHEDULING, "How the plans are distributed to the threads of the multi-threaded replanning modules.  "
+				+ ReplanningThreadScheduling.roundRobin + ": every thread gets every n-th plan; reproducible, but the slowest thread determines the time.  "
+				+ ReplanningThreadScheduling.sharedQueue + ": the threads take chunks of plans from a shared queue until all plans are handled; "
+				+ "faster if the plans differ a lot in cost (e.g. pt routing), but modules using random numbers no longer give reproducible results.") ;
 		return map ;
 	}
 
@@ -88,6 +96,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.coordinateSystem = coordinateSystem;
 	}
 
+	@StringGetter( REPLANNING_THREAD_SCHEDULING )
+	public ReplanningThreadScheduling getReplanningThreadScheduling() {
+		return this.replanningThreadScheduling;
+	}
+	@StringSetter( REPLANNING_THREAD_SCHEDULING )
+	public void setReplanningThreadScheduling(final ReplanningThreadScheduling replanningThreadScheduling) {
+		this.replanningThreadScheduling = replanningThreadScheduling;
+	}
+
 	private static final String INSITING_ON_DEPRECATED_CONFIG_VERSION = "insistingOnDeprecatedConfigVersion" ;
 	@StringGetter( INSITING_ON_DEPRECATED_CONFIG_VERSION )
 	public final boolean isInsistingOnDeprecatedConfigVersion() { return this.insistingOnDeprecatedConfigVersion ; }
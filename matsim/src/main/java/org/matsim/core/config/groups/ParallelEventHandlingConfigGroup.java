@@ -44,6 +44,9 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 	
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler"; 
 	private Boolean oneThreadPerHandler = false;
+
+	private final static String USE_RING_BUFFER = "useRingBuffer";
+	private boolean useRingBuffer = false;
 	
 	private boolean locked = false;
 
@@ -60,6 +63,8 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(USE_RING_BUFFER, "If enabled, the events are handed to the " + NUMBER_OF_THREADS + " events processing threads through one shared ring buffer, "
+				+ "instead of one queue per thread. Only used if " + NUMBER_OF_THREADS + " is set. Respects " + SYNCHRONIZE_ON_SIMSTEPS + ".");
 		return comments;
 	}
 
@@ -127,6 +132,20 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 		}
 	}
 	
+	@StringGetter( USE_RING_BUFFER )
+	public boolean isUseRingBuffer() {
+		return this.useRingBuffer;
+	}
+
+	@StringSetter( USE_RING_BUFFER )
+	public void setUseRingBuffer(boolean useRingBuffer) {
+		if ( !this.locked ) {
+			this.useRingBuffer = useRingBuffer;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
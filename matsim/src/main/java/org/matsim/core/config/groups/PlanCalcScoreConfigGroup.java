@@ -65,6 +65,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
 
+	private static final String NUMBER_OF_SCORING_PARTITIONS = "numberOfScoringPartitions";
+
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney";
 
 	private static final String UTL_OF_LINE_SWITCH = "utilityOfLineSwitch";
@@ -405,6 +407,9 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 				"[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money).");
 		map.put(WRITE_EXPERIENCED_PLANS,
 				"write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(NUMBER_OF_SCORING_PARTITIONS,
+				"number of partitions of the population for scoring. Each partition is an event handler of its own, so that a parallel "
+						+ "events manager can score the partitions in parallel. 1 means that all persons are scored by one event handler.");
 
 		return map;
 	}
@@ -757,6 +762,14 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public int getNumberOfScoringPartitions() {
+		return delegate.getNumberOfScoringPartitions();
+	}
+
+	public void setNumberOfScoringPartitions(int numberOfScoringPartitions) {
+		delegate.setNumberOfScoringPartitions(numberOfScoringPartitions);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		if (getScoringParameters(null) != null)
 			return getScoringParameters(null).getMarginalUtlOfWaiting_utils_hr();
@@ -1527,6 +1540,8 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 
 		private boolean writeExperiencedPlans = false;
 
+		private int numberOfScoringPartitions = 1;
+
 		private Double fractionOfIterationsToStartScoreMSA = null;
 
 		private boolean usingOldScoringBelowZeroUtilityDuration = false;
@@ -1600,5 +1615,19 @@ public final class PlanCalcScoreConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter(NUMBER_OF_SCORING_PARTITIONS)
+		public int getNumberOfScoringPartitions() {
+			return numberOfScoringPartitions;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_PARTITIONS)
+		public void setNumberOfScoringPartitions(int numberOfScoringPartitions) {
+			testForLocked();
+			if (numberOfScoringPartitions < 1) {
+				throw new IllegalArgumentException(NUMBER_OF_SCORING_PARTITIONS + " must be at least 1, but is " + numberOfScoringPartitions);
+			}
+			this.numberOfScoringPartitions = numberOfScoringPartitions;
+		}
+
 	}
 }
@@ -77,6 +77,13 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 	
 	// ---
 
+	private static final String BATCHED_ROUTING = "batchedRouting" ;
+	private static final String BATCHED_ROUTING_TIME_BIN_SIZE = "batchedRoutingTimeBinSize" ;
+	private boolean batchedRouting = false ;
+	private double batchedRoutingTimeBinSize = 900. ;
+
+	// ---
+
 	public static class ModeRoutingParams extends ReflectiveConfigGroup implements MatsimParameters {
 		public static final String SET_TYPE = "teleportedModeParameters";
 		public static final String MODE = "mode";
@@ -398,6 +405,10 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 			setTeleportedModeSpeed(UNDEFINED, Double.parseDouble(value));
 		} else if (NETWORK_MODES.equals(key)) {
 			setNetworkModes(Arrays.asList(CollectionUtils.stringToArray(value)));
+		} else if (BATCHED_ROUTING.equals(key)) {
+			setBatchedRouting(Boolean.parseBoolean(value));
+		} else if (BATCHED_ROUTING_TIME_BIN_SIZE.equals(key)) {
+			setBatchedRoutingTimeBinSize(Double.parseDouble(value));
 		} else if (key.startsWith(TELEPORTED_MODE_SPEEDS)) {
 			setTeleportedModeSpeed(key.substring(TELEPORTED_MODE_SPEEDS.length()), Double.parseDouble(value));
 		} else if (key.startsWith(TELEPORTED_MODE_FREESPEED_FACTORS)) {
@@ -411,6 +422,8 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 	public final Map<String, String> getParams() {
 		Map<String, String> map = super.getParams();
 		map.put( NETWORK_MODES, CollectionUtils.arrayToString(this.networkModes.toArray(new String[this.networkModes.size()])));
+		map.put( BATCHED_ROUTING, Boolean.toString(this.batchedRouting) );
+		map.put( BATCHED_ROUTING_TIME_BIN_SIZE, Double.toString(this.batchedRoutingTimeBinSize) );
 
 		//		map.put( BEELINE_DISTANCE_FACTOR, Double.toString(this.getBeelineDistanceFactor()) );
 
@@ -436,6 +449,11 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 	        map.put(RANDOMNESS, "strength of the randomness for the utility of money in routing under toll.  "
 	          		+ "Leads to Pareto-optimal route with randomly drawn money-vs-other-attributes tradeoff. "
 	          		+ "Technically the width parameter of a log-normal distribution. 3.0 seems to be a good value. " ) ;
+		map.put(BATCHED_ROUTING, "If true, re-routing groups the network legs of all plans handled by one thread by origin link and "
+				+ "departure time bin, and computes one least cost path tree per group instead of one path per leg.  All legs of a group "
+				+ "are routed with the costs of the first person in the group, so this should be combined with " + RANDOMNESS + "=0.") ;
+		map.put(BATCHED_ROUTING_TIME_BIN_SIZE, "The size of the departure time bins [s] within which legs from the same link are routed "
+				+ "together if " + BATCHED_ROUTING + " is enabled.  All legs of a bin are routed at the earliest departure time of the bin.") ;
 		return map;
 	}
 
@@ -535,6 +553,22 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 		this.routingRandomness = routingRandomness;
 	}
 
+	public boolean isBatchedRouting() {
+		return this.batchedRouting;
+	}
+	public void setBatchedRouting(boolean batchedRouting) {
+		testForLocked() ;
+		this.batchedRouting = batchedRouting;
+	}
+
+	public double getBatchedRoutingTimeBinSize() {
+		return this.batchedRoutingTimeBinSize;
+	}
+	public void setBatchedRoutingTimeBinSize(double batchedRoutingTimeBinSize) {
+		testForLocked() ;
+		this.batchedRoutingTimeBinSize = batchedRoutingTimeBinSize;
+	}
+
 	@Override protected void checkConsistency(Config config) {
 		super.checkConsistency(config);
 
@@ -554,6 +588,11 @@ public final class PlansCalcRouteConfigGroup extends ConfigGroup {
 		// so there is no point in checking here since the checker here might be called
 		// earlier. kai, jan'18
 
+		if ( this.batchedRouting && this.routingRandomness != 0. ) {
+			log.warn( BATCHED_ROUTING + " is enabled, but " + RANDOMNESS + " is not zero.  All legs routed in one batch will get the route "
+					+ "of the first person's randomized costs." ) ;
+		}
+
 		Set<String> modesRoutedAsTeleportation = this.getModeRoutingParams().keySet();
 		Collection<String> modesRoutedAsNetworkModes = this.getNetworkModes();
 
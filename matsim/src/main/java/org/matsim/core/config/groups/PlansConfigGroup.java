@@ -87,6 +87,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
                 "activityStartTime. default=false. Use with Caution!");
 
+		comments.put(COMPACTING_NON_SELECTED_PLANS, "if true, the plan elements of the non-selected plans are kept in a compact binary " +
+				"representation during the mobsim, and decoded again when they are accessed, e.g. after being selected in the " +
+				"replanning. Saves memory for large scenarios with many plans per agent. default=false.");
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -180,6 +184,19 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.removingUnneccessaryPlanAttributes = removingUnneccessaryPlanAttributes;
 	}
 
+	// ---
+
+	private static final String COMPACTING_NON_SELECTED_PLANS = "compactingNonSelectedPlans";
+	private boolean compactingNonSelectedPlans = false;
+	@StringGetter(COMPACTING_NON_SELECTED_PLANS)
+	public boolean isCompactingNonSelectedPlans() {
+		return this.compactingNonSelectedPlans;
+	}
+	@StringSetter(COMPACTING_NON_SELECTED_PLANS)
+	public void setCompactingNonSelectedPlans(final boolean compactingNonSelectedPlans) {
+		this.compactingNonSelectedPlans = compactingNonSelectedPlans;
+	}
+
 
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
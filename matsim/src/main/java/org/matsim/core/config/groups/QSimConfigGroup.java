@@ -270,6 +270,11 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
+		map.put(USING_WORK_STEALING, "if true, the active nodes and links of a time step are split into chunks which are processed by a "
+				+ "work-stealing thread pool, rather than each runner moving a fixed set of nodes and links.  Overrides " + USING_THREADPOOL + ".") ;
+		map.put(NODE_ASSIGNMENT, "how the nodes (and their out-links) are distributed over the QNetsimEngine runners.  roundRobin: in turn, "
+				+ "in the order of the network.  regions: contiguous regions of the network, grown in breadth-first order and "
+				+ "rebalanced from iteration to iteration based on the measured runner times.") ;
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
@@ -534,6 +539,29 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.usingThreadpool = val ;
 	}
 
+	private static final String USING_WORK_STEALING = "usingWorkStealing" ;
+	private boolean usingWorkStealing = false ;
+	@StringGetter(USING_WORK_STEALING)
+	public boolean isUsingWorkStealing() {
+		return this.usingWorkStealing ;
+	}
+	@StringSetter(USING_WORK_STEALING)
+	public void setUsingWorkStealing( boolean val ) {
+		this.usingWorkStealing = val ;
+	}
+
+	private static final String NODE_ASSIGNMENT = "nodeAssignment" ;
+	public enum NodeAssignment { roundRobin, regions }
+	private NodeAssignment nodeAssignment = NodeAssignment.roundRobin ;
+	@StringGetter(NODE_ASSIGNMENT)
+	public NodeAssignment getNodeAssignment() {
+		return this.nodeAssignment ;
+	}
+	@StringSetter(NODE_ASSIGNMENT)
+	public void setNodeAssignment( NodeAssignment val ) {
+		this.nodeAssignment = val ;
+	}
+
 	private static final String USE_LANES="useLanes" ;
 	private boolean useLanes = false ;
 
@@ -42,7 +42,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 
 	public static final String GROUPNAME = "travelTimeCalculator";
 
-	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap}
+	public enum TravelTimeCalculatorType {TravelTimeCalculatorArray,TravelTimeCalculatorHashMap,TravelTimeCalculatorFlatArray}
 
 	private static final String TRAVEL_TIME_CALCULATOR = "travelTimeCalculator";
 	private static final String TRAVEL_TIME_BIN_SIZE = "travelTimeBinSize";
@@ -90,7 +90,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 							 "respected by the travel time collector. 'car' is default which includes also buses from the pt simulation module.");
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
-		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + Arrays.stream( TravelTimeCalculatorType.values() ).map( type -> type.toString() + ' ' ).collect( Collectors.joining() ) );
+		map.put( TRAVEL_TIME_CALCULATOR, "possible values: " + Arrays.stream( TravelTimeCalculatorType.values() ).map( type -> type.toString() + ' ' ).collect( Collectors.joining() )
+				+ ". " + TravelTimeCalculatorType.TravelTimeCalculatorFlatArray + " allocates the data of all links upfront, in exchange "
+				+ "for allocation-free event handling and faster lookups.");
 		return map;
 	}
 
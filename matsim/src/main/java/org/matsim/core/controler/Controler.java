@@ -85,6 +85,8 @@ public final class Controler implements ControlerI, MatsimServices, AllowsConfig
 	public static final String FILENAME_HOUSEHOLDS = "households.xml.gz";
 	public static final String FILENAME_FACILITIES = "facilities.xml.gz";
 	public static final String FILENAME_EVENTS_XML = "events.xml.gz";
+	public static final String FILENAME_EVENTS_BIN = "events.bin";
+	public static final String FILENAME_SCENARIO_SNAPSHOT = "scenarioSnapshot.bin";
 	public static final String FILENAME_TRANSIT_SCHEDULE = "transitSchedule.xml.gz";
 	public static final String FILENAME_TRANSIT_VEHICLES = "transitVehicles.xml.gz";
 	public static final String FILENAME_VEHICLES = "vehicles.xml.gz";
@@ -25,6 +25,7 @@ package org.matsim.core.controler;
 import org.matsim.analysis.*;
 import org.matsim.core.events.EventsManagerModule;
 import org.matsim.core.mobsim.DefaultMobsimModule;
+import org.matsim.core.population.NonSelectedPlansCompactorModule;
 import org.matsim.core.population.VspPlansCleanerModule;
 import org.matsim.core.replanning.StrategyManagerModule;
 import org.matsim.core.router.TripRouterModule;
@@ -59,6 +60,7 @@ public final class ControlerDefaultsModule extends AbstractModule {
         install(new CountsModule());
         install(new PtCountsModule());
         install(new VspPlansCleanerModule());
+        install(new NonSelectedPlansCompactorModule());
         install(new SnapshotWritersModule());
 
     	/* Comment by kai (mz thinks it is not helpful): The framework eventually calls the above method, which calls the include 
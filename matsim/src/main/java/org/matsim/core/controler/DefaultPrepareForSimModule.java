@@ -19,6 +19,8 @@
 
 package org.matsim.core.controler;
 
+import com.google.inject.multibindings.OptionalBinder;
+
 /**
  * Created by amit on 10.07.17.
  */
@@ -28,5 +30,7 @@ public class DefaultPrepareForSimModule extends AbstractModule {
     @Override
     public void install() {
         bind(PrepareForSim.class).to(PrepareForSimImpl.class);
+        OptionalBinder.newOptionalBinder(binder(), OutputDirectoryHierarchy.class);
+        // (absent unless the output directory is bound elsewhere.)
     }
 }
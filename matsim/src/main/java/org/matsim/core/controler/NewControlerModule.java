@@ -1,5 +1,7 @@
 package org.matsim.core.controler;
 
+import com.google.inject.multibindings.OptionalBinder;
+
 import org.matsim.analysis.IterationStopWatch;
 
 public final class NewControlerModule extends AbstractModule {
@@ -11,6 +13,8 @@ public final class NewControlerModule extends AbstractModule {
 		
 		bind(IterationStopWatch.class).asEagerSingleton();
 		bind(OutputDirectoryHierarchy.class).asEagerSingleton();
+		OptionalBinder.newOptionalBinder(binder(), OutputDirectoryHierarchy.class);
+		// (lets PrepareForSimImpl see whether the output directory is available.)
 		bind(TerminationCriterion.class).to(TerminateAtFixedIterationNumber.class);
 		bind(MatsimServices.class).to(MatsimServicesImpl.class);
 
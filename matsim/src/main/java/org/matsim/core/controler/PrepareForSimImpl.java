@@ -8,6 +8,7 @@ import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.FacilitiesConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup;
@@ -20,8 +21,10 @@ import org.matsim.core.population.algorithms.PersonPrepareForSim;
 import org.matsim.core.router.PlanRouter;
 import org.matsim.core.router.TripRouter;
 import org.matsim.core.scenario.Lockable;
+import org.matsim.core.scenario.ScenarioSnapshotWriter;
 import org.matsim.facilities.ActivityFacilities;
 import org.matsim.facilities.FacilitiesFromPopulation;
+import org.matsim.utils.objectattributes.AttributeConverter;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 import org.matsim.vehicles.VehicleUtils;
@@ -33,6 +36,7 @@ import javax.inject.Provider;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 
 public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim {
 	// I think it is ok to have this public final.  Since one may want to use it as a delegate.  kai, may'18
@@ -51,11 +55,18 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 	private final Provider<TripRouter> tripRouterProvider;
 	private final QSimConfigGroup qSimConfigGroup;
 	private final FacilitiesConfigGroup facilitiesConfigGroup;
+	private final ControlerConfigGroup controlerConfigGroup;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters;
+	private final Optional<OutputDirectoryHierarchy> controlerIO;
+	// (absent when preparing the scenario without a controler, e.g. in tests.)
 
 	@Inject
 	PrepareForSimImpl(GlobalConfigGroup globalConfigGroup, Scenario scenario, Network network,
 				Population population, ActivityFacilities activityFacilities, Provider<TripRouter> tripRouterProvider,
-				QSimConfigGroup qSimConfigGroup, FacilitiesConfigGroup facilitiesConfigGroup) {
+				QSimConfigGroup qSimConfigGroup, FacilitiesConfigGroup facilitiesConfigGroup,
+				ControlerConfigGroup controlerConfigGroup,
+				Map<Class<?>, AttributeConverter<?>> attributeConverters,
+				Optional<OutputDirectoryHierarchy> controlerIO) {
 		this.globalConfigGroup = globalConfigGroup;
 		this.scenario = scenario;
 		this.network = network;
@@ -64,6 +75,9 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		this.tripRouterProvider = tripRouterProvider;
 		this.qSimConfigGroup = qSimConfigGroup;
 		this.facilitiesConfigGroup = facilitiesConfigGroup;
+		this.controlerConfigGroup = controlerConfigGroup;
+		this.attributeConverters = attributeConverters;
+		this.controlerIO = controlerIO;
 	}
 
 
@@ -148,6 +162,15 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 				throw new RuntimeException( Gbl.NOT_IMPLEMENTED ) ;
 		}
 		
+		if (this.controlerConfigGroup.isWriteScenarioSnapshot() && !this.controlerIO.isPresent()) {
+			log.warn("no output directory available, not writing the scenario snapshot.");
+		} else if (this.controlerConfigGroup.isWriteScenarioSnapshot()) {
+			// network and population only; facilities and vehicles still come from their files, or are created above.
+			ScenarioSnapshotWriter writer = new ScenarioSnapshotWriter(scenario);
+			writer.putAttributeConverters(this.attributeConverters);
+			writer.write(this.controlerIO.get().getOutputFilename(Controler.OUTPUT_PREFIX + Controler.FILENAME_SCENARIO_SNAPSHOT));
+		}
+
 		if (scenario instanceof Lockable) {
 			((Lockable)scenario).setLocked();
 			// see comment in ScenarioImpl. kai, sep'14
@@ -30,6 +30,7 @@ import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigWriter;
 import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.ControlerConfigGroup.EventsFileFormat;
 import org.matsim.core.config.groups.VspExperimentalConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
@@ -139,17 +140,20 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 	}
 
 	private void dumpOutputEvents() {
-		try {
-			File toFile = new File(	controlerIO.getOutputFilename(Controler.OUTPUT_PREFIX + Controler.FILENAME_EVENTS_XML));
-			File fromFile = new File(controlerIO.getIterationFilename(controlerConfigGroup.getLastIteration(), Controler.FILENAME_EVENTS_XML));
+		for (EventsFileFormat format : controlerConfigGroup.getEventsFileFormats()) {
+			String filename = format == EventsFileFormat.bin ? Controler.FILENAME_EVENTS_BIN : Controler.FILENAME_EVENTS_XML;
 			try {
-				Files.copy(fromFile.toPath(), toFile.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.COPY_ATTRIBUTES);
-			} catch (IOException e) {
-				throw new UncheckedIOException(e);
+				File toFile = new File(	controlerIO.getOutputFilename(Controler.OUTPUT_PREFIX + filename));
+				File fromFile = new File(controlerIO.getIterationFilename(controlerConfigGroup.getLastIteration(), filename));
+				try {
+					Files.copy(fromFile.toPath(), toFile.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.COPY_ATTRIBUTES);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} catch ( Exception ee ) {
+				Logger.getLogger(this.getClass()).error("writing output events did not work; probably parameters were such that no events were "
+						+ "generated in the final iteration" );
 			}
-		} catch ( Exception ee ) {
-			Logger.getLogger(this.getClass()).error("writing output events did not work; probably parameters were such that no events were "
-					+ "generated in the final iteration" );
 		}
 	}
 
@@ -277,6 +281,7 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 
 		final PopulationWriter writer = new PopulationWriter(population, network);
 		writer.putAttributeConverters( attributeConverters );
+		writer.setNumberOfThreads( config.global().getNumberOfThreads() );
 		writer.write(controlerIO.getOutputFilename(Controler.OUTPUT_PREFIX + Controler.FILENAME_POPULATION));
 
 		final ObjectAttributes personAttributes = population.getPersonAttributes();
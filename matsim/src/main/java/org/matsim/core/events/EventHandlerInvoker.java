@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventHandlerInvoker.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
+import org.matsim.api.core.v01.events.handler.ActivityStartEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonLeavesVehicleEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonMoneyEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
+import org.matsim.api.core.v01.events.handler.TransitDriverStartsEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
+import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
+import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Calls one <code>handleEvent</code> method of an event handler.  Invokers are created once, when a handler is
+ * registered, so that dispatching an event does not need reflection:
+ * <ol>
+ * <li>for the event types of the core, a hand-written call is used;</li>
+ * <li>for other event types, a call is generated with {@link LambdaMetafactory};</li>
+ * <li>if that is not possible (e.g. the handler interface is not accessible from here, or is loaded by another class
+ * loader), the method is invoked by reflection, as before.</li>
+ * </ol>
+ * Exceptions thrown by generated or reflective calls are wrapped into a RuntimeException, as
+ * {@link EventsManagerImpl} always did for handlers of non-core event types.
+ */
+@FunctionalInterface
+interface EventHandlerInvoker {
+
+	void invoke(EventHandler handler, Event event);
+
+	static EventHandlerInvoker create(final Class<?> eventClass, final Method method) {
+		EventHandlerInvoker invoker = Factory.CORE_INVOKERS.get(eventClass);
+		if (invoker != null) {
+			return invoker;
+		}
+		invoker = Factory.generate(eventClass, method);
+		if (invoker == null) {
+			invoker = Factory.reflective(eventClass, method);
+		}
+		return invoker;
+	}
+
+	final class Factory {
+
+		private static final Logger log = Logger.getLogger(EventHandlerInvoker.class);
+
+		private static final Map<Class<?>, EventHandlerInvoker> CORE_INVOKERS = new HashMap<>();
+		static {
+			CORE_INVOKERS.put(LinkLeaveEvent.class, (h, ev) -> ((LinkLeaveEventHandler) h).handleEvent((LinkLeaveEvent) ev));
+			CORE_INVOKERS.put(LinkEnterEvent.class, (h, ev) -> ((LinkEnterEventHandler) h).handleEvent((LinkEnterEvent) ev));
+			CORE_INVOKERS.put(VehicleEntersTrafficEvent.class, (h, ev) -> ((VehicleEntersTrafficEventHandler) h).handleEvent((VehicleEntersTrafficEvent) ev));
+			CORE_INVOKERS.put(PersonArrivalEvent.class, (h, ev) -> ((PersonArrivalEventHandler) h).handleEvent((PersonArrivalEvent) ev));
+			CORE_INVOKERS.put(PersonDepartureEvent.class, (h, ev) -> ((PersonDepartureEventHandler) h).handleEvent((PersonDepartureEvent) ev));
+			CORE_INVOKERS.put(ActivityEndEvent.class, (h, ev) -> ((ActivityEndEventHandler) h).handleEvent((ActivityEndEvent) ev));
+			CORE_INVOKERS.put(ActivityStartEvent.class, (h, ev) -> ((ActivityStartEventHandler) h).handleEvent((ActivityStartEvent) ev));
+			CORE_INVOKERS.put(TransitDriverStartsEvent.class, (h, ev) -> ((TransitDriverStartsEventHandler) h).handleEvent((TransitDriverStartsEvent) ev));
+			CORE_INVOKERS.put(PersonStuckEvent.class, (h, ev) -> ((PersonStuckEventHandler) h).handleEvent((PersonStuckEvent) ev));
+			CORE_INVOKERS.put(PersonMoneyEvent.class, (h, ev) -> ((PersonMoneyEventHandler) h).handleEvent((PersonMoneyEvent) ev));
+			CORE_INVOKERS.put(AgentWaitingForPtEvent.class, (h, ev) -> ((AgentWaitingForPtEventHandler) h).handleEvent((AgentWaitingForPtEvent) ev));
+			CORE_INVOKERS.put(PersonEntersVehicleEvent.class, (h, ev) -> ((PersonEntersVehicleEventHandler) h).handleEvent((PersonEntersVehicleEvent) ev));
+			CORE_INVOKERS.put(PersonLeavesVehicleEvent.class, (h, ev) -> ((PersonLeavesVehicleEventHandler) h).handleEvent((PersonLeavesVehicleEvent) ev));
+			CORE_INVOKERS.put(VehicleDepartsAtFacilityEvent.class, (h, ev) -> ((VehicleDepartsAtFacilityEventHandler) h).handleEvent((VehicleDepartsAtFacilityEvent) ev));
+			CORE_INVOKERS.put(VehicleArrivesAtFacilityEvent.class, (h, ev) -> ((VehicleArrivesAtFacilityEventHandler) h).handleEvent((VehicleArrivesAtFacilityEvent) ev));
+			CORE_INVOKERS.put(Event.class, (h, ev) -> ((BasicEventHandler) h).handleEvent(ev));
+		}
+
+		private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, EventHandler.class, Event.class);
+
+		private Factory() {
+		}
+
+		private static EventHandlerInvoker generate(final Class<?> eventClass, final Method method) {
+			Class<?> handlerInterface = method.getDeclaringClass();
+			if (!EventHandler.class.isAssignableFrom(handlerInterface) || !Event.class.isAssignableFrom(eventClass)
+					|| !isVisible(handlerInterface) || !isVisible(eventClass)) {
+				return null;
+			}
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.lookup();
+				MethodHandle target = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(EventHandlerInvoker.class),
+						INVOKER_TYPE, target, target.type());
+				EventHandlerInvoker generated = (EventHandlerInvoker) site.getTarget().invokeExact();
+				return (handler, event) -> {
+					try {
+						generated.invoke(handler, event);
+					} catch (RuntimeException | Error e) {
+						throw problemInvoking(handler, eventClass, e);
+					}
+				};
+			} catch (Throwable e) {
+				log.info("could not generate a call to " + method + ", falling back to reflection: " + e.getMessage());
+				return null;
+			}
+		}
+
+		private static EventHandlerInvoker reflective(final Class<?> eventClass, final Method method) {
+			return (handler, event) -> {
+				try {
+					method.invoke(handler, event);
+				} catch (IllegalArgumentException | IllegalAccessException e) {
+					throw problemInvoking(handler, eventClass, e);
+				} catch (InvocationTargetException e) {
+					throw problemInvoking(handler, eventClass, e.getCause());
+				}
+			};
+		}
+
+		/**
+		 * The generated class resolves the handler interface and the event class through the class loader of this class,
+		 * so both must be visible from there.
+		 */
+		private static boolean isVisible(final Class<?> klass) {
+			try {
+				return Class.forName(klass.getName(), false, EventHandlerInvoker.class.getClassLoader()) == klass;
+			} catch (ClassNotFoundException e) {
+				return false;
+			}
+		}
+
+		private static RuntimeException problemInvoking(final EventHandler handler, final Class<?> eventClass, final Throwable cause) {
+			return new RuntimeException("problem invoking EventHandler " + handler.getClass().getCanonicalName() + " for event-class " + eventClass.getCanonicalName(), cause);
+		}
+	}
+}
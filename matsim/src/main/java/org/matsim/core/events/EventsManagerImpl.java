@@ -20,7 +20,6 @@
 
 package org.matsim.core.events;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -30,39 +29,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.events.ActivityEndEvent;
-import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
-import org.matsim.api.core.v01.events.LinkEnterEvent;
-import org.matsim.api.core.v01.events.LinkLeaveEvent;
-import org.matsim.api.core.v01.events.PersonArrivalEvent;
-import org.matsim.api.core.v01.events.PersonDepartureEvent;
-import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
-import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
-import org.matsim.api.core.v01.events.PersonMoneyEvent;
-import org.matsim.api.core.v01.events.PersonStuckEvent;
-import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
-import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
-import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
-import org.matsim.api.core.v01.events.handler.ActivityStartEventHandler;
-import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
-import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonLeavesVehicleEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonMoneyEventHandler;
-import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
-import org.matsim.api.core.v01.events.handler.TransitDriverStartsEventHandler;
-import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
-import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
-import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
-import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
-import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
-import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
 /**
@@ -73,9 +41,9 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
- * up execution!</li>
  * </ol>
+ * The handler methods are looked up once when a handler is added; dispatching an event then goes through an
+ * {@link EventHandlerInvoker} and does not use reflection.
  *
  * @author dstrippgen
  * @author mrieser
@@ -88,10 +56,10 @@ public final class EventsManagerImpl implements EventsManager {
 
 		protected Class<?> eventklass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
-		protected Method method;
+		protected EventHandlerInvoker invoker;
 		protected HandlerData(final Class<?> eventklass, final Method method) {
 			this.eventklass = eventklass;
-			this.method = method;
+			this.invoker = EventHandlerInvoker.create(eventklass, method);
 		}
 		protected void removeHandler(final EventHandler handler) {
 			this.handlerList.remove(handler);
@@ -101,12 +69,12 @@ public final class EventsManagerImpl implements EventsManager {
 	static private class HandlerInfo {
 		protected final Class<?> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final EventHandlerInvoker invoker;
 
-		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method) {
+		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final EventHandlerInvoker invoker) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.invoker = invoker;
 		}
 	}
 
@@ -219,16 +187,7 @@ public final class EventsManagerImpl implements EventsManager {
 	private void computeEvent(final Event event) {
 		for (HandlerInfo info : getHandlersForClass(event.getClass())) {
 			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
-					continue;
-				}
-				try {
-					info.method.invoke(info.eventHandler, event);
-				} catch (IllegalArgumentException | IllegalAccessException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
-				}
+				info.invoker.invoke(info.eventHandler, event);
 			}
 		}
 	}
@@ -246,7 +205,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(klass);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(klass, handler, dat.method));
+					info.add(new HandlerInfo(klass, handler, dat.invoker));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -256,7 +215,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(intfc);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(intfc, handler, dat.method));
+					info.add(new HandlerInfo(intfc, handler, dat.invoker));
 				}
 			}
 		}
@@ -282,60 +241,6 @@ public final class EventsManagerImpl implements EventsManager {
 		return intfs;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private boolean callHandlerFast(final Class<?> klass, final Event ev, final EventHandler handler) {
-		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
-		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
-		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler)handler).handleEvent((VehicleEntersTrafficEvent)ev);
-			return true;
-		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
-		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
-		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
-		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
-		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
-		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
-		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
-		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
-		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
-		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
-		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
-		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
-		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
-		}
-		return false;
-	}
-
 	public void printEventHandlers() {
 		log.info("currently registered event-handlers:");
 		for (HandlerData handlerType : this.handlerData) {
@@ -14,7 +14,9 @@ public final class EventsManagerModule extends AbstractModule {
 		if (getConfig().parallelEventHandling().getOneThreadPerHandler() != null && getConfig().parallelEventHandling().getOneThreadPerHandler()) {
 			bindEventsManager().to(ParallelEventsManager.class).asEagerSingleton();
 		} else if (getConfig().parallelEventHandling().getNumberOfThreads() != null) {
-			if (getConfig().parallelEventHandling().getSynchronizeOnSimSteps() != null && getConfig().parallelEventHandling().getSynchronizeOnSimSteps()) {
+			if (getConfig().parallelEventHandling().isUseRingBuffer()) {
+				bindEventsManager().to(RingBufferEventsManagerImpl.class).asEagerSingleton();
+			} else if (getConfig().parallelEventHandling().getSynchronizeOnSimSteps() != null && getConfig().parallelEventHandling().getSynchronizeOnSimSteps()) {
 				bindEventsManager().to(SimStepParallelEventsManagerImpl.class).asEagerSingleton();
 			} else {
 				bindEventsManager().to(ParallelEventsManagerImpl.class).asEagerSingleton();
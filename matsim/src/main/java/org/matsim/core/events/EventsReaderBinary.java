@@ -0,0 +1,312 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Reads events files written by {@link EventWriterBinary}.  The events are created the same way as by
+ * {@link EventsReaderXMLv1}, including custom event mappers.
+ * <p></p>
+ * With {@link #readFile(String, double, double)}, only the events of a time window are read: the index at the end of
+ * the file is used to skip all chunks outside of that window without decompressing them.
+ *
+ * @see EventWriterBinary for the file format
+ */
+public final class EventsReaderBinary implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(EventsReaderBinary.class);
+
+	private final EventsReaderXMLv1 eventFactory;
+	private final List<String> dictionary = new ArrayList<>();
+	private final AttributesImpl atts = new AttributesImpl();
+	private Inflater inflater;
+	private byte[] compressed = new byte[0];
+	private byte[] raw = new byte[0];
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.eventFactory = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper<?> cem) {
+		this.eventFactory.addCustomEventMapper(eventType, cem);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		readFile(filename, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Reads only the events with <code>fromTime &lt;= time &lt;= toTime</code>.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		this.dictionary.clear();
+		this.inflater = new Inflater();
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			readHeader(file);
+			file.seek(file.length() - Long.BYTES - EventWriterBinary.MAGIC.length);
+			long indexPosition = file.readLong();
+			readMagic(file);
+			file.seek(indexPosition);
+			if (file.readByte() != EventWriterBinary.INDEX) {
+				throw new RuntimeException("Broken index in events file " + filename);
+			}
+			int numberOfChunks = file.readInt();
+			long[] positions = new long[numberOfChunks];
+			boolean[] inWindow = new boolean[numberOfChunks];
+			int lastChunk = -1;
+			for (int i = 0; i < numberOfChunks; i++) {
+				positions[i] = file.readLong();
+				double minTime = file.readDouble();
+				double maxTime = file.readDouble();
+				file.readInt(); // number of events
+				inWindow[i] = maxTime >= fromTime && minTime <= toTime;
+				if (inWindow[i]) {
+					lastChunk = i;
+				}
+			}
+			log.info("reading " + (lastChunk + 1) + " of " + numberOfChunks + " chunks of events file " + filename);
+			for (int i = 0; i <= lastChunk; i++) {
+				file.seek(positions[i]);
+				if (file.readByte() != EventWriterBinary.CHUNK) {
+					throw new RuntimeException("Broken chunk " + i + " in events file " + filename);
+				}
+				readChunk(file, inWindow[i], fromTime, toTime);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.inflater.end();
+		}
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		readStream(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads all events from the stream, chunk by chunk; the index at the end is not needed.
+	 */
+	public void readStream(final InputStream stream) {
+		this.dictionary.clear();
+		this.inflater = new Inflater();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+			readHeader(in);
+			while (true) {
+				byte tag;
+				try {
+					tag = in.readByte();
+				} catch (EOFException e) {
+					log.warn("events file ended without index, it was probably not closed properly.");
+					break;
+				}
+				if (tag == EventWriterBinary.INDEX) {
+					break;
+				} else if (tag == EventWriterBinary.CHUNK) {
+					readChunk(in, true, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+				} else {
+					throw new RuntimeException("Broken events file: unexpected tag " + tag);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.inflater.end();
+		}
+	}
+
+	private static void readHeader(final DataInput in) throws IOException {
+		readMagic(in);
+		int version = in.readInt();
+		if (version != EventWriterBinary.VERSION) {
+			throw new RuntimeException("Unsupported version " + version + " of binary events file, expected " + EventWriterBinary.VERSION);
+		}
+	}
+
+	private static void readMagic(final DataInput in) throws IOException {
+		byte[] magic = new byte[EventWriterBinary.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, EventWriterBinary.MAGIC)) {
+			throw new RuntimeException("Not a binary MATSim events file.");
+		}
+	}
+
+	private void readChunk(final DataInput in, final boolean decode, final double fromTime, final double toTime) throws IOException {
+		int numberOfEvents = in.readInt();
+		in.readDouble(); // min time
+		in.readDouble(); // max time
+
+		// the dictionary is needed for all later chunks, so it is always read
+		byte[] dictionaryBytes = new byte[in.readInt()];
+		in.readFully(dictionaryBytes);
+		Cursor dictionaryCursor = new Cursor(dictionaryBytes, 0, dictionaryBytes.length);
+		int newEntries = (int) dictionaryCursor.readVarint();
+		for (int i = 0; i < newEntries; i++) {
+			this.dictionary.add(dictionaryCursor.readString());
+		}
+
+		int rawLength = in.readInt();
+		int compressedLength = in.readInt();
+		if (!decode) {
+			skipFully(in, compressedLength);
+			return;
+		}
+		if (this.compressed.length < compressedLength) {
+			this.compressed = new byte[compressedLength];
+		}
+		in.readFully(this.compressed, 0, compressedLength);
+		if (this.raw.length < rawLength) {
+			this.raw = new byte[rawLength];
+		}
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, compressedLength);
+		try {
+			int inflated = 0;
+			while (inflated < rawLength && !this.inflater.finished()) {
+				inflated += this.inflater.inflate(this.raw, inflated, rawLength - inflated);
+			}
+		} catch (DataFormatException e) {
+			throw new RuntimeException("Broken chunk in binary events file.", e);
+		}
+
+		Cursor columns = new Cursor(this.raw, 0, rawLength);
+		Cursor types = columns.nextColumn();
+		Cursor times = columns.nextColumn();
+		Cursor attributeCounts = columns.nextColumn();
+		Cursor keys = columns.nextColumn();
+		Cursor values = columns.nextColumn();
+		Cursor literals = columns.nextColumn();
+
+		double time = 0.0;
+		for (int i = 0; i < numberOfEvents; i++) {
+			String type = readString(types, literals);
+			long encodedTime = times.readVarint();
+			if (encodedTime == 1) {
+				time = literals.readDouble();
+			} else {
+				long zigzag = encodedTime >>> 1;
+				time += (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+			int count = (int) attributeCounts.readVarint();
+			this.atts.clear();
+			for (int a = 0; a < count; a++) {
+				String key = readString(keys, literals);
+				String value = readString(values, literals);
+				this.atts.addAttribute("", key, key, "CDATA", value);
+			}
+			if (time >= fromTime && time <= toTime) {
+				this.eventFactory.startEvent(time, type, this.atts);
+			}
+		}
+	}
+
+	private String readString(final Cursor column, final Cursor literals) {
+		int index = (int) column.readVarint();
+		if (index == 0) {
+			return literals.readString();
+		}
+		return this.dictionary.get(index - 1);
+	}
+
+	private static void skipFully(final DataInput in, int length) throws IOException {
+		while (length > 0) {
+			int skipped = in.skipBytes(length);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			length -= skipped;
+		}
+	}
+
+	private static final class Cursor {
+		private final byte[] buffer;
+		private int position;
+		private final int end;
+
+		Cursor(byte[] buffer, int position, int end) {
+			this.buffer = buffer;
+			this.position = position;
+			this.end = end;
+		}
+
+		Cursor nextColumn() {
+			int length = (int) readVarint();
+			Cursor column = new Cursor(this.buffer, this.position, this.position + length);
+			this.position += length;
+			return column;
+		}
+
+		long readVarint() {
+			long value = 0;
+			int shift = 0;
+			while (true) {
+				if (this.position >= this.end) {
+					throw new RuntimeException("Broken binary events file: column ends unexpectedly.");
+				}
+				byte b = this.buffer[this.position++];
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+				shift += 7;
+			}
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits = (bits << 8) | (this.buffer[this.position++] & 0xFF);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		String readString() {
+			int length = (int) readVarint();
+			String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return value;
+		}
+	}
+}
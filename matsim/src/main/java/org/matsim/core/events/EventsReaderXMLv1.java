@@ -103,6 +103,14 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 	private void startEvent(final Attributes atts) {
 		double time = Double.parseDouble(atts.getValue("time"));
 		String eventType = atts.getValue("type");
+		startEvent(time, eventType, atts);
+	}
+
+	/**
+	 * Creates the event from its attributes, and passes it to the events manager.  Also used by
+	 * {@link EventsReaderBinary}, so both formats produce the same events.
+	 */
+	/*package*/ void startEvent(final double time, final String eventType, final Attributes atts) {
 
 		// === material related to wait2link below here ===
 		if (LinkLeaveEvent.EVENT_TYPE.equals(eventType)) {
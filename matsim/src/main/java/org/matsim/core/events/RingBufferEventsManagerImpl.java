@@ -0,0 +1,358 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RingBufferEventsManagerImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.gbl.Gbl;
+
+/**
+ * An EventsManager that hands the events to the events processing threads through one shared, pre-allocated ring
+ * buffer, in the style of a disruptor.  The event handlers are distributed round-robin over the threads, as in
+ * {@link ParallelEventsManagerImpl}.  Every thread reads every event from the ring, but only calls its own handlers.
+ * <p></p>
+ * Events are neither copied into one queue per thread, nor is there any lock per event: the mobsim threads claim a slot
+ * in the ring with one atomic increment, and publish the event by setting the round number of the slot.  Each
+ * processing thread only advances its own sequence.  When the ring is full, the mobsim waits for the slowest thread.
+ * <p></p>
+ * Events that are created by event handlers (i.e. from within a processing thread) are not put into the ring, as a
+ * thread waiting for itself would dead-lock.  They are buffered, and published after the current time step.
+ * <p></p>
+ * If <code>synchronizeOnSimSteps</code> is set, {@link #afterSimStep(double)} waits until all events of the time step
+ * have been processed, like {@link SimStepParallelEventsManagerImpl}.
+ */
+final class RingBufferEventsManagerImpl implements EventsManager {
+
+	private final static Logger log = Logger.getLogger(RingBufferEventsManagerImpl.class);
+
+	/*package*/ final static int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final static int SPIN_TRIES = 100;
+	private final static int YIELD_TRIES = 1000;
+	private final static long PARK_NANOS = 50_000;
+
+	private final int numberOfThreads;
+	private final boolean synchronizeOnSimSteps;
+
+	private final Event[] entries;
+	private final AtomicIntegerArray rounds;
+	private final int mask;
+	private final int shift;
+
+	/**
+	 * The next sequence to be claimed by a producer.
+	 */
+	private final AtomicLong claimed = new AtomicLong(0);
+	/**
+	 * A lower bound of the sequences of the processing threads, so that the producers need not look at all of them
+	 * for every event.
+	 */
+	private volatile long cachedMinimumProcessed = 0;
+
+	private final EventsManagerImpl[] eventsManagers;
+	private int handlerCount = 0;
+
+	private ProcessEventsRunnable[] runnables = null;
+	private Thread[] threads = null;
+	private final Queue<Event> eventsFromHandlers = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean parallelMode = false;
+	private final AtomicReference<Throwable> hadException = new AtomicReference<>();
+
+	@Inject
+	RingBufferEventsManagerImpl(ParallelEventHandlingConfigGroup config) {
+		this(config.getNumberOfThreads() != null ? config.getNumberOfThreads() : 1,
+				config.getSynchronizeOnSimSteps() != null && config.getSynchronizeOnSimSteps(), DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize the number of slots in the ring, is rounded up to the next power of 2.
+	 */
+	public RingBufferEventsManagerImpl(int numberOfThreads, boolean synchronizeOnSimSteps, int bufferSize) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("number of threads must be at least 1, but is " + numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+		this.synchronizeOnSimSteps = synchronizeOnSimSteps;
+
+		int size = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+		this.entries = new Event[size];
+		this.rounds = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			this.rounds.set(i, -1);
+		}
+		this.mask = size - 1;
+		this.shift = Integer.numberOfTrailingZeros(size);
+
+		this.eventsManagers = new EventsManagerImpl[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			this.eventsManagers[i] = new EventsManagerImpl();
+		}
+		log.info("number of threads=" + numberOfThreads + ", buffer size=" + size + ", synchronizeOnSimSteps=" + synchronizeOnSimSteps);
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		if (!this.parallelMode) {
+			for (EventsManagerImpl eventsManager : this.eventsManagers) {
+				eventsManager.processEvent(event);
+			}
+		} else if (isProcessingThread(Thread.currentThread())) {
+			this.eventsFromHandlers.add(event);
+		} else {
+			publish(event);
+		}
+	}
+
+	private void publish(final Event event) {
+		long sequence = this.claimed.getAndIncrement();
+		long wrapPoint = sequence - this.entries.length;
+		if (wrapPoint >= this.cachedMinimumProcessed) {
+			long minimum;
+			int tries = 0;
+			while (wrapPoint >= (minimum = minimumProcessedSequence())) {
+				if (this.hadException.get() != null) {
+					// a processing thread died, do not wait for it.  finishProcessing() will report the problem.
+					return;
+				}
+				tries = idle(tries);
+			}
+			this.cachedMinimumProcessed = minimum;
+		}
+		int index = (int) sequence & this.mask;
+		this.entries[index] = event;
+		this.rounds.lazySet(index, (int) (sequence >>> this.shift));
+	}
+
+	private long minimumProcessedSequence() {
+		long minimum = Long.MAX_VALUE;
+		for (ProcessEventsRunnable runnable : this.runnables) {
+			minimum = Math.min(minimum, runnable.sequence.get());
+		}
+		return minimum;
+	}
+
+	private boolean isProcessingThread(Thread thread) {
+		for (Thread t : this.threads) {
+			if (t == thread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Waits until all published events, including those that the event handlers created in the meantime, have been
+	 * processed.
+	 */
+	private void awaitProcessed() {
+		do {
+			Event event;
+			while ((event = this.eventsFromHandlers.poll()) != null) {
+				publish(event);
+			}
+			long target = this.claimed.get();
+			int tries = 0;
+			while (minimumProcessedSequence() < target && this.hadException.get() == null) {
+				tries = idle(tries);
+			}
+		} while (!this.eventsFromHandlers.isEmpty() && this.hadException.get() == null);
+	}
+
+	private static int idle(int tries) {
+		if (tries < SPIN_TRIES) {
+			// busy spin
+		} else if (tries < SPIN_TRIES + YIELD_TRIES) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+			return tries;
+		}
+		return tries + 1;
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		synchronized (this) {
+			log.info("adding Event-Handler " + handler.getClass().getName() + " to thread " + this.handlerCount % this.numberOfThreads);
+			this.eventsManagers[this.handlerCount % this.numberOfThreads].addHandler(handler);
+			this.handlerCount++;
+		}
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		synchronized (this) {
+			for (EventsManagerImpl eventsManager : this.eventsManagers) {
+				eventsManager.removeHandler(handler);
+			}
+		}
+	}
+
+	@Override
+	public void resetHandlers(final int iteration) {
+		synchronized (this) {
+			for (EventsManagerImpl eventsManager : this.eventsManagers) {
+				eventsManager.resetHandlers(iteration);
+			}
+		}
+	}
+
+	@Override
+	public void initProcessing() {
+		for (EventsManagerImpl eventsManager : this.eventsManagers) {
+			eventsManager.initProcessing();
+		}
+		this.hadException.set(null);
+		long start = this.claimed.get();
+		this.cachedMinimumProcessed = start;
+		this.runnables = new ProcessEventsRunnable[this.numberOfThreads];
+		this.threads = new Thread[this.numberOfThreads];
+		for (int i = 0; i < this.numberOfThreads; i++) {
+			this.runnables[i] = new ProcessEventsRunnable(this.eventsManagers[i], start);
+			this.threads[i] = new Thread(this.runnables[i], "RingBufferEvents-" + i);
+			this.threads[i].setDaemon(true);
+		}
+		this.parallelMode = true;
+		for (Thread thread : this.threads) {
+			thread.start();
+		}
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		if (!this.parallelMode || this.hadException.get() != null) {
+			return;
+		}
+		if (this.synchronizeOnSimSteps) {
+			awaitProcessed();
+		} else {
+			Event event;
+			while ((event = this.eventsFromHandlers.poll()) != null) {
+				publish(event);
+			}
+		}
+	}
+
+	@Override
+	public void finishProcessing() {
+		if (this.parallelMode) {
+			awaitProcessed();
+			for (ProcessEventsRunnable runnable : this.runnables) {
+				runnable.running = false;
+			}
+			for (Thread thread : this.threads) {
+				LockSupport.unpark(thread);
+			}
+			try {
+				for (Thread thread : this.threads) {
+					thread.join();
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			/*
+			 * After the simulation, events are processed in the calling thread, e.g. money events created
+			 * by controler listeners.
+			 */
+			this.parallelMode = false;
+			// drop the references to the events of this iteration
+			Arrays.fill(this.entries, null);
+		}
+		for (EventsManagerImpl eventsManager : this.eventsManagers) {
+			eventsManager.finishProcessing();
+		}
+
+		Throwable throwable = this.hadException.get();
+		if (throwable != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
+		}
+	}
+
+	/**
+	 * The sequence of a thread is padded, so that the threads do not write to the same cache line.
+	 */
+	@SuppressWarnings("unused")
+	private static final class PaddedSequence extends AtomicLong {
+		private static final long serialVersionUID = 1L;
+		long p1, p2, p3, p4, p5, p6, p7;
+
+		PaddedSequence(long initialValue) {
+			super(initialValue);
+		}
+	}
+
+	private final class ProcessEventsRunnable implements Runnable {
+
+		private final EventsManager eventsManager;
+		/**
+		 * The next sequence to be processed by this thread, i.e. all events before have been processed.
+		 */
+		private final PaddedSequence sequence;
+		private volatile boolean running = true;
+
+		ProcessEventsRunnable(EventsManager eventsManager, long start) {
+			this.eventsManager = eventsManager;
+			this.sequence = new PaddedSequence(start);
+		}
+
+		@Override
+		public void run() {
+			long next = this.sequence.get();
+			int tries = 0;
+			try {
+				while (true) {
+					int index = (int) next & mask;
+					if (rounds.get(index) == (int) (next >>> shift)) {
+						this.eventsManager.processEvent(entries[index]);
+						next++;
+						this.sequence.lazySet(next);
+						tries = 0;
+					} else if (!this.running) {
+						break;
+					} else {
+						tries = idle(tries);
+					}
+				}
+			} catch (Throwable e) {
+				log.error("Thread " + Thread.currentThread().getName() + " died with exception while handling events.", e);
+				hadException.compareAndSet(null, e);
+				// do not hold back the mobsim, it will fail in finishProcessing()
+				this.sequence.set(Long.MAX_VALUE);
+				return;
+			}
+			Gbl.printCurrentThreadCpuTime();
+		}
+	}
+}
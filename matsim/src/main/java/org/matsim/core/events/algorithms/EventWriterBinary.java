@@ -0,0 +1,340 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events into a compact binary, column-oriented file, which can be read with
+ * {@link org.matsim.core.events.EventsReaderBinary} or {@link org.matsim.core.events.MatsimEventsReader}.
+ * <p></p>
+ * The events are written in chunks of at most {@value #MAX_EVENTS_PER_CHUNK} events, or {@value #CHUNK_TIME_WINDOW}
+ * seconds.  Within a chunk, each attribute of the events is stored in its own column: event types, attribute keys and
+ * attribute values are replaced by the index of the string in a dictionary, and times by the difference to the
+ * previous event.  The columns are compressed together.  At the end of the file, an index lists the position and
+ * the time window of each chunk, so a reader can go to a time window without decoding the chunks before it.
+ * <p></p>
+ * Layout (big endian, <i>varint</i> = unsigned LEB128):
+ * <pre>
+ * file    := MAGIC int:version chunk* index long:indexPosition MAGIC
+ * chunk   := byte:1 int:numberOfEvents double:minTime double:maxTime
+ *            int:length dictionary                 -- strings added to the dictionary in this chunk
+ *            int:rawLength int:length deflate(columns)
+ * dictionary := varint:count (varint:length utf8)*
+ * columns := (varint:length column)* for: types, times, attribute counts, keys, values, literals
+ * index   := byte:2 int:numberOfChunks (long:position double:minTime double:maxTime int:numberOfEvents)*
+ * </pre>
+ * A dictionary reference is the 1-based index into the dictionary of the file so far; 0 means that the string
+ * follows as literal.  A time is <code>zigzag(delta) &lt;&lt; 1</code> if the difference to the previous time is a
+ * whole number of seconds, otherwise it is <code>1</code>, and the time is in the literals column.
+ */
+public final class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	public static final byte[] MAGIC = "MATSimEB".getBytes(StandardCharsets.US_ASCII);
+	public static final int VERSION = 1;
+	public static final byte CHUNK = 1;
+	public static final byte INDEX = 2;
+
+	public static final int MAX_EVENTS_PER_CHUNK = 100000;
+	public static final double CHUNK_TIME_WINDOW = 900.0;
+	/**
+	 * Strings are only added to the dictionary up to this size, so that many distinct values (e.g. money amounts)
+	 * do not make the dictionary grow without bounds.
+	 */
+	public static final int MAX_DICTIONARY_SIZE = 1 << 20;
+
+	private static final long MAX_INTEGRAL_DELTA = 1L << 40;
+
+	private final CountingOutputStream counter;
+	private final DataOutputStream out;
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final List<String> newDictionaryEntries = new ArrayList<>();
+
+	private final Column types = new Column();
+	private final Column times = new Column();
+	private final Column attributeCounts = new Column();
+	private final Column keys = new Column();
+	private final Column values = new Column();
+	private final Column literals = new Column();
+
+	private int numberOfEvents = 0;
+	private double chunkStartTime;
+	private double minTime;
+	private double maxTime;
+	private double previousTime = 0.0;
+
+	private final List<ChunkInfo> chunks = new ArrayList<>();
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private boolean closed = false;
+
+	public EventWriterBinary(final String outfilename) {
+		this(openFile(outfilename));
+	}
+
+	public EventWriterBinary(final OutputStream stream) {
+		this.counter = new CountingOutputStream(new BufferedOutputStream(stream, 1 << 16));
+		this.out = new DataOutputStream(this.counter);
+		try {
+			this.out.write(MAGIC);
+			this.out.writeInt(VERSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static OutputStream openFile(final String filename) {
+		try {
+			return new FileOutputStream(filename);
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		if (this.numberOfEvents == MAX_EVENTS_PER_CHUNK || (this.numberOfEvents > 0 && time >= this.chunkStartTime + CHUNK_TIME_WINDOW)) {
+			writeChunk();
+		}
+		if (this.numberOfEvents == 0) {
+			// chunks must be decodable on their own
+			this.previousTime = 0.0;
+			this.chunkStartTime = time;
+			this.minTime = time;
+			this.maxTime = time;
+		} else {
+			this.minTime = Math.min(this.minTime, time);
+			this.maxTime = Math.max(this.maxTime, time);
+		}
+		this.numberOfEvents++;
+
+		writeString(this.types, event.getEventType());
+		writeTime(time);
+
+		Map<String, String> attributes = event.getAttributes();
+		int count = 0;
+		for (Map.Entry<String, String> entry : attributes.entrySet()) {
+			if (isWritten(entry)) {
+				count++;
+			}
+		}
+		this.attributeCounts.writeVarint(count);
+		for (Map.Entry<String, String> entry : attributes.entrySet()) {
+			if (isWritten(entry)) {
+				writeString(this.keys, entry.getKey());
+				writeString(this.values, entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Time and type have their own columns.  Attributes without value are left out, so they are missing (i.e.
+	 * <code>null</code>) again when reading.
+	 */
+	private static boolean isWritten(final Map.Entry<String, String> entry) {
+		String key = entry.getKey();
+		return entry.getValue() != null && !Event.ATTRIBUTE_TIME.equals(key) && !Event.ATTRIBUTE_TYPE.equals(key);
+	}
+
+	private void writeTime(final double time) {
+		double delta = time - this.previousTime;
+		if (delta == Math.rint(delta) && Math.abs(delta) < MAX_INTEGRAL_DELTA && this.previousTime + delta == time) {
+			long d = (long) delta;
+			this.times.writeVarint(((d << 1) ^ (d >> 63)) << 1);
+		} else {
+			this.times.writeVarint(1);
+			this.literals.writeDouble(time);
+		}
+		this.previousTime = time;
+	}
+
+	private void writeString(final Column column, final String value) {
+		Integer index = this.dictionary.get(value);
+		if (index == null && this.dictionary.size() < MAX_DICTIONARY_SIZE) {
+			index = this.dictionary.size() + 1;
+			this.dictionary.put(value, index);
+			this.newDictionaryEntries.add(value);
+		}
+		if (index == null) {
+			column.writeVarint(0);
+			this.literals.writeString(value);
+		} else {
+			column.writeVarint(index);
+		}
+	}
+
+	private void writeChunk() {
+		try {
+			this.chunks.add(new ChunkInfo(this.counter.count, this.minTime, this.maxTime, this.numberOfEvents));
+			this.out.writeByte(CHUNK);
+			this.out.writeInt(this.numberOfEvents);
+			this.out.writeDouble(this.minTime);
+			this.out.writeDouble(this.maxTime);
+
+			Column dictionaryColumn = new Column();
+			dictionaryColumn.writeVarint(this.newDictionaryEntries.size());
+			for (String entry : this.newDictionaryEntries) {
+				dictionaryColumn.writeString(entry);
+			}
+			this.newDictionaryEntries.clear();
+			this.out.writeInt(dictionaryColumn.size());
+			dictionaryColumn.writeTo(this.out);
+
+			Column raw = new Column();
+			for (Column column : new Column[] {this.types, this.times, this.attributeCounts, this.keys, this.values, this.literals}) {
+				raw.writeVarint(column.size());
+				column.writeTo(raw);
+				column.reset();
+			}
+			this.deflater.reset();
+			this.deflater.setInput(raw.buffer(), 0, raw.size());
+			this.deflater.finish();
+			Column compressed = new Column();
+			byte[] buffer = new byte[1 << 16];
+			while (!this.deflater.finished()) {
+				int length = this.deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+			this.out.writeInt(raw.size());
+			this.out.writeInt(compressed.size());
+			compressed.writeTo(this.out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.numberOfEvents = 0;
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		if (this.numberOfEvents > 0) {
+			writeChunk();
+		}
+		try {
+			long indexPosition = this.counter.count;
+			this.out.writeByte(INDEX);
+			this.out.writeInt(this.chunks.size());
+			for (ChunkInfo chunk : this.chunks) {
+				this.out.writeLong(chunk.position);
+				this.out.writeDouble(chunk.minTime);
+				this.out.writeDouble(chunk.maxTime);
+				this.out.writeInt(chunk.numberOfEvents);
+			}
+			this.out.writeLong(indexPosition);
+			this.out.write(MAGIC);
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.deflater.end();
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	private static final class ChunkInfo {
+		final long position;
+		final double minTime;
+		final double maxTime;
+		final int numberOfEvents;
+
+		ChunkInfo(long position, double minTime, double maxTime, int numberOfEvents) {
+			this.position = position;
+			this.minTime = minTime;
+			this.maxTime = maxTime;
+			this.numberOfEvents = numberOfEvents;
+		}
+	}
+
+	private static final class Column extends ByteArrayOutputStream {
+
+		Column() {
+			super(1024);
+		}
+
+		void writeVarint(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		void writeDouble(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				write((int) (bits >>> shift));
+			}
+		}
+
+		void writeString(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+
+		byte[] buffer() {
+			return this.buf;
+		}
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+}
@@ -38,13 +38,22 @@ public class EndRoadMessage extends EventMessage {
 			vehicle.initiateEndingLegMode();
 			vehicle.moveToFirstLinkInNextLeg();
 			Road road = Road.getRoad(vehicle.getCurrentLinkId());
-			road.enterRequest(vehicle, getMessageArrivalTime());
+			enterRequest(road);
 		} else if (!vehicle.isCurrentLegFinished()) {
 			// if leg is not finished yet
 			vehicle.moveToNextLinkInLeg();
 
 			Road nextRoad = Road.getRoad(vehicle.getCurrentLinkId());
-			nextRoad.enterRequest(vehicle, getMessageArrivalTime());
+			enterRequest(nextRoad);
+		}
+	}
+
+	private void enterRequest(Road road) {
+		if (road.getScheduler() == this.getReceivingUnit().getScheduler()) {
+			road.enterRequest(vehicle, getMessageArrivalTime());
+		} else {
+			// the road is simulated by another partition of the ParallelJDEQSimulation
+			vehicle.scheduleEnterRequestMessage(getMessageArrivalTime(), road);
 		}
 	}
 
@@ -0,0 +1,44 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+/**
+ * The micro-simulation internal handler for requesting to enter a road, which is simulated by another scheduler than
+ * the road the vehicle is coming from (see {@link ParallelJDEQSimulation}). In the sequential simulation, the request
+ * is made directly at the end of the previous road.
+ */
+public class EnterRequestMessage extends EventMessage {
+
+	public EnterRequestMessage(Scheduler scheduler, Vehicle vehicle) {
+		super(scheduler, vehicle);
+	}
+
+	@Override
+	public void handleMessage() {
+		Road road = (Road) this.getReceivingUnit();
+		road.enterRequest(vehicle, getMessageArrivalTime());
+	}
+
+	@Override
+	public void processEvent() {
+		// don't need to output any event
+	}
+
+}
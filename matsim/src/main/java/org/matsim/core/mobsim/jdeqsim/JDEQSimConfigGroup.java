@@ -19,6 +19,8 @@
 
 package org.matsim.core.mobsim.jdeqsim;
 
+import java.util.Map;
+
 import org.matsim.core.config.ReflectiveConfigGroup;
 import org.matsim.core.utils.misc.Time;
 
@@ -57,6 +59,7 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 	public final static String CAR_SIZE = "carSize";
 	public final static String GAP_TRAVEL_SPEED = "gapTravelSpeed";
 	public final static String END_TIME = "endTime";
+	public final static String NUMBER_OF_THREADS = "numberOfThreads";
 
 	// INPUT
 	private double simulationEndTime = Double.MAX_VALUE; // in s
@@ -71,11 +74,21 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 	 * 'stuckTime' for entering next road, it will enter the next. in seconds
 	 */
 	private double squeezeTime = 1800;
+	private int numberOfThreads = 1;
 
 	public JDEQSimConfigGroup() {
 		super(NAME);
 	}
 
+	@Override
+	public Map<String, String> getComments() {
+		Map<String, String> map = super.getComments();
+		map.put(NUMBER_OF_THREADS, "Number of threads for the simulation of the roads. With more than one thread, the network "
+				+ "is partitioned and the partitions are synchronized in time windows of the minimum free speed travel time of "
+				+ "a link; vehicles crossing from one partition to another are delayed by up to this time window.");
+		return map;
+	}
+
 	// should garbage collection of messages be activated
 	private static boolean GC_MESSAGES = false;
 
@@ -169,4 +182,17 @@ public class JDEQSimConfigGroup extends ReflectiveConfigGroup {
 		this.squeezeTime = squeezeTime;
 	}
 
+	@StringGetter(NUMBER_OF_THREADS)
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	@StringSetter(NUMBER_OF_THREADS)
+	public void setNumberOfThreads(int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be at least 1, but is " + numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
 }
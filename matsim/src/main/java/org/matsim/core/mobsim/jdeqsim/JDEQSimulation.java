@@ -44,9 +44,9 @@ public class JDEQSimulation implements Mobsim {
 
 	private final static Logger log = Logger.getLogger(JDEQSimulation.class);
 
-	private final JDEQSimConfigGroup config;
+	protected final JDEQSimConfigGroup config;
 	protected Scenario scenario;
-	private final EventsManager events;
+	protected final EventsManager events;
 
 	protected final PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation;
 
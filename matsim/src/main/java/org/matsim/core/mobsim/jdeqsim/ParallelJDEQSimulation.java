@@ -0,0 +1,378 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.mobsim.jdeqsim.util.Timer;
+import org.matsim.core.utils.misc.Time;
+
+/**
+ * A variant of the {@link JDEQSimulation}, which simulates the roads on several threads.
+ * <p></p>
+ * The network is cut into strips of links along the x axis, and every strip gets its own {@link Scheduler} with its
+ * own message queue. The simulation advances in time windows of length <code>lookahead</code>, the minimum free speed
+ * travel time of a link (but at least one second): within a window, every partition processes the messages of its
+ * roads independently. A message to a road of another partition is first put into the queue of the sending partition,
+ * which reports its events at the time of the message. It is then handled by the receiving partition no earlier than
+ * the end of the window, so that no partition ever receives a message from the past. In the sequential simulation, a
+ * vehicle at the end of a road asks the next road for entry at the same time; if the next road belongs to another
+ * partition, the vehicle thus waits up to the lookahead at the border of the partition, and the previous road is freed
+ * up to the lookahead later.
+ * <p></p>
+ * The events of a window are buffered per partition and passed on to the events manager in the order of their time,
+ * after the window is completed. The simulation is deterministic for a given number of threads.
+ */
+public class ParallelJDEQSimulation extends JDEQSimulation {
+
+	private final static Logger log = Logger.getLogger(ParallelJDEQSimulation.class);
+
+	/**
+	 * the partition which is processed by the current thread, <code>null</code> while the simulation is set up
+	 */
+	private static final ThreadLocal<Partition> CURRENT = new ThreadLocal<>();
+
+	private double lookahead;
+
+	@Inject
+	public ParallelJDEQSimulation(final JDEQSimConfigGroup config, final Scenario scenario, final EventsManager events) {
+		super(config, scenario, events);
+	}
+
+	@Override
+	public void run() {
+		events.initProcessing();
+		Timer t = new Timer();
+		t.startTimer();
+
+		int numberOfThreads = config.getNumberOfThreads();
+		double simulationEndTime = config.getSimulationEndTime();
+		this.lookahead = calcLookahead();
+
+		Partition[] partitions = new Partition[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			partitions[i] = new Partition(i, numberOfThreads, simulationEndTime);
+		}
+
+		// initialize network
+		Road.setAllRoads(new HashMap<Id<Link>, Road>());
+		List<Link> links = new ArrayList<>(this.scenario.getNetwork().getLinks().values());
+		Collections.sort(links, new Comparator<Link>() {
+			@Override
+			public int compare(Link o1, Link o2) {
+				int cmp = Double.compare(o1.getFromNode().getCoord().getX(), o2.getFromNode().getCoord().getX());
+				return cmp != 0 ? cmp : o1.getId().compareTo(o2.getId());
+			}
+		});
+		for (int i = 0; i < links.size(); i++) {
+			Link link = links.get(i);
+			Partition partition = partitions[(int) ((long) i * numberOfThreads / links.size())];
+			Road.getAllRoads().put(link.getId(), new Road(partition, link));
+		}
+		log.info("simulating " + links.size() + " links in " + numberOfThreads + " partitions with a lookahead of " + this.lookahead + "s");
+
+		for (Person person : this.scenario.getPopulation().getPersons().values()) {
+			// the vehicle registers itself to the scheduler of the road of its first activity
+			new Vehicle(partitions[0], person, activityDurationInterpretation);
+		}
+
+		Message.setEventsManager(new PartitionedEventsManager(events));
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (Partition partition : partitions) {
+				tasks.add(partition);
+			}
+			double hourlyLogTime = 3600;
+			double windowStart = getNextTime(partitions);
+			while (windowStart < simulationEndTime && windowStart != Double.POSITIVE_INFINITY) {
+				double windowEnd = Math.min(windowStart + this.lookahead, simulationEndTime);
+				for (Partition partition : partitions) {
+					partition.windowStart = windowStart;
+					partition.windowEnd = windowEnd;
+				}
+				for (Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+				processEvents(partitions);
+				for (Partition partition : partitions) {
+					partition.receiveMessages();
+				}
+				if (windowStart > hourlyLogTime) {
+					hourlyLogTime = windowStart + 3600;
+					log.info("Simulation at " + Time.writeTime(windowStart));
+				}
+				windowStart = getNextTime(partitions);
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
+			Message.setEventsManager(events);
+		}
+
+		t.endTimer();
+		log.info("Time needed for one iteration (only JDEQSimulation part): " + t.getMeasuredTime() + "[ms]");
+		events.finishProcessing();
+	}
+
+	private double calcLookahead() {
+		double minTravelTime = Double.POSITIVE_INFINITY;
+		for (Link link : this.scenario.getNetwork().getLinks().values()) {
+			minTravelTime = Math.min(minTravelTime, link.getLength() / link.getFreespeed());
+		}
+		return Math.max(1.0, minTravelTime == Double.POSITIVE_INFINITY ? 1.0 : minTravelTime);
+	}
+
+	private static double getNextTime(Partition[] partitions) {
+		double nextTime = Double.POSITIVE_INFINITY;
+		for (Partition partition : partitions) {
+			nextTime = Math.min(nextTime, partition.getNextTime());
+		}
+		return nextTime;
+	}
+
+	/**
+	 * merges the events of the partitions by time, events with the same time are ordered by partition.
+	 */
+	private void processEvents(Partition[] partitions) {
+		int[] positions = new int[partitions.length];
+		while (true) {
+			Partition next = null;
+			double nextTime = Double.POSITIVE_INFINITY;
+			for (Partition partition : partitions) {
+				if (positions[partition.index] < partition.events.size()) {
+					double time = partition.events.get(positions[partition.index]).getTime();
+					if (time < nextTime) {
+						next = partition;
+						nextTime = time;
+					}
+				}
+			}
+			if (next == null) {
+				break;
+			}
+			events.processEvent(next.events.get(positions[next.index]++));
+		}
+		for (Partition partition : partitions) {
+			partition.events.clear();
+		}
+	}
+
+	/**
+	 * The scheduler of the roads of one partition.
+	 */
+	private final class Partition extends Scheduler implements Callable<Void> {
+
+		private final int index;
+		/**
+		 * the messages to this partition, one list per sending partition, so that they can be added without locking
+		 * and are delivered in a deterministic order. The messages sent in a window are received in the next window.
+		 */
+		private List<List<Message>> inboxes = new ArrayList<>();
+		private List<List<Message>> received = new ArrayList<>();
+		private final List<Event> events = new ArrayList<>();
+		private double windowStart;
+		private double windowEnd;
+		private double now;
+
+		Partition(int index, int numberOfPartitions, double simulationEndTime) {
+			super(new MessageQueue(), simulationEndTime);
+			this.index = index;
+			for (int i = 0; i < numberOfPartitions; i++) {
+				this.inboxes.add(new ArrayList<Message>());
+				this.received.add(new ArrayList<Message>());
+			}
+		}
+
+		@Override
+		public void schedule(Message m) {
+			Partition sender = CURRENT.get();
+			if (sender == null || sender == this) {
+				queue.putMessage(m);
+			} else {
+				sender.queue.putMessage(new RemoteMessage(m, this));
+			}
+		}
+
+		@Override
+		public void startSimulation() {
+			throw new UnsupportedOperationException("the partitions are run by the " + ParallelJDEQSimulation.class.getSimpleName());
+		}
+
+		@Override
+		public double getSimTime() {
+			return this.now;
+		}
+
+		@Override
+		public Void call() {
+			CURRENT.set(this);
+			try {
+				for (List<Message> inbox : this.received) {
+					for (Message m : inbox) {
+						queue.putMessage(m);
+					}
+					inbox.clear();
+				}
+				this.now = this.windowStart;
+				double time;
+				while ((time = queue.getNextMessageArrivalTime()) < this.windowEnd) {
+					Message m = queue.getNextMessage();
+					this.now = time;
+					m.processEvent();
+					m.handleMessage();
+				}
+			} finally {
+				CURRENT.remove();
+			}
+			return null;
+		}
+
+		void receiveMessages() {
+			List<List<Message>> tmp = this.received;
+			this.received = this.inboxes;
+			this.inboxes = tmp;
+		}
+
+		double getNextTime() {
+			double nextTime = queue.getNextMessageArrivalTime();
+			for (List<Message> inbox : this.received) {
+				for (Message m : inbox) {
+					nextTime = Math.min(nextTime, m.getMessageArrivalTime());
+				}
+			}
+			return nextTime;
+		}
+	}
+
+	/**
+	 * A message to a road of another partition. It is processed twice: first by the sending partition at the time of
+	 * the message, which reports the events of the message and passes it on to the receiving partition at the end of
+	 * the current window at the earliest, and then by the receiving partition, which handles the message.
+	 */
+	private static final class RemoteMessage extends Message {
+
+		private final Message message;
+		private final Partition receiver;
+		private boolean delivered = false;
+
+		RemoteMessage(Message message, Partition receiver) {
+			this.message = message;
+			this.receiver = receiver;
+			this.setMessageArrivalTime(message.getMessageArrivalTime());
+			this.setPriority(message.priority);
+			this.setReceivingUnit(message.getReceivingUnit());
+		}
+
+		@Override
+		public void processEvent() {
+			if (!this.delivered) {
+				this.message.processEvent();
+			}
+		}
+
+		@Override
+		public void handleMessage() {
+			if (this.delivered) {
+				this.message.handleMessage();
+			} else {
+				Partition sender = CURRENT.get();
+				double time = Math.max(getMessageArrivalTime(), sender.windowEnd);
+				this.message.setMessageArrivalTime(time);
+				this.setMessageArrivalTime(time);
+				this.delivered = true;
+				this.receiver.inboxes.get(sender.index).add(this);
+			}
+		}
+	}
+
+	/**
+	 * Collects the events of the messages in the partition of the current thread.
+	 */
+	private static final class PartitionedEventsManager implements EventsManager {
+
+		private final EventsManager delegate;
+
+		PartitionedEventsManager(EventsManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void processEvent(Event event) {
+			Partition partition = CURRENT.get();
+			if (partition != null) {
+				partition.events.add(event);
+			} else {
+				this.delegate.processEvent(event);
+			}
+		}
+
+		@Override
+		public void addHandler(EventHandler handler) {
+			this.delegate.addHandler(handler);
+		}
+
+		@Override
+		public void removeHandler(EventHandler handler) {
+			this.delegate.removeHandler(handler);
+		}
+
+		@Override
+		public void resetHandlers(int iteration) {
+			this.delegate.resetHandlers(iteration);
+		}
+
+		@Override
+		public void initProcessing() {
+			this.delegate.initProcessing();
+		}
+
+		@Override
+		public void afterSimStep(double time) {
+			this.delegate.afterSimStep(time);
+		}
+
+		@Override
+		public void finishProcessing() {
+			this.delegate.finishProcessing();
+		}
+	}
+
+}
@@ -40,7 +40,9 @@ public abstract class SimUnit {
 
 		m.setReceivingUnit(targetUnit);
 		m.setMessageArrivalTime(messageArrivalTime);
-		scheduler.schedule(m);
+		// the message is handled by the scheduler of the target, which is not the same as ours in the ParallelJDEQSimulation
+		Scheduler targetScheduler = targetUnit.getScheduler() != null ? targetUnit.getScheduler() : scheduler;
+		targetScheduler.schedule(m);
 	}
 
 	public Scheduler getScheduler() {
@@ -287,6 +287,10 @@ public class Vehicle extends SimUnit {
 		sendMessage(MessageFactory.getStartingLegMessage(road.scheduler, this), road, scheduleTime);
 	}
 
+	public void scheduleEnterRequestMessage(double scheduleTime, Road road) {
+		sendMessage(new EnterRequestMessage(road.scheduler, this), road, scheduleTime);
+	}
+
 	public DeadlockPreventionMessage scheduleDeadlockPreventionMessage(double scheduleTime, Road road) {
 		DeadlockPreventionMessage dpMessage = MessageFactory.getDeadlockPreventionMessage(road.scheduler, this);
 		sendMessage(dpMessage, road, scheduleTime);
@@ -19,10 +19,8 @@
 
 package org.matsim.core.mobsim.qsim;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -33,6 +31,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.framework.MobsimAgent.State;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
+import org.matsim.core.utils.collections.CalendarQueue;
 import org.matsim.core.utils.misc.Time;
 
 import javax.inject.Inject;
@@ -50,51 +49,47 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 		this.eventsManager = eventsManager;
 	}
 
+	private InternalInterface internalInterface;
+
 	/**
-	 * Agents cannot be added directly to the activityEndsList since that would
-	 * not be thread-safe when within-day replanning is used. There, an agent's
+	 * The agents are added together with their activity end time, since the queue must not rely on the agents' activity
+	 * end times: when within-day replanning is used, an agent's
 	 * activity end time can be modified. As a result, the agent is located at
 	 * the wrong position in the activityEndsList until it is updated by using
 	 * rescheduleActivityEnd(...). However, if another agent is added to the list
 	 * in the mean time, it might be inserted at the wrong position.
 	 * cdobler, apr'12
-	 */
-	private static class AgentEntry {
-		public AgentEntry(MobsimAgent agent, double activityEndTime) {
-			this.agent = agent;
-			this.activityEndTime = activityEndTime;
-		}
-		final MobsimAgent agent;
-		final double activityEndTime;
-	}
-
-	private InternalInterface internalInterface;
-	
-	/**
-	 * This list needs to be a "blocking" queue since this is needed for
+	 * <p></p>
+	 * Access to this list needs to be synchronized since this is needed for
 	 * thread-safety in the parallel qsim. cdobler, oct'10
+	 * <p></p>
+	 * The list is a calendar queue with buckets of one second, the time step of the qsim: adding an agent is O(1), and each
+	 * time step only sorts the agents that end their activity in that step.
 	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, new Comparator<AgentEntry>() {
+	private final CalendarQueue<MobsimAgent> activityEndsList = new CalendarQueue<>(new Comparator<MobsimAgent>() {
 
 		@Override
-		public int compare(AgentEntry arg0, AgentEntry arg1) {
-			int cmp = Double.compare(arg0.activityEndTime, arg1.activityEndTime);
-			if (cmp == 0) {
-				// Both depart at the same time -> let the one with the larger id be first (=smaller)
-				//
-				// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
-				// to say that the agent with the larger ID should be "smaller" one in the comparison.
-				// In practice, it seems
-				// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
-				// It is unclear why this convention is supposed to be helpful.
-				// kai & dominik, jul'12
-				//
-				return arg1.agent.getId().compareTo(arg0.agent.getId());
-			}
-			return cmp;
+		public int compare(MobsimAgent arg0, MobsimAgent arg1) {
+			// Both depart at the same time -> let the one with the larger id be first (=smaller)
+			//
+			// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
+			// to say that the agent with the larger ID should be "smaller" one in the comparison.
+			// In practice, it seems
+			// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
+			// It is unclear why this convention is supposed to be helpful.
+			// kai & dominik, jul'12
+			//
+			return arg1.getId().compareTo(arg0.getId());
 		}
 
 	});
+
+	/**
+	 * The activity end time with which each agent is in the activityEndsList, by {@link Id#index()}, or NaN if the agent
+	 * is not in the list.  Needed to remove an agent from the list without searching all of it, since the agent already
+	 * reports its new activity end time when it is rescheduled.
+	 */
+	private double[] queuedActivityEndTimes = new double[0];
 	
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
@@ -107,29 +102,28 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
-		while (activityEndsList.peek() != null) {
-			if (activityEndsList.peek().activityEndTime <= time) {
-				MobsimAgent agent = activityEndsList.poll().agent;
-				unregisterAgentAtActivityLocation(agent);
-				agent.endActivityAndComputeNextState(time);
-				internalInterface.arrangeNextAgentState(agent);
-			} else {
-				return;
-			}
+		MobsimAgent agent;
+		while ((agent = pollActivityEnd(time)) != null) {
+			unregisterAgentAtActivityLocation(agent);
+			agent.endActivityAndComputeNextState(time);
+			internalInterface.arrangeNextAgentState(agent);
 		}
 	}
 
 	@Override
 	public void afterSim() {
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (AgentEntry entry : activityEndsList) {
-			if (entry.activityEndTime!=Double.POSITIVE_INFINITY && entry.activityEndTime!=Time.UNDEFINED_TIME) {
-				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
-				// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
-				eventsManager.processEvent(new PersonStuckEvent(now, entry.agent.getId(), null, null));
-			}
+		synchronized (activityEndsList) {
+			activityEndsList.forEach((agent, activityEndTime) -> {
+				if (activityEndTime!=Double.POSITIVE_INFINITY && activityEndTime!=Time.UNDEFINED_TIME) {
+					// since we are at an activity, it is not plausible to assume that the agents know mode or destination
+					// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
+					eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), null, null));
+				}
+			});
+			activityEndsList.clear();
+			Arrays.fill(queuedActivityEndTimes, Double.NaN);
 		}
-		activityEndsList.clear();
 	}
 
 	@Override
@@ -161,8 +155,7 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 			internalInterface.arrangeNextAgentState(agent) ;
 		} else {
 			// The agent commences an activity on this link.
-			final AgentEntry agentEntry = new AgentEntry(agent, agent.getActivityEndTime());
-			activityEndsList.add(agentEntry);
+			addActivityEnd(agent, agent.getActivityEndTime());
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -194,16 +187,16 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 		
 		
 		double newActivityEndTime = agent.getActivityEndTime();
-		AgentEntry oldEntry = removeAgentFromQueue(agent);
+		boolean wasInQueue = removeAgentFromQueue(agent);
 
 		// The intention in the following is that an agent that is no longer alive has an activity end time of infinity.  The number of
 		// alive agents is only modified when an activity end time is changed between a finite time and infinite.  kai, jun'11
-		if (oldEntry == null) {
+		if (!wasInQueue) {
 			if (newActivityEndTime == Double.POSITIVE_INFINITY) {
 				// agent was de-activated and still should be de-activated - nothing to do here
 			} else {
 				// re-activate the agent
-				activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+				addActivityEnd(agent, newActivityEndTime);
 				internalInterface.registerAdditionalAgentOnLink(agent);
 				((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
 			}
@@ -218,20 +211,43 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 			/*
 			 *  The activity is just rescheduled during the day, so we keep the agent active. cdobler, oct'11
 			 */
-			activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+			addActivityEnd(agent, newActivityEndTime);
+		}
+	}
+
+	private void addActivityEnd(MobsimAgent agent, double activityEndTime) {
+		synchronized (activityEndsList) {
+			int index = agent.getId().index();
+			if (index >= queuedActivityEndTimes.length) {
+				int oldLength = queuedActivityEndTimes.length;
+				queuedActivityEndTimes = Arrays.copyOf(queuedActivityEndTimes, Math.max(index + 1, 2 * oldLength));
+				Arrays.fill(queuedActivityEndTimes, oldLength, queuedActivityEndTimes.length, Double.NaN);
+			}
+			queuedActivityEndTimes[index] = activityEndTime;
+			activityEndsList.add(agent, activityEndTime);
+		}
+	}
+
+	private MobsimAgent pollActivityEnd(double time) {
+		synchronized (activityEndsList) {
+			MobsimAgent agent = activityEndsList.poll(time);
+			if (agent != null) {
+				queuedActivityEndTimes[agent.getId().index()] = Double.NaN;
+			}
+			return agent;
 		}
 	}
 
-	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
-		Iterator<AgentEntry> iterator = activityEndsList.iterator();
-		while (iterator.hasNext()) {
-			AgentEntry entry = iterator.next();
-			if (entry.agent == agent) {
-				iterator.remove();
-				return entry;
+	private boolean removeAgentFromQueue(MobsimAgent agent) {
+		synchronized (activityEndsList) {
+			int index = agent.getId().index();
+			if (index >= queuedActivityEndTimes.length || Double.isNaN(queuedActivityEndTimes[index])) {
+				return false;
 			}
+			double activityEndTime = queuedActivityEndTimes[index];
+			queuedActivityEndTimes[index] = Double.NaN;
+			return activityEndsList.remove(agent, activityEndTime);
 		}
-		return null;
 	}
 
 	private void unregisterAgentAtActivityLocation(final MobsimAgent agent) {
@@ -13,7 +13,7 @@ import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.utils.collections.Tuple;
+import org.matsim.core.utils.collections.CalendarQueue;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.Facility;
 import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
@@ -30,16 +30,16 @@ import java.util.*;
 public final class DefaultTeleportationEngine implements TeleportationEngine {
 	private static final Logger log = Logger.getLogger( DefaultTeleportationEngine.class ) ;
 	
-	private final Queue<Tuple<Double, MobsimAgent>> teleportationList = new PriorityQueue<>(
-			30, new Comparator<Tuple<Double, MobsimAgent>>() {
+	/**
+	 * The agents by arrival time.  A calendar queue with buckets of one second, the time step of the qsim, so adding an
+	 * agent is O(1).
+	 */
+	private final CalendarQueue<MobsimAgent> teleportationList = new CalendarQueue<>(new Comparator<MobsimAgent>() {
 
 		@Override
-		public int compare(Tuple<Double, MobsimAgent> o1, Tuple<Double, MobsimAgent> o2) {
-			int ret = o1.getFirst().compareTo(o2.getFirst()); // first compare time information
-			if (ret == 0) {
-				ret = o2.getSecond().getId().compareTo(o1.getSecond().getId()); // if they're equal, compare the Ids: the one with the larger Id should be first
-			}
-			return ret;
+		public int compare(MobsimAgent o1, MobsimAgent o2) {
+			// (the queue compares the arrival times first)
+			return o2.getId().compareTo(o1.getId()); // if they're equal, compare the Ids: the one with the larger Id should be first
 		}
 	});
 	private final LinkedHashMap<Id<Person>, TeleportationVisData> teleportationData = new LinkedHashMap<>();
@@ -74,7 +74,7 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 		}
     	
 		double arrivalTime = now + travelTime ;
-		this.teleportationList.add(new Tuple<>(arrivalTime, agent));
+		this.teleportationList.add(agent, arrivalTime);
 		
 		// === below here is only visualization, no dynamics ===
 		Id<Person> agentId = agent.getId();
@@ -105,21 +105,15 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 
 	private void handleTeleportationArrivals() {
 		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		while (teleportationList.peek() != null) {
-			Tuple<Double, MobsimAgent> entry = teleportationList.peek();
-			if (entry.getFirst() <= now) {
-				teleportationList.poll();
-				MobsimAgent personAgent = entry.getSecond();
-				personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent
-						.getDestinationLinkId());
-				double distance = personAgent.getExpectedTravelDistance();
-				this.eventsManager.processEvent(new TeleportationArrivalEvent(this.internalInterface.getMobsim().getSimTimer().getTimeOfDay(), personAgent.getId(), distance));
-				personAgent.endLegAndComputeNextState(now);
-				this.teleportationData.remove(personAgent.getId());
-				internalInterface.arrangeNextAgentState(personAgent);
-			} else {
-				break;
-			}
+		MobsimAgent personAgent;
+		while ((personAgent = teleportationList.poll(now)) != null) {
+			personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent
+					.getDestinationLinkId());
+			double distance = personAgent.getExpectedTravelDistance();
+			this.eventsManager.processEvent(new TeleportationArrivalEvent(this.internalInterface.getMobsim().getSimTimer().getTimeOfDay(), personAgent.getId(), distance));
+			personAgent.endLegAndComputeNextState(now);
+			this.teleportationData.remove(personAgent.getId());
+			internalInterface.arrangeNextAgentState(personAgent);
 		}
 	}
 
@@ -131,10 +125,8 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 	@Override
 	public void afterSim() {
 		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (Tuple<Double, MobsimAgent> entry : teleportationList) {
-			MobsimAgent agent = entry.getSecond();
-			eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), agent.getDestinationLinkId(), agent.getMode()));
-		}
+		teleportationList.forEach((agent, arrivalTime) ->
+				eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), agent.getDestinationLinkId(), agent.getMode())));
 		teleportationList.clear();
 	}
 
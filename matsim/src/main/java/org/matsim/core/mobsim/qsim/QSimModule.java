@@ -22,9 +22,12 @@ import org.matsim.core.mobsim.qsim.pt.TransitStopHandlerFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.DefaultQNetworkFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QLanesNetworkFactory;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngineModule;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QNodePartitioner;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QNodePartitionerProvider;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetworkFactory;
 
 import com.google.inject.Key;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 
@@ -89,6 +92,9 @@ public class QSimModule extends AbstractModule {
 		// I don't know why this is here.  kai, nov'18
 
 		bind(Mobsim.class).toProvider(QSimProvider.class);
+
+		bind(QNodePartitioner.class).toProvider(QNodePartitionerProvider.class).in(Singleton.class);
+		// (in controler scope, not in QSim scope, so that it can rebalance based on the run times of the previous iteration)
 		
 		// yyyy the following will eventually be moved to QSim scope, and into QNetsimEngineModule:
 //		if ( config.qsim().isUseLanes() ) {
@@ -25,6 +25,7 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
@@ -58,6 +59,8 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ThreadFactory;
@@ -119,6 +122,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	private final boolean usingWorkStealing;
+
+	private ForkJoinPool workStealingPool;
+
+	private QNodePartitioner nodePartitioner;
+
+	private Map<Id<Node>, Integer> nodeAssignment;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -140,6 +151,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		final Config config = sim.getScenario().getConfig();
 		final QSimConfigGroup qsimConfigGroup = config.qsim();
 		this.usingThreadpool = qsimConfigGroup.isUsingThreadpool();
+		this.usingWorkStealing = qsimConfigGroup.isUsingWorkStealing();
 
 
 		// configuring the car departure hander (including the vehicle behavior)
@@ -177,6 +189,16 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		network.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
+		this.nodePartitioner = QNodePartitionerProvider.createFromConfig(qsimConfigGroup);
+	}
+
+	/**
+	 * The partitioner is bound in controler scope so that it can carry information from one iteration to the next.  If
+	 * it is not bound, e.g. when the QSim is built stand-alone, the partitioner from the config is used.
+	 */
+	@com.google.inject.Inject(optional = true)
+	public void setNodePartitioner(QNodePartitioner nodePartitioner) {
+		this.nodePartitioner = nodePartitioner;
 	}
 
 	private static int wrnCnt = 0;
@@ -240,7 +262,15 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			engine.afterSim();
 		}
 
-		if (this.usingThreadpool) {
+		long[] runTimesPerRunner = new long[this.engines.size()];
+		for (int i = 0; i < this.engines.size(); i++) {
+			runTimesPerRunner[i] = this.engines.get(i).getCumulatedRunTime();
+		}
+		this.nodePartitioner.notifyRunTimes(this.nodeAssignment, runTimesPerRunner);
+
+		if (this.usingWorkStealing) {
+			this.workStealingPool.shutdown();
+		} else if (this.usingThreadpool) {
 			this.pool.shutdown();
 		} else {
 			/*
@@ -302,6 +332,7 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		// myTime += 0.5 ;
 
 		// (b) Do deliberate domain decomposition rather than round robin (fewer runners to wait for at (*) and (**)).
+		// (see QNodePartitioner; the runners still wait at the barriers, though.)
 
 		// (c) One thread that is much faster than all others is much more efficient than one thread that is much slower than all others. 
 		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
@@ -312,7 +343,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			engine.setTime(time);
 		}
 
-		if (this.usingThreadpool) {
+		if (this.usingWorkStealing) {
+			// there is only one runner; it distributes the work over the threads of the fork/join pool itself:
+			QNetsimEngineRunner engine = this.engines.get(0);
+			engine.setMovingNodes(true);
+			engine.call();
+			engine.setMovingNodes(false);
+			engine.call();
+		} else if (this.usingThreadpool) {
 			try {
 				for (QNetsimEngineRunner engine : this.engines) {
 					engine.setMovingNodes(true);
@@ -426,7 +464,14 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		this.endBarrier = new Phaser(this.numOfThreads + 1);
 
 		numOfRunners = this.numOfThreads;
-		if (this.usingThreadpool) {
+		if (this.usingWorkStealing) {
+			numOfRunners = 1;
+			this.workStealingPool = new ForkJoinPool(this.numOfThreads, pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("QNetsimEngine_WorkStealingThread_" + thread.getPoolIndex());
+				return thread;
+			}, null, false);
+		} else if (this.usingThreadpool) {
 			// The number of runners should be larger than the number of threads, yes,
 			// but see MATSIM-404 - Simulation result still depends on the number of runners.
 //			numOfRunners *= 10 ;
@@ -438,7 +483,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		// setup threads
 		for (int i = 0; i < numOfRunners; i++) {
 			QNetsimEngineRunner engine ;
-			if (this.usingThreadpool) {
+			if (this.usingWorkStealing) {
+				engine = new QNetsimEngineWorkStealingRunner(this.workStealingPool);
+			} else if (this.usingThreadpool) {
 				engine = new QNetsimEngineRunner();
 			} else {
 				engine = new QNetsimEngineRunner(this.startBarrier, separationBarrier, endBarrier);
@@ -469,9 +516,10 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
-		int roundRobin = 0;
+		this.nodeAssignment = this.nodePartitioner.partition(network.getNetwork(), this.numOfRunners);
+
 		for (QNodeI node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+			int i = this.nodeAssignment.get(node.getNode().getId());
 			if( node instanceof AbstractQNode){
 				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
 			}
@@ -497,8 +545,6 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				links[i]++;
 
 			}
-
-			roundRobin++;
 		}
 
 		// print some statistics
@@ -78,6 +78,9 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
+
+	// always measured (also without QSim.analyzeRunTimes), since the QNodePartitioner may rebalance from it.
+	private long cumulatedRunTime = 0;
 	{	
 		if (QSim.analyzeRunTimes) runTimes = new long[QNetsimEngine.numObservedTimeSteps];
 		else runTimes = null;
@@ -100,6 +103,10 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		time = t;
 	}
 
+	/*package*/ double getTime() {
+		return time;
+	}
+
 	public void afterSim() {
 		this.simulationRunning = false;
 	}
@@ -116,11 +123,13 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			return false;
 		}
 
+		long start = System.nanoTime();
 		if (this.movingNodes) {
 			moveNodes();
 		} else {
 			moveLinks();
 		}
+		this.cumulatedRunTime += System.nanoTime() - start;
 		return true ;
 	}
 
@@ -136,7 +145,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			 */
 			startBarrier.arriveAndAwaitAdvance();
 
-			if (QSim.analyzeRunTimes) this.startTime = System.nanoTime();
+			this.startTime = System.nanoTime();
 			
 			// Check if Simulation is still running. Otherwise print CPU usage and end thread.
 			if (!this.simulationRunning) {
@@ -145,14 +154,18 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			}
 
 			moveNodes();
+			long nodesEnd = System.nanoTime();
 
 			// After moving the QNodes all we use a Phaser to synchronize the threads.
 			this.separationBarrier.arriveAndAwaitAdvance();
 
+			long linksStart = System.nanoTime();
 			moveLinks();
 
+			long end = System.nanoTime();
+			// (the time waiting at the separation barrier is not work of this runner)
+			this.cumulatedRunTime += (nodesEnd - this.startTime) + (end - linksStart);
 			if (QSim.analyzeRunTimes) {
-				long end = System.nanoTime();
 				int bin = (int) this.time;
 				if (bin < this.runTimes.length) this.runTimes[bin] = end - this.startTime;
 			}
@@ -164,7 +177,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			this.endBarrier.arriveAndAwaitAdvance();
 		}
 	}
-	private void moveNodes() {
+	/*package*/ void moveNodes() {
 		boolean remainsActive;
 		this.lockNodes = true;
 		QNodeI node;
@@ -176,7 +189,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		}
 		this.lockNodes = false;
 	}
-	private void moveLinks() {
+	/*package*/ void moveLinks() {
 		boolean remainsActive;
 		lockLinks = true;
 		QLinkI link;
@@ -229,6 +242,10 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		return this.nodesQueue.size();
 	}
 
+	/*package*/ long getCumulatedRunTime() {
+		return this.cumulatedRunTime;
+	}
+
 	public void setMovingNodes(boolean movingNodes) {
 		this.movingNodes = movingNodes;
 	}
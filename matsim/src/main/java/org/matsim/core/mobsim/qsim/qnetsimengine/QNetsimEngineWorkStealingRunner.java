@@ -0,0 +1,177 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWorkStealingRunner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * A single {@link QNetsimEngineRunner} that owns all nodes and links, but does not move them itself.  Instead, the active
+ * nodes (and afterwards the active links) of a time step are split into chunks which are processed by a {@link ForkJoinPool},
+ * i.e. idle threads steal chunks from busy ones.  So there is no fixed thread-to-node mapping, and a time step does not have
+ * to wait for the runner that happens to have the most work.
+ * <p></p>
+ * Every node and every link is still moved by exactly one thread per phase.  Links are only activated by their from-node
+ * (during the node phase), nodes only by their in-links (during the link phase), and both activations go through
+ * concurrent queues, so the guarantees of {@link NetElementActivationRegistry} carry over.
+ */
+final class QNetsimEngineWorkStealingRunner extends QNetsimEngineRunner {
+
+	/**
+	 * Number of elements below which a chunk is no longer split.  Moving a node or a link is cheap, so smaller chunks would
+	 * mostly add scheduling overhead.
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	private final ForkJoinPool pool;
+
+	// activations arrive concurrently from the worker threads (and from the main thread between the phases):
+	private final Queue<QNodeI> activatedNodes = new ConcurrentLinkedQueue<>();
+	private final Queue<QLinkI> activatedLinks = new ConcurrentLinkedQueue<>();
+
+	// the elements that are active in the current time step; only touched by the thread that calls moveNodes/moveLinks:
+	private QNodeI[] activeNodes = new QNodeI[16];
+	private int numberOfActiveNodes = 0;
+	private QLinkI[] activeLinks = new QLinkI[16];
+	private int numberOfActiveLinks = 0;
+	private boolean[] remainsActive = new boolean[16];
+
+	private volatile boolean lockNodes = false;
+	private volatile boolean lockLinks = false;
+
+	QNetsimEngineWorkStealingRunner(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	void moveNodes() {
+		QNodeI node;
+		while ((node = this.activatedNodes.poll()) != null) {
+			if (this.numberOfActiveNodes == this.activeNodes.length) {
+				this.activeNodes = Arrays.copyOf(this.activeNodes, 2 * this.activeNodes.length);
+			}
+			this.activeNodes[this.numberOfActiveNodes++] = node;
+		}
+		ensureRemainsActiveCapacity(this.numberOfActiveNodes);
+
+		this.lockNodes = true;
+		final double time = getTime();
+		final QNodeI[] nodes = this.activeNodes;
+		this.pool.invoke(new ChunkAction(index -> nodes[index].doSimStep(time), 0, this.numberOfActiveNodes));
+		this.lockNodes = false;
+
+		this.numberOfActiveNodes = compact(this.activeNodes, this.numberOfActiveNodes);
+	}
+
+	@Override
+	void moveLinks() {
+		QLinkI link;
+		while ((link = this.activatedLinks.poll()) != null) {
+			if (this.numberOfActiveLinks == this.activeLinks.length) {
+				this.activeLinks = Arrays.copyOf(this.activeLinks, 2 * this.activeLinks.length);
+			}
+			this.activeLinks[this.numberOfActiveLinks++] = link;
+		}
+		ensureRemainsActiveCapacity(this.numberOfActiveLinks);
+
+		this.lockLinks = true;
+		final QLinkI[] links = this.activeLinks;
+		this.pool.invoke(new ChunkAction(index -> links[index].doSimStep(), 0, this.numberOfActiveLinks));
+		this.lockLinks = false;
+
+		this.numberOfActiveLinks = compact(this.activeLinks, this.numberOfActiveLinks);
+	}
+
+	private void ensureRemainsActiveCapacity(int size) {
+		if (this.remainsActive.length < size) {
+			this.remainsActive = new boolean[Math.max(size, 2 * this.remainsActive.length)];
+		}
+	}
+
+	/**
+	 * Removes the elements that did not remain active, keeping the order of the others.
+	 */
+	private <T> int compact(T[] elements, int size) {
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			if (this.remainsActive[i]) {
+				elements[newSize++] = elements[i];
+			}
+		}
+		Arrays.fill(elements, newSize, size, null);
+		return newSize;
+	}
+
+	@Override
+	protected void registerLinkAsActive(QLinkI link) {
+		if (!this.lockLinks) this.activatedLinks.add(link);
+		else throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
+	}
+
+	@Override
+	public int getNumberOfSimulatedLinks() {
+		return this.numberOfActiveLinks + this.activatedLinks.size();
+	}
+
+	@Override
+	protected void registerNodeAsActive(QNodeI node) {
+		if (!this.lockNodes) this.activatedNodes.add(node);
+		else throw new RuntimeException("Tried to activate a QNode at a time where this was not allowed. Aborting!");
+	}
+
+	@Override
+	public int getNumberOfSimulatedNodes() {
+		return this.numberOfActiveNodes + this.activatedNodes.size();
+	}
+
+	/**
+	 * Moves the elements [from, to), splitting the range in halves as long as it is larger than {@link #CHUNK_SIZE}.  Writes
+	 * into {@link #remainsActive}; the ranges are disjoint, and {@link ForkJoinPool#invoke} makes the results visible to the
+	 * calling thread.
+	 */
+	private final class ChunkAction extends RecursiveAction {
+		private final IntPredicate move;
+		private final int from;
+		private final int to;
+
+		ChunkAction(IntPredicate move, int from, int to) {
+			this.move = move;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= CHUNK_SIZE) {
+				for (int i = this.from; i < this.to; i++) {
+					remainsActive[i] = this.move.test(i);
+				}
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new ChunkAction(this.move, this.from, middle), new ChunkAction(this.move, middle, this.to));
+			}
+		}
+	}
+}
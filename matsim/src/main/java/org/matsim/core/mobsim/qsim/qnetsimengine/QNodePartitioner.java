@@ -0,0 +1,50 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNodePartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Decides which {@link QNetsimEngineRunner} handles which node (and thus, since out-links are always handled by the
+ * runner of their from-node, which link).
+ * <p></p>
+ * An instance is bound in controler scope, i.e. it survives from one mobsim iteration to the next.  This allows
+ * implementations to rebalance the assignment based on the run times that were measured in the previous iteration.
+ */
+public interface QNodePartitioner {
+
+	/**
+	 * @return for every node of the network the index (0 ... numberOfRunners-1) of the runner it is assigned to.
+	 */
+	Map<Id<Node>, Integer> partition(Network network, int numberOfRunners);
+
+	/**
+	 * Called after the mobsim with the assignment that was used and the cumulated run time (in nanoseconds) of each runner.
+	 * Default is to ignore the information.
+	 */
+	default void notifyRunTimes(Map<Id<Node>, Integer> assignment, long[] runTimesPerRunner) {
+	}
+
+}
@@ -0,0 +1,53 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNodePartitionerProvider.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.QSimConfigGroup;
+
+public final class QNodePartitionerProvider implements Provider<QNodePartitioner> {
+
+	private final Config config;
+
+	@Inject
+	QNodePartitionerProvider(Config config) {
+		this.config = config;
+	}
+
+	@Override
+	public QNodePartitioner get() {
+		return createFromConfig(this.config.qsim());
+	}
+
+	static QNodePartitioner createFromConfig(QSimConfigGroup qsimConfigGroup) {
+		switch (qsimConfigGroup.getNodeAssignment()) {
+			case roundRobin:
+				return new RoundRobinQNodePartitioner();
+			case regions:
+				return new RegionGrowingQNodePartitioner();
+			default:
+				throw new RuntimeException("Unknown node assignment option: " + qsimConfigGroup.getNodeAssignment());
+		}
+	}
+}
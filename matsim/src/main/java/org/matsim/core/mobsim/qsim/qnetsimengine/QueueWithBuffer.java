@@ -142,7 +142,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	private double flowCapacityPerTimeStep;
 	private double remainingHolesStorageCapacity = 0.0 ;
 
-	private final Queue<QueueWithBuffer.Hole> holes = new LinkedList<>();
+	private final Holes holes = new Holes();
 
 	/** the last time-step the front-most vehicle in the buffer was moved. Used for detecting dead-locks. */
 	private double bufferLastMovedTime = Time.getUndefinedTime() ;
@@ -157,7 +157,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	/**
 	 * Holds all vehicles that are ready to cross the outgoing intersection
 	 */
-	private final Queue<QVehicle> buffer = new LinkedList<>() ;
+	private final Queue<QVehicle> buffer = new ArrayDeque<>() ;
 	/**
 	 * null if the link is not signalized
 	 */
@@ -450,9 +450,8 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 
 	private void processArrivalOfHoles() {
 		double now = context.getSimTimer().getTimeOfDay() ;
-		while ( this.holes.size()>0 && this.holes.peek().getEarliestLinkExitTime() < now ) {
-			Hole hole = this.holes.poll() ; // ???
-			this.remainingHolesStorageCapacity += hole.getSizeInEquivalents() ;
+		while ( !this.holes.isEmpty() && this.holes.peekEarliestLinkExitTime() < now ) {
+			this.remainingHolesStorageCapacity += this.holes.pollSizeInEquivalents() ;
 		}
 	}
 
@@ -538,7 +537,6 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 				break;
 			case withHoles:
 			case kinematicWaves:
-				QueueWithBuffer.Hole hole = new QueueWithBuffer.Hole() ;
 				double ttimeOfHoles = length*3600./HOLE_SPEED_KM_H/1000. ;
 
 				//			double offset = this.storageCapacity/this.flowCapacityPerTimeStep ;
@@ -555,9 +553,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 				//			double nLanes = 2. * flowCapacityPerTimeStep ; // pseudo-lanes
 				//			double ttimeOfHoles = 0.1 * this.storageCapacity/this.flowCapacityPerTimeStep/nLanes ;
 
-				hole.setEarliestLinkExitTime( now + 1.0*ttimeOfHoles + 0.0*MatsimRandom.getRandom().nextDouble()*ttimeOfHoles ) ;
-				hole.setSizeInEquivalents(veh2Remove.getSizeInEquivalents());
-				holes.add( hole ) ;
+				holes.add( now + 1.0*ttimeOfHoles + 0.0*MatsimRandom.getRandom().nextDouble()*ttimeOfHoles, veh2Remove.getSizeInEquivalents() ) ;
 				break;
 			default: throw new RuntimeException("The traffic dynmics "+context.qsimConfig.getTrafficDynamics()+" is not implemented yet.");
 		}
@@ -899,6 +895,86 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		}
 	}
 
+	/**
+	 * The holes on the link in the order of their creation, kept as primitive values in a ring buffer, so that the
+	 * kinematic waves do not create an object per vehicle leaving the link.  {@link Hole}s are only created for the
+	 * snapshots.
+	 */
+	static final class Holes {
+		private double[] earliestLinkExitTimes = new double[16];
+		private double[] pcus = new double[16];
+		private int head = 0;
+		private int size = 0;
+
+		void add(double earliestLinkExitTime, double pcu) {
+			if (size == pcus.length) {
+				grow();
+			}
+			int tail = (head + size) & (pcus.length - 1);
+			earliestLinkExitTimes[tail] = earliestLinkExitTime;
+			pcus[tail] = pcu;
+			size++;
+		}
+
+		private void grow() {
+			double[] newEarliestLinkExitTimes = new double[2 * pcus.length];
+			double[] newPcus = new double[2 * pcus.length];
+			for (int i = 0; i < size; i++) {
+				int index = (head + i) & (pcus.length - 1);
+				newEarliestLinkExitTimes[i] = earliestLinkExitTimes[index];
+				newPcus[i] = pcus[index];
+			}
+			earliestLinkExitTimes = newEarliestLinkExitTimes;
+			pcus = newPcus;
+			head = 0;
+		}
+
+		double peekEarliestLinkExitTime() {
+			if (size == 0) {
+				throw new NoSuchElementException();
+			}
+			return earliestLinkExitTimes[head];
+		}
+
+		/**
+		 * removes the first hole and returns its size
+		 */
+		double pollSizeInEquivalents() {
+			if (size == 0) {
+				throw new NoSuchElementException();
+			}
+			double pcu = pcus[head];
+			head = (head + 1) & (pcus.length - 1);
+			size--;
+			return pcu;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			head = 0;
+			size = 0;
+		}
+
+		Queue<Hole> toQueue() {
+			Queue<Hole> queue = new ArrayDeque<>(size);
+			for (int i = 0; i < size; i++) {
+				int index = (head + i) & (pcus.length - 1);
+				Hole hole = new Hole();
+				hole.setEarliestLinkExitTime(earliestLinkExitTimes[index]);
+				hole.setSizeInEquivalents(pcus[index]);
+				queue.add(hole);
+			}
+			return queue;
+		}
+	}
+
 	class VisDataImpl implements QLaneI.VisData {
 		private Coord upstreamCoord;
 		private Coord downstreamCoord;
@@ -927,7 +1003,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 						qLink.getFreespeed(now),
 //						NetworkUtils.getNumberOfLanesAsInt(now, qLink.getLink()),
 						qLink.getNumberOfLanesAsInt(now) ,
-						holes
+						holes.toQueue()
 						);
 			}
 			return positions ;
@@ -0,0 +1,149 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RegionGrowingQNodePartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Assigns contiguous regions of the network to the runners.  The nodes are visited in breadth-first order (following
+ * in- and out-links, starting from the west-most node that is not yet visited), and this order is cut into as many
+ * pieces of equal weight as there are runners.
+ * <p></p>
+ * Initially, the weight of a node is the number of links that are attached to it.  After each mobsim, the weights of the
+ * nodes of every runner are scaled with the ratio between the measured run time of that runner and the weight it was
+ * given, so that the next partition moves work away from the runners that were slowest.
+ */
+public final class RegionGrowingQNodePartitioner implements QNodePartitioner {
+	private static final Logger log = Logger.getLogger( RegionGrowingQNodePartitioner.class );
+
+	/**
+	 * Share of the old weight that is kept when the measured run times are blended in.  Otherwise, the assignment tends to
+	 * oscillate between iterations.
+	 */
+	private static final double SMOOTHING = 0.5;
+
+	private final Map<Id<Node>, Double> nodeWeights = new HashMap<>();
+
+	@Override
+	public Map<Id<Node>, Integer> partition(Network network, int numberOfRunners) {
+		Map<Id<Node>, Integer> assignment = new LinkedHashMap<>();
+
+		double totalWeight = 0.;
+		for (Node node : network.getNodes().values()) {
+			totalWeight += getWeight(node);
+		}
+		final double weightPerRunner = totalWeight / numberOfRunners;
+
+		// sweep from west to east for the seeds, so that the disconnected parts of a network also end up in the same region:
+		List<Node> seeds = new ArrayList<>(network.getNodes().values());
+		seeds.sort(Comparator.comparingDouble((Node node) -> node.getCoord().getX())
+				.thenComparingDouble(node -> node.getCoord().getY())
+				.thenComparing(Node::getId));
+
+		Set<Id<Node>> visited = new HashSet<>();
+		Queue<Node> queue = new ArrayDeque<>();
+		double cumulatedWeight = 0.;
+		for (Node seed : seeds) {
+			if (!visited.add(seed.getId())) {
+				continue;
+			}
+			queue.add(seed);
+			while (!queue.isEmpty()) {
+				Node node = queue.poll();
+				int runner = Math.min(numberOfRunners - 1, (int) (cumulatedWeight / weightPerRunner));
+				assignment.put(node.getId(), runner);
+				cumulatedWeight += getWeight(node);
+
+				for (Link outLink : node.getOutLinks().values()) {
+					if (visited.add(outLink.getToNode().getId())) {
+						queue.add(outLink.getToNode());
+					}
+				}
+				for (Link inLink : node.getInLinks().values()) {
+					if (visited.add(inLink.getFromNode().getId())) {
+						queue.add(inLink.getFromNode());
+					}
+				}
+			}
+		}
+		return assignment;
+	}
+
+	@Override
+	public void notifyRunTimes(Map<Id<Node>, Integer> assignment, long[] runTimesPerRunner) {
+		double[] weightPerRunner = new double[runTimesPerRunner.length];
+		for (Map.Entry<Id<Node>, Integer> entry : assignment.entrySet()) {
+			weightPerRunner[entry.getValue()] += this.nodeWeights.get(entry.getKey());
+		}
+
+		double totalWeight = 0.;
+		double totalRunTime = 0.;
+		long minRunTime = Long.MAX_VALUE;
+		long maxRunTime = Long.MIN_VALUE;
+		for (int i = 0; i < runTimesPerRunner.length; i++) {
+			totalWeight += weightPerRunner[i];
+			totalRunTime += runTimesPerRunner[i];
+			minRunTime = Math.min(minRunTime, runTimesPerRunner[i]);
+			maxRunTime = Math.max(maxRunTime, runTimesPerRunner[i]);
+		}
+		if (totalRunTime <= 0.) {
+			return;
+		}
+		log.info("QNetsimEngineRunner run times (nanos): min=" + minRunTime + " max=" + maxRunTime + "; rebalancing node weights.");
+
+		double[] factorPerRunner = new double[runTimesPerRunner.length];
+		for (int i = 0; i < runTimesPerRunner.length; i++) {
+			if (weightPerRunner[i] > 0.) {
+				double measuredWeight = runTimesPerRunner[i] / totalRunTime * totalWeight;
+				factorPerRunner[i] = measuredWeight / weightPerRunner[i];
+			} else {
+				factorPerRunner[i] = 1.;
+			}
+		}
+		for (Map.Entry<Id<Node>, Integer> entry : assignment.entrySet()) {
+			double oldWeight = this.nodeWeights.get(entry.getKey());
+			double newWeight = SMOOTHING * oldWeight + (1. - SMOOTHING) * oldWeight * factorPerRunner[entry.getValue()];
+			// nodes must not become weightless, otherwise they no longer influence where the regions are cut:
+			this.nodeWeights.put(entry.getKey(), Math.max(newWeight, Double.MIN_NORMAL));
+		}
+	}
+
+	private double getWeight(Node node) {
+		return this.nodeWeights.computeIfAbsent(node.getId(),
+				id -> 1. + node.getInLinks().size() + node.getOutLinks().size());
+	}
+
+}
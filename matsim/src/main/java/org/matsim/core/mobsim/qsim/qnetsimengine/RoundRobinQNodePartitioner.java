@@ -0,0 +1,47 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RoundRobinQNodePartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Hands the nodes to the runners in turn, in the iteration order of the network.  This is what the {@link QNetsimEngine}
+ * has always done; neighbouring nodes will typically end up on different runners.
+ */
+public final class RoundRobinQNodePartitioner implements QNodePartitioner {
+
+	@Override
+	public Map<Id<Node>, Integer> partition(Network network, int numberOfRunners) {
+		Map<Id<Node>, Integer> assignment = new LinkedHashMap<>();
+		int roundRobin = 0;
+		for (Id<Node> nodeId : network.getNodes().keySet()) {
+			assignment.put(nodeId, roundRobin % numberOfRunners);
+			roundRobin++;
+		}
+		return assignment;
+	}
+
+}
@@ -19,14 +19,16 @@
 package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
 
 import java.util.AbstractQueue;
+import java.util.ArrayDeque;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
 
 public final class FIFOVehicleQ extends AbstractQueue<QVehicle> implements VehicleQ<QVehicle>  {
 	
-	private final LinkedList<QVehicle> vehicleQueue = new LinkedList<>();
+	// a ring buffer, so that moving a vehicle does not allocate a list node.  The vehicles
+	// usually leave at the head, which is also where ArrayDeque.remove(Object) looks first.
+	private final ArrayDeque<QVehicle> vehicleQueue = new ArrayDeque<>();
 
 	@Override
 	public boolean offer(QVehicle e) {
@@ -43,6 +45,16 @@ public final class FIFOVehicleQ extends AbstractQueue<QVehicle> implements Vehic
 		return vehicleQueue.poll();
 	}
 
+	@Override
+	public boolean remove(Object o) {
+		return vehicleQueue.remove(o);
+	}
+
+	@Override
+	public void clear() {
+		vehicleQueue.clear();
+	}
+
 	@Override
 	public Iterator<QVehicle> iterator() {
 		return vehicleQueue.iterator();
@@ -32,6 +32,16 @@ public final class PassingVehicleQ extends AbstractQueue<QVehicle> implements Ve
 		return delegate.poll();
 	}
 
+	@Override
+	public boolean remove(Object o) {
+		return delegate.remove(o); // avoids the iterator of AbstractCollection.remove
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+
 	@Override
 	public void addFirst(QVehicle qveh) {
 		qveh.setEarliestLinkExitTime(Double.NEGATIVE_INFINITY);
@@ -0,0 +1,384 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Encodes the activities and legs of a plan into a byte array, and decodes them again. Ids are stored by their
+ * {@link Id#index()}, activity types and modes by their index in a string table shared by all plans, and numbers as
+ * variable-length integers where possible, so that a typical plan takes a few dozen bytes instead of a few kilobytes.
+ * <p></p>
+ * Only the standard implementations of activities, legs and routes without attributes can be encoded; everything else
+ * (e.g. pt routes, or activities with attributes) is left as it is.
+ */
+/* deliberately package */ final class CompactPlanElements {
+
+	private static final byte ACTIVITY = 0;
+	private static final byte LEG = 1;
+
+	private static final byte NO_ROUTE = 0;
+	private static final byte NETWORK_ROUTE = 1;
+	private static final byte GENERIC_ROUTE = 2;
+
+	private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+	private static final Class<?> LINK_NETWORK_ROUTE_CLASS = RouteUtils.createLinkNetworkRouteImpl(null, null).getClass();
+
+	private static final Map<String, Integer> stringIndices = new HashMap<>();
+	private static String[] strings = new String[16];
+
+	private CompactPlanElements() {
+	}
+
+	/**
+	 * @return the encoded plan elements, or <code>null</code> if they cannot be encoded
+	 */
+	static byte[] encode(final List<PlanElement> planElements) {
+		for (PlanElement pe : planElements) {
+			if (!isEncodable(pe)) {
+				return null;
+			}
+		}
+		Writer out = new Writer(32 + 16 * planElements.size());
+		out.writeVarLong(planElements.size());
+		for (PlanElement pe : planElements) {
+			if (pe instanceof ActivityImpl) {
+				ActivityImpl act = (ActivityImpl) pe;
+				out.writeByte(ACTIVITY);
+				out.writeString(act.getType());
+				out.writeCoord(act.getCoord());
+				out.writeId(act.getLinkId());
+				out.writeId(act.getFacilityId());
+				out.writeTime(act.getStartTime());
+				out.writeTime(act.getEndTime());
+				out.writeTime(act.getMaximumDuration());
+			} else {
+				LegImpl leg = (LegImpl) pe;
+				out.writeByte(LEG);
+				out.writeString(leg.getMode());
+				out.writeTime(leg.getDepartureTime());
+				out.writeTime(leg.getTravelTime());
+				writeRoute(out, leg.getRoute());
+			}
+		}
+		return out.toByteArray();
+	}
+
+	static ArrayList<PlanElement> decode(final byte[] data) {
+		Reader in = new Reader(data);
+		int size = (int) in.readVarLong();
+		ArrayList<PlanElement> planElements = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			if (in.readByte() == ACTIVITY) {
+				ActivityImpl act = new ActivityImpl(in.readString());
+				act.setCoord(in.readCoord());
+				act.setLinkId(in.readId(Link.class));
+				act.setFacilityId(in.readId(ActivityFacility.class));
+				act.setStartTime(in.readTime());
+				act.setEndTime(in.readTime());
+				act.setMaximumDuration(in.readTime());
+				planElements.add(act);
+			} else {
+				LegImpl leg = new LegImpl(in.readString());
+				leg.setDepartureTime(in.readTime());
+				leg.setTravelTime(in.readTime());
+				leg.setRoute(readRoute(in));
+				planElements.add(leg);
+			}
+		}
+		return planElements;
+	}
+
+	private static boolean isEncodable(final PlanElement pe) {
+		if (pe instanceof ActivityImpl) {
+			ActivityImpl act = (ActivityImpl) pe;
+			return act.getType() != null && act.getAttributes().isEmpty();
+		}
+		if (pe instanceof LegImpl) {
+			LegImpl leg = (LegImpl) pe;
+			Route route = leg.getRoute();
+			return leg.getAttributes().isEmpty() && (route == null
+					|| route.getClass() == LINK_NETWORK_ROUTE_CLASS || route.getClass() == GenericRouteImpl.class);
+		}
+		return false;
+	}
+
+	private static void writeRoute(final Writer out, final Route route) {
+		if (route == null) {
+			out.writeByte(NO_ROUTE);
+			return;
+		}
+		if (route instanceof NetworkRoute) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			out.writeByte(NETWORK_ROUTE);
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			out.writeVarLong(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				out.writeVarLong(linkId.index());
+			}
+			out.writeId(networkRoute.getVehicleId());
+			out.writeDouble(networkRoute.getTravelCost());
+		} else {
+			out.writeByte(GENERIC_ROUTE);
+			// route descriptions are mostly unique, so they are not put into the string table
+			out.writeText(route.getRouteDescription());
+		}
+		out.writeId(route.getStartLinkId());
+		out.writeId(route.getEndLinkId());
+		out.writeDouble(route.getDistance());
+		out.writeTime(route.getTravelTime());
+	}
+
+	private static Route readRoute(final Reader in) {
+		byte routeType = in.readByte();
+		if (routeType == NO_ROUTE) {
+			return null;
+		}
+		Route route;
+		if (routeType == NETWORK_ROUTE) {
+			@SuppressWarnings("unchecked")
+			Id<Link>[] linkIds = new Id[(int) in.readVarLong()];
+			for (int i = 0; i < linkIds.length; i++) {
+				linkIds[i] = Id.get((int) in.readVarLong(), Link.class);
+			}
+			Id<Vehicle> vehicleId = in.readId(Vehicle.class);
+			double travelCost = in.readDouble();
+			Id<Link> startLinkId = in.readId(Link.class);
+			Id<Link> endLinkId = in.readId(Link.class);
+			NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(startLinkId, linkIds, endLinkId);
+			networkRoute.setVehicleId(vehicleId);
+			networkRoute.setTravelCost(travelCost);
+			route = networkRoute;
+		} else {
+			String routeDescription = in.readText();
+			GenericRouteImpl genericRoute = new GenericRouteImpl(in.readId(Link.class), in.readId(Link.class));
+			genericRoute.setRouteDescription(routeDescription);
+			route = genericRoute;
+		}
+		route.setDistance(in.readDouble());
+		route.setTravelTime(in.readTime());
+		return route;
+	}
+
+	private static synchronized int getStringIndex(final String string) {
+		Integer index = stringIndices.get(string);
+		if (index == null) {
+			index = stringIndices.size();
+			if (index == strings.length) {
+				strings = Arrays.copyOf(strings, 2 * strings.length);
+			}
+			strings[index] = string;
+			stringIndices.put(string, index);
+		}
+		return index;
+	}
+
+	private static synchronized String getString(final int index) {
+		return strings[index];
+	}
+
+	private static final class Writer {
+
+		private byte[] buffer;
+		private int size = 0;
+
+		Writer(final int capacity) {
+			this.buffer = new byte[capacity];
+		}
+
+		void writeByte(final int b) {
+			if (this.size == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+			}
+			this.buffer[this.size++] = (byte) b;
+		}
+
+		void writeVarLong(long value) {
+			while ((value & ~0x7FL) != 0) {
+				writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		void writeRawDouble(final double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			for (int i = 0; i < 8; i++) {
+				writeByte((int) (bits >>> (8 * i)));
+			}
+		}
+
+		/**
+		 * non-negative integral values (most times, distances in full meters) are stored as a variable-length
+		 * integer shifted by one bit, everything else as tag 1 followed by the eight bytes of the double.
+		 */
+		void writeDouble(final double value) {
+			if (value >= 0 && value < (1L << 52) && value == Math.rint(value) && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO) {
+				writeVarLong(((long) value) << 1);
+			} else {
+				writeVarLong(1);
+				writeRawDouble(value);
+			}
+		}
+
+		void writeTime(final double time) {
+			if (Time.isUndefinedTime(time)) {
+				writeVarLong(3);
+			} else {
+				writeDouble(time);
+			}
+		}
+
+		void writeString(final String string) {
+			writeVarLong(string == null ? 0 : getStringIndex(string) + 1);
+		}
+
+		void writeText(final String text) {
+			if (text == null) {
+				writeVarLong(0);
+			} else {
+				byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+				writeVarLong(bytes.length + 1L);
+				for (byte b : bytes) {
+					writeByte(b);
+				}
+			}
+		}
+
+		void writeId(final Id<?> id) {
+			writeVarLong(id == null ? 0 : id.index() + 1L);
+		}
+
+		void writeCoord(final Coord coord) {
+			if (coord == null) {
+				writeByte(0);
+			} else if (coord.hasZ()) {
+				writeByte(2);
+				writeDouble(coord.getX());
+				writeDouble(coord.getY());
+				writeDouble(coord.getZ());
+			} else {
+				writeByte(1);
+				writeDouble(coord.getX());
+				writeDouble(coord.getY());
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.size);
+		}
+	}
+
+	private static final class Reader {
+
+		private final byte[] buffer;
+		private int position = 0;
+
+		Reader(final byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		byte readByte() {
+			return this.buffer[this.position++];
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		double readRawDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (readByte() & 0xFFL) << (8 * i);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		double readDouble() {
+			long value = readVarLong();
+			return value == 1 ? readRawDouble() : (double) (value >>> 1);
+		}
+
+		double readTime() {
+			long value = readVarLong();
+			if (value == 3) {
+				return Time.getUndefinedTime();
+			}
+			return value == 1 ? readRawDouble() : (double) (value >>> 1);
+		}
+
+		String readString() {
+			int index = (int) readVarLong();
+			return index == 0 ? null : getString(index - 1);
+		}
+
+		String readText() {
+			int length = (int) readVarLong() - 1;
+			if (length < 0) {
+				return null;
+			}
+			String text = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return text;
+		}
+
+		<T> Id<T> readId(final Class<T> type) {
+			int index = (int) readVarLong();
+			return index == 0 ? null : Id.get(index - 1, type);
+		}
+
+		Coord readCoord() {
+			byte dimensions = readByte();
+			if (dimensions == 0) {
+				return null;
+			}
+			double x = readDouble();
+			double y = readDouble();
+			return dimensions == 2 ? new Coord(x, y, readDouble()) : new Coord(x, y);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+
+/**
+ * Compacts the non-selected plans of all persons before the mobsim, see
+ * {@link org.matsim.core.config.groups.PlansConfigGroup#isCompactingNonSelectedPlans()}. The plans that are selected
+ * or otherwise accessed in the replanning are decoded on demand, and compacted again before the next mobsim if they
+ * are no longer selected.
+ * <p></p>
+ * Being a regular controler listener, it runs after the core listeners, i.e. after the plans dump of the same
+ * iteration. The plans writer reads compacted plans through
+ * {@link PopulationUtils#getPlanElementsKeepingCompacted(Plan)}, so a dump does not decode them for good.
+ */
+/* deliberately package */ class NonSelectedPlansCompactor implements BeforeMobsimListener {
+
+	private static final Logger log = Logger.getLogger(NonSelectedPlansCompactor.class);
+
+	@Inject private Population population;
+
+	@Override
+	public void notifyBeforeMobsim(BeforeMobsimEvent event) {
+		int compacted = 0;
+		int notCompactable = 0;
+		for (Person person : population.getPersons().values()) {
+			Plan selectedPlan = person.getSelectedPlan();
+			for (Plan plan : person.getPlans()) {
+				if (plan != selectedPlan) {
+					if (PopulationUtils.compactPlan(plan)) {
+						compacted++;
+					} else {
+						notCompactable++;
+					}
+				}
+			}
+		}
+		log.info(compacted + " non-selected plans are compacted, " + notCompactable + " cannot be compacted.");
+	}
+
+}
@@ -36,7 +36,16 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 /* deliberately package */  final class PlanImpl implements Plan {
 
-	private ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	/**
+	 * volatile, as a compacted plan may be decoded by one thread (e.g. of the plans writer or of the scoring) and then
+	 * be read by others
+	 */
+	private volatile ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	/**
+	 * the encoded plan elements while the plan is compacted, in which case {@link #actsLegs} is <code>null</code>;
+	 * guarded by <code>this</code>
+	 */
+	private byte[] compactActsLegs = null;
 
 	private Double score = null;
 	private Person person = null;
@@ -122,17 +131,68 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 	@Override
 	public final List<PlanElement> getPlanElements() {
-		return this.actsLegs;
+		return getActsLegs();
 	}
 
 	@Override
 	public final void addLeg(final Leg leg) {
-		this.actsLegs.add(leg);
+		getActsLegs().add(leg);
 	}
 
 	@Override
 	public final void addActivity(final Activity act) {
-		this.actsLegs.add(act);
+		getActsLegs().add(act);
+	}
+
+	private ArrayList<PlanElement> getActsLegs() {
+		ArrayList<PlanElement> elements = this.actsLegs;
+		if (elements == null) {
+			synchronized (this) {
+				elements = this.actsLegs;
+				if (elements == null) {
+					elements = CompactPlanElements.decode(this.compactActsLegs);
+					this.compactActsLegs = null;
+					this.actsLegs = elements;
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * @return the plan elements; if the plan is compacted, they are decoded into new objects, but the plan stays
+	 * compacted
+	 */
+	/* package */ List<PlanElement> getPlanElementsKeepingCompacted() {
+		ArrayList<PlanElement> elements = this.actsLegs;
+		if (elements == null) {
+			synchronized (this) {
+				elements = this.actsLegs;
+				if (elements == null) {
+					return CompactPlanElements.decode(this.compactActsLegs);
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Replaces the plan elements by a compact encoding, which is decoded again as soon as the plan elements are
+	 * accessed. Note that the decoded plan elements are new objects. Plans with plan elements that cannot be encoded
+	 * are left as they are.
+	 *
+	 * @return whether the plan is compacted
+	 */
+	/* package */ synchronized boolean compact() {
+		if (this.actsLegs != null) {
+			byte[] encoded = CompactPlanElements.encode(this.actsLegs);
+			if (encoded == null) {
+				return false;
+			}
+			this.compactActsLegs = encoded;
+			this.actsLegs = null;
+		}
+		return true;
 	}
 
 	@Override
@@ -316,6 +316,26 @@ public final class PopulationUtils {
 		return new UnmodifiablePlan(plan);
 	}
 
+	/**
+	 * Keeps the plan elements of the plan in a compact encoding until they are accessed the next time, see
+	 * {@link PlansConfigGroup#isCompactingNonSelectedPlans()}. The plan elements are decoded into new objects, so
+	 * references to the activities and legs of the plan held elsewhere are no longer part of the plan afterwards.
+	 *
+	 * @return whether the plan could be compacted
+	 */
+	public static boolean compactPlan(Plan plan) {
+		return plan instanceof PlanImpl && ((PlanImpl) plan).compact();
+	}
+
+	/**
+	 * Same as {@link Plan#getPlanElements()}, but a compacted plan (see {@link #compactPlan(Plan)}) is not decoded for
+	 * good: the returned plan elements are decoded only for the caller, and changes to them are not reflected in the
+	 * plan. Meant for reading all plans, e.g. when writing them, without undoing the memory saving of the compaction.
+	 */
+	public static List<PlanElement> getPlanElementsKeepingCompacted(Plan plan) {
+		return plan instanceof PlanImpl ? ((PlanImpl) plan).getPlanElementsKeepingCompacted() : plan.getPlanElements();
+	}
+
 	static class UnmodifiablePlan implements Plan {
 		private final Plan delegate;
 		private final List<PlanElement> unmodifiablePlanElements;
@@ -0,0 +1,36 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BatchPlanAlgorithm.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.algorithms;
+
+/**
+ * A {@link PlanAlgorithm} that may only remember the plans given to {@link #run(org.matsim.api.core.v01.population.Plan)},
+ * and handles them all together in {@link #finishBatch()}.  Whoever runs the algorithm has to call
+ * {@link #finishBatch()} after the last plan, as e.g.
+ * {@link org.matsim.core.replanning.modules.AbstractMultithreadedModule} does for every thread.
+ */
+public interface BatchPlanAlgorithm extends PlanAlgorithm {
+
+	/**
+	 * Handles all plans that were deferred since the last call.
+	 */
+	public void finishBatch();
+
+}
@@ -0,0 +1,224 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Parallel implementation of the {@link PopulationReaderMatsimV6}. The parser thread only collects the xml elements
+ * of the persons in chunks, and creates the person ids so that their indices do not depend on the threads. The chunks
+ * are interpreted by a thread pool, and the resulting persons are added to the population by the parser thread in
+ * the order of the file. Everything outside of the person elements (e.g. the population attributes, which may
+ * define the coordinate reference system of the file) is read by the parser thread.
+ * <p></p>
+ * Like the {@link ParallelPopulationReaderMatsimV4}, this reader is not compatible with population streaming, where
+ * the persons are handled one after the other while reading.
+ */
+/* deliberately package */ class ParallelPopulationReaderMatsimV6 extends PopulationReaderMatsimV6 {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationReaderMatsimV6.class);
+
+	private static final String PERSON = "person";
+	private static final String POPULATION = "population";
+	private static final String ATTR_PERSON_ID = "id";
+
+	private static final int PERSONS_PER_CHUNK = 100;
+
+	private final Scenario scenario;
+	private final int numberOfThreads;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	private ExecutorService executor = null;
+	private final Deque<Future<List<Person>>> pendingChunks = new ArrayDeque<>();
+	private List<Tag> currentChunk = new ArrayList<>();
+	private int personsInCurrentChunk = 0;
+	private boolean inPerson = false;
+
+	ParallelPopulationReaderMatsimV6(
+			final String inputCRS,
+			final String targetCRS,
+			final Scenario scenario,
+			final int numberOfThreads) {
+		super(inputCRS, targetCRS, scenario);
+		this.scenario = scenario;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	@Override
+	public void putAttributeConverter(final Class<?> clazz, final AttributeConverter<?> converter) {
+		super.putAttributeConverter(clazz, converter);
+		this.attributeConverters.put(clazz, converter);
+	}
+
+	@Override
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		super.putAttributeConverters(converters);
+		this.attributeConverters.putAll(converters);
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (PERSON.equals(name)) {
+			if (this.executor == null) {
+				log.info("Start parallel population reading with " + this.numberOfThreads + " threads...");
+				this.executor = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+					Thread thread = new Thread(r, Runner.class.getName());
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			Id.create(atts.getValue(ATTR_PERSON_ID), Person.class);
+			this.inPerson = true;
+		}
+		if (this.inPerson) {
+			// the attributes have to be copied because the object is re-used by the parser
+			this.currentChunk.add(new Tag(name, new AttributesImpl(atts), null));
+		} else {
+			super.startTag(name, atts, context);
+		}
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (this.inPerson) {
+			this.currentChunk.add(new Tag(name, null, content));
+			if (PERSON.equals(name)) {
+				this.inPerson = false;
+				this.personsInCurrentChunk++;
+				if (this.personsInCurrentChunk == PERSONS_PER_CHUNK) {
+					submitCurrentChunk();
+					// limit the number of persons held in xml form
+					while (this.pendingChunks.size() > 2 * this.numberOfThreads || (!this.pendingChunks.isEmpty() && this.pendingChunks.peek().isDone())) {
+						addPersons(this.pendingChunks.poll());
+					}
+				}
+			}
+		} else {
+			if (POPULATION.equals(name) && this.executor != null) {
+				submitCurrentChunk();
+				try {
+					while (!this.pendingChunks.isEmpty()) {
+						addPersons(this.pendingChunks.poll());
+					}
+				} finally {
+					this.executor.shutdownNow();
+					this.executor = null;
+				}
+				log.info("Finished parallel population reading...");
+			}
+			super.endTag(name, content, context);
+		}
+	}
+
+	private void submitCurrentChunk() {
+		if (this.personsInCurrentChunk > 0) {
+			Runner runner = new Runner(this.scenario, getCoordinateTransformation(), this.currentChunk);
+			runner.putAttributeConverters(this.attributeConverters);
+			this.pendingChunks.add(this.executor.submit(runner));
+			this.currentChunk = new ArrayList<>();
+			this.personsInCurrentChunk = 0;
+		}
+	}
+
+	private void addPersons(final Future<List<Person>> chunk) {
+		try {
+			for (Person person : chunk.get()) {
+				addPerson(person);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static final class Tag {
+		final String name;
+		/**
+		 * <code>null</code> for end tags
+		 */
+		final Attributes atts;
+		final String content;
+
+		Tag(final String name, final Attributes atts, final String content) {
+			this.name = name;
+			this.atts = atts;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * Interprets the xml elements of a chunk of persons, with the same code as the sequential reader.
+	 */
+	private static final class Runner extends PopulationReaderMatsimV6 implements Callable<List<Person>> {
+
+		private final List<Tag> tags;
+		private final List<Person> persons = new ArrayList<>();
+
+		Runner(final Scenario scenario, final CoordinateTransformation coordinateTransformation, final List<Tag> tags) {
+			// the coordinate reference systems are already handled by the parser thread
+			super(null, null, scenario);
+			setCoordinateTransformation(coordinateTransformation);
+			this.tags = tags;
+		}
+
+		@Override
+		public List<Person> call() {
+			Stack<String> context = new Stack<>();
+			context.push(POPULATION);
+			for (Tag tag : this.tags) {
+				if (tag.atts != null) {
+					startTag(tag.name, tag.atts, context);
+					context.push(tag.name);
+				} else {
+					context.pop();
+					endTag(tag.name, tag.content, context);
+				}
+			}
+			return this.persons;
+		}
+
+		@Override
+		void addPerson(final Person person) {
+			this.persons.add(person);
+		}
+	}
+
+}
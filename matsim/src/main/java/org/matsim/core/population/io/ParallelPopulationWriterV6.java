@@ -0,0 +1,147 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.utils.objectattributes.AttributeConverter;
+
+/**
+ * Writes a population in the v6 format on several threads. The persons are split into chunks, which are formatted
+ * (and compressed) independently by a thread pool, and written to the file in their original order. With compression,
+ * every chunk becomes a member of a multi-member gzip file, which is read by every gzip implementation as if it had
+ * been compressed in one piece.
+ */
+/* deliberately package */ final class ParallelPopulationWriterV6 {
+
+	private static final int PERSONS_PER_CHUNK = 500;
+
+	private final CoordinateTransformation coordinateTransformation;
+	private final Map<Class<?>, AttributeConverter<?>> converters;
+	private final int numberOfThreads;
+	private final boolean useCompression;
+
+	ParallelPopulationWriterV6(
+			final CoordinateTransformation coordinateTransformation,
+			final Map<Class<?>, AttributeConverter<?>> converters,
+			final int numberOfThreads,
+			final boolean useCompression) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.converters = converters;
+		this.numberOfThreads = numberOfThreads;
+		this.useCompression = useCompression;
+	}
+
+	/**
+	 * Writes the given persons of the population to the (uncompressed) stream, but does not close it.
+	 */
+	void write(final Population population, final Iterable<? extends Person> persons, final OutputStream out) throws IOException {
+		out.write(format((handler, writer) -> {
+			handler.writeHeaderAndStartElement(writer);
+			handler.startPlans(population, writer);
+			handler.writeSeparator(writer);
+		}));
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+		try {
+			Deque<Future<byte[]>> pendingChunks = new ArrayDeque<>();
+			List<Person> chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+			for (Person person : persons) {
+				chunk.add(person);
+				if (chunk.size() == PERSONS_PER_CHUNK) {
+					pendingChunks.add(submit(executor, chunk));
+					chunk = new ArrayList<>(PERSONS_PER_CHUNK);
+					// limit the number of formatted chunks held in memory
+					while (pendingChunks.size() > 2 * this.numberOfThreads) {
+						out.write(get(pendingChunks.poll()));
+					}
+				}
+			}
+			if (!chunk.isEmpty()) {
+				pendingChunks.add(submit(executor, chunk));
+			}
+			while (!pendingChunks.isEmpty()) {
+				out.write(get(pendingChunks.poll()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		out.write(format((handler, writer) -> handler.endPlans(writer)));
+	}
+
+	private Future<byte[]> submit(final ExecutorService executor, final List<Person> chunk) {
+		return executor.submit(() -> format((handler, writer) -> {
+			for (Person person : chunk) {
+				handler.writePerson(person, writer);
+			}
+		}));
+	}
+
+	private static byte[] get(final Future<byte[]> chunk) throws IOException {
+		try {
+			return chunk.get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the part of the file written by the given part writer, as a complete gzip member if compressed
+	 */
+	private byte[] format(final PartWriter part) throws IOException {
+		PopulationWriterHandler handler = new PopulationWriterHandlerImplV6(this.coordinateTransformation);
+		handler.putAttributeConverters(this.converters);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream stream = this.useCompression ? new GZIPOutputStream(bytes, 1 << 16) : bytes;
+		try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+			part.write(handler, writer);
+		}
+		return bytes.toByteArray();
+	}
+
+	private interface PartWriter {
+		void write(PopulationWriterHandler handler, BufferedWriter writer) throws IOException;
+	}
+
+}
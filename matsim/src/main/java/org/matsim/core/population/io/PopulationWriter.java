@@ -20,9 +20,14 @@
 
 package org.matsim.core.population.io;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -51,6 +56,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = Logger.getLogger(PopulationWriter.class);
 	private Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 
 	public PopulationWriter(final Population population) {
@@ -128,11 +134,24 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		this.converters.put( key, converter );
 	}
 
+	/**
+	 * Sets the number of threads used to write the persons. Only the default v6 format is written in parallel, to
+	 * uncompressed or gzip-compressed files.
+	 */
+	public void setNumberOfThreads( final int numberOfThreads ) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Writes all plans to the file.
 	 */
 	@Override
 	public final void write(final String filename) {
+		if (this.numberOfThreads > 1 && this.handler.getClass() == PopulationWriterHandlerImplV6.class
+				&& this.useCompression == null && !filename.toLowerCase(Locale.ROOT).endsWith(".lz4")) {
+			writeParallel(filename);
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openFile(filename);
@@ -174,6 +193,33 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 
+	private void writeParallel(final String filename) {
+		boolean gzip = filename.toLowerCase(Locale.ROOT).endsWith(".gz");
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+			new ParallelPopulationWriterV6(this.coordinateTransformation, this.converters, this.numberOfThreads, gzip)
+					.write(this.population, getPersonsToWrite(), out);
+			log.info("Population written to: " + filename);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			counter.printCounter();
+			counter.reset();
+		}
+	}
+
+	private List<Person> getPersonsToWrite() {
+		// the persons are sampled here, so that the same persons are written as by the sequential writer
+		List<Person> persons = new ArrayList<>();
+		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
+			if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
+				continue;
+			}
+			persons.add(p);
+			counter.incCounter();
+		}
+		return persons;
+	}
+
 	private  final void writePersons() {
 		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
 			writePerson(p);
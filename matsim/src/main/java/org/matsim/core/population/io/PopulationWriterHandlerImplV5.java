@@ -31,6 +31,7 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.io.MatsimXmlWriter;
@@ -74,7 +75,7 @@ import java.io.IOException;
 		for (Plan plan : person.getPlans()) {
 			PopulationWriterHandlerImplV5.startPlan(plan, out);
 			// act/leg
-			for (PlanElement pe : plan.getPlanElements()) {
+			for (PlanElement pe : PopulationUtils.getPlanElementsKeepingCompacted(plan)) {
 				if (pe instanceof Activity) {
 					Activity act = (Activity) pe;
 					this.writeAct(act, out);
@@ -25,6 +25,7 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.io.MatsimXmlWriter;
@@ -84,7 +85,7 @@ import java.util.Map;
 		for (Plan plan : person.getPlans()) {
 			startPlan(plan, out);
 			// act/leg
-			for (PlanElement pe : plan.getPlanElements()) {
+			for (PlanElement pe : PopulationUtils.getPlanElementsKeepingCompacted(plan)) {
 				if (pe instanceof Activity) {
 					Activity act = (Activity) pe;
 					this.writeAct(act, out);
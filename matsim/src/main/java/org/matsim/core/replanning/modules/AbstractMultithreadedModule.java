@@ -24,13 +24,18 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningThreadScheduling;
+import org.matsim.core.population.algorithms.BatchPlanAlgorithm;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -50,6 +55,14 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link ReplanningThreadScheduling#sharedQueue}, <code>handlePlan(Plan)</code> only collects the plans,
+ * and the threads take chunks of plans from the collected ones until all are handled.  The chunks get
+ * smaller towards the end, so that all threads finish at about the same time.  Which thread handles which
+ * plan then depends on the timing of the threads, so modules using random numbers are no longer reproducible.
+ * <p></p>
+ * The number of plans and the time every thread was busy are logged at the end, and are available from
+ * {@link #getThreadStatistics()}.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -58,7 +71,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * @author mrieser
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
+	/**
+	 * with {@link ReplanningThreadScheduling#sharedQueue}, a thread takes 1/CHUNKS_PER_THREAD of its share of the remaining plans at once
+	 */
+	private static final int CHUNKS_PER_THREAD = 2;
+
 	private final int numOfThreads;
+	private final ReplanningThreadScheduling threadScheduling;
 
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
@@ -66,6 +85,8 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	private String name = null;
 
 	private int count = 0;
+	private SharedPlans sharedPlans = null;
+	private List<ThreadStatistics> threadStatistics = Collections.emptyList();
 
 	private final AtomicReference<Throwable> hadException = new AtomicReference<>(null);
 	private final ExceptionHandler exceptionHandler = new ExceptionHandler(this.hadException);
@@ -83,11 +104,16 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.getReplanningThreadScheduling());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, ReplanningThreadScheduling.roundRobin);
+	}
+
+	public AbstractMultithreadedModule(final int numOfThreads, final ReplanningThreadScheduling threadScheduling) {
 		this.numOfThreads = numOfThreads;
+		this.threadScheduling = threadScheduling;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -118,7 +144,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			if (this.sharedPlans != null) {
+				this.sharedPlans.plans.add(plan);
+			} else {
+				this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			}
 			this.count++;
 		} else {
 			this.directAlgo.run(plan);
@@ -136,11 +166,15 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	public final void finishReplanning() {
 		this.beforeFinishReplanningHook();
 		
+		if (this.directAlgo instanceof BatchPlanAlgorithm) {
+			((BatchPlanAlgorithm) this.directAlgo).finishBatch();
+		}
 		if (this.directAlgo == null) {
 			// only try to start threads if we did not directly work on all the plans
 			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
 
 			// start threads
+			long startTime = System.nanoTime();
 			for (Thread thread : this.threads) {
 				thread.start();
 			}
@@ -154,6 +188,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				throw new RuntimeException(e);
 			}
 			log.info("[" + this.name + "] all " + this.threads.length + " threads finished.");
+			collectThreadStatistics(System.nanoTime() - startTime);
 			Throwable throwable = this.hadException.get();
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
@@ -162,6 +197,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		// reset
 		this.algothreads = null;
 		this.threads = null;
+		this.sharedPlans = null;
 		this.replanningContext = null;
 		this.count = 0;
 		
@@ -176,6 +212,9 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		this.hadException.set(null);
 		this.threads = new Thread[this.numOfThreads];
 		this.algothreads = new PlanAlgoThread[this.numOfThreads];
+		if (this.threadScheduling == ReplanningThreadScheduling.sharedQueue) {
+			this.sharedPlans = new SharedPlans(this.numOfThreads);
+		}
 
 		Counter counter = null;
 		// setup threads
@@ -185,7 +224,7 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				this.name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + this.name + "] handled plan # ");
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter, this.sharedPlans);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -193,10 +232,108 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		}
 	}
 
+	private void collectThreadStatistics(long wallTimeNanos) {
+		List<ThreadStatistics> statistics = new ArrayList<>(this.numOfThreads);
+		for (int i = 0; i < this.numOfThreads; i++) {
+			ThreadStatistics threadStatistics = new ThreadStatistics(this.threads[i].getName(), this.algothreads[i].handledPlans, this.algothreads[i].busyNanos, wallTimeNanos);
+			log.info("[" + this.name + "] " + threadStatistics);
+			statistics.add(threadStatistics);
+		}
+		this.threadStatistics = Collections.unmodifiableList(statistics);
+	}
+
+	/**
+	 * @return the statistics of the threads of the last call to {@link #finishReplanning()}, empty if no threads were used
+	 */
+	public final List<ThreadStatistics> getThreadStatistics() {
+		return this.threadStatistics;
+	}
+
 	/* package (for a test) */ final int getNumOfThreads() {
 		return numOfThreads;
 	}
 
+	public final static class ThreadStatistics {
+
+		private final String threadName;
+		private final int handledPlans;
+		private final long busyNanos;
+		private final long wallTimeNanos;
+
+		ThreadStatistics(String threadName, int handledPlans, long busyNanos, long wallTimeNanos) {
+			this.threadName = threadName;
+			this.handledPlans = handledPlans;
+			this.busyNanos = busyNanos;
+			this.wallTimeNanos = wallTimeNanos;
+		}
+
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		public int getHandledPlans() {
+			return this.handledPlans;
+		}
+
+		/**
+		 * @return the time the thread spent in the plan algorithm, in nanoseconds
+		 */
+		public long getBusyNanos() {
+			return this.busyNanos;
+		}
+
+		/**
+		 * @return the time from starting the threads until all threads were finished, in nanoseconds
+		 */
+		public long getWallTimeNanos() {
+			return this.wallTimeNanos;
+		}
+
+		public double getPlansPerSecond() {
+			return this.busyNanos == 0 ? 0.0 : this.handledPlans * 1e9 / this.busyNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "thread " + this.threadName + " handled " + this.handledPlans + " plans in " + this.busyNanos / 1000000 + " ms ("
+					+ Math.round(getPlansPerSecond()) + " plans/s), idle for " + (this.wallTimeNanos - this.busyNanos) / 1000000 + " ms";
+		}
+	}
+
+	/**
+	 * The plans of all threads, of which the threads take chunks until all plans are handled.
+	 */
+	private final static class SharedPlans {
+
+		private final List<Plan> plans = new ArrayList<>();
+		private final AtomicInteger next = new AtomicInteger(0);
+		private final int numOfThreads;
+
+		SharedPlans(final int numOfThreads) {
+			this.numOfThreads = numOfThreads;
+		}
+
+		/**
+		 * @return the index of the first plan of the next chunk, or -1 if all plans are taken
+		 */
+		int takeChunk() {
+			while (true) {
+				int start = this.next.get();
+				if (start >= this.plans.size()) {
+					return -1;
+				}
+				if (this.next.compareAndSet(start, getChunkEnd(start))) {
+					return start;
+				}
+			}
+		}
+
+		int getChunkEnd(final int start) {
+			int remaining = this.plans.size() - start;
+			return start + Math.max(1, remaining / (CHUNKS_PER_THREAD * this.numOfThreads));
+		}
+	}
+
 	private final static class ExceptionHandler implements UncaughtExceptionHandler {
 
 		private final AtomicReference<Throwable> hadException;
@@ -218,10 +355,14 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 		private final PlanAlgorithm planAlgo;
 		private final List<Plan> plans = new LinkedList<>();
 		private final Counter counter;
+		private final SharedPlans sharedPlans;
+		private int handledPlans = 0;
+		private long busyNanos = 0;
 
-		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final SharedPlans sharedPlans) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.sharedPlans = sharedPlans;
 		}
 
 		public void addPlanToThread(final Plan plan) {
@@ -230,9 +371,33 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 		@Override
 		public void run() {
-			for (Plan plan : this.plans) {
-				this.planAlgo.run(plan);
-				this.counter.incCounter();
+			long startTime = System.nanoTime();
+			if (this.sharedPlans == null) {
+				for (Plan plan : this.plans) {
+					this.planAlgo.run(plan);
+					this.counter.incCounter();
+				}
+				this.handledPlans = this.plans.size();
+				finishBatch();
+			} else {
+				int start;
+				while ((start = this.sharedPlans.takeChunk()) >= 0) {
+					int end = this.sharedPlans.getChunkEnd(start);
+					for (int i = start; i < end; i++) {
+						this.planAlgo.run(this.sharedPlans.plans.get(i));
+						this.counter.incCounter();
+					}
+					this.handledPlans += end - start;
+					// a batch algorithm may defer all work to finishBatch(), so the chunk must be finished before taking the next one
+					finishBatch();
+				}
+			}
+			this.busyNanos = System.nanoTime() - startTime;
+		}
+
+		private void finishBatch() {
+			if (this.planAlgo instanceof BatchPlanAlgorithm) {
+				((BatchPlanAlgorithm) this.planAlgo).finishBatch();
 			}
 		}
 	}
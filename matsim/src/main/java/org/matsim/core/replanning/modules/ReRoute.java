@@ -54,8 +54,16 @@ public class ReRoute extends AbstractMultithreadedModule {
 
 	@Override
 	public final PlanAlgorithm getPlanAlgoInstance() {
+			TripRouter tripRouter = tripRouterProvider.get();
+			if ( tripRouter.getConfig() != null && tripRouter.getConfig().plansCalcRoute().isBatchedRouting() ) {
+				// route the plans of each thread together, see PlanRouter#finishBatch()
+				return new PlanRouter(
+						tripRouter,
+						facilities,
+						tripRouter.getConfig().plansCalcRoute().getBatchedRoutingTimeBinSize());
+			}
 			return new PlanRouter(
-					tripRouterProvider.get(),
+					tripRouter,
 					facilities);
 	}
 
@@ -35,6 +35,10 @@ import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 /**
+ * Creates {@link AStarLandmarks} routers.  The landmarks of a network are computed on the first request for it, from
+ * the minimal travel disutilities of the given {@link TravelDisutility}, and are reused by all later routers for that
+ * network, whatever their travel times.
+ *
  * @author dgrether
  */
 @Singleton
@@ -0,0 +1,194 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchies.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.ContractionHierarchy.Customisation;
+import org.matsim.core.router.priorityqueue.ArrayIndex;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Least cost path calculator on a {@link ContractionHierarchy}.  A query consists of two Dijkstra searches, one
+ * forward from the start node and one backward from the target node, that both only relax edges towards higher ranked
+ * nodes.  They meet at the highest node of the least cost path.
+ * <p></p>
+ * The edge costs are those of the customisation for the time bin of the departure, i.e. within a bin the costs are
+ * assumed to be static.  The returned path is evaluated link by link with the given travel time and disutility, so
+ * its travel time and costs are time-dependent and person-specific, as with {@link Dijkstra}.
+ * <p></p>
+ * Instances are not thread-safe, create one per thread using {@link ContractionHierarchiesFactory}.
+ */
+public class ContractionHierarchies implements LeastCostPathCalculator {
+
+	private final ContractionHierarchy hierarchy;
+	private final ContractionHierarchiesFactory factory;
+	private final TravelDisutility travelDisutility;
+	private final TravelTime travelTime;
+
+	private final Search forward;
+	private final Search backward;
+	private final ContractionHierarchy.IntStack stack = new ContractionHierarchy.IntStack();
+
+	ContractionHierarchies(final ContractionHierarchy hierarchy, final ContractionHierarchiesFactory factory,
+			final TravelDisutility travelDisutility, final TravelTime travelTime) {
+		this.hierarchy = hierarchy;
+		this.factory = factory;
+		this.travelDisutility = travelDisutility;
+		this.travelTime = travelTime;
+		ArrayIndex[] nodes = ArrayIndex.createIndices(hierarchy.nodes.length);
+		this.forward = new Search(nodes);
+		this.backward = new Search(nodes);
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+		int source = this.hierarchy.getIndex(fromNode);
+		int target = this.hierarchy.getIndex(toNode);
+		if (source == target) {
+			return evaluate(Collections.<Link>emptyList(), fromNode, starttime, person, vehicle);
+		}
+		Customisation customisation = this.factory.getCustomisation(this.hierarchy, this.travelDisutility, this.travelTime, starttime);
+
+		this.forward.reset();
+		this.backward.reset();
+		this.forward.add(source, 0.0, -1);
+		this.backward.add(target, 0.0, -1);
+
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+		while (true) {
+			double minForward = this.forward.peekCost();
+			double minBackward = this.backward.peekCost();
+			if (Math.min(minForward, minBackward) >= best) {
+				break;
+			}
+			boolean isForward = minForward <= minBackward;
+			Search search = isForward ? this.forward : this.backward;
+			Search other = isForward ? this.backward : this.forward;
+			double[] costs = isForward ? customisation.up : customisation.down;
+
+			int v = search.heap.poll().getArrayIndex();
+			double cost = search.cost[v];
+			if (other.cost[v] < Double.POSITIVE_INFINITY && cost + other.cost[v] < best) {
+				best = cost + other.cost[v];
+				meeting = v;
+			}
+			for (int e = this.hierarchy.upFirst[v]; e < this.hierarchy.upFirst[v + 1]; e++) {
+				double newCost = cost + costs[e];
+				int w = this.hierarchy.upHead[e];
+				if (newCost < search.cost[w]) {
+					search.add(w, newCost, e);
+				}
+			}
+		}
+		if (meeting < 0) {
+			return null;
+		}
+
+		List<Link> links = new ArrayList<>();
+		// forward part: source -> meeting, collected from the meeting node backwards
+		List<Integer> edges = new ArrayList<>();
+		for (int v = meeting; this.forward.edge[v] >= 0; v = this.hierarchy.upTail[this.forward.edge[v]]) {
+			edges.add(this.forward.edge[v]);
+		}
+		for (int i = edges.size() - 1; i >= 0; i--) {
+			this.hierarchy.unpack(edges.get(i), true, customisation, this.stack, links);
+		}
+		// backward part: meeting -> target
+		for (int v = meeting; this.backward.edge[v] >= 0; v = this.hierarchy.upTail[this.backward.edge[v]]) {
+			this.hierarchy.unpack(this.backward.edge[v], false, customisation, this.stack, links);
+		}
+		return evaluate(links, fromNode, starttime, person, vehicle);
+	}
+
+	private Path evaluate(final List<Link> links, final Node fromNode, final double starttime, final Person person, final Vehicle vehicle) {
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(fromNode);
+		double time = starttime;
+		double cost = 0.0;
+		for (Link link : links) {
+			cost += this.travelDisutility.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+			nodes.add(link.getToNode());
+		}
+		return new Path(nodes, links, time - starttime, cost);
+	}
+
+	/**
+	 * The state of one direction of the search, reset lazily by only touching the nodes visited before.
+	 */
+	private static final class Search {
+		final double[] cost;
+		final int[] edge;
+		final BinaryMinHeap<ArrayIndex> heap;
+		private final ArrayIndex[] nodes;
+		private int[] touched = new int[64];
+		private int touchedCount = 0;
+
+		Search(ArrayIndex[] nodes) {
+			int n = nodes.length;
+			this.cost = new double[n];
+			this.edge = new int[n];
+			Arrays.fill(this.cost, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.edge, -1);
+			this.nodes = nodes;
+			this.heap = new BinaryMinHeap<>(n);
+		}
+
+		double peekCost() {
+			ArrayIndex head = this.heap.peek();
+			return head == null ? Double.POSITIVE_INFINITY : this.cost[head.getArrayIndex()];
+		}
+
+		void add(int v, double newCost, int viaEdge) {
+			if (this.cost[v] == Double.POSITIVE_INFINITY) {
+				if (this.touchedCount == this.touched.length) {
+					this.touched = Arrays.copyOf(this.touched, 2 * this.touchedCount);
+				}
+				this.touched[this.touchedCount++] = v;
+			}
+			this.cost[v] = newCost;
+			this.edge[v] = viaEdge;
+			this.heap.decreaseKey(this.nodes[v], newCost);
+		}
+
+		void reset() {
+			for (int i = 0; i < this.touchedCount; i++) {
+				int v = this.touched[i];
+				this.cost[v] = Double.POSITIVE_INFINITY;
+				this.edge[v] = -1;
+			}
+			this.touchedCount = 0;
+			this.heap.reset();
+		}
+	}
+}
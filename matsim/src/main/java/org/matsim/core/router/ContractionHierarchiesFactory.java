@@ -0,0 +1,257 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.ContractionHierarchy.Customisation;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Creates {@link ContractionHierarchies} path calculators.
+ * <p></p>
+ * The contraction of a network is done once and then shared by all calculators for that network.  The edge costs
+ * (the customisation) are computed per time bin and travel disutility, on first use.  Calculators with
+ * {@link Object#equals(Object) equal} travel times and disutilities (e.g. the per-thread instances created by one
+ * {@link org.matsim.core.router.costcalculators.TravelDisutilityFactory}) share one customisation, so the link costs
+ * are only evaluated once.  Calculators whose travel disutilities are not equal, but give exactly the same link costs,
+ * still share the expensive customisation itself.
+ * <p></p>
+ * At most {@link #DEFAULT_MAX_CUSTOMISED_TIME_BINS} (or the number given to the constructor) time bins are customised
+ * per network and travel disutility, so that the memory required does not grow with the number of travel time bins.
+ * If there are more travel time bins, several of them are combined and their link costs are averaged.  The
+ * customisations are discarded before the mobsim, as they are only needed during replanning, and at the start of every
+ * iteration, so that the routing uses the travel times of the last mobsim without contracting the network again.
+ * Outside of the controler, {@link #resetCustomisations()} has to be called whenever the travel times change.
+ * <p></p>
+ * The customisation cannot know for which person a route is computed, so person-specific travel disutilities (e.g.
+ * randomized ones) are evaluated for a placeholder person.  They are only fully respected in the costs of the
+ * returned paths.
+ */
+@Singleton
+public class ContractionHierarchiesFactory implements LeastCostPathCalculatorFactory, IterationStartsListener, BeforeMobsimListener {
+
+	private final static Logger log = Logger.getLogger(ContractionHierarchiesFactory.class);
+
+	public final static int DEFAULT_MAX_CUSTOMISED_TIME_BINS = 32;
+
+	private final int travelTimeBinSize;
+	private final int travelTimeBinsPerBin;
+	private final int timeBinSize;
+	private final int numberOfTimeBins;
+	private final Map<Network, ContractionHierarchy> hierarchies = new IdentityHashMap<>();
+	private final Map<CustomisationKey, FutureTask<Customisation>> customisations = new ConcurrentHashMap<>();
+	private final Map<LinkCostsKey, FutureTask<Customisation>> customisationsByLinkCosts = new ConcurrentHashMap<>();
+	private Person customisationPerson = null;
+
+	@Inject
+	public ContractionHierarchiesFactory(final TravelTimeCalculatorConfigGroup config) {
+		this(config.getTraveltimeBinSize(), config.getMaxTime());
+	}
+
+	public ContractionHierarchiesFactory(final int timeBinSize, final int maxTime) {
+		this(timeBinSize, maxTime, DEFAULT_MAX_CUSTOMISED_TIME_BINS);
+	}
+
+	/**
+	 * @param maxCustomisedTimeBins the maximum number of time bins for which the edge costs are computed, per network
+	 * and travel disutility.  Each customisation takes <code>8 * (links + 2 * edges)</code> bytes.
+	 */
+	public ContractionHierarchiesFactory(final int timeBinSize, final int maxTime, final int maxCustomisedTimeBins) {
+		if (maxCustomisedTimeBins < 1) {
+			throw new IllegalArgumentException("at least one time bin has to be customised, but the maximum is " + maxCustomisedTimeBins);
+		}
+		int travelTimeBins = maxTime / timeBinSize + 1;
+		this.travelTimeBinSize = timeBinSize;
+		this.travelTimeBinsPerBin = (travelTimeBins + maxCustomisedTimeBins - 1) / maxCustomisedTimeBins;
+		this.timeBinSize = timeBinSize * this.travelTimeBinsPerBin;
+		this.numberOfTimeBins = (travelTimeBins + this.travelTimeBinsPerBin - 1) / this.travelTimeBinsPerBin;
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		ContractionHierarchy hierarchy = this.hierarchies.get(network);
+		if (hierarchy == null) {
+			hierarchy = ContractionHierarchy.build(network);
+			this.hierarchies.put(network, hierarchy);
+		}
+		if (this.customisationPerson == null) {
+			this.customisationPerson = PopulationUtils.getFactory().createPerson(Id.createPersonId("contractionHierarchiesCustomisation"));
+		}
+		return new ContractionHierarchies(hierarchy, this, travelCosts, travelTimes);
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		resetCustomisations();
+	}
+
+	@Override
+	public void notifyBeforeMobsim(final BeforeMobsimEvent event) {
+		// replanning is done, routes computed during the mobsim customise the bins they need again
+		resetCustomisations();
+	}
+
+	/**
+	 * Discards the edge costs of all hierarchies, they are computed again on their next use.
+	 */
+	public void resetCustomisations() {
+		this.customisations.clear();
+		this.customisationsByLinkCosts.clear();
+	}
+
+	Customisation getCustomisation(final ContractionHierarchy hierarchy, final TravelDisutility travelDisutility, final TravelTime travelTime, final double time) {
+		int bin = Math.max(0, Math.min(this.numberOfTimeBins - 1, (int) (time / this.timeBinSize)));
+		CustomisationKey key = new CustomisationKey(hierarchy, travelDisutility, travelTime, bin);
+		return getOrRun(this.customisations, key, () -> {
+			double[] linkCosts = calcLinkCosts(hierarchy, travelDisutility, bin);
+			return getOrRun(this.customisationsByLinkCosts, new LinkCostsKey(hierarchy, linkCosts), () -> customise(hierarchy, linkCosts));
+		});
+	}
+
+	private static <K> Customisation getOrRun(final Map<K, FutureTask<Customisation>> tasks, final K key, final Callable<Customisation> callable) {
+		FutureTask<Customisation> task = tasks.get(key);
+		if (task == null) {
+			FutureTask<Customisation> newTask = new FutureTask<>(callable);
+			task = tasks.putIfAbsent(key, newTask);
+			if (task == null) {
+				task = newTask;
+				task.run();
+			}
+		}
+		try {
+			return task.get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the link costs averaged over the travel time bins that are combined into the given bin
+	 */
+	private double[] calcLinkCosts(final ContractionHierarchy hierarchy, final TravelDisutility travelDisutility, final int bin) {
+		Link[] links = hierarchy.links;
+		double[] costs = new double[links.length];
+		for (int i = 0; i < this.travelTimeBinsPerBin; i++) {
+			double time = (bin * this.travelTimeBinsPerBin + i) * (double) this.travelTimeBinSize;
+			for (int l = 0; l < links.length; l++) {
+				costs[l] += travelDisutility.getLinkTravelDisutility(links[l], time, this.customisationPerson, null);
+			}
+		}
+		if (this.travelTimeBinsPerBin > 1) {
+			for (int l = 0; l < links.length; l++) {
+				costs[l] /= this.travelTimeBinsPerBin;
+			}
+		}
+		return costs;
+	}
+
+	private static Customisation customise(final ContractionHierarchy hierarchy, final double[] linkCosts) {
+		long start = System.currentTimeMillis();
+		Customisation customisation = hierarchy.customise(linkCosts);
+		log.debug("customisation took " + (System.currentTimeMillis() - start) + " ms.");
+		return customisation;
+	}
+
+	/**
+	 * Identifies the customisation of a calculator by its travel time and disutility.  They are compared with equals,
+	 * which is their identity unless they are known to give the same costs, so that calculators with different data
+	 * never share edge costs, even if their travel times and disutilities are of the same class.
+	 */
+	private static final class CustomisationKey {
+		private final ContractionHierarchy hierarchy;
+		private final TravelDisutility travelDisutility;
+		private final TravelTime travelTime;
+		private final int bin;
+
+		CustomisationKey(ContractionHierarchy hierarchy, TravelDisutility travelDisutility, TravelTime travelTime, int bin) {
+			this.hierarchy = hierarchy;
+			this.travelDisutility = travelDisutility;
+			this.travelTime = travelTime;
+			this.bin = bin;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CustomisationKey)) {
+				return false;
+			}
+			CustomisationKey other = (CustomisationKey) obj;
+			return this.hierarchy == other.hierarchy && this.travelDisutility.equals(other.travelDisutility)
+					&& this.travelTime.equals(other.travelTime) && this.bin == other.bin;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((System.identityHashCode(this.hierarchy) * 31 + this.travelDisutility.hashCode()) * 31
+					+ this.travelTime.hashCode()) * 31 + this.bin;
+		}
+	}
+
+	private static final class LinkCostsKey {
+		private final ContractionHierarchy hierarchy;
+		private final double[] linkCosts;
+		private final int hash;
+
+		LinkCostsKey(ContractionHierarchy hierarchy, double[] linkCosts) {
+			this.hierarchy = hierarchy;
+			this.linkCosts = linkCosts;
+			this.hash = System.identityHashCode(hierarchy) * 31 + Arrays.hashCode(linkCosts);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof LinkCostsKey)) {
+				return false;
+			}
+			LinkCostsKey other = (LinkCostsKey) obj;
+			return this.hierarchy == other.hierarchy && Arrays.equals(this.linkCosts, other.linkCosts);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+}
@@ -0,0 +1,457 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchy.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy: a node order and the shortcuts it requires.
+ * <p></p>
+ * The nodes are contracted in a nested dissection order, see {@link NestedDissectionOrder}.  Contracting a node connects all its remaining neighbors with
+ * each other, without any witness search, so the shortcuts do not depend on the link costs.  The costs are only added
+ * by {@link #customise(double[])}, which is linear in the number of shortcut triangles and can thus be repeated
+ * whenever the travel times change, e.g. every iteration or for every time bin, without contracting again.
+ * <p></p>
+ * Every edge of the hierarchy connects a lower ranked node with a higher ranked one, and has a cost in both directions.
+ * The edges are stored once, in the adjacency array of the lower node (sorted by the higher node), and are referenced
+ * from the higher node's list of lower neighbors.
+ */
+final class ContractionHierarchy {
+
+	private final static Logger log = Logger.getLogger(ContractionHierarchy.class);
+
+	private final static int MAX_DEGREE_CONTRACTED_FIRST = 2;
+
+	final Node[] nodes;
+	final Link[] links;
+	private final int[] nodeIndexById;
+
+	final int[] rank;
+	private final int[] nodesByRank;
+
+	/** edges to higher ranked neighbors: upHead[upFirst[v]] ... upHead[upFirst[v+1]-1], sorted by head. */
+	final int[] upFirst;
+	final int[] upHead;
+	final int[] upTail;
+
+	/** edges from lower ranked neighbors: edge downEdge[i] connects downTail[i] with v, for downFirst[v] <= i < downFirst[v+1]. */
+	final int[] downFirst;
+	final int[] downTail;
+	final int[] downEdge;
+
+	/** the network links that run along an edge upwards (low to high) and downwards (high to low). */
+	private final int[] upLinksFirst;
+	private final int[] upLinks;
+	private final int[] downLinksFirst;
+	private final int[] downLinks;
+
+	private ContractionHierarchy(Node[] nodes, Link[] links, int[] nodeIndexById, int[] rank, int[][] upNeighbors) {
+		this.nodes = nodes;
+		this.links = links;
+		this.nodeIndexById = nodeIndexById;
+		this.rank = rank;
+		int n = nodes.length;
+
+		this.nodesByRank = new int[n];
+		for (int v = 0; v < n; v++) {
+			this.nodesByRank[rank[v]] = v;
+		}
+
+		this.upFirst = new int[n + 1];
+		int edges = 0;
+		for (int v = 0; v < n; v++) {
+			this.upFirst[v] = edges;
+			edges += upNeighbors[v].length;
+		}
+		this.upFirst[n] = edges;
+		this.upHead = new int[edges];
+		this.upTail = new int[edges];
+		int[] downCount = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			int[] neighbors = upNeighbors[v];
+			Arrays.sort(neighbors);
+			System.arraycopy(neighbors, 0, this.upHead, this.upFirst[v], neighbors.length);
+			Arrays.fill(this.upTail, this.upFirst[v], this.upFirst[v + 1], v);
+			for (int h : neighbors) {
+				downCount[h + 1]++;
+			}
+		}
+
+		this.downFirst = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			this.downFirst[v + 1] = this.downFirst[v] + downCount[v + 1];
+		}
+		this.downTail = new int[edges];
+		this.downEdge = new int[edges];
+		int[] fill = Arrays.copyOf(this.downFirst, n);
+		for (int e = 0; e < edges; e++) {
+			int h = this.upHead[e];
+			this.downTail[fill[h]] = this.upTail[e];
+			this.downEdge[fill[h]] = e;
+			fill[h]++;
+		}
+
+		// assign the links to the edges they run along
+		int[] upLinkCount = new int[edges + 1];
+		int[] downLinkCount = new int[edges + 1];
+		int[] linkEdge = new int[links.length];
+		for (int l = 0; l < links.length; l++) {
+			int from = getIndex(links[l].getFromNode());
+			int to = getIndex(links[l].getToNode());
+			if (from == to) {
+				linkEdge[l] = -1; // loops are never part of a least cost path
+			} else if (rank[from] < rank[to]) {
+				linkEdge[l] = findEdge(from, to);
+				upLinkCount[linkEdge[l] + 1]++;
+			} else {
+				linkEdge[l] = findEdge(to, from);
+				downLinkCount[linkEdge[l] + 1]++;
+			}
+		}
+		for (int e = 0; e < edges; e++) {
+			upLinkCount[e + 1] += upLinkCount[e];
+			downLinkCount[e + 1] += downLinkCount[e];
+		}
+		this.upLinksFirst = upLinkCount;
+		this.downLinksFirst = downLinkCount;
+		this.upLinks = new int[upLinkCount[edges]];
+		this.downLinks = new int[downLinkCount[edges]];
+		int[] upFill = Arrays.copyOf(upLinkCount, edges);
+		int[] downFill = Arrays.copyOf(downLinkCount, edges);
+		for (int l = 0; l < links.length; l++) {
+			int e = linkEdge[l];
+			if (e < 0) {
+				continue;
+			}
+			if (rank[getIndex(links[l].getFromNode())] < rank[getIndex(links[l].getToNode())]) {
+				this.upLinks[upFill[e]++] = l;
+			} else {
+				this.downLinks[downFill[e]++] = l;
+			}
+		}
+	}
+
+	static ContractionHierarchy build(final Network network) {
+		long start = System.currentTimeMillis();
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		Link[] links = network.getLinks().values().toArray(new Link[0]);
+		int n = nodes.length;
+		int[] nodeIndexById = new int[Id.getNumberOfIds(Node.class)];
+		Arrays.fill(nodeIndexById, -1);
+		for (int v = 0; v < n; v++) {
+			nodeIndexById[nodes[v].getId().index()] = v;
+		}
+
+		// undirected adjacency, without duplicates
+		int[][] adjacency = new int[n][];
+		int[] degree = new int[n];
+		for (int v = 0; v < n; v++) {
+			adjacency[v] = new int[nodes[v].getInLinks().size() + nodes[v].getOutLinks().size()];
+		}
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		for (int v = 0; v < n; v++) {
+			mark[v] = v;
+			for (Link link : nodes[v].getOutLinks().values()) {
+				addNeighbor(v, nodeIndexById[link.getToNode().getId().index()], adjacency, degree, mark);
+			}
+			for (Link link : nodes[v].getInLinks().values()) {
+				addNeighbor(v, nodeIndexById[link.getFromNode().getId().index()], adjacency, degree, mark);
+			}
+		}
+
+		int[] rank = new int[n];
+		boolean[] contracted = new boolean[n];
+		int[][] upNeighbors = new int[n][];
+		int nextRank = 0;
+		long shortcuts = 0;
+		Arrays.fill(mark, -1);
+
+		// contract the nodes with at most two neighbors first, each of them adds at most one shortcut
+		int[] stack = new int[2 * n]; // every contraction pops one node and pushes at most two
+		int size = 0;
+		for (int v = 0; v < n; v++) {
+			if (degree[v] <= MAX_DEGREE_CONTRACTED_FIRST) {
+				stack[size++] = v;
+			}
+		}
+		while (size > 0) {
+			int v = stack[--size];
+			if (contracted[v]) {
+				continue;
+			}
+			removeContracted(v, adjacency, degree, contracted);
+			if (degree[v] > MAX_DEGREE_CONTRACTED_FIRST) {
+				continue;
+			}
+			for (int k = 0; k < degree[v]; k++) {
+				stack[size++] = adjacency[v][k];
+			}
+			shortcuts += contract(v, adjacency, degree, mark, upNeighbors, contracted);
+			rank[v] = nextRank++;
+		}
+
+		// contract the remaining nodes in nested dissection order
+		int[] core = new int[n - nextRank];
+		int coreSize = 0;
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int v = 0; v < n; v++) {
+			x[v] = nodes[v].getCoord().getX();
+			y[v] = nodes[v].getCoord().getY();
+			if (!contracted[v]) {
+				removeContracted(v, adjacency, degree, contracted);
+				core[coreSize++] = v;
+			}
+		}
+		for (int v : NestedDissectionOrder.computeOrder(x, y, adjacency, degree, core)) {
+			removeContracted(v, adjacency, degree, contracted);
+			shortcuts += contract(v, adjacency, degree, mark, upNeighbors, contracted);
+			rank[v] = nextRank++;
+		}
+		log.info("contracted " + n + " nodes, " + shortcuts + " shortcuts added, took " + (System.currentTimeMillis() - start) + " ms.");
+		return new ContractionHierarchy(nodes, links, nodeIndexById, rank, upNeighbors);
+	}
+
+	/**
+	 * Connects all remaining neighbors of <code>v</code> with each other.
+	 *
+	 * @return the number of shortcuts added
+	 */
+	private static int contract(int v, int[][] adjacency, int[] degree, int[] mark, int[][] upNeighbors, boolean[] contracted) {
+		int shortcuts = 0;
+		int[] neighbors = Arrays.copyOf(adjacency[v], degree[v]);
+		for (int i = 0; i < neighbors.length; i++) {
+			int a = neighbors[i];
+			// the neighbors of a node are only ever removed once contracted, so older marks by a are still valid
+			for (int k = 0; k < degree[a]; k++) {
+				mark[adjacency[a][k]] = a;
+			}
+			for (int j = i + 1; j < neighbors.length; j++) {
+				int b = neighbors[j];
+				if (mark[b] != a) {
+					append(a, b, adjacency, degree);
+					append(b, a, adjacency, degree);
+					shortcuts++;
+				}
+			}
+		}
+		upNeighbors[v] = neighbors;
+		contracted[v] = true;
+		adjacency[v] = null;
+		return shortcuts;
+	}
+
+	private static void addNeighbor(int v, int w, int[][] adjacency, int[] degree, int[] mark) {
+		if (w < 0 || w == v) {
+			return;
+		}
+		for (int k = 0; k < degree[v]; k++) {
+			if (adjacency[v][k] == w) {
+				return;
+			}
+		}
+		append(v, w, adjacency, degree);
+	}
+
+	private static void append(int v, int w, int[][] adjacency, int[] degree) {
+		if (degree[v] == adjacency[v].length) {
+			adjacency[v] = Arrays.copyOf(adjacency[v], Math.max(4, 2 * degree[v]));
+		}
+		adjacency[v][degree[v]++] = w;
+	}
+
+	private static void removeContracted(int v, int[][] adjacency, int[] degree, boolean[] contracted) {
+		int[] neighbors = adjacency[v];
+		int count = 0;
+		for (int k = 0; k < degree[v]; k++) {
+			if (!contracted[neighbors[k]]) {
+				neighbors[count++] = neighbors[k];
+			}
+		}
+		degree[v] = count;
+	}
+
+	int getIndex(final Node node) {
+		int idIndex = node.getId().index();
+		if (idIndex >= this.nodeIndexById.length || this.nodeIndexById[idIndex] < 0 || this.nodes[this.nodeIndexById[idIndex]] != node) {
+			throw new IllegalArgumentException("node " + node.getId() + " is not part of the network of this contraction hierarchy.");
+		}
+		return this.nodeIndexById[idIndex];
+	}
+
+	/**
+	 * @return the edge between <code>low</code> and <code>high</code>, or <code>-1</code> if there is none.
+	 */
+	int findEdge(final int low, final int high) {
+		int index = Arrays.binarySearch(this.upHead, this.upFirst[low], this.upFirst[low + 1], high);
+		return index < 0 ? -1 : index;
+	}
+
+	int getNumberOfEdges() {
+		return this.upHead.length;
+	}
+
+	/**
+	 * Computes the costs of all edges, from the costs of the links.
+	 */
+	Customisation customise(final double[] linkCosts) {
+		int edges = getNumberOfEdges();
+		double[] up = new double[edges];
+		double[] down = new double[edges];
+		Arrays.fill(up, Double.POSITIVE_INFINITY);
+		Arrays.fill(down, Double.POSITIVE_INFINITY);
+		for (int e = 0; e < edges; e++) {
+			for (int i = this.upLinksFirst[e]; i < this.upLinksFirst[e + 1]; i++) {
+				up[e] = Math.min(up[e], linkCosts[this.upLinks[i]]);
+			}
+			for (int i = this.downLinksFirst[e]; i < this.downLinksFirst[e + 1]; i++) {
+				down[e] = Math.min(down[e], linkCosts[this.downLinks[i]]);
+			}
+		}
+		// lower triangles: when v is processed, the costs of all its edges to higher neighbors are final
+		for (int v : this.nodesByRank) {
+			for (int i = this.upFirst[v]; i < this.upFirst[v + 1]; i++) {
+				int a = this.upHead[i];
+				for (int j = i + 1; j < this.upFirst[v + 1]; j++) {
+					int b = this.upHead[j];
+					int ei = i;
+					int ej = j;
+					if (this.rank[a] > this.rank[b]) {
+						ei = j;
+						ej = i;
+					}
+					int e = findEdge(this.upHead[ei], this.upHead[ej]);
+					// low -> v -> high, and high -> v -> low
+					up[e] = Math.min(up[e], down[ei] + up[ej]);
+					down[e] = Math.min(down[e], down[ej] + up[ei]);
+				}
+			}
+		}
+		return new Customisation(linkCosts, up, down);
+	}
+
+	/**
+	 * Appends the links along the edge to the path, replacing shortcuts by the two edges they consist of.
+	 */
+	void unpack(final int edge, final boolean upwards, final Customisation customisation, final IntStack stack, final java.util.List<Link> path) {
+		stack.clear();
+		stack.push(upwards ? edge : -edge - 1);
+		while (!stack.isEmpty()) {
+			int entry = stack.pop();
+			boolean up = entry >= 0;
+			int e = up ? entry : -entry - 1;
+			double cost = up ? customisation.up[e] : customisation.down[e];
+
+			int bestLink = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			int first = up ? this.upLinksFirst[e] : this.downLinksFirst[e];
+			int last = up ? this.upLinksFirst[e + 1] : this.downLinksFirst[e + 1];
+			for (int i = first; i < last; i++) {
+				int l = up ? this.upLinks[i] : this.downLinks[i];
+				if (customisation.linkCosts[l] < bestCost) {
+					bestCost = customisation.linkCosts[l];
+					bestLink = l;
+				}
+			}
+			if (bestCost <= cost) {
+				path.add(this.links[bestLink]);
+				continue;
+			}
+
+			int low = this.upTail[e];
+			int high = this.upHead[e];
+			int bestLower = -1;
+			int bestHigher = -1;
+			for (int i = this.downFirst[low]; i < this.downFirst[low + 1]; i++) {
+				int lower = this.downEdge[i];
+				int higher = findEdge(this.downTail[i], high);
+				if (higher < 0) {
+					continue;
+				}
+				double via = up ? customisation.down[lower] + customisation.up[higher] : customisation.down[higher] + customisation.up[lower];
+				if (via < bestCost) {
+					bestCost = via;
+					bestLower = lower;
+					bestHigher = higher;
+				}
+			}
+			if (bestLower < 0) {
+				throw new IllegalStateException("cannot unpack edge " + e + " of the contraction hierarchy.");
+			}
+			// pushed in reverse order
+			if (up) {
+				// low -> m -> high
+				stack.push(bestHigher);
+				stack.push(-bestLower - 1);
+			} else {
+				// high -> m -> low
+				stack.push(bestLower);
+				stack.push(-bestHigher - 1);
+			}
+		}
+	}
+
+	/**
+	 * The costs of the links and edges of a hierarchy for one metric.
+	 */
+	static final class Customisation {
+		final double[] linkCosts;
+		final double[] up;
+		final double[] down;
+
+		Customisation(double[] linkCosts, double[] up, double[] down) {
+			this.linkCosts = linkCosts;
+			this.up = up;
+			this.down = down;
+		}
+	}
+
+	static final class IntStack {
+		private int[] values = new int[64];
+		private int size = 0;
+
+		void push(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, 2 * this.size);
+			}
+			this.values[this.size++] = value;
+		}
+
+		int pop() {
+			return this.values[--this.size];
+		}
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		void clear() {
+			this.size = 0;
+		}
+	}
+}
@@ -65,6 +65,20 @@ public final class DefaultRoutingModules {
 				routeAlgo);
 	}
 	
+	/**
+	 * Creates network router without access/egress, which routes trips with the same origin together with
+	 * <tt>oneToManyAlgo</tt> if asked to do so, see {@link OneToManyRoutingModule}.
+	 */
+	public static RoutingModule createPureNetworkRouter( String mode, PopulationFactory popFact, Network net, final LeastCostPathCalculator routeAlgo,
+			final MultiNodePathCalculator oneToManyAlgo ) {
+		return new NetworkRoutingModule(
+				mode,
+				popFact,
+				net,
+				routeAlgo,
+				oneToManyAlgo);
+	}
+	
 	public static RoutingModule createAccessEgressNetworkRouter( String mode, PopulationFactory popFact, Network net, 
 			final LeastCostPathCalculator routeAlgo, PlansCalcRouteConfigGroup calcRouteConfig ) {
 		return new NetworkRoutingInclAccessEgressModule(
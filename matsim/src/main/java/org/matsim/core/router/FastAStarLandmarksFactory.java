@@ -40,6 +40,10 @@ import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 /**
+ * Creates {@link FastAStarLandmarks} routers.  For every network, an array-based {@link RoutingNetwork} is built once,
+ * with the landmark data of {@link PreProcessLandmarks} attached to its nodes, and is shared by the routers of all
+ * threads.
+ *
  * @author cdobler
  */
 @Singleton
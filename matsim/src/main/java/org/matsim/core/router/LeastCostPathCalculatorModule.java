@@ -44,6 +44,10 @@ public class LeastCostPathCalculatorModule extends AbstractModule {
             bind(LeastCostPathCalculatorFactory.class).to(FastDijkstraFactory.class);
         } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarLandmarks)) {
             bind(LeastCostPathCalculatorFactory.class).to(FastAStarLandmarksFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.ContractionHierarchies)) {
+            bind(LeastCostPathCalculatorFactory.class).to(ContractionHierarchiesFactory.class);
+            // the edge costs have to be re-computed from the new travel times every iteration
+            addControlerListenerBinding().to(ContractionHierarchiesFactory.class);
         }
     }
 
@@ -0,0 +1,406 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NestedDissectionOrder.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Computes a nested dissection order for a {@link ContractionHierarchy}, with separators found by inertial flow
+ * (Schild and Sommer, 2015), as used for customizable contraction hierarchies (Dibbelt, Strasser and Wagner, 2016).
+ * <p></p>
+ * A part of the network is split by a small set of nodes (the separator) into two parts that are not connected
+ * otherwise.  The separator nodes get the highest ranks of the part, and both remaining parts are split again in the
+ * same way.  Contracting the nodes in this order only adds shortcuts within the parts and to their separators, so the
+ * number of shortcuts stays close to linear in the number of nodes on road networks, which is not the case for a
+ * minimum-degree order.
+ * <p></p>
+ * To find a separator, the nodes are projected onto a line (four directions are tried), the first and the last quarter
+ * of the nodes along the line are taken as sources and sinks, and a minimum vertex cut between them is computed as a
+ * maximum flow with unit node capacities.  The smallest cut over the four directions is used.
+ */
+final class NestedDissectionOrder {
+
+	private static final int MAX_LEAF_SIZE = 16;
+	private static final double TERMINAL_FRACTION = 0.25;
+	private static final double[][] DIRECTIONS = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+
+	private static final byte NONE = 0;
+	private static final byte SOURCE = 1;
+	private static final byte SINK = 2;
+
+	private final double[] x;
+	private final double[] y;
+	private final int[][] adjacency;
+	private final int[] degree;
+	/** the index of a node within the part that is currently split, or -1 */
+	private final int[] localIndex;
+
+	private NestedDissectionOrder(double[] x, double[] y, int[][] adjacency, int[] degree) {
+		this.x = x;
+		this.y = y;
+		this.adjacency = adjacency;
+		this.degree = degree;
+		this.localIndex = new int[x.length];
+		Arrays.fill(this.localIndex, -1);
+	}
+
+	/**
+	 * @param x the x coordinates of the nodes
+	 * @param y the y coordinates of the nodes
+	 * @param adjacency the undirected neighbors of each node, <code>adjacency[v][0..degree[v]-1]</code>, without
+	 * duplicates
+	 * @param nodes the nodes to order; neighbors that are not part of it are ignored
+	 * @return the given nodes in the order they are to be contracted
+	 */
+	static int[] computeOrder(double[] x, double[] y, int[][] adjacency, int[] degree, int[] nodes) {
+		return new NestedDissectionOrder(x, y, adjacency, degree).computeOrder(nodes);
+	}
+
+	private int[] computeOrder(int[] nodes) {
+		int[] order = new int[nodes.length];
+		int position = nodes.length; // the separators are found first and are contracted last
+		Deque<int[]> parts = new ArrayDeque<>();
+		parts.push(nodes.clone());
+		while (!parts.isEmpty()) {
+			int[] part = parts.pop();
+			Graph graph = new Graph(part);
+			int[][] components = graph.components();
+			if (components.length > 1) {
+				graph.release();
+				for (int[] component : components) {
+					parts.push(component);
+				}
+				continue;
+			}
+			byte[] sides = part.length > MAX_LEAF_SIZE ? graph.findSeparator() : null;
+			graph.release();
+			if (sides == null) {
+				// contract the nodes with few neighbors first
+				for (int v : graph.sortByDegree()) {
+					order[--position] = v;
+				}
+				continue;
+			}
+			int[] counts = new int[3];
+			for (byte side : sides) {
+				counts[side]++;
+			}
+			int[][] split = { new int[counts[0]], new int[counts[1]], new int[counts[2]] };
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < part.length; i++) {
+				split[sides[i]][counts[sides[i]]++] = part[i];
+			}
+			for (int v : split[Graph.SEPARATOR]) {
+				order[--position] = v;
+			}
+			for (int side : new int[] { Graph.SIDE_A, Graph.SIDE_B }) {
+				if (split[side].length > 0) {
+					parts.push(split[side]);
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * The subgraph induced by a part, with local node indices and arcs in both directions.
+	 */
+	private final class Graph {
+		static final byte SIDE_A = 0;
+		static final byte SEPARATOR = 1;
+		static final byte SIDE_B = 2;
+
+		private final int[] nodes;
+		private final int[] first;
+		private final int[] head;
+		private final int[] reverse;
+
+		Graph(int[] nodes) {
+			this.nodes = nodes;
+			int k = nodes.length;
+			for (int i = 0; i < k; i++) {
+				NestedDissectionOrder.this.localIndex[nodes[i]] = i;
+			}
+			this.first = new int[k + 1];
+			for (int i = 0; i < k; i++) {
+				int v = nodes[i];
+				int count = 0;
+				for (int j = 0; j < NestedDissectionOrder.this.degree[v]; j++) {
+					if (NestedDissectionOrder.this.localIndex[NestedDissectionOrder.this.adjacency[v][j]] >= 0) {
+						count++;
+					}
+				}
+				this.first[i + 1] = this.first[i] + count;
+			}
+			this.head = new int[this.first[k]];
+			for (int i = 0; i < k; i++) {
+				int v = nodes[i];
+				int a = this.first[i];
+				for (int j = 0; j < NestedDissectionOrder.this.degree[v]; j++) {
+					int w = NestedDissectionOrder.this.localIndex[NestedDissectionOrder.this.adjacency[v][j]];
+					if (w >= 0) {
+						this.head[a++] = w;
+					}
+				}
+			}
+			this.reverse = new int[this.head.length];
+			for (int u = 0; u < k; u++) {
+				for (int a = this.first[u]; a < this.first[u + 1]; a++) {
+					int w = this.head[a];
+					for (int b = this.first[w]; b < this.first[w + 1]; b++) {
+						if (this.head[b] == u) {
+							this.reverse[a] = b;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		void release() {
+			for (int v : this.nodes) {
+				NestedDissectionOrder.this.localIndex[v] = -1;
+			}
+		}
+
+		int[][] components() {
+			int k = this.nodes.length;
+			int[] component = new int[k];
+			Arrays.fill(component, -1);
+			int[] queue = new int[k];
+			int count = 0;
+			int[] sizes = new int[k];
+			for (int s = 0; s < k; s++) {
+				if (component[s] >= 0) {
+					continue;
+				}
+				int size = 0;
+				queue[size++] = s;
+				component[s] = count;
+				for (int q = 0; q < size; q++) {
+					int u = queue[q];
+					for (int a = this.first[u]; a < this.first[u + 1]; a++) {
+						if (component[this.head[a]] < 0) {
+							component[this.head[a]] = count;
+							queue[size++] = this.head[a];
+						}
+					}
+				}
+				sizes[count++] = size;
+			}
+			int[][] components = new int[count][];
+			for (int c = 0; c < count; c++) {
+				components[c] = new int[sizes[c]];
+			}
+			Arrays.fill(sizes, 0);
+			for (int i = 0; i < k; i++) {
+				components[component[i]][sizes[component[i]]++] = this.nodes[i];
+			}
+			return components;
+		}
+
+		int[] sortByDegree() {
+			int k = this.nodes.length;
+			long[] keys = new long[k];
+			for (int i = 0; i < k; i++) {
+				// descending degree, as the order is filled from the end
+				keys[i] = ((long) (this.first[i] - this.first[i + 1]) << 32) | i;
+			}
+			Arrays.sort(keys);
+			int[] sorted = new int[k];
+			for (int i = 0; i < k; i++) {
+				sorted[i] = this.nodes[(int) keys[i]];
+			}
+			return sorted;
+		}
+
+		/**
+		 * @return the side of every node, or <code>null</code> if no separator was found
+		 */
+		byte[] findSeparator() {
+			byte[] best = null;
+			int bestCut = Integer.MAX_VALUE;
+			int bestImbalance = Integer.MAX_VALUE;
+			for (double[] direction : DIRECTIONS) {
+				byte[] terminals = selectTerminals(direction);
+				if (terminals == null) {
+					continue;
+				}
+				byte[] sides = minimumVertexCut(terminals, bestCut);
+				if (sides == null) {
+					continue;
+				}
+				int[] counts = new int[3];
+				for (byte side : sides) {
+					counts[side]++;
+				}
+				int imbalance = Math.abs(counts[SIDE_A] - counts[SIDE_B]);
+				if (counts[SEPARATOR] < bestCut || (counts[SEPARATOR] == bestCut && imbalance < bestImbalance)) {
+					best = sides;
+					bestCut = counts[SEPARATOR];
+					bestImbalance = imbalance;
+				}
+			}
+			return best;
+		}
+
+		private byte[] selectTerminals(double[] direction) {
+			int k = this.nodes.length;
+			double[] projection = new double[k];
+			for (int i = 0; i < k; i++) {
+				int v = this.nodes[i];
+				projection[i] = direction[0] * NestedDissectionOrder.this.x[v] + direction[1] * NestedDissectionOrder.this.y[v];
+			}
+			double[] sorted = projection.clone();
+			Arrays.sort(sorted);
+			int count = Math.max(1, (int) (k * TERMINAL_FRACTION));
+			double low = sorted[count - 1];
+			double high = sorted[k - count];
+			if (!(low < high)) {
+				return null;
+			}
+			byte[] terminals = new byte[k];
+			for (int i = 0; i < k; i++) {
+				terminals[i] = projection[i] <= low ? SOURCE : projection[i] >= high ? SINK : NONE;
+			}
+			// a source next to a sink would make every cut infinite, so it becomes an ordinary node
+			boolean hasSource = false;
+			boolean hasSink = false;
+			for (int i = 0; i < k; i++) {
+				if (terminals[i] == SOURCE) {
+					for (int a = this.first[i]; a < this.first[i + 1]; a++) {
+						if (terminals[this.head[a]] == SINK) {
+							terminals[i] = NONE;
+							break;
+						}
+					}
+				}
+				hasSource |= terminals[i] == SOURCE;
+				hasSink |= terminals[i] == SINK;
+			}
+			return hasSource && hasSink ? terminals : null;
+		}
+
+		/**
+		 * Computes a maximum flow from the sources to the sinks, where every non-terminal node has capacity 1, with
+		 * augmenting paths.  Every node <code>v</code> is split into an entry state <code>2v</code> and an exit state
+		 * <code>2v+1</code>.
+		 *
+		 * @return the sides of the nodes, or <code>null</code> if the cut is not smaller than <code>maxCut</code>
+		 */
+		private byte[] minimumVertexCut(byte[] terminals, int maxCut) {
+			int k = this.nodes.length;
+			boolean[] through = new boolean[k];
+			int[] arcFlow = new int[this.head.length];
+			int[] parent = new int[2 * k];
+			int[] parentArc = new int[2 * k];
+			int[] queue = new int[2 * k];
+			int flow = 0;
+			while (true) {
+				int sinkState = search(terminals, through, arcFlow, parent, parentArc, queue);
+				if (sinkState < 0) {
+					break;
+				}
+				if (++flow >= maxCut) {
+					return null;
+				}
+				for (int s = sinkState; parent[s] >= 0; s = parent[s]) {
+					int a = parentArc[s];
+					if (a >= 0) {
+						arcFlow[a]++;
+						arcFlow[this.reverse[a]]--;
+					} else {
+						// the node itself: entry to exit uses its capacity, exit to entry frees it again
+						through[s >> 1] = (s & 1) == 1;
+					}
+				}
+			}
+			// the states reachable from the sources are marked in parent (-2 means not reached)
+			byte[] sides = new byte[k];
+			for (int v = 0; v < k; v++) {
+				boolean entryReached = terminals[v] == SOURCE || parent[2 * v] != -2;
+				boolean exitReached = terminals[v] == SOURCE || parent[2 * v + 1] != -2;
+				sides[v] = exitReached ? SIDE_A : entryReached ? SEPARATOR : SIDE_B;
+			}
+			return sides;
+		}
+
+		/**
+		 * Breadth-first search for an augmenting path in the residual graph.
+		 *
+		 * @return the entry state of the sink reached, or -1 if there is no augmenting path
+		 */
+		private int search(byte[] terminals, boolean[] through, int[] arcFlow, int[] parent, int[] parentArc, int[] queue) {
+			Arrays.fill(parent, -2);
+			int size = 0;
+			for (int v = 0; v < terminals.length; v++) {
+				if (terminals[v] == SOURCE) {
+					parent[2 * v + 1] = -1;
+					queue[size++] = 2 * v + 1;
+				}
+			}
+			for (int q = 0; q < size; q++) {
+				int s = queue[q];
+				int v = s >> 1;
+				if ((s & 1) == 0) {
+					// entry state: to the own exit if the node is unused, or back along the arc the flow came in
+					if (!through[v] && parent[s + 1] == -2) {
+						parent[s + 1] = s;
+						parentArc[s + 1] = -1;
+						queue[size++] = s + 1;
+					}
+					for (int a = this.first[v]; a < this.first[v + 1]; a++) {
+						int u = this.head[a];
+						int target = 2 * u + 1;
+						if (arcFlow[this.reverse[a]] > 0 && terminals[u] != SOURCE && parent[target] == -2) {
+							parent[target] = s;
+							parentArc[target] = a;
+							queue[size++] = target;
+						}
+					}
+				} else {
+					// exit state: back to the own entry if the node is used, and to the entries of all neighbors
+					if (through[v] && terminals[v] == NONE && parent[s - 1] == -2) {
+						parent[s - 1] = s;
+						parentArc[s - 1] = -1;
+						queue[size++] = s - 1;
+					}
+					for (int a = this.first[v]; a < this.first[v + 1]; a++) {
+						int w = this.head[a];
+						int target = 2 * w;
+						if (terminals[w] == SOURCE || parent[target] != -2) {
+							continue;
+						}
+						parent[target] = s;
+						parentArc[target] = a;
+						if (terminals[w] == SINK) {
+							return target;
+						}
+						queue[size++] = target;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+}
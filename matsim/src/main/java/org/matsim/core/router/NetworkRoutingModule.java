@@ -18,8 +18,11 @@
  * *********************************************************************** */
 package org.matsim.core.router;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
@@ -42,7 +45,7 @@ import org.matsim.facilities.Facility;
  * 
  * @author thibautd
  */
-public final class NetworkRoutingModule implements RoutingModule {
+public final class NetworkRoutingModule implements OneToManyRoutingModule {
 	// I think it makes sense to NOT add the bushwhacking mode directly into here ...
 	// ... since it makes sense be able to to route from facility.getLinkId() to facility.getLinkId(). kai, dec'15
 
@@ -51,6 +54,7 @@ public final class NetworkRoutingModule implements RoutingModule {
 
 	private final Network network;
 	private final LeastCostPathCalculator routeAlgo;
+	private final MultiNodePathCalculator oneToManyAlgo;
 
 
 	 public NetworkRoutingModule(
@@ -58,11 +62,26 @@ public final class NetworkRoutingModule implements RoutingModule {
 			final PopulationFactory populationFactory,
 			final Network network,
 			final LeastCostPathCalculator routeAlgo) {
+		 this(mode, populationFactory, network, routeAlgo, null);
+	 }
+
+	/**
+	 * @param oneToManyAlgo a path calculator that searches all end nodes, used to route trips with the same origin
+	 * together in {@link #calcRoutes(Facility, List, double[], List)}.  May be <tt>null</tt>, in which case the
+	 * trips are routed one by one with <tt>routeAlgo</tt>.
+	 */
+	 public NetworkRoutingModule(
+			final String mode,
+			final PopulationFactory populationFactory,
+			final Network network,
+			final LeastCostPathCalculator routeAlgo,
+			final MultiNodePathCalculator oneToManyAlgo) {
 		 Gbl.assertNotNull(network);
 //		 Gbl.assertIf( network.getLinks().size()>0 ) ; // otherwise network for mode probably not defined
 		 // makes many tests fail.  
 		 this.network = network;
 		 this.routeAlgo = routeAlgo;
+		 this.oneToManyAlgo = oneToManyAlgo;
 		 this.mode = mode;
 		 this.populationFactory = populationFactory;
 	}
@@ -70,50 +89,98 @@ public final class NetworkRoutingModule implements RoutingModule {
 	@Override
 	public List<? extends PlanElement> calcRoute(final Facility fromFacility, final Facility toFacility, final double departureTime,
 			final Person person) {		
-		Leg newLeg = this.populationFactory.createLeg( this.mode );
-
 		Gbl.assertNotNull(fromFacility);
 		Gbl.assertNotNull(toFacility);
 
-		Link fromLink = this.network.getLinks().get(fromFacility.getLinkId());
-		if ( fromLink==null ) {
-			Gbl.assertNotNull( fromFacility.getCoord() ) ;
-			fromLink = NetworkUtils.getNearestLink( network, fromFacility.getCoord()) ;
-		}
-		Link toLink = this.network.getLinks().get(toFacility.getLinkId());
-		if ( toLink==null ) {
-			Gbl.assertNotNull( toFacility.getCoord() ) ;
-			toLink = NetworkUtils.getNearestLink(network, toFacility.getCoord());
-		}
-		Gbl.assertNotNull(fromLink);
-		Gbl.assertNotNull(toLink);
+		Link fromLink = getLink(fromFacility);
+		Link toLink = getLink(toFacility);
 		
+		Path path = null;
 		if (toLink != fromLink) {
 			// (a "true" route)
 			Node startNode = fromLink.getToNode(); // start at the end of the "current" link
 			Node endNode = toLink.getFromNode(); // the target is the start of the link
-			Path path = this.routeAlgo.calcLeastCostPath(startNode, endNode, departureTime, person, null);
+			path = this.routeAlgo.calcLeastCostPath(startNode, endNode, departureTime, person, null);
 			if (path == null)
 				throw new RuntimeException("No route found from node " + startNode.getId() + " to node " + endNode.getId() + " by mode " + this.mode + ".");
-			NetworkRoute route = this.populationFactory.getRouteFactories().createRoute(NetworkRoute.class, fromLink.getId(), toLink.getId());
+		}
+		return Arrays.asList( createLeg(fromLink, toLink, path, departureTime) );
+	}
+
+	@Override
+	public List<List<? extends PlanElement>> calcRoutes(final Facility fromFacility, final List<? extends Facility> toFacilities,
+			final double[] departureTimes, final List<Person> persons) {
+		List<List<? extends PlanElement>> trips = new ArrayList<>(toFacilities.size());
+		if (this.oneToManyAlgo == null || toFacilities.size() < 2) {
+			for (int i = 0; i < toFacilities.size(); i++) {
+				trips.add(calcRoute(fromFacility, toFacilities.get(i), departureTimes[i], persons.get(i)));
+			}
+			return trips;
+		}
+		Gbl.assertNotNull(fromFacility);
+
+		Link fromLink = getLink(fromFacility);
+		Node startNode = fromLink.getToNode();
+		Link[] toLinks = new Link[toFacilities.size()];
+		Map<Node, InitialNode> endNodes = new LinkedHashMap<>();
+		double startTime = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < toLinks.length; i++) {
+			Gbl.assertNotNull(toFacilities.get(i));
+			toLinks[i] = getLink(toFacilities.get(i));
+			if (toLinks[i] != fromLink) {
+				Node endNode = toLinks[i].getFromNode();
+				endNodes.computeIfAbsent(endNode, node -> new InitialNode(node, 0., 0.));
+			}
+			startTime = Math.min(startTime, departureTimes[i]);
+		}
+
+		// one tree for all trips, computed for the earliest departure and the first person.
+		Map<Node, Path> paths = new LinkedHashMap<>();
+		if (!endNodes.isEmpty()) {
+			this.oneToManyAlgo.calcLeastCostPath(startNode, new RoutingNetworkImaginaryNode(new ArrayList<>(endNodes.values())), startTime, persons.get(0), null);
+			for (Node endNode : endNodes.keySet()) {
+				Path path = this.oneToManyAlgo.constructPath(startNode, endNode, startTime);
+				if (path == null)
+					throw new RuntimeException("No route found from node " + startNode.getId() + " to node " + endNode.getId() + " by mode " + this.mode + ".");
+				paths.put(endNode, path);
+			}
+		}
+		for (int i = 0; i < toLinks.length; i++) {
+			Path path = toLinks[i] == fromLink ? null : paths.get(toLinks[i].getFromNode());
+			trips.add(Arrays.asList( createLeg(fromLink, toLinks[i], path, departureTimes[i]) ));
+		}
+		return trips;
+	}
+
+	private Link getLink(final Facility facility) {
+		Link link = this.network.getLinks().get(facility.getLinkId());
+		if ( link==null ) {
+			Gbl.assertNotNull( facility.getCoord() ) ;
+			link = NetworkUtils.getNearestLink( network, facility.getCoord()) ;
+		}
+		Gbl.assertNotNull(link);
+		return link;
+	}
+
+	private Leg createLeg(final Link fromLink, final Link toLink, final Path path, final double departureTime) {
+		Leg newLeg = this.populationFactory.createLeg( this.mode );
+		NetworkRoute route = this.populationFactory.getRouteFactories().createRoute(NetworkRoute.class, fromLink.getId(), toLink.getId());
+		if (path != null) {
 			route.setLinkIds(fromLink.getId(), NetworkUtils.getLinkIds(path.links), toLink.getId());
 			route.setTravelTime(path.travelTime);
 			route.setTravelCost(path.travelCost);
 			route.setDistance(RouteUtils.calcDistance(route, 1.0, 1.0, this.network));
-			newLeg.setRoute(route);
 			newLeg.setTravelTime(path.travelTime);
 		} else {
 			// create an empty route == staying on place if toLink == endLink
 			// note that we still do a route: someone may drive from one location to another on the link. kai, dec'15
-			NetworkRoute route = this.populationFactory.getRouteFactories().createRoute(NetworkRoute.class, fromLink.getId(), toLink.getId());
 			route.setTravelTime(0);
 			route.setDistance(0.0);
-			newLeg.setRoute(route);
 			newLeg.setTravelTime(0);
 		}
+		newLeg.setRoute(route);
 		newLeg.setDepartureTime(departureTime);
-
-		return Arrays.asList( newLeg );
+		return newLeg;
 	}
 
 	@Override
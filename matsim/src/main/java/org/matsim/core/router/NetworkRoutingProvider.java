@@ -10,6 +10,7 @@ import org.matsim.core.network.algorithms.TransportModeNetworkFilter;
 import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 import javax.inject.Inject;
@@ -42,6 +43,8 @@ public class NetworkRoutingProvider implements Provider<RoutingModule> {
 
 	@Inject
     LeastCostPathCalculatorFactory leastCostPathCalculatorFactory;
+
+	private final FastMultiNodeDijkstraFactory oneToManyFactory = new FastMultiNodeDijkstraFactory(true);
 	
 	/**
 	 * This is the older (and still more standard) constructor, where the routingMode and the resulting mode were the
@@ -110,6 +113,10 @@ public class NetworkRoutingProvider implements Provider<RoutingModule> {
 		if ( plansCalcRouteConfigGroup.isInsertingAccessEgressWalk() ) {
 			return DefaultRoutingModules.createAccessEgressNetworkRouter(mode, populationFactory, filteredNetwork, routeAlgo,
 					plansCalcRouteConfigGroup) ;
+		} else if ( plansCalcRouteConfigGroup.isBatchedRouting() ) {
+			TravelDisutility travelDisutility = travelDisutilityFactory.createTravelDisutility(travelTime);
+			MultiNodePathCalculator oneToManyAlgo = (MultiNodePathCalculator) oneToManyFactory.createPathCalculator(filteredNetwork, travelDisutility, travelTime);
+			return DefaultRoutingModules.createPureNetworkRouter(mode, populationFactory, filteredNetwork, routeAlgo, oneToManyAlgo);
 		} else {
 			return DefaultRoutingModules.createPureNetworkRouter(mode, populationFactory, filteredNetwork, routeAlgo);
 		}
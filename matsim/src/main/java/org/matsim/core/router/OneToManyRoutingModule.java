@@ -0,0 +1,50 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * OneToManyRoutingModule.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.facilities.Facility;
+
+/**
+ * A {@link RoutingModule} that can route several trips starting at the same origin at about the same time with one
+ * search, e.g. by computing one least cost path tree instead of one path per trip.
+ *
+ * @see TripRouter#calcRoutes(String, Facility, List, double[], List)
+ */
+public interface OneToManyRoutingModule extends RoutingModule {
+
+	/**
+	 * Computes the trips from one origin to several destinations.  Implementations may compute all trips for the
+	 * earliest departure time and the first person, the trips will however start at their own departure time.
+	 *
+	 * @param fromFacility the origin of all trips
+	 * @param toFacilities the destination of each trip
+	 * @param departureTimes the departure time of each trip
+	 * @param persons the person of each trip
+	 * @return the trips, in the order of the destinations
+	 */
+	List<List<? extends PlanElement>> calcRoutes(Facility fromFacility, List<? extends Facility> toFacilities,
+			double[] departureTimes, List<Person> persons);
+
+}
@@ -19,7 +19,10 @@
  * *********************************************************************** */
 package org.matsim.core.router;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Activity;
@@ -28,6 +31,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.core.config.Config;
+import org.matsim.core.population.algorithms.BatchPlanAlgorithm;
 import org.matsim.core.population.algorithms.PersonAlgorithm;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.population.routes.NetworkRoute;
@@ -35,18 +39,27 @@ import org.matsim.core.router.TripStructureUtils.Trip;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacilities;
 import org.matsim.facilities.FacilitiesUtils;
+import org.matsim.facilities.Facility;
 import org.matsim.vehicles.Vehicle;
 
 /**
  * {@link PlanAlgorithm} responsible for routing all trips of a plan.
  * Activity times are not updated, even if the previous trip arrival time
  * is after the activity end time.
+ * <p></p>
+ * If created with a batch time bin size, the plans are only routed in {@link #finishBatch()}: the trips of all plans
+ * that start at the same link within the same departure time bin are then routed together with
+ * {@link TripRouter#calcRoutes(String, Facility, List, double[], List)}, so that e.g. network modes need only one least
+ * cost path tree per group.  The n-th trips of all plans are routed before the (n+1)-th ones, so that departure times
+ * depend on the new routes just as when routing plan by plan.
  *
  * @author thibautd
  */
-public class PlanRouter implements PlanAlgorithm, PersonAlgorithm {
+public class PlanRouter implements BatchPlanAlgorithm, PersonAlgorithm {
 	private final TripRouter tripRouter;
 	private final ActivityFacilities facilities;
+	private final double batchTimeBinSize;
+	private final List<Plan> batch = new ArrayList<>();
 
 	/**
 	 * Initialises an instance.
@@ -58,8 +71,21 @@ public class PlanRouter implements PlanAlgorithm, PersonAlgorithm {
 	public PlanRouter(
 			final TripRouter tripRouter,
 			final ActivityFacilities facilities) {
+		this( tripRouter , facilities , 0. );
+	}
+
+	/**
+	 * Initialises an instance that routes trips with the same origin in batches.
+	 * @param batchTimeBinSize the size of the departure time bins of the batches.  If not positive,
+	 * every plan is routed immediately.
+	 */
+	public PlanRouter(
+			final TripRouter tripRouter,
+			final ActivityFacilities facilities,
+			final double batchTimeBinSize) {
 		this.tripRouter = tripRouter;
 		this.facilities = facilities;
+		this.batchTimeBinSize = batchTimeBinSize;
 	}
 
 	/**
@@ -83,6 +109,10 @@ public class PlanRouter implements PlanAlgorithm, PersonAlgorithm {
 
 	@Override
 	public void run(final Plan plan) {
+		if ( batchTimeBinSize > 0 ) {
+			batch.add( plan );
+			return;
+		}
 		final List<Trip> trips = TripStructureUtils.getTrips( plan , tripRouter.getStageActivityTypes() );
 
 		for (Trip oldTrip : trips) {
@@ -102,6 +132,92 @@ public class PlanRouter implements PlanAlgorithm, PersonAlgorithm {
 		}
 	}
 
+	@Override
+	public void finishBatch() {
+		final List<List<Trip>> tripsPerPlan = new ArrayList<>( batch.size() );
+		int maxTrips = 0;
+		for (Plan plan : batch) {
+			final List<Trip> trips = TripStructureUtils.getTrips( plan , tripRouter.getStageActivityTypes() );
+			tripsPerPlan.add( trips );
+			maxTrips = Math.max( maxTrips, trips.size() );
+		}
+
+		// the n-th trips of all plans are routed together, so that the departure times of later trips are computed
+		// from the new routes, as when routing plan by plan.
+		for (int n = 0; n < maxTrips; n++) {
+			final Map<String, TripBatch> batches = new LinkedHashMap<>();
+			for (int p = 0; p < batch.size(); p++) {
+				if ( tripsPerPlan.get( p ).size() <= n ) continue;
+				final Plan plan = batch.get( p );
+				final Trip oldTrip = tripsPerPlan.get( p ).get( n );
+				final String mainMode = tripRouter.getMainModeIdentifier().identifyMainMode( oldTrip.getTripElements() );
+				final Facility fromFacility = FacilitiesUtils.toFacility( oldTrip.getOriginActivity(), facilities );
+				final Facility toFacility = FacilitiesUtils.toFacility( oldTrip.getDestinationActivity(), facilities );
+				final double departureTime = calcEndOfActivity( oldTrip.getOriginActivity() , plan, tripRouter.getConfig() );
+
+				if ( fromFacility.getLinkId() == null || !(tripRouter.getRoutingModule( mainMode ) instanceof OneToManyRoutingModule) ) {
+					final List<? extends PlanElement> newTrip =
+							tripRouter.calcRoute( mainMode, fromFacility, toFacility, departureTime, plan.getPerson() );
+					putVehicleFromOldTripIntoNewTripIfMeaningful(oldTrip, newTrip);
+					TripRouter.insertTrip( plan, oldTrip.getOriginActivity(), newTrip, oldTrip.getDestinationActivity() );
+					continue;
+				}
+				final String key = mainMode + "|" + fromFacility.getLinkId() + "|" + (long) Math.floor( departureTime / batchTimeBinSize );
+				TripBatch tripBatch = batches.get( key );
+				if ( tripBatch == null ) {
+					tripBatch = new TripBatch( mainMode, fromFacility );
+					batches.put( key, tripBatch );
+				}
+				tripBatch.add( plan, oldTrip, toFacility, departureTime );
+			}
+
+			for (TripBatch tripBatch : batches.values()) {
+				final double[] departureTimes = new double[ tripBatch.departureTimes.size() ];
+				for (int i = 0; i < departureTimes.length; i++) {
+					departureTimes[ i ] = tripBatch.departureTimes.get( i );
+				}
+				final List<List<? extends PlanElement>> newTrips =
+						tripRouter.calcRoutes( tripBatch.mainMode, tripBatch.fromFacility, tripBatch.toFacilities, departureTimes, tripBatch.persons );
+				for (int i = 0; i < newTrips.size(); i++) {
+					final Trip oldTrip = tripBatch.trips.get( i );
+					putVehicleFromOldTripIntoNewTripIfMeaningful(oldTrip, newTrips.get( i ));
+					TripRouter.insertTrip(
+							tripBatch.plans.get( i ),
+							oldTrip.getOriginActivity(),
+							newTrips.get( i ),
+							oldTrip.getDestinationActivity());
+				}
+			}
+		}
+		batch.clear();
+	}
+
+	/**
+	 * The trips with the same main mode, origin and departure time bin.
+	 */
+	private static final class TripBatch {
+		final String mainMode;
+		final Facility fromFacility;
+		final List<Plan> plans = new ArrayList<>();
+		final List<Trip> trips = new ArrayList<>();
+		final List<Facility> toFacilities = new ArrayList<>();
+		final List<Double> departureTimes = new ArrayList<>();
+		final List<Person> persons = new ArrayList<>();
+
+		TripBatch(final String mainMode, final Facility fromFacility) {
+			this.mainMode = mainMode;
+			this.fromFacility = fromFacility;
+		}
+
+		void add(final Plan plan, final Trip trip, final Facility toFacility, final double departureTime) {
+			plans.add( plan );
+			trips.add( trip );
+			toFacilities.add( toFacility );
+			departureTimes.add( departureTime );
+			persons.add( plan.getPerson() );
+		}
+	}
+
 	/**
 	 * If the old trip had vehicles set in its network routes, and it used a single vehicle,
 	 * and if the new trip does not come with vehicles set in its network routes,
@@ -235,6 +235,50 @@ public final class TripRouter implements MatsimExtensionPoint {
 		throw new UnknownModeException( "unregistered main mode |"+mainMode+"|: does not pertain to "+routingModules.keySet() );
 	}
 
+	/**
+	 * Routes several trips with the same origin and the same main mode.  If the routing module of the mode is a
+	 * {@link OneToManyRoutingModule}, it can route them all in one search, otherwise they are routed one by one.
+	 *
+	 * @param mainMode the main mode for all trips
+	 * @param fromFacility a {@link Facility} representing the departure location of all trips
+	 * @param toFacilities the arrival location of each trip
+	 * @param departureTimes the departure time of each trip
+	 * @param persons the {@link Person} of each trip
+	 * @return one list of {@link PlanElement} per trip, in the order of the destinations.
+	 *
+	 * @throws UnknownModeException if no RoutingModule is registered for the
+	 * given mode.
+	 */
+	public synchronized List<List<? extends PlanElement>> calcRoutes(
+			final String mainMode,
+			final Facility fromFacility,
+			final List<? extends Facility> toFacilities,
+			final double[] departureTimes,
+			final List<Person> persons) {
+		RoutingModule module = routingModules.get( mainMode );
+		if ( !(module instanceof OneToManyRoutingModule) ) {
+			List<List<? extends PlanElement>> trips = new ArrayList<>( toFacilities.size() );
+			for ( int i = 0; i < toFacilities.size(); i++ ) {
+				trips.add( calcRoute( mainMode, fromFacility, toFacilities.get( i ), departureTimes[ i ], persons.get( i ) ) );
+			}
+			return trips;
+		}
+
+		Gbl.assertNotNull( fromFacility );
+		final List<List<? extends PlanElement>> trips =
+				((OneToManyRoutingModule) module).calcRoutes(
+						fromFacility,
+						toFacilities,
+						departureTimes,
+						persons);
+		for ( List<? extends PlanElement> trip : trips ) {
+			if ( trip == null ) {
+				throw new NullPointerException( "Routing module "+module+" returned a null Trip for main mode "+mainMode );
+			}
+		}
+		return trips;
+	}
+
 	public static class UnknownModeException extends RuntimeException {
 		private UnknownModeException(
 				final String msg) {
@@ -111,4 +111,30 @@ final class RandomizingTimeDistanceTravelDisutility implements TravelDisutility
 		return (link.getLength() / link.getFreespeed()) * this.marginalCostOfTime + this.marginalCostOfDistance * link.getLength();
 	}
 
+	/**
+	 * Instances without randomization are equal if they give the same costs, e.g. the ones created for different
+	 * threads, so that routers can share data derived from the costs.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof RandomizingTimeDistanceTravelDisutility)) {
+			return false;
+		}
+		RandomizingTimeDistanceTravelDisutility other = (RandomizingTimeDistanceTravelDisutility) obj;
+		return this.sigma == 0. && other.sigma == 0. && this.timeCalculator == other.timeCalculator
+				&& this.marginalCostOfTime == other.marginalCostOfTime && this.marginalCostOfDistance == other.marginalCostOfDistance;
+	}
+
+	@Override
+	public int hashCode() {
+		if (this.sigma != 0.) {
+			return System.identityHashCode(this);
+		}
+		return (System.identityHashCode(this.timeCalculator) * 31 + Double.hashCode(this.marginalCostOfTime)) * 31
+				+ Double.hashCode(this.marginalCostOfDistance);
+	}
+
 }
@@ -0,0 +1,50 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayIndex.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.priorityqueue;
+
+/**
+ * Makes plain array indices, e.g. of nodes that are only stored as ints, usable with a {@link BinaryMinHeap}.
+ */
+public final class ArrayIndex implements HasIndex {
+
+	private final int index;
+
+	private ArrayIndex(final int index) {
+		this.index = index;
+	}
+
+	@Override
+	public int getArrayIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the indices <code>0</code> to <code>n-1</code>, where the element at position <code>i</code> has the
+	 * index <code>i</code>
+	 */
+	public static ArrayIndex[] createIndices(final int n) {
+		ArrayIndex[] indices = new ArrayIndex[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = new ArrayIndex(i);
+		}
+		return indices;
+	}
+}
@@ -24,15 +24,20 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
-import org.matsim.core.api.internal.MatsimComparator;
+import org.matsim.core.router.priorityqueue.ArrayIndex;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
 
 import java.awt.geom.Rectangle2D;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 
 /**
  * Pre-processes a given network, gathering information which can be used by
@@ -40,6 +45,11 @@ import java.util.concurrent.TimeUnit;
  * between a start and an end node. Specifically, designates some
  * nodes in the network that act as landmarks and computes the last-cost-path
  * from and to each node in the network to each of the landmarks.
+ * <p></p>
+ * The least costs are computed from {@link TravelDisutility#getLinkMinimumTravelDisutility(Link)}, so they are lower
+ * bounds for the travel disutilities at any time of day, and remain valid when the travel times change from one
+ * iteration to the next. The preprocessing thus only has to be done once per network. The least-cost trees from and
+ * to the landmarks are computed in parallel.
  *
  * @author lnicolas
  */
@@ -120,8 +130,8 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		}
 		
 		int nOfThreads = this.numberOfThreads;
-		if (nOfThreads > this.landmarks.length) {
-			nOfThreads = this.landmarks.length;
+		if (nOfThreads > 2 * this.landmarks.length) {
+			nOfThreads = 2 * this.landmarks.length;
 		}
 		if (nOfThreads < 2) {
 			nOfThreads = 2; // always use at least two threads
@@ -129,19 +139,22 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
  		log.info("Calculating distance from each node to each of the " + this.landmarkCount + " landmarks using " + nOfThreads + " threads...");
 		now = System.currentTimeMillis();
 
-		
-		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
+		LandmarksGraph graph = new LandmarksGraph(network, this.costFunction, this.nodeData);
+		List<Calculator> calculators = new ArrayList<>();
 		for (int i = 0; i < this.landmarks.length; i++) {
-			executor.execute(new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction));
+			// the distances from and to a landmark are independent, so both directions are computed as separate tasks
+			calculators.add(new Calculator(i, this.landmarks[i], graph, true));
+			calculators.add(new Calculator(i, this.landmarks[i], graph, false));
 		}
-		executor.shutdown();
-		while (!executor.isTerminated()) {
-			log.info("wait for landmarks Calculator to finish...");
-			try {
-				executor.awaitTermination(10, TimeUnit.MINUTES);
-			} catch (InterruptedException e) {
-				throw new RuntimeException(e);
+		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
+		try {
+			for (Future<Void> future : executor.invokeAll(calculators)) {
+				future.get();
 			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
 		}
 
 		for (Node node : network.getNodes().values()) {
@@ -161,75 +174,109 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 	}
 
-	private static class Calculator implements Runnable {
-		
+	/**
+	 * The network in arrays, with the minimal travel disutility of every link, which is shared by the calculators.
+	 * The minimal travel disutility does not depend on the time of day or on the travel times, so the landmark
+	 * distances computed from it are lower bounds for any time-dependent travel disutility.
+	 */
+	private static final class LandmarksGraph {
+
+		private final Map<Node, Integer> nodeIndices;
+		private final LandmarksData[] data;
+		private final ArrayIndex[] indices;
+		private final int[] outStart;
+		private final int[] outNodes;
+		private final double[] outCosts;
+		private final int[] inStart;
+		private final int[] inNodes;
+		private final double[] inCosts;
+
+		LandmarksGraph(final Network network, final TravelDisutility costFunction, final Map<Node, DeadEndData> nodeData) {
+			int nodeCount = network.getNodes().size();
+			this.nodeIndices = new HashMap<>(2 * nodeCount);
+			this.data = new LandmarksData[nodeCount];
+			this.indices = ArrayIndex.createIndices(nodeCount);
+			this.outStart = new int[nodeCount + 1];
+			this.inStart = new int[nodeCount + 1];
+			for (Node node : network.getNodes().values()) {
+				int index = this.nodeIndices.size();
+				this.nodeIndices.put(node, index);
+				this.data[index] = (LandmarksData) nodeData.get(node);
+				this.outStart[index + 1] = this.outStart[index] + node.getOutLinks().size();
+				this.inStart[index + 1] = this.inStart[index] + node.getInLinks().size();
+			}
+			this.outNodes = new int[this.outStart[nodeCount]];
+			this.outCosts = new double[this.outStart[nodeCount]];
+			this.inNodes = new int[this.inStart[nodeCount]];
+			this.inCosts = new double[this.inStart[nodeCount]];
+			int[] outPosition = Arrays.copyOf(this.outStart, nodeCount);
+			int[] inPosition = Arrays.copyOf(this.inStart, nodeCount);
+			for (Node node : network.getNodes().values()) {
+				int index = this.nodeIndices.get(node);
+				for (Link l : node.getOutLinks().values()) {
+					int to = this.nodeIndices.get(l.getToNode());
+					double cost = costFunction.getLinkMinimumTravelDisutility(l);
+					this.outNodes[outPosition[index]] = to;
+					this.outCosts[outPosition[index]++] = cost;
+					this.inNodes[inPosition[to]] = index;
+					this.inCosts[inPosition[to]++] = cost;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the least costs from (or to) a landmark to (or from) all nodes with a Dijkstra.
+	 */
+	private static class Calculator implements Callable<Void> {
+
 		private final int landmarkIdx;
 		private final Node landmark;
-		private final Map<Node, DeadEndData> nodeData;
-		private final TravelDisutility costFunction;
-		
-		public Calculator(final int landmarkIdx, final Node landmark, final Map<Node, DeadEndData> nodeData, final TravelDisutility costFunction) {
+		private final LandmarksGraph graph;
+		private final boolean fromLandmark;
+
+		public Calculator(final int landmarkIdx, final Node landmark, final LandmarksGraph graph, final boolean fromLandmark) {
 			this.landmarkIdx = landmarkIdx;
 			this.landmark = landmark;
-			this.nodeData = nodeData;
-			this.costFunction = costFunction;
+			this.graph = graph;
+			this.fromLandmark = fromLandmark;
 		}
-		
+
 		@Override
-		public void run() {
-			expandLandmarkFrom();
-			expandLandmarkTo();
-		}
-	
-		private void expandLandmarkFrom() {
-			LandmarksFromTravelTimeComparator comparator = new LandmarksFromTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
+		public Void call() {
+			int[] start = this.fromLandmark ? this.graph.outStart : this.graph.inStart;
+			int[] nodes = this.fromLandmark ? this.graph.outNodes : this.graph.inNodes;
+			double[] costs = this.fromLandmark ? this.graph.outCosts : this.graph.inCosts;
+
+			double[] travelTimes = new double[this.graph.data.length];
+			Arrays.fill(travelTimes, Double.POSITIVE_INFINITY);
+			int landmarkIndex = this.graph.nodeIndices.get(this.landmark);
+			travelTimes[landmarkIndex] = 0.0;
+			BinaryMinHeap<ArrayIndex> pendingNodes = new BinaryMinHeap<>(this.graph.data.length);
+			pendingNodes.add(this.graph.indices[landmarkIndex], 0.0);
 			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double fromTravTime = ((LandmarksData) this.nodeData.get(node)).getFromLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getOutLinks().values()) {
-					Node n;
-					n = l.getToNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = fromTravTime + linkTravTime;
-					if (role2.getFromLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setFromLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
+				int node = pendingNodes.poll().getArrayIndex();
+				double travelTime = travelTimes[node];
+				for (int i = start[node]; i < start[node + 1]; i++) {
+					int n = nodes[i];
+					double totalTravelTime = travelTime + costs[i];
+					if (travelTimes[n] > totalTravelTime) {
+						travelTimes[n] = totalTravelTime;
+						pendingNodes.decreaseKey(this.graph.indices[n], totalTravelTime);
 					}
 				}
 			}
-		}
 
-		private void expandLandmarkTo() {
-			LandmarksToTravelTimeComparator comparator = new LandmarksToTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double toTravTime = ((LandmarksData) this.nodeData.get(node)).getToLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getInLinks().values()) {
-					Node n = l.getFromNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = toTravTime + linkTravTime;
-					if (role2.getToLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setToLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
-					}
+			// every calculator writes its own entry of the landmark arrays
+			for (int n = 0; n < travelTimes.length; n++) {
+				if (this.fromLandmark) {
+					this.graph.data[n].setFromLandmarkTravelTime(this.landmarkIdx, travelTimes[n]);
+				} else {
+					this.graph.data[n].setToLandmarkTravelTime(this.landmarkIdx, travelTimes[n]);
 				}
 			}
+			return null;
 		}
-	
 	}
 
 	public Node[] getLandmarks() {
@@ -307,66 +354,4 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		}
 	}
 
-    /**
-	 * Sorts the Nodes ascending according to their ToLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksToTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-
-		protected LandmarksToTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-
-		@Override
-		public int compare(final Node n1, final Node n2) {
-
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getToLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getToLandmarkTravelTime(this.landmarkIndex);
-
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
-		}
-	}
-
-	/**
-	 * Sorts the Nodes ascending according to their FromLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksFromTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-		
-		protected LandmarksFromTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-		
-		@Override
-		public int compare(final Node n1, final Node n2) {
-			
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getFromLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getFromLandmarkTravelTime(this.landmarkIndex);
-			
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
-		}
-	}
-	
 }
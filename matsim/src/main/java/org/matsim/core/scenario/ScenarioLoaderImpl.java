@@ -41,6 +41,8 @@ import org.matsim.utils.objectattributes.AttributeConverter;
 import org.matsim.utils.objectattributes.ObjectAttributesXmlReader;
 import org.matsim.vehicles.VehicleReaderV1;
 
+import java.io.File;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -75,6 +77,8 @@ class ScenarioLoaderImpl {
 
 	private Map<Class<?>, AttributeConverter<?>> attributeConverters = Collections.emptyMap();
 
+	private boolean loadedFromSnapshot = false;
+
 	@Inject
 	public void setAttributeConverters(Map<Class<?>, AttributeConverter<?>> attributeConverters) {
 		log.debug( "setting "+attributeConverters );
@@ -103,6 +107,7 @@ class ScenarioLoaderImpl {
 //		log.info("loading scenario from base directory: " + currentDir);
 		// the above is not used and thus only causing confusion in the log output.  kai, sep'18
 
+		this.loadSnapshot();
 		this.loadNetwork();
 		this.loadActivityFacilities();
 		this.loadPopulation();
@@ -118,22 +123,49 @@ class ScenarioLoaderImpl {
 		return this.scenario;
 	}
 
+	/**
+	 * Loads network and population from the scenario snapshot, if there is one and it is up to date.
+	 */
+	private void loadSnapshot() {
+		if (this.config.controler().getInputScenarioSnapshotFile() == null) {
+			return;
+		}
+		URL snapshotUrl = ConfigGroup.getInputFileURL(this.config.getContext(), this.config.controler().getInputScenarioSnapshotFile());
+		File snapshotFile;
+		try {
+			snapshotFile = new File(snapshotUrl.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			log.warn("scenario snapshot " + snapshotUrl + " is not a local file and cannot be memory-mapped, reading the xml files instead.");
+			return;
+		}
+		ScenarioSnapshotReader reader = new ScenarioSnapshotReader(this.scenario);
+		reader.putAttributeConverters(attributeConverters);
+		if (!snapshotFile.exists() || !reader.isUpToDate(snapshotFile.getPath())) {
+			log.warn("scenario snapshot " + snapshotFile + " does not exist or is out of date, reading the xml files instead.");
+			return;
+		}
+		reader.readFile(snapshotFile.getPath());
+		this.loadedFromSnapshot = true;
+	}
+
 	/**
 	 * Loads the network into the scenario of this class
 	 */
 	private void loadNetwork() {
 		if ((this.config.network() != null) && (this.config.network().getInputFile() != null)) {
-			URL networkUrl = this.config.network().getInputFileURL(this.config.getContext());
-			log.info("loading network from " + networkUrl);
-			String inputCRS = config.network().getInputCRS();
-
-			MatsimNetworkReader reader =
-					new MatsimNetworkReader(
-							inputCRS,
-							config.global().getCoordinateSystem(),
-							this.scenario.getNetwork());
-            reader.putAttributeConverters( attributeConverters );
-            reader.parse(networkUrl);
+			if (!this.loadedFromSnapshot) {
+				URL networkUrl = this.config.network().getInputFileURL(this.config.getContext());
+				log.info("loading network from " + networkUrl);
+				String inputCRS = config.network().getInputCRS();
+
+				MatsimNetworkReader reader =
+						new MatsimNetworkReader(
+								inputCRS,
+								config.global().getCoordinateSystem(),
+								this.scenario.getNetwork());
+				reader.putAttributeConverters( attributeConverters );
+				reader.parse(networkUrl);
+			}
 
 			if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
 				log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
@@ -176,7 +208,10 @@ class ScenarioLoaderImpl {
 	}
 
 	private void loadPopulation() {
-		if ((this.config.plans() != null) && (this.config.plans().getInputFile() != null)) {
+		if (this.loadedFromSnapshot) {
+			PopulationUtils.printPlansCount(this.scenario.getPopulation()) ;
+		}
+		else if ((this.config.plans() != null) && (this.config.plans().getInputFile() != null)) {
 			URL populationFileName = this.config.plans().getInputFileURL(this.config.getContext());
 			log.info("loading population from " + populationFileName);
 
@@ -0,0 +1,500 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Reads a snapshot written by {@link ScenarioSnapshotWriter} into the (empty) network and population of a scenario.
+ * <p></p>
+ * The file is memory-mapped and decoded directly from the mapped pages, without going through a stream or a parser.
+ * The strings are decoded once; each id is only created when it is first used.  The persons are decoded in parallel,
+ * with {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()} threads, each one reading its own
+ * range of the file found through the person index, and are then added to the population in the original order.
+ * <p></p>
+ * Use {@link #isUpToDate(String)} to check whether the snapshot was created from the input files the config
+ * currently points to.
+ */
+public final class ScenarioSnapshotReader implements MatsimReader {
+
+	private final static Logger log = Logger.getLogger(ScenarioSnapshotReader.class);
+
+	private final static int MIN_PERSONS_PER_BATCH = 1000;
+
+	private final Scenario scenario;
+	private final Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
+
+	private String[] strings;
+	private Id<Node>[] nodeIds;
+	private Id<Link>[] linkIds;
+	private Id<Person>[] personIds;
+	private Id<ActivityFacility>[] facilityIds;
+	private Id<Vehicle>[] vehicleIds;
+
+	public ScenarioSnapshotReader(final Scenario scenario) {
+		this.scenario = scenario;
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.attributeConverters.putAll(converters);
+	}
+
+	/**
+	 * @return <code>true</code> if the file is a snapshot created from the same input files (by name, size and
+	 * modification time) and the same coordinate system as those of the scenario's config.
+	 */
+	public boolean isUpToDate(final String filename) {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(ScenarioSnapshotWriter.HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// read the complete header
+			}
+			header.flip();
+			if (!hasValidHeader(header)) {
+				return false;
+			}
+			long networkPosition = header.getLong(ScenarioSnapshotWriter.HEADER_SIZE - 3 * Long.BYTES);
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, ScenarioSnapshotWriter.HEADER_SIZE, networkPosition - ScenarioSnapshotWriter.HEADER_SIZE);
+			String fingerprint = readText(buffer);
+			String expected = ScenarioSnapshotWriter.fingerprint(this.scenario.getConfig());
+			if (!expected.equals(fingerprint)) {
+				log.info("scenario snapshot " + filename + " was created from other input:" + System.lineSeparator() + fingerprint
+						+ "current input:" + System.lineSeparator() + expected);
+				return false;
+			}
+			return true;
+		} catch (IOException e) {
+			log.warn("cannot read scenario snapshot " + filename + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	private static boolean hasValidHeader(final ByteBuffer header) {
+		if (header.remaining() < ScenarioSnapshotWriter.HEADER_SIZE) {
+			return false;
+		}
+		byte[] magic = new byte[ScenarioSnapshotWriter.MAGIC.length];
+		header.get(magic);
+		return Arrays.equals(magic, ScenarioSnapshotWriter.MAGIC) && header.getInt() == ScenarioSnapshotWriter.VERSION;
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		log.info("reading scenario snapshot from " + filename);
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ScenarioSnapshotWriter.HEADER_SIZE);
+			if (!hasValidHeader(header)) {
+				throw new RuntimeException(filename + " is not a scenario snapshot of version " + ScenarioSnapshotWriter.VERSION);
+			}
+			long stringsPosition = header.getLong();
+			long networkPosition = header.getLong();
+			long populationPosition = header.getLong();
+			long personIndexPosition = header.getLong();
+
+			readStrings(channel.map(FileChannel.MapMode.READ_ONLY, stringsPosition, channel.size() - stringsPosition));
+
+			Decoder network = new Decoder(channel.map(FileChannel.MapMode.READ_ONLY, networkPosition, populationPosition - networkPosition));
+			network.readNetwork(this.scenario.getNetwork());
+			log.info("read " + this.scenario.getNetwork().getNodes().size() + " nodes and " + this.scenario.getNetwork().getLinks().size() + " links.");
+
+			ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, personIndexPosition, stringsPosition - personIndexPosition);
+			int numberOfPersons = index.getInt();
+			long[] personPositions = new long[numberOfPersons + 1];
+			for (int i = 0; i <= numberOfPersons; i++) {
+				personPositions[i] = index.getLong();
+			}
+			long firstPersonPosition = numberOfPersons > 0 ? personPositions[0] : personIndexPosition;
+			Decoder population = new Decoder(channel.map(FileChannel.MapMode.READ_ONLY, populationPosition, firstPersonPosition - populationPosition));
+			population.readPopulationHeader(this.scenario.getPopulation());
+
+			readPersons(channel, personPositions);
+			log.info("read " + this.scenario.getPopulation().getPersons().size() + " persons.");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.strings = null;
+			this.nodeIds = null;
+			this.linkIds = null;
+			this.personIds = null;
+			this.facilityIds = null;
+			this.vehicleIds = null;
+		}
+	}
+
+	/**
+	 * As the snapshot is memory-mapped, a URL which does not point to a local file is first copied to a temporary file.
+	 */
+	@Override
+	public void readURL(final URL url) {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				readFile(Paths.get(url.toURI()).toString());
+				return;
+			} catch (URISyntaxException e) {
+				throw new IllegalArgumentException("cannot convert " + url + " to a file name", e);
+			}
+		}
+		Path tmpFile;
+		try {
+			tmpFile = Files.createTempFile("scenario-snapshot", ".bin");
+			try (InputStream in = url.openStream()) {
+				Files.copy(in, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			readFile(tmpFile.toString());
+		} finally {
+			try {
+				Files.delete(tmpFile);
+			} catch (IOException e) {
+				// e.g. on Windows, where a file cannot be deleted while it is still mapped
+				tmpFile.toFile().deleteOnExit();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readStrings(final ByteBuffer buffer) {
+		int count = buffer.getInt();
+		this.strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			this.strings[i] = readText(buffer);
+		}
+		this.nodeIds = new Id[count];
+		this.linkIds = new Id[count];
+		this.personIds = new Id[count];
+		this.facilityIds = new Id[count];
+		this.vehicleIds = new Id[count];
+	}
+
+	private void readPersons(final FileChannel channel, final long[] positions) throws IOException {
+		int numberOfPersons = positions.length - 1;
+		Person[] persons = new Person[numberOfPersons];
+		int numberOfThreads = Math.max(1, this.scenario.getConfig().global().getNumberOfThreads());
+		int batchSize = Math.max(MIN_PERSONS_PER_BATCH, (numberOfPersons + 4 * numberOfThreads - 1) / (4 * numberOfThreads));
+
+		List<Future<?>> futures = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			for (int start = 0; start < numberOfPersons; start += batchSize) {
+				final int from = start;
+				final int to = Math.min(numberOfPersons, start + batchSize);
+				final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, positions[from], positions[to] - positions[from]);
+				futures.add(executor.submit(() -> {
+					Decoder decoder = new Decoder(buffer);
+					for (int i = from; i < to; i++) {
+						persons[i] = decoder.readPerson();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("problem reading persons from scenario snapshot", e);
+		} finally {
+			executor.shutdown();
+		}
+
+		Population population = this.scenario.getPopulation();
+		for (Person person : persons) {
+			population.addPerson(person);
+		}
+	}
+
+	private static String readText(final ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String text;
+		if (buffer.hasArray()) {
+			text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			text = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return text;
+	}
+
+	private static <T> Id<T> getId(final Id<T>[] ids, final String[] strings, final int index, final Class<T> type) {
+		if (index < 0) {
+			return null;
+		}
+		Id<T> id = ids[index];
+		if (id == null) {
+			// races are harmless, as Id.create() always returns the same instance
+			id = Id.create(strings[index], type);
+			ids[index] = id;
+		}
+		return id;
+	}
+
+	/**
+	 * Decodes one mapped range of the file; not thread-safe, so every thread has its own.
+	 */
+	private final class Decoder {
+		private final ByteBuffer buffer;
+		private final ObjectAttributesConverter converter = new ObjectAttributesConverter(ScenarioSnapshotReader.this.attributeConverters);
+		private final PopulationFactory factory = ScenarioSnapshotReader.this.scenario.getPopulation().getFactory();
+		private final RouteFactories routeFactories = this.factory.getRouteFactories();
+
+		Decoder(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		void readNetwork(final Network network) {
+			String name = readString();
+			if (name != null) {
+				network.setName(name);
+			}
+			network.setCapacityPeriod(this.buffer.getDouble());
+			network.setEffectiveLaneWidth(this.buffer.getDouble());
+			readAttributes(network.getAttributes());
+
+			NetworkFactory networkFactory = network.getFactory();
+			int numberOfNodes = this.buffer.getInt();
+			for (int i = 0; i < numberOfNodes; i++) {
+				Id<Node> id = readNodeId();
+				Node node = networkFactory.createNode(id, readCoord());
+				String type = readString();
+				if (type != null) {
+					NetworkUtils.setType(node, type);
+				}
+				String origId = readString();
+				if (origId != null) {
+					NetworkUtils.setOrigId(node, origId);
+				}
+				readAttributes(node.getAttributes());
+				network.addNode(node);
+			}
+
+			int numberOfLinks = this.buffer.getInt();
+			Set<String> modes = new HashSet<>();
+			for (int i = 0; i < numberOfLinks; i++) {
+				Id<Link> id = readLinkId();
+				Node fromNode = network.getNodes().get(readNodeId());
+				Node toNode = network.getNodes().get(readNodeId());
+				Link link = networkFactory.createLink(id, fromNode, toNode);
+				link.setLength(this.buffer.getDouble());
+				link.setFreespeed(this.buffer.getDouble());
+				link.setCapacity(this.buffer.getDouble());
+				link.setNumberOfLanes(this.buffer.getDouble());
+				int numberOfModes = this.buffer.getInt();
+				modes.clear();
+				for (int m = 0; m < numberOfModes; m++) {
+					modes.add(readString());
+				}
+				link.setAllowedModes(modes);
+				readAttributes(link.getAttributes());
+				network.addLink(link);
+			}
+		}
+
+		void readPopulationHeader(final Population population) {
+			String name = readString();
+			if (name != null) {
+				population.setName(name);
+			}
+			readAttributes(population.getAttributes());
+		}
+
+		Person readPerson() {
+			Person person = this.factory.createPerson(getId(personIds, strings, this.buffer.getInt(), Person.class));
+			readAttributes(person.getAttributes());
+			int numberOfPlans = this.buffer.getInt();
+			for (int p = 0; p < numberOfPlans; p++) {
+				boolean selected = this.buffer.get() != 0;
+				Plan plan = PersonUtils.createAndAddPlan(person, selected);
+				boolean hasScore = this.buffer.get() != 0;
+				double score = this.buffer.getDouble();
+				if (hasScore) {
+					plan.setScore(score);
+				}
+				String type = readString();
+				if (type != null) {
+					plan.setType(type);
+				}
+				readAttributes(plan.getAttributes());
+				int numberOfElements = this.buffer.getInt();
+				for (int e = 0; e < numberOfElements; e++) {
+					byte kind = this.buffer.get();
+					if (kind == ScenarioSnapshotWriter.ACTIVITY) {
+						plan.addActivity(readActivity());
+					} else if (kind == ScenarioSnapshotWriter.LEG) {
+						plan.addLeg(readLeg());
+					} else {
+						throw new RuntimeException("Broken scenario snapshot: unknown plan element " + kind);
+					}
+				}
+			}
+			return person;
+		}
+
+		private Activity readActivity() {
+			String type = readString();
+			Id<Link> linkId = readLinkId();
+			Id<ActivityFacility> facilityId = getId(facilityIds, strings, this.buffer.getInt(), ActivityFacility.class);
+			Coord coord = this.buffer.get() != 0 ? readCoord() : null;
+			Activity act;
+			if (linkId != null) {
+				act = this.factory.createActivityFromLinkId(type, linkId);
+				if (coord != null) {
+					act.setCoord(coord);
+				}
+			} else {
+				act = this.factory.createActivityFromCoord(type, coord);
+			}
+			if (facilityId != null) {
+				act.setFacilityId(facilityId);
+			}
+			act.setStartTime(this.buffer.getDouble());
+			act.setEndTime(this.buffer.getDouble());
+			act.setMaximumDuration(this.buffer.getDouble());
+			readAttributes(act.getAttributes());
+			return act;
+		}
+
+		private Leg readLeg() {
+			Leg leg = this.factory.createLeg(readString());
+			leg.setDepartureTime(this.buffer.getDouble());
+			leg.setTravelTime(this.buffer.getDouble());
+			readAttributes(leg.getAttributes());
+			byte routeKind = this.buffer.get();
+			if (routeKind == ScenarioSnapshotWriter.NO_ROUTE) {
+				return leg;
+			}
+			Id<Link> startLinkId = readLinkId();
+			Id<Link> endLinkId = readLinkId();
+			double distance = this.buffer.getDouble();
+			double travelTime = this.buffer.getDouble();
+			Route route;
+			if (routeKind == ScenarioSnapshotWriter.NETWORK_ROUTE) {
+				NetworkRoute networkRoute = this.routeFactories.createRoute(NetworkRoute.class, startLinkId, endLinkId);
+				Id<Vehicle> vehicleId = getId(vehicleIds, strings, this.buffer.getInt(), Vehicle.class);
+				int numberOfLinks = this.buffer.getInt();
+				List<Id<Link>> links = new ArrayList<>(numberOfLinks);
+				for (int i = 0; i < numberOfLinks; i++) {
+					links.add(readLinkId());
+				}
+				networkRoute.setLinkIds(startLinkId, links, endLinkId);
+				networkRoute.setVehicleId(vehicleId);
+				route = networkRoute;
+			} else {
+				String routeType = readString();
+				route = this.routeFactories.createRoute(this.routeFactories.getRouteClassForType(routeType), startLinkId, endLinkId);
+				route.setRouteDescription(readText(this.buffer));
+			}
+			route.setDistance(distance);
+			route.setTravelTime(travelTime);
+			leg.setRoute(route);
+			return leg;
+		}
+
+		private void readAttributes(final Attributes attributes) {
+			int count = this.buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				String key = readString();
+				String className = readString();
+				String value = readText(this.buffer);
+				Object object = this.converter.convert(className, value);
+				if (object != null) {
+					attributes.putAttribute(key, object);
+				}
+			}
+		}
+
+		private Coord readCoord() {
+			double x = this.buffer.getDouble();
+			double y = this.buffer.getDouble();
+			if (this.buffer.get() != 0) {
+				return new Coord(x, y, this.buffer.getDouble());
+			}
+			return new Coord(x, y);
+		}
+
+		private Id<Node> readNodeId() {
+			return getId(nodeIds, strings, this.buffer.getInt(), Node.class);
+		}
+
+		private Id<Link> readLinkId() {
+			return getId(linkIds, strings, this.buffer.getInt(), Link.class);
+		}
+
+		private String readString() {
+			int index = this.buffer.getInt();
+			return index < 0 ? null : strings[index];
+		}
+	}
+}
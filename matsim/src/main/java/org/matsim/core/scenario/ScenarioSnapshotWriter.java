@@ -0,0 +1,441 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Writes the network and the population of a scenario into one binary file, which can be memory-mapped and read
+ * again with {@link ScenarioSnapshotReader} much faster than the xml files.  The snapshot is meant as a cache for
+ * repeated runs on the same input: it is written at the end of {@link org.matsim.core.controler.PrepareForSim}, i.e.
+ * with the routes and links already assigned, and it remembers the input files and settings it was created from, so
+ * that it is ignored once one of them changes.
+ * <p></p>
+ * Layout (big endian, fixed width, so that the reader can decode directly from the mapped file):
+ * <pre>
+ * file       := MAGIC int:version long:stringsPos long:networkPos long:populationPos long:personIndexPos
+ *               text:fingerprint network population personIndex strings
+ * network    := string:name double:capacityPeriod double:effectiveLaneWidth attributes
+ *               int:numberOfNodes node* int:numberOfLinks link*
+ * node       := string:id coord string:type string:origId attributes
+ * link       := string:id string:fromNode string:toNode double:length double:freespeed double:capacity
+ *               double:lanes int:numberOfModes string:mode* attributes
+ * population := string:name attributes person*
+ * person     := string:id attributes int:numberOfPlans plan*
+ * plan       := byte:selected byte:hasScore double:score string:type attributes int:numberOfElements (activity|leg)*
+ * activity   := byte:0 string:type string:link string:facility byte:hasCoord [coord] double:start double:end
+ *               double:maxDur attributes
+ * leg        := byte:1 string:mode double:departure double:travelTime attributes byte:routeKind [route]
+ * personIndex:= int:numberOfPersons long:position* long:endPosition
+ * strings    := int:numberOfStrings text*
+ * attributes := int:count (string:key string:class text:value)*
+ * string     := int        -- index into strings, -1 for null
+ * text       := int:length utf8 -- length -1 for null
+ * coord      := double:x double:y byte:hasZ [double:z]
+ * </pre>
+ * Network routes store their links as strings, all other routes store their route description.
+ */
+public final class ScenarioSnapshotWriter implements MatsimWriter {
+
+	private final static Logger log = Logger.getLogger(ScenarioSnapshotWriter.class);
+
+	/*package*/ static final byte[] MAGIC = "MATSimSS".getBytes(StandardCharsets.US_ASCII);
+	/*package*/ static final int VERSION = 1;
+	/*package*/ static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + 4 * Long.BYTES;
+
+	/*package*/ static final byte ACTIVITY = 0;
+	/*package*/ static final byte LEG = 1;
+	/*package*/ static final byte NO_ROUTE = 0;
+	/*package*/ static final byte NETWORK_ROUTE = 1;
+	/*package*/ static final byte GENERIC_ROUTE = 2;
+
+	private final Scenario scenario;
+	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
+
+	private final Map<String, Integer> stringIndices = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final Map<String, Boolean> missingConverters = new HashMap<>();
+
+	private CountingOutputStream counter;
+	private DataOutputStream out;
+
+	public ScenarioSnapshotWriter(final Scenario scenario) {
+		this.scenario = scenario;
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converter.putAttributeConverters(converters);
+	}
+
+	@Override
+	public void write(final String filename) {
+		log.info("writing scenario snapshot to " + filename);
+		this.stringIndices.clear();
+		this.strings.clear();
+		long[] positions = new long[4];
+		try {
+			this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+			this.out = new DataOutputStream(this.counter);
+			this.out.write(new byte[HEADER_SIZE]); // filled in at the end
+			writeText(fingerprint(this.scenario.getConfig()));
+
+			positions[1] = this.counter.count;
+			writeNetwork(this.scenario.getNetwork());
+
+			positions[2] = this.counter.count;
+			List<Long> personPositions = writePopulation(this.scenario.getPopulation());
+
+			positions[3] = this.counter.count;
+			this.out.writeInt(personPositions.size() - 1);
+			for (long position : personPositions) {
+				this.out.writeLong(position);
+			}
+
+			positions[0] = this.counter.count;
+			this.out.writeInt(this.strings.size());
+			for (String string : this.strings) {
+				writeText(string);
+			}
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			file.write(MAGIC);
+			file.writeInt(VERSION);
+			for (long position : positions) {
+				file.writeLong(position);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("wrote scenario snapshot with " + this.strings.size() + " distinct strings, " + (positions[0] >> 20) + " MB.");
+	}
+
+	private void writeNetwork(final Network network) throws IOException {
+		writeString(network.getName());
+		this.out.writeDouble(network.getCapacityPeriod());
+		this.out.writeDouble(network.getEffectiveLaneWidth());
+		writeAttributes(network.getAttributes());
+
+		this.out.writeInt(network.getNodes().size());
+		for (Node node : network.getNodes().values()) {
+			writeString(node.getId().toString());
+			writeCoord(node.getCoord());
+			writeString(NetworkUtils.getType(node));
+			writeString(NetworkUtils.getOrigId(node));
+			writeAttributes(node.getAttributes());
+		}
+
+		this.out.writeInt(network.getLinks().size());
+		for (Link link : network.getLinks().values()) {
+			writeString(link.getId().toString());
+			writeString(link.getFromNode().getId().toString());
+			writeString(link.getToNode().getId().toString());
+			this.out.writeDouble(link.getLength());
+			this.out.writeDouble(link.getFreespeed());
+			this.out.writeDouble(link.getCapacity());
+			this.out.writeDouble(link.getNumberOfLanes());
+			this.out.writeInt(link.getAllowedModes().size());
+			for (String mode : link.getAllowedModes()) {
+				writeString(mode);
+			}
+			writeAttributes(link.getAttributes());
+		}
+	}
+
+	private List<Long> writePopulation(final Population population) throws IOException {
+		writeString(population.getName());
+		writeAttributes(population.getAttributes());
+
+		List<Long> positions = new ArrayList<>(population.getPersons().size() + 1);
+		for (Person person : population.getPersons().values()) {
+			positions.add(this.counter.count);
+			writeString(person.getId().toString());
+			writeAttributes(person.getAttributes());
+			this.out.writeInt(person.getPlans().size());
+			for (Plan plan : person.getPlans()) {
+				writePlan(plan, plan == person.getSelectedPlan());
+			}
+		}
+		positions.add(this.counter.count);
+		return positions;
+	}
+
+	private void writePlan(final Plan plan, final boolean selected) throws IOException {
+		this.out.writeBoolean(selected);
+		this.out.writeBoolean(plan.getScore() != null);
+		this.out.writeDouble(plan.getScore() != null ? plan.getScore() : Double.NaN);
+		writeString(plan.getType());
+		writeAttributes(plan.getAttributes());
+		this.out.writeInt(plan.getPlanElements().size());
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (pe instanceof Activity) {
+				Activity act = (Activity) pe;
+				this.out.writeByte(ACTIVITY);
+				writeString(act.getType());
+				writeId(act.getLinkId());
+				writeId(act.getFacilityId());
+				this.out.writeBoolean(act.getCoord() != null);
+				if (act.getCoord() != null) {
+					writeCoord(act.getCoord());
+				}
+				this.out.writeDouble(act.getStartTime());
+				this.out.writeDouble(act.getEndTime());
+				this.out.writeDouble(act.getMaximumDuration());
+				writeAttributes(act.getAttributes());
+			} else if (pe instanceof Leg) {
+				Leg leg = (Leg) pe;
+				this.out.writeByte(LEG);
+				writeString(leg.getMode());
+				this.out.writeDouble(leg.getDepartureTime());
+				this.out.writeDouble(leg.getTravelTime());
+				writeAttributes(leg.getAttributes());
+				writeRoute(leg.getRoute());
+			} else {
+				throw new IllegalArgumentException("Unknown plan element: " + pe);
+			}
+		}
+	}
+
+	private void writeRoute(final Route route) throws IOException {
+		if (route == null) {
+			this.out.writeByte(NO_ROUTE);
+			return;
+		}
+		this.out.writeByte(route instanceof NetworkRoute ? NETWORK_ROUTE : GENERIC_ROUTE);
+		writeId(route.getStartLinkId());
+		writeId(route.getEndLinkId());
+		this.out.writeDouble(route.getDistance());
+		this.out.writeDouble(route.getTravelTime());
+		if (route instanceof NetworkRoute) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			writeId(networkRoute.getVehicleId());
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			this.out.writeInt(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				writeId(linkId);
+			}
+		} else {
+			writeString(route.getRouteType());
+			writeText(route.getRouteDescription());
+		}
+	}
+
+	private void writeAttributes(final Attributes attributes) throws IOException {
+		List<String> keys = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		List<String> converted = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+			String value = this.converter.convertToString(entry.getValue());
+			if (value == null) {
+				String className = entry.getValue().getClass().getName();
+				if (this.missingConverters.put(className, Boolean.TRUE) == null) {
+					log.warn("No AttributeConverter found for class " + className + ", attributes of this class are not written to the snapshot.");
+				}
+				continue;
+			}
+			keys.add(entry.getKey());
+			values.add(entry.getValue());
+			converted.add(value);
+		}
+		this.out.writeInt(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			writeString(keys.get(i));
+			writeString(values.get(i).getClass().getCanonicalName());
+			writeText(converted.get(i));
+		}
+	}
+
+	private void writeCoord(final Coord coord) throws IOException {
+		this.out.writeDouble(coord.getX());
+		this.out.writeDouble(coord.getY());
+		this.out.writeBoolean(coord.hasZ());
+		if (coord.hasZ()) {
+			this.out.writeDouble(coord.getZ());
+		}
+	}
+
+	private void writeId(final Id<?> id) throws IOException {
+		writeString(id == null ? null : id.toString());
+	}
+
+	private void writeString(final String string) throws IOException {
+		if (string == null) {
+			this.out.writeInt(-1);
+			return;
+		}
+		Integer index = this.stringIndices.get(string);
+		if (index == null) {
+			index = this.strings.size();
+			this.stringIndices.put(string, index);
+			this.strings.add(string);
+		}
+		this.out.writeInt(index);
+	}
+
+	private void writeText(final String text) throws IOException {
+		if (text == null) {
+			this.out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		this.out.writeInt(bytes.length);
+		this.out.write(bytes);
+	}
+
+	/**
+	 * Describes the input the snapshot is created from: the coordinate system, the input files with their size and
+	 * modification time, and a hash of each config group that influences the prepared network and population. Of the
+	 * qsim config group, only the main modes and the vehicles source are included, so that e.g. changing the flow
+	 * capacity factor does not invalidate the snapshot.
+	 */
+	/*package*/ static String fingerprint(final Config config) {
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append("crs=").append(config.global().getCoordinateSystem()).append('\n');
+		appendFile(fingerprint, "network", config, config.network().getInputFile());
+		appendFile(fingerprint, "networkChangeEvents", config, config.network().getChangeEventsInputFile());
+		appendFile(fingerprint, "lanes", config, config.network().getLaneDefinitionsFile());
+		appendFile(fingerprint, "facilities", config, config.facilities().getInputFile());
+		appendFile(fingerprint, "plans", config, config.plans().getInputFile());
+		appendFile(fingerprint, "vehicles", config, config.vehicles().getVehiclesFile());
+		appendFile(fingerprint, "transitSchedule", config, config.transit().getTransitScheduleFile());
+		appendFile(fingerprint, "transitVehicles", config, config.transit().getVehiclesFile());
+		for (ConfigGroup group : new ConfigGroup[] { config.network(), config.facilities(), config.plans(),
+				config.plansCalcRoute(), config.vehicles(), config.transit() }) {
+			fingerprint.append("config.").append(group.getName()).append('=').append(hash(describe(group))).append('\n');
+		}
+		fingerprint.append("config.qsim=")
+				.append(hash("mainModes=" + config.qsim().getMainModes() + ";vehiclesSource=" + config.qsim().getVehiclesSource()))
+				.append('\n');
+		return fingerprint.toString();
+	}
+
+	private static String describe(final ConfigGroup group) {
+		StringBuilder description = new StringBuilder(group.getName()).append('{');
+		for (Map.Entry<String, String> e : new TreeMap<>(group.getParams()).entrySet()) {
+			description.append(e.getKey()).append('=').append(e.getValue()).append(';');
+		}
+		for (Map.Entry<String, ? extends Collection<? extends ConfigGroup>> e : new TreeMap<>(group.getParameterSets()).entrySet()) {
+			List<String> sets = new ArrayList<>();
+			for (ConfigGroup set : e.getValue()) {
+				sets.add(describe(set));
+			}
+			Collections.sort(sets);
+			description.append(sets);
+		}
+		return description.append('}').toString();
+	}
+
+	private static String hash(final String text) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void appendFile(final StringBuilder fingerprint, final String name, final Config config, final String filename) {
+		fingerprint.append(name).append('=');
+		if (filename != null) {
+			URL url = ConfigGroup.getInputFileURL(config.getContext(), filename);
+			fingerprint.append(url);
+			if ("file".equals(url.getProtocol())) {
+				try {
+					File file = new File(url.toURI());
+					fingerprint.append(';').append(file.length()).append(';').append(file.lastModified());
+				} catch (URISyntaxException e) {
+					// only the name then
+				}
+			}
+		}
+		fingerprint.append('\n');
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+}
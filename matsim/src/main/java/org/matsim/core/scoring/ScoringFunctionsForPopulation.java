@@ -26,10 +26,18 @@ import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.population.Activity;
@@ -38,9 +46,14 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.events.AfterMobsimEvent;
 import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
@@ -53,6 +66,7 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -104,12 +118,27 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 //	private boolean passLinkEventsToPerson = false;
 	
 	private Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+	private final List<ScoringPartition> partitions = new ArrayList<>();
 	@Inject(optional = true)
 	private TripRouter tripRouter;
 
-	@Inject
 	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, null, 1);
+	}
+
+	@Inject
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Population population, ScoringFunctionFactory scoringFunctionFactory, Scenario scenario, PlanCalcScoreConfigGroup scoreConfig) {
+		this(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, scenario, scoreConfig.getNumberOfScoringPartitions());
+	}
+
+	/**
+	 * With more than one partition, the persons are scored by one event handler per partition, each with its own
+	 * {@link EventsToLegs} and {@link EventsToActivities}, instead of by this handler together with the shared ones.
+	 */
+	ScoringFunctionsForPopulation( ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
+						 Population population, ScoringFunctionFactory scoringFunctionFactory, Scenario scenario, int numberOfPartitions) {
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
@@ -118,6 +147,23 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		});
 		this.population = population;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		if (numberOfPartitions > 1) {
+			for (int i = 0; i < numberOfPartitions; i++) {
+				ScoringPartition partition = new ScoringPartition(i, numberOfPartitions, scenario);
+				this.partitions.add(partition);
+				eventsManager.addHandler(partition);
+			}
+			controlerListenerManager.addControlerListener(new AfterMobsimListener() {
+				@Override
+				public void notifyAfterMobsim(AfterMobsimEvent event) {
+					for (ScoringPartition partition : ScoringFunctionsForPopulation.this.partitions) {
+						partition.eventsToActivities.finish();
+					}
+				}
+			});
+			log.info("scoring the population in " + numberOfPartitions + " partitions.");
+			return;
+		}
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this);
 		eventsToLegs.addLegHandler(this);
@@ -133,6 +179,8 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
 		}
+		// initialized here, as the partitions use it concurrently
+		getStageActivities();
 	}
 
 	private StageActivityTypes getStageActivities() {
@@ -158,6 +206,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleEvent(Event o) {
+		handleEvent(o, this.vehicles2Drivers);
+	}
+
+	private void handleEvent(Event o, Vehicle2DriverEventHandler vehicles2Drivers) {
 		// this is for the stuff that is directly based on events.
 		// note that this passes on _all_ person events, even those which are aggregated into legs and activities.
 		// for the time being, not all PersonEvents may "implement HasPersonId".
@@ -182,15 +234,15 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 //		if ( passLinkEventsToPerson ) {
 			// Establish and end connection between driver and vehicle
 			if (o instanceof VehicleEntersTrafficEvent) {
-				this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+				vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
 			}
 			if (o instanceof VehicleLeavesTrafficEvent) {
-				this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+				vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
 			}
 			// Pass LinkEnterEvent to person scoring, required e.g. for bicycle where link attributes are observed in scoring
 			if ( o instanceof LinkEnterEvent ) {
 				Id<Vehicle> vehicleId = ((LinkEnterEvent)o).getVehicleId() ;
-				Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(vehicleId) ;
+				Id<Person> driverId = vehicles2Drivers.getDriverOfVehicle(vehicleId) ;
 				ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 				// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 				if (scoringFunction != null) {
@@ -209,6 +261,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
+		handleLegOfPerson(o);
+	}
+
+	private void handleLegOfPerson(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -225,6 +281,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	synchronized public void handleActivity(PersonExperiencedActivity o) {
+		handleActivityOfPerson(o);
+	}
+
+	private void handleActivityOfPerson(PersonExperiencedActivity o) {
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -318,6 +378,92 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	}
 
+	/**
+	 * Scores the persons with <code>idIndex % numberOfPartitions == partition</code>.  The per-person data is created
+	 * for all persons at the start of the iteration, so the partitions can use it concurrently without locking.  Events
+	 * without a person are passed on if they are needed for the legs, e.g. those of transit vehicles.
+	 */
+	private final class ScoringPartition implements BasicEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
+		private final int partition;
+		private final int numberOfPartitions;
+		private final EventsToActivities eventsToActivities = new EventsToActivities();
+		private final EventsToLegs eventsToLegs;
+		private final EventsToLegsAndActivities eventsToLegsAndActivities;
+		private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+
+		ScoringPartition(int partition, int numberOfPartitions, Scenario scenario) {
+			this.partition = partition;
+			this.numberOfPartitions = numberOfPartitions;
+			this.eventsToLegs = new EventsToLegs(scenario);
+			this.eventsToLegsAndActivities = new EventsToLegsAndActivities(this.eventsToLegs, this.eventsToActivities);
+			this.eventsToActivities.addActivityHandler(this);
+			this.eventsToLegs.addLegHandler(this);
+		}
+
+		@Override
+		public void handleEvent(Event event) {
+			if (event instanceof HasPersonId) {
+				Id<Person> personId = ((HasPersonId) event).getPersonId();
+				if (personId.index() % this.numberOfPartitions != this.partition) {
+					return;
+				}
+			} else if (event instanceof LinkEnterEvent) {
+				if (this.vehicles2Drivers.getDriverOfVehicle(((LinkEnterEvent) event).getVehicleId()) == null) {
+					return;
+				}
+			} else if (event instanceof LinkLeaveEvent) {
+				if (this.vehicles2Drivers.getDriverOfVehicle(((LinkLeaveEvent) event).getVehicleId()) == null) {
+					return;
+				}
+			}
+			// (the vehicle is known if its driver is in this partition, as the VehicleEntersTrafficEvent has passed)
+
+			if (event instanceof ActivityEndEvent) {
+				this.eventsToLegsAndActivities.handleEvent((ActivityEndEvent) event);
+			} else if (event instanceof ActivityStartEvent) {
+				this.eventsToLegsAndActivities.handleEvent((ActivityStartEvent) event);
+			} else if (event instanceof LinkEnterEvent) {
+				this.eventsToLegsAndActivities.handleEvent((LinkEnterEvent) event);
+			} else if (event instanceof LinkLeaveEvent) {
+				this.eventsToLegsAndActivities.handleEvent((LinkLeaveEvent) event);
+			} else if (event instanceof PersonArrivalEvent) {
+				this.eventsToLegsAndActivities.handleEvent((PersonArrivalEvent) event);
+			} else if (event instanceof PersonDepartureEvent) {
+				this.eventsToLegsAndActivities.handleEvent((PersonDepartureEvent) event);
+			} else if (event instanceof PersonEntersVehicleEvent) {
+				this.eventsToLegsAndActivities.handleEvent((PersonEntersVehicleEvent) event);
+			} else if (event instanceof TeleportationArrivalEvent) {
+				this.eventsToLegsAndActivities.handleEvent((TeleportationArrivalEvent) event);
+			} else if (event instanceof TransitDriverStartsEvent) {
+				this.eventsToLegsAndActivities.handleEvent((TransitDriverStartsEvent) event);
+			} else if (event instanceof VehicleArrivesAtFacilityEvent) {
+				this.eventsToLegsAndActivities.handleEvent((VehicleArrivesAtFacilityEvent) event);
+			} else if (event instanceof VehicleEntersTrafficEvent) {
+				this.eventsToLegsAndActivities.handleEvent((VehicleEntersTrafficEvent) event);
+			} else if (event instanceof VehicleLeavesTrafficEvent) {
+				this.eventsToLegsAndActivities.handleEvent((VehicleLeavesTrafficEvent) event);
+			}
+			ScoringFunctionsForPopulation.this.handleEvent(event, this.vehicles2Drivers);
+		}
+
+		@Override
+		public void handleLeg(PersonExperiencedLeg leg) {
+			handleLegOfPerson(leg);
+		}
+
+		@Override
+		public void handleActivity(PersonExperiencedActivity activity) {
+			handleActivityOfPerson(activity);
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.eventsToLegs.reset(iteration);
+			this.eventsToActivities.reset(iteration);
+			this.vehicles2Drivers.reset(iteration);
+		}
+	}
+
 //	public boolean isPassLinkEventsToPerson() {
 //		return passLinkEventsToPerson;
 //	}
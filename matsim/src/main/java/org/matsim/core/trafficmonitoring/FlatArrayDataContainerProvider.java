@@ -0,0 +1,142 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FlatArrayDataContainerProvider.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+/**
+ * Stores the travel time data of all links of the network in one block of primitive arrays (one entry per link and time
+ * slot), allocated once when the {@link TravelTimeCalculator} is created.  The data objects handed out are only views
+ * into that block, and they are found by {@link Id#index()}.  So handling events does not allocate anything, and there is
+ * no map lookup.
+ * <p></p>
+ * Links that are not in the network when this is created are forwarded to the delegate.
+ */
+class FlatArrayDataContainerProvider implements DataContainerProvider {
+
+	private final int numSlots;
+	private final double[] timeSum;
+	private final int[] timeCnt;
+	private final double[] travelTimes;
+
+	private final IdMap<Link, LinkData> linkData;
+	private final DataContainerProvider delegate;
+
+	FlatArrayDataContainerProvider(Network network, int numSlots, DataContainerProvider delegate) {
+		long size = (long) network.getLinks().size() * numSlots;
+		if (size > Integer.MAX_VALUE) {
+			throw new RuntimeException("The network has too many links for the given number of time bins to store the travel times in one array. "
+					+ "Use a larger time bin size, or another travelTimeCalculator type.");
+		}
+		this.numSlots = numSlots;
+		this.timeSum = new double[(int) size];
+		this.timeCnt = new int[(int) size];
+		this.travelTimes = new double[(int) size];
+		this.delegate = delegate;
+
+		this.linkData = new IdMap<>(Link.class);
+		int offset = 0;
+		for (Link link : network.getLinks().values()) {
+			this.linkData.put(link.getId(), new LinkData(link, offset));
+			offset += numSlots;
+		}
+		resetTravelTimes();
+	}
+
+	@Override
+	public TravelTimeData getTravelTimeData(Id<Link> linkId, boolean createIfMissing) {
+		TravelTimeData data = this.linkData.get(linkId);
+		if (data == null) {
+			return this.delegate.getTravelTimeData(linkId, createIfMissing);
+		}
+		return data;
+	}
+
+	@Override
+	public TravelTimeData getTravelTimeData(Link link, boolean createIfMissing) {
+		return getTravelTimeData(link.getId(), createIfMissing);
+	}
+
+	void resetTravelTimes() {
+		Arrays.fill(this.timeSum, 0.0);
+		Arrays.fill(this.timeCnt, 0);
+		Arrays.fill(this.travelTimes, -1.0);
+		for (LinkData data : this.linkData.values()) {
+			data.setNeedsConsolidation(false);
+		}
+	}
+
+	/**
+	 * Same logic as {@link TravelTimeDataArray}, but on the slots [offset, offset + numSlots) of the shared arrays.
+	 */
+	private final class LinkData extends TravelTimeData {
+		private final Link link;
+		private final int offset;
+
+		LinkData(Link link, int offset) {
+			this.link = link;
+			this.offset = offset;
+		}
+
+		@Override
+		public void resetTravelTimes() {
+			Arrays.fill(timeSum, this.offset, this.offset + numSlots, 0.0);
+			Arrays.fill(timeCnt, this.offset, this.offset + numSlots, 0);
+			Arrays.fill(travelTimes, this.offset, this.offset + numSlots, -1.0);
+		}
+
+		@Override
+		void setTravelTime(int timeSlot, double traveltime) {
+			int index = this.offset + timeSlot;
+			timeSum[index] = traveltime;
+			timeCnt[index] = 1;
+			travelTimes[index] = traveltime;
+		}
+
+		@Override
+		void addTravelTime(int timeSlot, double traveltime) {
+			int index = this.offset + timeSlot;
+			timeSum[index] += traveltime;
+			timeCnt[index]++;
+			travelTimes[index] = -1.0; // invalidate the cached value
+		}
+
+		@Override
+		double getTravelTime(int timeSlot, double now) {
+			int index = this.offset + timeSlot;
+			double ttime = travelTimes[index];
+			if (ttime >= 0.0) return ttime; // negative values are invalid.
+
+			int cnt = timeCnt[index];
+			if (cnt == 0) {
+				travelTimes[index] = this.link.getLength() / this.link.getFreespeed(now);
+			} else {
+				travelTimes[index] = timeSum[index] / cnt;
+			}
+			return travelTimes[index];
+		}
+	}
+}
@@ -22,6 +22,7 @@ package org.matsim.core.trafficmonitoring;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.api.core.v01.network.Link;
@@ -55,7 +56,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * is stored in {@link TravelTimeData}-objects. If a short binSize is used, it is useful to
  * use {@link TravelTimeDataHashMap},}
  * as that one does not use any memory to time bins where no traffic occurred. By default,
- * {@link TravelTimeDataArray} is used.
+ * {@link TravelTimeDataArray} is used.  With {@link FlatArrayDataContainerProvider}, the travel times of all links are
+ * kept in one block of primitive arrays, and the pending link enter events are addressed by vehicle index; this
+ * makes event handling allocation-free.
  *
  * @author dgrether
  * @author mrieser
@@ -77,9 +80,11 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private Map<Tuple<Id<Link>, Id<Link>>, TravelTimeData> linkToLinkData;
 
-	private final DataContainerProvider dataContainerProvider;
+	private DataContainerProvider dataContainerProvider;
 
-	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
+	private FlatArrayDataContainerProvider flatArrayDataContainerProvider = null;
+
+	private Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
 
 	private final Set<Id<Vehicle>> vehiclesToIgnore;
 	private final Set<String> analyzedModes;
@@ -115,6 +120,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			case TravelTimeCalculatorHashMap:
 				calculator.ttDataFactory = new TravelTimeDataHashMapFactory(network);
 				break;
+			case TravelTimeCalculatorFlatArray:
+				calculator.ttDataFactory = new TravelTimeDataArrayFactory(network, calculator.numSlots);
+				calculator.useFlatArrays(network);
+				break;
 			default:
 				throw new RuntimeException(config.getTravelTimeCalculatorType() + " is unknown!");
 		}
@@ -262,6 +271,17 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	}
 
+	private void useFlatArrays(Network network) {
+		if (this.calculateLinkTravelTimes) {
+			// links that are added to the network later still end up in the map:
+			DataContainerProvider delegate = new MapBasedDataContainerProvider(this.linkData, this.ttDataFactory);
+			this.flatArrayDataContainerProvider = new FlatArrayDataContainerProvider(network, this.numSlots, delegate);
+			this.dataContainerProvider = this.flatArrayDataContainerProvider;
+		}
+		// the handlers are not called concurrently, so the pending events do not need a concurrent map:
+		this.linkEnterEvents = new IdMap<>(Vehicle.class);
+	}
+
 	@Override
 	public void handleEvent(final LinkEnterEvent e) {
 		/* if only some modes are analyzed, we check whether the vehicles
@@ -425,6 +445,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 				data.resetTravelTimes();
 				data.setNeedsConsolidation( false );
 			}
+			if (this.flatArrayDataContainerProvider != null) {
+				this.flatArrayDataContainerProvider.resetTravelTimes();
+			}
 		}
 		if (this.calculateLinkToLinkTravelTimes){
 			for (TravelTimeData data : this.linkToLinkData.values()){
@@ -0,0 +1,443 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CalendarQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * A priority queue for elements that become due at a point in time, for a caller that advances in (small) time steps,
+ * like the mobsim.  The elements are kept in buckets of <code>bucketWidth</code> seconds on a wheel, so adding an
+ * element is O(1), and polling the due elements of a time step only sorts the elements of that step.  Elements due
+ * further in the future than the wheel reaches are kept in an ordinary priority queue, until the wheel reaches them.
+ * <p></p>
+ * Elements are returned by increasing time, elements with the same time in the order of the given comparator, i.e.
+ * in the same order as from a {@link PriorityQueue} comparing time first and then the comparator.  The time of an
+ * element is stored with it, so it may be different from a time the element itself reports.
+ * <p></p>
+ * This class is not thread-safe.
+ *
+ * @param <E> the type of elements held in this collection
+ */
+public final class CalendarQueue<E> {
+
+	private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+	private final double bucketWidth;
+	private final int mask;
+	private final Comparator<? super E> comparator;
+
+	private final double[][] bucketTimes;
+	private final Object[][] bucketElements;
+	private final int[] bucketSizes;
+	/** the bucket the wheel starts at; the wheel contains the buckets [cursor, cursor + number of buckets) */
+	private long cursor = 0;
+	private int wheelSize = 0;
+
+	private final PriorityQueue<OverflowEntry<E>> overflow = new PriorityQueue<>();
+
+	/* the elements that are due, sorted, from dueHead (inclusive) to dueEnd (exclusive). */
+	private double[] dueTimes = new double[16];
+	private Object[] dueElements = new Object[16];
+	private int dueHead = 0;
+	private int dueEnd = 0;
+	private double dueUntil = Double.NEGATIVE_INFINITY;
+
+	private int size = 0;
+
+	/**
+	 * Creates a queue with buckets of one second, reaching 36 hours ahead.
+	 */
+	public CalendarQueue(final Comparator<? super E> comparator) {
+		this(1.0, 1 << 17, comparator);
+	}
+
+	/**
+	 * @param bucketWidth the width of a bucket, in seconds. Should not be larger than the time step of the caller.
+	 * @param numberOfBuckets the number of buckets on the wheel, is rounded up to a power of 2.
+	 * @param comparator decides the order of elements with the same time
+	 */
+	public CalendarQueue(final double bucketWidth, final int numberOfBuckets, final Comparator<? super E> comparator) {
+		if (bucketWidth <= 0) {
+			throw new IllegalArgumentException("bucketWidth must be positive, but is " + bucketWidth);
+		}
+		if (numberOfBuckets < 1 || numberOfBuckets > (1 << 30)) {
+			throw new IllegalArgumentException("numberOfBuckets must be in [1, 2^30], but is " + numberOfBuckets);
+		}
+		int buckets = Integer.highestOneBit(numberOfBuckets);
+		if (buckets < numberOfBuckets) {
+			buckets <<= 1;
+		}
+		this.bucketWidth = bucketWidth;
+		this.mask = buckets - 1;
+		this.comparator = comparator;
+		this.bucketTimes = new double[buckets][];
+		this.bucketElements = new Object[buckets][];
+		this.bucketSizes = new int[buckets];
+	}
+
+	/**
+	 * Adds the element, to become due at the given time.  Elements with a time before the last polled time are due with
+	 * the next call to {@link #poll(double)}.
+	 */
+	public void add(final E element, final double time) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+		this.size++;
+		if (this.dueHead < this.dueEnd && time <= this.dueUntil) {
+			// e.g. added while the caller handles the due elements
+			insertDue(element, time);
+			return;
+		}
+		long bucket = Math.max(bucketOf(time), this.cursor);
+		if (bucket - this.cursor > this.mask) {
+			this.overflow.add(new OverflowEntry<>(element, time));
+		} else {
+			addToWheel(bucket, element, time);
+		}
+	}
+
+	/**
+	 * @return the next element with a time not after <code>time</code>, or <code>null</code> if there is none.
+	 */
+	public E poll(final double time) {
+		if (this.dueHead == this.dueEnd || time > this.dueUntil) {
+			collect(time);
+		}
+		if (this.dueHead == this.dueEnd || this.dueTimes[this.dueHead] > time) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		E element = (E) this.dueElements[this.dueHead];
+		this.dueElements[this.dueHead] = null;
+		this.dueHead++;
+		if (this.dueHead == this.dueEnd) {
+			this.dueHead = 0;
+			this.dueEnd = 0;
+		}
+		this.size--;
+		return element;
+	}
+
+	/**
+	 * Removes the element, comparing by identity.  This looks at every bucket of the wheel, so if the time of the
+	 * element is known, {@link #remove(Object, double)} is much faster.
+	 *
+	 * @return <code>true</code> if the element was in the queue
+	 */
+	public boolean remove(final E element) {
+		if (removeDue(element)) {
+			return true;
+		}
+		for (int b = 0; b < this.bucketSizes.length && this.wheelSize > 0; b++) {
+			if (removeFromBucket(b, element)) {
+				return true;
+			}
+		}
+		return removeFromOverflow(element);
+	}
+
+	/**
+	 * Removes the element, comparing by identity.  Only the place where an element with the given time is kept is
+	 * searched, i.e. the due elements or one bucket of the wheel (or the overflow queue, for elements far in the future).
+	 *
+	 * @param time the time the element was added with
+	 * @return <code>true</code> if the element was in the queue with that time
+	 */
+	public boolean remove(final E element, final double time) {
+		if (time <= this.dueUntil && removeDue(element)) {
+			return true;
+		}
+		long bucket = Math.max(bucketOf(time), this.cursor);
+		if (bucket - this.cursor > this.mask) {
+			return removeFromOverflow(element);
+		}
+		return removeFromBucket((int) (bucket & this.mask), element);
+	}
+
+	private boolean removeDue(final E element) {
+		for (int i = this.dueHead; i < this.dueEnd; i++) {
+			if (this.dueElements[i] == element) {
+				System.arraycopy(this.dueTimes, i + 1, this.dueTimes, i, this.dueEnd - i - 1);
+				System.arraycopy(this.dueElements, i + 1, this.dueElements, i, this.dueEnd - i - 1);
+				this.dueEnd--;
+				this.dueElements[this.dueEnd] = null;
+				this.size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean removeFromBucket(final int b, final E element) {
+		Object[] elements = this.bucketElements[b];
+		int last = this.bucketSizes[b] - 1;
+		for (int i = 0; i <= last; i++) {
+			if (elements[i] == element) {
+				elements[i] = elements[last];
+				this.bucketTimes[b][i] = this.bucketTimes[b][last];
+				elements[last] = null;
+				this.bucketSizes[b] = last;
+				this.wheelSize--;
+				this.size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean removeFromOverflow(final E element) {
+		Iterator<OverflowEntry<E>> iterator = this.overflow.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().element == element) {
+				iterator.remove();
+				this.size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calls the action for each element and its time, in no particular order.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(final ObjDoubleConsumer<? super E> action) {
+		for (int i = this.dueHead; i < this.dueEnd; i++) {
+			action.accept((E) this.dueElements[i], this.dueTimes[i]);
+		}
+		for (int b = 0; b < this.bucketSizes.length && this.wheelSize > 0; b++) {
+			for (int i = 0; i < this.bucketSizes[b]; i++) {
+				action.accept((E) this.bucketElements[b][i], this.bucketTimes[b][i]);
+			}
+		}
+		for (OverflowEntry<E> entry : this.overflow) {
+			action.accept(entry.element, entry.time);
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public void clear() {
+		for (int b = 0; b < this.bucketSizes.length; b++) {
+			this.bucketTimes[b] = null;
+			this.bucketElements[b] = null;
+			this.bucketSizes[b] = 0;
+		}
+		this.overflow.clear();
+		this.dueTimes = new double[16];
+		this.dueElements = new Object[16];
+		this.dueHead = 0;
+		this.dueEnd = 0;
+		this.dueUntil = Double.NEGATIVE_INFINITY;
+		this.cursor = 0;
+		this.wheelSize = 0;
+		this.size = 0;
+	}
+
+	private long bucketOf(final double time) {
+		return (long) Math.floor(time / this.bucketWidth);
+	}
+
+	private void addToWheel(final long bucket, final E element, final double time) {
+		int b = (int) (bucket & this.mask);
+		int bucketSize = this.bucketSizes[b];
+		if (this.bucketElements[b] == null) {
+			this.bucketTimes[b] = new double[INITIAL_BUCKET_CAPACITY];
+			this.bucketElements[b] = new Object[INITIAL_BUCKET_CAPACITY];
+		} else if (bucketSize == this.bucketElements[b].length) {
+			this.bucketTimes[b] = Arrays.copyOf(this.bucketTimes[b], bucketSize * 2);
+			this.bucketElements[b] = Arrays.copyOf(this.bucketElements[b], bucketSize * 2);
+		}
+		this.bucketTimes[b][bucketSize] = time;
+		this.bucketElements[b][bucketSize] = element;
+		this.bucketSizes[b] = bucketSize + 1;
+		this.wheelSize++;
+	}
+
+	/**
+	 * Moves all elements with a time not after <code>time</code> from the wheel to the due elements.  The cursor stays at
+	 * the bucket of <code>time</code>, since that bucket may contain elements that are only due later.
+	 */
+	private void collect(final double time) {
+		long target = bucketOf(time);
+		int start = this.dueEnd;
+		while (this.cursor <= target) {
+			if (this.wheelSize == 0) {
+				// nothing on the wheel, jump to the next element in the overflow queue, if that is due
+				long next = this.overflow.isEmpty() ? target : bucketOf(this.overflow.peek().time);
+				this.cursor = Math.max(this.cursor, Math.min(target, next));
+				refill();
+				if (this.wheelSize == 0) {
+					break;
+				}
+			}
+			int b = (int) (this.cursor & this.mask);
+			int bucketSize = this.bucketSizes[b];
+			if (bucketSize > 0) {
+				double[] times = this.bucketTimes[b];
+				Object[] elements = this.bucketElements[b];
+				ensureDueCapacity(bucketSize);
+				int kept = 0;
+				for (int i = 0; i < bucketSize; i++) {
+					if (times[i] <= time) {
+						this.dueTimes[this.dueEnd] = times[i];
+						this.dueElements[this.dueEnd] = elements[i];
+						this.dueEnd++;
+					} else {
+						times[kept] = times[i];
+						elements[kept] = elements[i];
+						kept++;
+					}
+				}
+				for (int i = kept; i < bucketSize; i++) {
+					elements[i] = null;
+				}
+				this.bucketSizes[b] = kept;
+				this.wheelSize -= bucketSize - kept;
+			}
+			if (this.cursor == target) {
+				break;
+			}
+			this.cursor++;
+			refill();
+		}
+		this.dueUntil = Math.max(this.dueUntil, time);
+		sortDue(start, this.dueEnd);
+	}
+
+	/**
+	 * Moves the elements from the overflow queue that the wheel reaches now.
+	 */
+	private void refill() {
+		long end = this.cursor + this.mask;
+		while (!this.overflow.isEmpty() && bucketOf(this.overflow.peek().time) <= end) {
+			OverflowEntry<E> entry = this.overflow.poll();
+			addToWheel(Math.max(bucketOf(entry.time), this.cursor), entry.element, entry.time);
+		}
+	}
+
+	private void ensureDueCapacity(final int additional) {
+		if (this.dueEnd + additional <= this.dueTimes.length) {
+			return;
+		}
+		int dueSize = this.dueEnd - this.dueHead;
+		if (dueSize + additional > this.dueTimes.length) {
+			int capacity = Math.max(this.dueTimes.length * 2, dueSize + additional);
+			double[] times = new double[capacity];
+			Object[] elements = new Object[capacity];
+			System.arraycopy(this.dueTimes, this.dueHead, times, 0, dueSize);
+			System.arraycopy(this.dueElements, this.dueHead, elements, 0, dueSize);
+			this.dueTimes = times;
+			this.dueElements = elements;
+		} else {
+			System.arraycopy(this.dueTimes, this.dueHead, this.dueTimes, 0, dueSize);
+			System.arraycopy(this.dueElements, this.dueHead, this.dueElements, 0, dueSize);
+			Arrays.fill(this.dueElements, dueSize, this.dueEnd, null);
+		}
+		this.dueHead = 0;
+		this.dueEnd = dueSize;
+	}
+
+	private void insertDue(final E element, final double time) {
+		ensureDueCapacity(1);
+		int pos = this.dueEnd;
+		while (pos > this.dueHead && compare(time, element, this.dueTimes[pos - 1], this.dueElements[pos - 1]) < 0) {
+			pos--;
+		}
+		System.arraycopy(this.dueTimes, pos, this.dueTimes, pos + 1, this.dueEnd - pos);
+		System.arraycopy(this.dueElements, pos, this.dueElements, pos + 1, this.dueEnd - pos);
+		this.dueTimes[pos] = time;
+		this.dueElements[pos] = element;
+		this.dueEnd++;
+	}
+
+	/**
+	 * Sorts the due elements in [from, to) by a bottom-up merge sort, which is stable and works on the two arrays directly.
+	 */
+	private void sortDue(final int from, final int to) {
+		int n = to - from;
+		if (n < 2) {
+			return;
+		}
+		double[] tmpTimes = new double[n];
+		Object[] tmpElements = new Object[n];
+		for (int width = 1; width < n; width *= 2) {
+			for (int lo = from; lo < to - width; lo += 2 * width) {
+				merge(lo, lo + width, Math.min(lo + 2 * width, to), tmpTimes, tmpElements);
+			}
+		}
+	}
+
+	private void merge(final int lo, final int mid, final int hi, final double[] tmpTimes, final Object[] tmpElements) {
+		int n = hi - lo;
+		System.arraycopy(this.dueTimes, lo, tmpTimes, 0, n);
+		System.arraycopy(this.dueElements, lo, tmpElements, 0, n);
+		int i = 0;
+		int j = mid - lo;
+		for (int k = lo; k < hi; k++) {
+			if (j >= n || (i < mid - lo && compare(tmpTimes[i], tmpElements[i], tmpTimes[j], tmpElements[j]) <= 0)) {
+				this.dueTimes[k] = tmpTimes[i];
+				this.dueElements[k] = tmpElements[i];
+				i++;
+			} else {
+				this.dueTimes[k] = tmpTimes[j];
+				this.dueElements[k] = tmpElements[j];
+				j++;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(final double time1, final Object element1, final double time2, final Object element2) {
+		int cmp = Double.compare(time1, time2);
+		if (cmp == 0 && this.comparator != null) {
+			cmp = this.comparator.compare((E) element1, (E) element2);
+		}
+		return cmp;
+	}
+
+	private static final class OverflowEntry<E> implements Comparable<OverflowEntry<E>> {
+		final E element;
+		final double time;
+
+		OverflowEntry(final E element, final double time) {
+			this.element = element;
+			this.time = time;
+		}
+
+		@Override
+		public int compareTo(final OverflowEntry<E> o) {
+			return Double.compare(this.time, o.time);
+		}
+	}
+
+}
@@ -19,6 +19,7 @@
 
 package org.matsim.pt.config;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import org.matsim.core.config.ReflectiveConfigGroup;
@@ -31,6 +32,9 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 	/*package*/ static final String EXTENSION_RADIUS = "extensionRadius";
 	/*package*/ static final String MAX_BEELINE_WALK_CONNECTION_DISTANCE = "maxBeelineWalkConnectionDistance";
 	/*package*/ static final String ADDITIONAL_TRANSFER_TIME = "additionalTransferTime";
+	/*package*/ static final String ROUTING_ALGORITHM_TYPE = "routingAlgorithmType";
+
+	public enum TransitRoutingAlgorithmType { Dijkstra, Raptor }
 
 	private double searchRadius = 1000.0;
 	private double extensionRadius = 200.0;
@@ -41,6 +45,8 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 	
 	private boolean cacheTree = false;
 
+	private TransitRoutingAlgorithmType routingAlgorithmType = TransitRoutingAlgorithmType.Dijkstra;
+
 	public TransitRouterConfigGroup() {
 		super(GROUP_NAME);
 	}
@@ -56,6 +62,9 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		comments.put(MAX_BEELINE_WALK_CONNECTION_DISTANCE, "maximum beeline distance between stops that agents could transfer to by walking");
 		comments.put(ADDITIONAL_TRANSFER_TIME, "additional time the router allocates when a line switch happens. Can be interpreted as a 'safety' time that agents need to safely transfer from one line to another");
 		comments.put(DIRECT_WALK_FACTOR, DIRECT_WALK_FACTOR_CMT);
+		comments.put(ROUTING_ALGORITHM_TYPE, "the algorithm of the transit router. Dijkstra searches the transit router network, "
+				+ "Raptor scans the schedule route by route and shares its search data between all threads. Possible values: "
+				+ Arrays.toString(TransitRoutingAlgorithmType.values()));
 		return comments;
 	}
 
@@ -118,6 +127,17 @@ public class TransitRouterConfigGroup extends ReflectiveConfigGroup {
 		this.directWalkFactor = directWalkFactor;
 	}
 	
+	@StringGetter( ROUTING_ALGORITHM_TYPE )
+	public TransitRoutingAlgorithmType getRoutingAlgorithmType() {
+		return this.routingAlgorithmType;
+	}
+
+	@StringSetter( ROUTING_ALGORITHM_TYPE )
+	public void setRoutingAlgorithmType(final TransitRoutingAlgorithmType routingAlgorithmType) {
+		testForLocked() ;
+		this.routingAlgorithmType = routingAlgorithmType;
+	}
+
 	public boolean isCacheTree() {
 		return cacheTree;
 	}
@@ -0,0 +1,279 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RaptorData.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * The search data of {@link TransitRouterRaptor}: the transit schedule in flat arrays, ordered such that the RAPTOR
+ * rounds mostly access consecutive memory.
+ * <p></p>
+ * Instances are immutable after construction and can thus be shared by the routers of all threads.
+ * <p></p>
+ * All departures of a transit route use the same arrival and departure offsets, so the trips of a route never overtake
+ * each other and a trip is fully described by its departure time at the first stop.
+ */
+final class RaptorData {
+
+	private final static Logger log = Logger.getLogger(RaptorData.class);
+
+	static final double MIDNIGHT = 24.0 * 3600.0;
+
+	final TransitStopFacility[] stops;
+	private final int[] stopIndexById;
+	private final QuadTree<TransitStopFacility> stopsQuadTree;
+
+	final TransitLine[] routeLines;
+	final TransitRoute[] routes;
+	/** the route stops of route r are routeStopFirst[r] ... routeStopFirst[r+1]-1, in the order of the route. */
+	final int[] routeStopFirst;
+	final int[] routeStopStop;
+	final double[] routeStopArrivalOffset;
+	final double[] routeStopDepartureOffset;
+	/** the beeline distance from the first stop of the route, along all stops. */
+	final double[] routeStopDistance;
+	/** the departures of route r at its first stop are departureTimes[departureFirst[r]] ... departureTimes[departureFirst[r+1]-1], sorted. */
+	final int[] departureFirst;
+	final double[] departureTimes;
+
+	/** the route stops at stop s are stopRouteStops[stopRouteStopFirst[s]] ... stopRouteStops[stopRouteStopFirst[s+1]-1]. */
+	final int[] stopRouteStopFirst;
+	final int[] stopRouteStops;
+	final int[] routeStopRoute;
+
+	/** the stops within walking distance of stop s, excluding s itself. */
+	final int[] transferFirst;
+	final int[] transferTarget;
+	final double[] transferDistance;
+
+	private RaptorData(TransitStopFacility[] stops, int[] stopIndexById, QuadTree<TransitStopFacility> stopsQuadTree,
+			List<TransitLine> lines, List<TransitRoute> routes, double maxTransferDistance) {
+		this.stops = stops;
+		this.stopIndexById = stopIndexById;
+		this.stopsQuadTree = stopsQuadTree;
+		int nRoutes = routes.size();
+		this.routeLines = lines.toArray(new TransitLine[nRoutes]);
+		this.routes = routes.toArray(new TransitRoute[nRoutes]);
+
+		this.routeStopFirst = new int[nRoutes + 1];
+		this.departureFirst = new int[nRoutes + 1];
+		for (int r = 0; r < nRoutes; r++) {
+			this.routeStopFirst[r + 1] = this.routeStopFirst[r] + this.routes[r].getStops().size();
+			this.departureFirst[r + 1] = this.departureFirst[r] + this.routes[r].getDepartures().size();
+		}
+		int nRouteStops = this.routeStopFirst[nRoutes];
+		this.routeStopStop = new int[nRouteStops];
+		this.routeStopRoute = new int[nRouteStops];
+		this.routeStopArrivalOffset = new double[nRouteStops];
+		this.routeStopDepartureOffset = new double[nRouteStops];
+		this.routeStopDistance = new double[nRouteStops];
+		this.departureTimes = new double[this.departureFirst[nRoutes]];
+		int[] routeStopCount = new int[stops.length + 1];
+		for (int r = 0; r < nRoutes; r++) {
+			int g = this.routeStopFirst[r];
+			TransitStopFacility previous = null;
+			for (TransitRouteStop routeStop : this.routes[r].getStops()) {
+				int s = getIndex(routeStop.getStopFacility());
+				this.routeStopStop[g] = s;
+				this.routeStopRoute[g] = r;
+				double arrival = routeStop.getArrivalOffset();
+				double departure = routeStop.getDepartureOffset();
+				this.routeStopArrivalOffset[g] = Time.isUndefinedTime(arrival) ? departure : arrival;
+				this.routeStopDepartureOffset[g] = Time.isUndefinedTime(departure) ? arrival : departure;
+				this.routeStopDistance[g] = previous == null ? 0.0 : this.routeStopDistance[g - 1]
+						+ CoordUtils.calcEuclideanDistance(previous.getCoord(), routeStop.getStopFacility().getCoord());
+				previous = routeStop.getStopFacility();
+				routeStopCount[s + 1]++;
+				g++;
+			}
+			int d = this.departureFirst[r];
+			for (Departure departure : this.routes[r].getDepartures().values()) {
+				this.departureTimes[d++] = departure.getDepartureTime();
+			}
+			Arrays.sort(this.departureTimes, this.departureFirst[r], this.departureFirst[r + 1]);
+		}
+
+		this.stopRouteStopFirst = new int[stops.length + 1];
+		for (int s = 0; s < stops.length; s++) {
+			this.stopRouteStopFirst[s + 1] = this.stopRouteStopFirst[s] + routeStopCount[s + 1];
+		}
+		this.stopRouteStops = new int[nRouteStops];
+		int[] fill = Arrays.copyOf(this.stopRouteStopFirst, stops.length);
+		for (int g = 0; g < nRouteStops; g++) {
+			this.stopRouteStops[fill[this.routeStopStop[g]]++] = g;
+		}
+
+		this.transferFirst = new int[stops.length + 1];
+		List<int[]> targets = new ArrayList<>(stops.length);
+		int nTransfers = 0;
+		for (int s = 0; s < stops.length; s++) {
+			Coord coord = stops[s].getCoord();
+			Collection<TransitStopFacility> nearby = stopsQuadTree.getDisk(coord.getX(), coord.getY(), maxTransferDistance);
+			int[] target = new int[nearby.size()];
+			int count = 0;
+			for (TransitStopFacility stop : nearby) {
+				int t = getIndex(stop);
+				if (t != s) {
+					target[count++] = t;
+				}
+			}
+			target = Arrays.copyOf(target, count);
+			Arrays.sort(target);
+			targets.add(target);
+			nTransfers += count;
+			this.transferFirst[s + 1] = nTransfers;
+		}
+		this.transferTarget = new int[nTransfers];
+		this.transferDistance = new double[nTransfers];
+		for (int s = 0; s < stops.length; s++) {
+			int[] target = targets.get(s);
+			for (int i = 0; i < target.length; i++) {
+				int k = this.transferFirst[s] + i;
+				this.transferTarget[k] = target[i];
+				this.transferDistance[k] = CoordUtils.calcEuclideanDistance(stops[s].getCoord(), stops[target[i]].getCoord());
+			}
+		}
+	}
+
+	static RaptorData create(final TransitSchedule schedule, final double maxTransferDistance) {
+		long start = System.currentTimeMillis();
+		List<TransitLine> lines = new ArrayList<>();
+		List<TransitRoute> routes = new ArrayList<>();
+		Set<TransitStopFacility> servedStops = new LinkedHashSet<>();
+		for (TransitLine line : schedule.getTransitLines().values()) {
+			for (TransitRoute route : line.getRoutes().values()) {
+				if (route.getStops().size() > 1 && !route.getDepartures().isEmpty()) {
+					lines.add(line);
+					routes.add(route);
+					for (TransitRouteStop routeStop : route.getStops()) {
+						servedStops.add(routeStop.getStopFacility());
+					}
+				}
+			}
+		}
+		// as in the TransitRouterNetwork, only the stops served by some route are used
+		TransitStopFacility[] stops = servedStops.toArray(new TransitStopFacility[servedStops.size()]);
+		int maxIdIndex = 0;
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (TransitStopFacility stop : stops) {
+			maxIdIndex = Math.max(maxIdIndex, stop.getId().index());
+			minX = Math.min(minX, stop.getCoord().getX());
+			minY = Math.min(minY, stop.getCoord().getY());
+			maxX = Math.max(maxX, stop.getCoord().getX());
+			maxY = Math.max(maxY, stop.getCoord().getY());
+		}
+		int[] stopIndexById = new int[maxIdIndex + 1];
+		Arrays.fill(stopIndexById, -1);
+		if (stops.length == 0) {
+			minX = minY = maxX = maxY = 0.0;
+		}
+		QuadTree<TransitStopFacility> quadTree = new QuadTree<>(minX, minY, maxX, maxY);
+		for (int s = 0; s < stops.length; s++) {
+			stopIndexById[stops[s].getId().index()] = s;
+			quadTree.put(stops[s].getCoord().getX(), stops[s].getCoord().getY(), stops[s]);
+		}
+
+		RaptorData data = new RaptorData(stops, stopIndexById, quadTree, lines, routes, maxTransferDistance);
+		log.info("created RAPTOR search data for " + stops.length + " stops, " + routes.size() + " routes, "
+				+ data.departureTimes.length + " departures and " + data.transferTarget.length + " transfers, took "
+				+ (System.currentTimeMillis() - start) + " ms.");
+		return data;
+	}
+
+	int getIndex(final TransitStopFacility stop) {
+		int idIndex = stop.getId().index();
+		if (idIndex >= this.stopIndexById.length || this.stopIndexById[idIndex] < 0) {
+			throw new IllegalArgumentException("stop " + stop.getId() + " is not part of the transit schedule.");
+		}
+		return this.stopIndexById[idIndex];
+	}
+
+	/**
+	 * @return the stops within the search radius, or within the extension radius around the nearest stop if there
+	 * are less than two, as in {@link TransitRouterImpl}.
+	 */
+	Collection<TransitStopFacility> getNearestStops(final Coord coord, final double searchRadius, final double extensionRadius) {
+		Collection<TransitStopFacility> nearestStops = this.stopsQuadTree.getDisk(coord.getX(), coord.getY(), searchRadius);
+		if (nearestStops.size() < 2) {
+			TransitStopFacility nearestStop = this.stopsQuadTree.getClosest(coord.getX(), coord.getY());
+			if (nearestStop != null) { // the schedule might be empty
+				double distance = CoordUtils.calcEuclideanDistance(coord, nearestStop.getCoord());
+				nearestStops = this.stopsQuadTree.getDisk(coord.getX(), coord.getY(), distance + extensionRadius);
+			}
+		}
+		return nearestStops;
+	}
+
+	/**
+	 * @return the time at the first stop of the earliest trip of route <code>r</code> that departs at route stop
+	 * <code>g</code> not before <code>time</code>, or {@link Double#POSITIVE_INFINITY}.  As in
+	 * {@link PreparedTransitSchedule}, the departures are repeated every day.
+	 */
+	double getEarliestTrip(final int r, final int g, final double time) {
+		int from = this.departureFirst[r];
+		int to = this.departureFirst[r + 1];
+		double offset = this.routeStopDepartureOffset[g];
+		double wanted = time - offset;
+		double day = 0.0;
+		if (wanted >= MIDNIGHT) {
+			day = Math.floor(wanted / MIDNIGHT) * MIDNIGHT;
+			wanted -= day;
+		}
+		int pos = Arrays.binarySearch(this.departureTimes, from, to, wanted);
+		if (pos < 0) {
+			pos = -(pos + 1);
+		} else {
+			// the first of several departures at the same time
+			while (pos > from && this.departureTimes[pos - 1] == wanted) {
+				pos--;
+			}
+		}
+		if (pos >= to) {
+			// no more departures this day, take the first one of the next day
+			if (to == from) {
+				return Double.POSITIVE_INFINITY;
+			}
+			pos = from;
+			day += MIDNIGHT;
+		}
+		return this.departureTimes[pos] + day;
+	}
+}
@@ -31,7 +31,15 @@ public class TransitRouterModule extends AbstractModule {
     @Override
     public void install() {
         if (getConfig().transit().isUseTransit()) {
-            bind(TransitRouter.class).toProvider(TransitRouterImplFactory.class);
+            switch (getConfig().transitRouter().getRoutingAlgorithmType()) {
+                case Raptor:
+                    bind(TransitRouter.class).toProvider(TransitRouterRaptorFactory.class);
+                    break;
+                case Dijkstra:
+                default:
+                    bind(TransitRouter.class).toProvider(TransitRouterImplFactory.class);
+                    break;
+            }
         }
     }
 
@@ -0,0 +1,582 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.facilities.Facility;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * A transit router based on RAPTOR (Delling, Pajor, Werneck: Round-Based Public Transit Routing, 2012).  Instead of a
+ * Dijkstra search on the {@link TransitRouterNetwork}, the schedule is scanned route by route in rounds, round
+ * <i>k</i> finding the journeys with <i>k</i> pt legs.
+ * <p></p>
+ * The labels are the generalized costs of {@link TransitRouterNetworkTravelTimeAndDisutility} (walk, wait, in-vehicle
+ * time and distance, line switches), with the arrival time as a tie-breaker.  Every stop keeps the least cost label
+ * of all rounds, so the result is the least cost journey, independent of its number of transfers.
+ * <p></p>
+ * {@link #calcRoutes(Facility, Facility, double, double, Person)} answers range queries: it searches for every
+ * departure in a time window, latest first, reusing the labels of the later departures (rRAPTOR).  A journey is only
+ * returned if no journey departing later costs less.
+ * <p></p>
+ * The search data is shared by all routers and created by {@link TransitRouterRaptorFactory}.  The labels are
+ * not, so instances are not thread-safe: use one per thread.
+ */
+public class TransitRouterRaptor extends AbstractTransitRouter implements TransitRouter {
+
+	private final RaptorData data;
+
+	private double transferWaitCost;
+	private double lineSwitchCost;
+
+	private final List<Round> rounds = new ArrayList<>();
+	private final Labels bestArrival;
+	private final Labels bestReady;
+	private final boolean[] markedStops;
+	private final int[] markedStopList;
+	private int markedStopCount = 0;
+	private final int[] routeScanFrom;
+	private final int[] markedRoutes;
+	private int markedRouteCount = 0;
+	private final int[] walkQueue;
+	private final boolean[] isInWalkQueue;
+	private final int[] walkedInRelaxation;
+	private int relaxation = 0;
+	private int walkQueueHead = 0;
+	private int walkQueueSize = 0;
+
+	private double targetCost;
+	private double targetTime;
+	private int targetRound;
+	private int targetStop;
+	private int run = 0;
+	private double latestArrival;
+
+	public TransitRouterRaptor(final TransitRouterConfig config, final TransitSchedule schedule) {
+		this(config, RaptorData.create(schedule, config.getBeelineWalkConnectionDistance()));
+	}
+
+	TransitRouterRaptor(final TransitRouterConfig config, final RaptorData data) {
+		super(config, new TransitRouterNetworkTravelTimeAndDisutility(config));
+		this.data = data;
+		int nStops = data.stops.length;
+		this.bestArrival = new Labels(nStops);
+		this.bestReady = new Labels(nStops);
+		this.markedStops = new boolean[nStops];
+		this.markedStopList = new int[nStops];
+		this.routeScanFrom = new int[data.routes.length];
+		Arrays.fill(this.routeScanFrom, Integer.MAX_VALUE);
+		this.markedRoutes = new int[data.routes.length];
+		this.walkQueue = new int[nStops];
+		this.isInWalkQueue = new boolean[nStops];
+		this.walkedInRelaxation = new int[nStops];
+	}
+
+	/*package*/ RaptorData getData() {
+		return this.data;
+	}
+
+	@Override
+	public List<Leg> calcRoute(final Facility fromFacility, final Facility toFacility, final double departureTime, final Person person) {
+		return calcRoutes(fromFacility, toFacility, departureTime, departureTime, person).get(0);
+	}
+
+	/**
+	 * Computes the journeys for all departures in the time window from <code>earliestDeparture</code> to
+	 * <code>latestDeparture</code>.
+	 *
+	 * @return the journeys, ordered by departure time, each as the list of its legs.  If there is no journey, or
+	 * walking is cheaper than all of them, the result contains the direct walk only.
+	 */
+	public List<List<Leg>> calcRoutes(final Facility fromFacility, final Facility toFacility, final double earliestDeparture,
+			final double latestDeparture, final Person person) {
+		Coord fromCoord = fromFacility.getCoord();
+		Coord toCoord = toFacility.getCoord();
+		TransitRouterConfig config = getConfig();
+		List<TransitStopFacility> accessStops = new ArrayList<>(this.data.getNearestStops(fromCoord, config.getSearchRadius(), config.getExtensionRadius()));
+		List<TransitStopFacility> egressStops = new ArrayList<>(this.data.getNearestStops(toCoord, config.getSearchRadius(), config.getExtensionRadius()));
+		double[] accessTime = new double[accessStops.size()];
+		double[] accessCost = new double[accessStops.size()];
+		for (int i = 0; i < accessTime.length; i++) {
+			accessTime[i] = getWalkTime(person, fromCoord, accessStops.get(i).getCoord());
+			accessCost[i] = getWalkDisutility(person, fromCoord, accessStops.get(i).getCoord());
+		}
+		int[] egressStop = new int[egressStops.size()];
+		double[] egressTime = new double[egressStop.length];
+		double[] egressCost = new double[egressStop.length];
+		for (int i = 0; i < egressStop.length; i++) {
+			egressStop[i] = this.data.getIndex(egressStops.get(i));
+			egressTime[i] = getWalkTime(person, egressStops.get(i).getCoord(), toCoord);
+			egressCost[i] = getWalkDisutility(person, egressStops.get(i).getCoord(), toCoord);
+		}
+
+		resetAll();
+		// read from the config on every query, as the config might change between the queries
+		this.transferWaitCost = -config.getAdditionalTransferTime() * config.getMarginalUtilityOfWaitingPt_utl_s();
+		this.lineSwitchCost = -config.getUtilityOfLineSwitch_utl();
+		double directWalkCost = getWalkDisutility(person, fromCoord, toCoord);
+		List<List<Leg>> journeys = new ArrayList<>();
+		double[] departures = getDepartures(accessStops, accessTime, earliestDeparture, latestDeparture);
+		for (int d = departures.length - 1; d >= 0; d--) {
+			double departure = departures[d];
+			if (search(accessStops, accessTime, accessCost, egressStop, egressTime, egressCost, departure)) {
+				if (directWalkCost * config.getDirectWalkFactor() < this.targetCost) {
+					continue;
+				}
+				TransitPassengerRoute route = createPassengerRoute();
+				journeys.add(convertPassengerRouteToLegList(departure, route, fromCoord, toCoord, person));
+			}
+		}
+		if (journeys.isEmpty()) {
+			journeys.add(createDirectWalkLegList(null, fromCoord, toCoord));
+		}
+		Collections.reverse(journeys);
+		return journeys;
+	}
+
+	/**
+	 * @return the departure times at the origin within the window that reach a departure at one of the access
+	 * stops just in time, sorted.  If there is none, the earliest departure time only.
+	 */
+	private double[] getDepartures(final List<TransitStopFacility> accessStops, final double[] accessTime,
+			final double earliestDeparture, final double latestDeparture) {
+		RaptorData data = this.data;
+		double[] departures = new double[8];
+		int count = 0;
+		if (latestDeparture > earliestDeparture) {
+			for (int i = 0; i < accessTime.length; i++) {
+				int s = data.getIndex(accessStops.get(i));
+				for (int k = data.stopRouteStopFirst[s]; k < data.stopRouteStopFirst[s + 1]; k++) {
+					int g = data.stopRouteStops[k];
+					int r = data.routeStopRoute[g];
+					double time = earliestDeparture + accessTime[i];
+					while (true) {
+						double trip = data.getEarliestTrip(r, g, time);
+						double departure = trip + data.routeStopDepartureOffset[g] - accessTime[i];
+						if (departure > latestDeparture) {
+							break;
+						}
+						if (count == departures.length) {
+							departures = Arrays.copyOf(departures, 2 * count);
+						}
+						departures[count++] = departure;
+						time = trip + data.routeStopDepartureOffset[g] + 1.0;
+					}
+				}
+			}
+		}
+		if (count == 0) {
+			return new double[] { earliestDeparture };
+		}
+		Arrays.sort(departures, 0, count);
+		int distinct = 1;
+		for (int i = 1; i < count; i++) {
+			if (departures[i] != departures[distinct - 1]) {
+				departures[distinct++] = departures[i];
+			}
+		}
+		return Arrays.copyOf(departures, distinct);
+	}
+
+	/**
+	 * Runs the rounds for one departure time, keeping the labels of the previous (later) departures.
+	 *
+	 * @return whether a journey better than those of the previous departures was found.
+	 */
+	private boolean search(final List<TransitStopFacility> accessStops, final double[] accessTime, final double[] accessCost,
+			final int[] egressStop, final double[] egressTime, final double[] egressCost, final double departure) {
+		RaptorData data = this.data;
+		int previousTargetRound = this.targetRound;
+		int previousTargetStop = this.targetStop;
+		this.targetRound = -1;
+		this.run++;
+		// journeys of more than a day are not searched, this also stops cycles with negative transfer costs
+		this.latestArrival = departure + RaptorData.MIDNIGHT;
+
+		Round round0 = getRound(0);
+		for (int i = 0; i < accessTime.length; i++) {
+			int s = data.getIndex(accessStops.get(i));
+			double time = departure + accessTime[i];
+			if (isBetter(accessCost[i], time, this.bestReady, s)) {
+				this.bestReady.set(s, accessCost[i], time);
+				round0.setReady(s, accessCost[i], time, -1, false, this.run);
+				markStop(s);
+			}
+		}
+
+		for (int k = 1; this.markedStopCount > 0; k++) {
+			Round previous = getRound(k - 1);
+			Round round = getRound(k);
+			collectRoutes();
+			scanRoutes(previous, round);
+
+			for (int i = 0; i < egressStop.length; i++) {
+				int s = egressStop[i];
+				if (this.markedStops[s] && round.arrivalCost[s] < Double.POSITIVE_INFINITY) {
+					double cost = round.arrivalCost[s] + egressCost[i];
+					double time = round.arrivalTime[s] + egressTime[i];
+					if (cost < this.targetCost || (cost == this.targetCost && time < this.targetTime)) {
+						this.targetCost = cost;
+						this.targetTime = time;
+						this.targetRound = k;
+						this.targetStop = s;
+					}
+				}
+			}
+
+			relaxTransfers(round);
+		}
+
+		if (this.targetRound < 0) {
+			this.targetRound = previousTargetRound;
+			this.targetStop = previousTargetStop;
+			return false;
+		}
+		return true;
+	}
+
+	private void collectRoutes() {
+		RaptorData data = this.data;
+		for (int i = 0; i < this.markedStopCount; i++) {
+			int s = this.markedStopList[i];
+			this.markedStops[s] = false;
+			for (int k = data.stopRouteStopFirst[s]; k < data.stopRouteStopFirst[s + 1]; k++) {
+				int g = data.stopRouteStops[k];
+				int r = data.routeStopRoute[g];
+				if (this.routeScanFrom[r] == Integer.MAX_VALUE) {
+					this.markedRoutes[this.markedRouteCount++] = r;
+				}
+				if (g < this.routeScanFrom[r]) {
+					this.routeScanFrom[r] = g;
+				}
+			}
+		}
+		this.markedStopCount = 0;
+	}
+
+	/**
+	 * Scans every marked route from its first marked stop, boarding the earliest reachable trip, and switching to
+	 * an earlier trip whenever boarding at a later stop of the route is cheaper.
+	 */
+	private void scanRoutes(final Round previous, final Round round) {
+		RaptorData data = this.data;
+		TransitRouterConfig config = getConfig();
+		double inVehicleCost = -config.getMarginalUtilityOfTravelTimePt_utl_s();
+		double distanceCost = -config.getMarginalUtilityOfTravelDistancePt_utl_m();
+		double waitCost = -config.getMarginalUtilityOfWaitingPt_utl_s();
+
+		for (int i = 0; i < this.markedRouteCount; i++) {
+			int r = this.markedRoutes[i];
+			int first = this.routeScanFrom[r];
+			this.routeScanFrom[r] = Integer.MAX_VALUE;
+			int last = data.routeStopFirst[r + 1];
+
+			double trip = Double.NaN;
+			int boardedAt = -1;
+			double cost = 0.0; // when departing from route stop g
+			for (int g = first; g < last; g++) {
+				int s = data.routeStopStop[g];
+				if (boardedAt >= 0) {
+					cost += (data.routeStopArrivalOffset[g] - data.routeStopDepartureOffset[g - 1]) * inVehicleCost
+							+ (data.routeStopDistance[g] - data.routeStopDistance[g - 1]) * distanceCost;
+					double time = trip + data.routeStopArrivalOffset[g];
+					if (isBetter(cost, time, this.bestArrival, s) && isBetterThanTarget(cost, time)) {
+						this.bestArrival.set(s, cost, time);
+						round.setArrival(s, cost, time, boardedAt, trip);
+						markStop(s);
+					}
+					cost += (data.routeStopDepartureOffset[g] - data.routeStopArrivalOffset[g]) * inVehicleCost;
+				}
+				// only board with the labels of this departure, the others are just bounds
+				if (previous.readyRun[s] == this.run && g < last - 1) {
+					double readyTime = previous.readyTime[s];
+					double boardTrip = data.getEarliestTrip(r, g, readyTime);
+					if (boardTrip == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					double vehicleArrival = boardTrip + data.routeStopArrivalOffset[g];
+					double vehicleDeparture = boardTrip + data.routeStopDepartureOffset[g];
+					double boardCost = previous.readyCost[s]
+							+ Math.max(0.0, vehicleArrival - readyTime) * waitCost
+							+ (vehicleDeparture - Math.max(readyTime, vehicleArrival)) * inVehicleCost;
+					if (boardedAt < 0 || boardCost < cost || (boardCost == cost && boardTrip < trip)) {
+						trip = boardTrip;
+						boardedAt = g;
+						cost = boardCost;
+					}
+				}
+			}
+		}
+		this.markedRouteCount = 0;
+	}
+
+	/**
+	 * Lets the passengers that arrived by pt in this round transfer, to the same stop or to the stops within
+	 * walking distance, from where they might walk on to further stops, as on the transfer links of the
+	 * {@link TransitRouterNetwork}.  Every transfer costs as in {@link TransitRouterNetworkTravelTimeAndDisutility}.
+	 */
+	private void relaxTransfers(final Round round) {
+		this.relaxation++;
+		int arrivals = this.markedStopCount;
+		for (int i = 0; i < arrivals; i++) {
+			int s = this.markedStopList[i];
+			double cost = round.arrivalCost[s] + this.transferWaitCost + this.lineSwitchCost;
+			double time = round.arrivalTime[s] + getConfig().getAdditionalTransferTime();
+			if (isBetter(cost, time, this.bestReady, s) && isBetterThanTarget(cost, time)) {
+				this.bestReady.set(s, cost, time);
+				round.setReady(s, cost, time, s, false, this.run);
+			}
+			walk(round, s, round.arrivalCost[s], round.arrivalTime[s], false);
+		}
+		while (this.walkQueueSize > 0) {
+			int s = this.walkQueue[this.walkQueueHead];
+			this.walkQueueHead = (this.walkQueueHead + 1) % this.walkQueue.length;
+			this.walkQueueSize--;
+			this.isInWalkQueue[s] = false;
+			this.walkedInRelaxation[s] = this.relaxation;
+			walk(round, s, round.readyCost[s], round.readyTime[s], true);
+		}
+		// only the stops with a new ready label are to be scanned in the next round
+		int count = 0;
+		for (int i = 0; i < this.markedStopCount; i++) {
+			int s = this.markedStopList[i];
+			if (round.readyRun[s] == this.run) {
+				this.markedStopList[count++] = s;
+			} else {
+				this.markedStops[s] = false;
+			}
+		}
+		this.markedStopCount = count;
+	}
+
+	private void walk(final Round round, final int from, final double fromCost, final double fromTime, final boolean isFromTransfer) {
+		RaptorData data = this.data;
+		TransitRouterConfig config = getConfig();
+		double additionalTransferTime = config.getAdditionalTransferTime();
+		double walkSpeed = config.getBeelineWalkSpeed();
+		double walkTimeCost = -config.getMarginalUtilityOfTravelTimeWalk_utl_s();
+		double walkDistanceCost = -config.getMarginalUtilityOfTravelDistanceWalk_utl_m();
+		for (int t = data.transferFirst[from]; t < data.transferFirst[from + 1]; t++) {
+			int to = data.transferTarget[t];
+			double distance = data.transferDistance[t];
+			double walkTime = distance / walkSpeed;
+			double cost = fromCost + walkTime * walkTimeCost + distance * walkDistanceCost + this.transferWaitCost + this.lineSwitchCost;
+			double time = fromTime + walkTime + additionalTransferTime;
+			// as in Dijkstra, the stops walked on from are settled, the transfers might have negative costs
+			if (this.walkedInRelaxation[to] != this.relaxation
+					&& isBetter(cost, time, this.bestReady, to) && isBetterThanTarget(cost, time)) {
+				this.bestReady.set(to, cost, time);
+				round.setReady(to, cost, time, from, isFromTransfer, this.run);
+				markStop(to);
+				if (!this.isInWalkQueue[to]) {
+					this.isInWalkQueue[to] = true;
+					this.walkQueue[(this.walkQueueHead + this.walkQueueSize) % this.walkQueue.length] = to;
+					this.walkQueueSize++;
+				}
+			}
+		}
+	}
+
+	private TransitPassengerRoute createPassengerRoute() {
+		RaptorData data = this.data;
+		List<RouteSegment> segments = new ArrayList<>();
+		int s = this.targetStop;
+		for (int k = this.targetRound; k > 0; k--) {
+			Round round = this.rounds.get(k);
+			Round previous = this.rounds.get(k - 1);
+			int g = round.arrivalBoardedAt[s];
+			int r = data.routeStopRoute[g];
+			int boardStop = data.routeStopStop[g];
+			segments.add(new RouteSegment(data.stops[boardStop], data.stops[s], round.arrivalTime[s] - previous.readyTime[boardStop],
+					data.routeLines[r].getId(), data.routes[r].getId()));
+			if (previous.readyFrom[boardStop] >= 0) {
+				// consecutive transfers form one segment, as in the TransitLeastCostPathTree
+				int from = boardStop;
+				while (previous.isReadyFromTransfer[from]) {
+					from = previous.readyFrom[from];
+				}
+				from = previous.readyFrom[from];
+				segments.add(new RouteSegment(data.stops[from], data.stops[boardStop], previous.readyTime[boardStop] - previous.arrivalTime[from],
+						null, null));
+				s = from;
+			}
+		}
+		Collections.reverse(segments);
+		return new TransitPassengerRoute(this.targetCost, segments);
+	}
+
+	private boolean isBetter(final double cost, final double time, final Labels best, final int s) {
+		return cost < best.cost[s] || (cost == best.cost[s] && time < best.time[s]);
+	}
+
+	private boolean isBetterThanTarget(final double cost, final double time) {
+		if (time > this.latestArrival) {
+			return false;
+		}
+		return cost < this.targetCost || (cost == this.targetCost && time < this.targetTime);
+	}
+
+	private void markStop(final int s) {
+		if (!this.markedStops[s]) {
+			this.markedStops[s] = true;
+			this.markedStopList[this.markedStopCount++] = s;
+		}
+	}
+
+	private Round getRound(final int k) {
+		while (this.rounds.size() <= k) {
+			this.rounds.add(new Round(this.data.stops.length));
+		}
+		return this.rounds.get(k);
+	}
+
+	private void resetAll() {
+		for (Round round : this.rounds) {
+			round.reset();
+		}
+		this.bestArrival.reset();
+		this.bestReady.reset();
+		for (int i = 0; i < this.markedStopCount; i++) {
+			this.markedStops[this.markedStopList[i]] = false;
+		}
+		this.markedStopCount = 0;
+		this.targetCost = Double.POSITIVE_INFINITY;
+		this.targetTime = Double.POSITIVE_INFINITY;
+		this.targetRound = -1;
+		this.targetStop = -1;
+	}
+
+	/**
+	 * The best labels over all rounds, reset lazily by only touching the stops labelled before.
+	 */
+	private static class Labels {
+		final double[] cost;
+		final double[] time;
+		private final int[] touched;
+		private int touchedCount = 0;
+
+		Labels(int n) {
+			this.cost = new double[n];
+			this.time = new double[n];
+			this.touched = new int[n];
+			Arrays.fill(this.cost, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.time, Double.POSITIVE_INFINITY);
+		}
+
+		void set(int s, double cost, double time) {
+			if (this.time[s] == Double.POSITIVE_INFINITY) {
+				this.touched[this.touchedCount++] = s;
+			}
+			this.cost[s] = cost;
+			this.time[s] = time;
+		}
+
+		void reset() {
+			for (int i = 0; i < this.touchedCount; i++) {
+				this.cost[this.touched[i]] = Double.POSITIVE_INFINITY;
+				this.time[this.touched[i]] = Double.POSITIVE_INFINITY;
+			}
+			this.touchedCount = 0;
+		}
+	}
+
+	/**
+	 * The labels of one round: the arrivals by pt, and the stops where the passengers are ready to board, i.e. after
+	 * the access walk in round 0 and after transferring in later rounds.
+	 */
+	private static final class Round {
+		final double[] arrivalCost;
+		final double[] arrivalTime;
+		final int[] arrivalBoardedAt;
+		final double[] arrivalTrip;
+		final double[] readyCost;
+		final double[] readyTime;
+		final int[] readyFrom;
+		final boolean[] isReadyFromTransfer;
+		final int[] readyRun;
+		private final int[] touched;
+		private int touchedCount = 0;
+		private final boolean[] isTouched;
+
+		Round(int n) {
+			this.arrivalCost = new double[n];
+			this.arrivalTime = new double[n];
+			this.arrivalBoardedAt = new int[n];
+			this.arrivalTrip = new double[n];
+			this.readyCost = new double[n];
+			this.readyTime = new double[n];
+			this.readyFrom = new int[n];
+			this.isReadyFromTransfer = new boolean[n];
+			this.readyRun = new int[n];
+			this.touched = new int[n];
+			this.isTouched = new boolean[n];
+			Arrays.fill(this.arrivalCost, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.arrivalTime, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.readyCost, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.readyTime, Double.POSITIVE_INFINITY);
+		}
+
+		void setArrival(int s, double cost, double time, int boardedAt, double trip) {
+			touch(s);
+			this.arrivalCost[s] = cost;
+			this.arrivalTime[s] = time;
+			this.arrivalBoardedAt[s] = boardedAt;
+			this.arrivalTrip[s] = trip;
+		}
+
+		void setReady(int s, double cost, double time, int from, boolean isFromTransfer, int run) {
+			touch(s);
+			this.readyRun[s] = run;
+			this.isReadyFromTransfer[s] = isFromTransfer;
+			this.readyCost[s] = cost;
+			this.readyTime[s] = time;
+			this.readyFrom[s] = from;
+		}
+
+		private void touch(int s) {
+			if (!this.isTouched[s]) {
+				this.isTouched[s] = true;
+				this.touched[this.touchedCount++] = s;
+			}
+		}
+
+		void reset() {
+			for (int i = 0; i < this.touchedCount; i++) {
+				int s = this.touched[i];
+				this.isTouched[s] = false;
+				this.arrivalCost[s] = Double.POSITIVE_INFINITY;
+				this.arrivalTime[s] = Double.POSITIVE_INFINITY;
+				this.readyCost[s] = Double.POSITIVE_INFINITY;
+				this.readyTime[s] = Double.POSITIVE_INFINITY;
+				this.readyRun[s] = 0;
+			}
+			this.touchedCount = 0;
+		}
+	}
+}
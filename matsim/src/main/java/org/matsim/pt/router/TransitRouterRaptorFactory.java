@@ -0,0 +1,73 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptorFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Creates {@link TransitRouterRaptor}s.  The search data is created once, on first use, and shared by all routers;
+ * it is created again after the transit schedule has changed.
+ */
+@Singleton
+public class TransitRouterRaptorFactory implements Provider<TransitRouter> {
+
+	private final TransitRouterConfig config;
+	private final TransitSchedule transitSchedule;
+	private RaptorData data;
+
+	@Inject
+	TransitRouterRaptorFactory(final TransitSchedule schedule, final EventsManager events, final Config config) {
+		this(schedule, new TransitRouterConfig(
+				config.planCalcScore(),
+				config.plansCalcRoute(),
+				config.transitRouter(),
+				config.vspExperimental()));
+		events.addHandler((TransitScheduleChangedEventHandler) event -> {
+			synchronized (this) {
+				this.data = null;
+			}
+		});
+	}
+
+	public TransitRouterRaptorFactory(final TransitSchedule schedule, final TransitRouterConfig config) {
+		this.config = config;
+		this.transitSchedule = schedule;
+	}
+
+	@Override
+	public TransitRouter get() {
+		return new TransitRouterRaptor(this.config, getData());
+	}
+
+	private synchronized RaptorData getData() {
+		if (this.data == null) {
+			this.data = RaptorData.create(this.transitSchedule, this.config.getBeelineWalkConnectionDistance());
+		}
+		return this.data;
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.matsim.api.core.v01;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		IdMap<TPerson, String> map = new IdMap<>(2);
+		Id<TPerson> id1 = Id.create("1", TPerson.class);
+		Id<TPerson> id2 = Id.create("2", TPerson.class);
+		Id<TPerson> id3 = Id.create("3", TPerson.class);
+
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(id1, "one"));
+		Assert.assertNull(map.put(id3, "three")); // needs to grow
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("one", map.get(id1));
+		Assert.assertNull(map.get(id2));
+		Assert.assertEquals("three", map.get(id3));
+		Assert.assertTrue(map.containsKey(id3));
+		Assert.assertFalse(map.containsKey(id2));
+		Assert.assertTrue(map.containsValue("three"));
+
+		Assert.assertEquals("one", map.put(id1, "eins"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("eins", map.get(id1));
+
+		Assert.assertEquals("eins", map.remove(id1));
+		Assert.assertNull(map.remove(id1));
+		Assert.assertEquals(1, map.size());
+		Assert.assertNull(map.get(id1));
+	}
+
+	@Test
+	public void testOtherIdTypes() {
+		IdMap<TPerson, String> map = new IdMap<>(TPerson.class);
+		Id<TPerson> personId = Id.create("a", TPerson.class);
+		Id<TVehicle> vehicleId = Id.create("a", TVehicle.class);
+		map.put(personId, "person");
+
+		Assert.assertNull(map.get(vehicleId));
+		Assert.assertNull(map.get("a"));
+		Assert.assertNull(map.remove(vehicleId));
+		Assert.assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testIterationInIndexOrder() {
+		IdMap<TPerson, Integer> map = new IdMap<>(TPerson.class);
+		List<Id<TPerson>> ids = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			ids.add(Id.create("it" + i, TPerson.class));
+		}
+		for (int i = 9; i >= 0; i--) {
+			map.put(ids.get(i), i);
+		}
+
+		int expected = 0;
+		for (Map.Entry<Id<TPerson>, Integer> e : map.entrySet()) {
+			Assert.assertSame(ids.get(expected), e.getKey());
+			Assert.assertEquals(expected, (int) e.getValue());
+			expected++;
+		}
+		Assert.assertEquals(10, expected);
+
+		Iterator<Map.Entry<Id<TPerson>, Integer>> iter = map.entrySet().iterator();
+		while (iter.hasNext()) {
+			if (iter.next().getValue() % 2 == 0) {
+				iter.remove();
+			}
+		}
+		Assert.assertEquals(5, map.size());
+		Assert.assertFalse(map.containsKey(ids.get(4)));
+		Assert.assertTrue(map.containsKey(ids.get(5)));
+		Assert.assertEquals(5, map.keySet().size());
+		Assert.assertEquals(5, map.values().size());
+	}
+
+	private static class TPerson {}
+	private static class TVehicle {}
+}
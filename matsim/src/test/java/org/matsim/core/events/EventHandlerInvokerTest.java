@@ -0,0 +1,122 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.EventHandler;
+
+public class EventHandlerInvokerTest {
+
+	@Test
+	public void testCreate_customEvent_callsHandlerWithoutReflection() throws NoSuchMethodException {
+		EventHandlerInvoker invoker = EventHandlerInvoker.create(RainEvent.class,
+				RainEventHandler.class.getMethod("handleEvent", RainEvent.class));
+		RecordingRainEventHandler handler = new RecordingRainEventHandler();
+		RainEvent event = new RainEvent(123.45);
+
+		invoker.invoke(handler, event);
+
+		Assert.assertEquals(1, handler.events.size());
+		Assert.assertSame(event, handler.events.get(0));
+		assertNotCalledByReflection(handler.stackTrace);
+	}
+
+	@Test
+	public void testCreate_customEvent_wrapsExceptionOfHandler() throws NoSuchMethodException {
+		EventHandlerInvoker invoker = EventHandlerInvoker.create(RainEvent.class,
+				RainEventHandler.class.getMethod("handleEvent", RainEvent.class));
+		IllegalStateException exception = new IllegalStateException();
+		RainEventHandler handler = new RainEventHandler() {
+			@Override
+			public void handleEvent(RainEvent event) {
+				throw exception;
+			}
+		};
+
+		try {
+			invoker.invoke(handler, new RainEvent(123.45));
+			Assert.fail("expected exception, but got none.");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getMessage().startsWith("problem invoking EventHandler"));
+			Assert.assertSame(exception, e.getCause());
+		}
+	}
+
+	@Test
+	public void testProcessEvent_customEvent_callsHandlerWithoutReflection() {
+		EventsManagerImpl manager = new EventsManagerImpl();
+		RecordingRainEventHandler handler = new RecordingRainEventHandler();
+		manager.addHandler(handler);
+		RainEvent event = new RainEvent(123.45);
+
+		manager.processEvent(event);
+
+		Assert.assertEquals(1, handler.events.size());
+		Assert.assertSame(event, handler.events.get(0));
+		assertNotCalledByReflection(handler.stackTrace);
+	}
+
+	/**
+	 * The reflective fallback would call the handler through Method.invoke(); only the calls between this test and the
+	 * handler are checked, as JUnit calls the test itself by reflection.
+	 */
+	private static void assertNotCalledByReflection(StackTraceElement[] stackTrace) {
+		for (StackTraceElement element : stackTrace) {
+			if (element.getClassName().equals(EventHandlerInvokerTest.class.getName())) {
+				return;
+			}
+			Assert.assertNotEquals("handler called by reflection: " + element, Method.class.getName(),
+					element.getClassName());
+		}
+		Assert.fail("test method not found in the stack trace");
+	}
+
+	public static class RainEvent extends Event {
+		public RainEvent(final double time) {
+			super(time);
+		}
+
+		@Override
+		public String getEventType() {
+			return "rain";
+		}
+	}
+
+	public interface RainEventHandler extends EventHandler {
+		void handleEvent(RainEvent event);
+	}
+
+	private static class RecordingRainEventHandler implements RainEventHandler {
+		private final List<RainEvent> events = new ArrayList<>();
+		private StackTraceElement[] stackTrace;
+
+		@Override
+		public void handleEvent(RainEvent event) {
+			this.events.add(event);
+			this.stackTrace = new Throwable().getStackTrace();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package org.matsim.core.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class EventsReaderBinaryTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	/**
+	 * Enough events for several chunks, with fractional times, strings that are not in the dictionary yet, and an
+	 * event type that is not known to the reader.
+	 */
+	private static List<Event> createEvents() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			double time = i;
+			events.add(new LinkEnterEvent(time, Id.createVehicleId(i % 50), Id.createLinkId(i % 7)));
+			events.add(new LinkLeaveEvent(time + 0.25, Id.createVehicleId(i % 50), Id.createLinkId(i % 7)));
+			if (i % 100 == 0) {
+				events.add(new ActivityEndEvent(time + 1, Id.createPersonId(i), Id.createLinkId(1), null, "höme"));
+				events.add(new PersonMoneyEvent(time + 1, Id.createPersonId(i), -1.0 / 3.0));
+				GenericEvent generic = new GenericEvent("myEvent", time + 1);
+				generic.getAttributes().put("key", "value " + i);
+				events.add(generic);
+			}
+		}
+		return events;
+	}
+
+	private static void write(EventWriterBinary writer, List<Event> events) {
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+	}
+
+	@Test
+	public void testWriteReadFile() {
+		List<Event> events = createEvents();
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		write(new EventWriterBinary(filename), events);
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		eventsManager.addHandler(collector);
+		new MatsimEventsReader(eventsManager).readFile(filename);
+
+		assertSameEvents(events, collector.getEvents());
+	}
+
+	@Test
+	public void testWriteReadStream() {
+		List<Event> events = createEvents();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(new EventWriterBinary(out), events);
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		eventsManager.addHandler(collector);
+		new EventsReaderBinary(eventsManager).readStream(new ByteArrayInputStream(out.toByteArray()));
+
+		assertSameEvents(events, collector.getEvents());
+	}
+
+	@Test
+	public void testReadTimeWindow() {
+		List<Event> events = createEvents();
+		String filename = this.utils.getOutputDirectory() + "events.bin";
+		write(new EventWriterBinary(filename), events);
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		eventsManager.addHandler(collector);
+		new EventsReaderBinary(eventsManager).readFile(filename, 2000.5, 3001.0);
+
+		List<Event> expected = new ArrayList<>();
+		for (Event event : events) {
+			if (event.getTime() >= 2000.5 && event.getTime() <= 3001.0) {
+				expected.add(event);
+			}
+		}
+		assertSameEvents(expected, collector.getEvents());
+	}
+
+	private static void assertSameEvents(List<Event> expected, List<Event> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getEventType(), actual.get(i).getEventType());
+			Assert.assertEquals(expected.get(i).getTime(), actual.get(i).getTime(), 0.0);
+			Assert.assertEquals(expected.get(i).getAttributes(), actual.get(i).getAttributes());
+		}
+	}
+}
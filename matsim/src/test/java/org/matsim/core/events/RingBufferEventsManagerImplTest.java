@@ -0,0 +1,122 @@
+package org.matsim.core.events;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.Assert.assertThat;
+
+public class RingBufferEventsManagerImplTest {
+
+	@Test
+	public void testEventHandlerCanProduceAdditionalEventLateInSimStep() {
+		final RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(8, true, 16);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car"));
+			}
+		});
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		assertThat(collector.getEvents(),
+			contains(
+					new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(0.0, Id.createPersonId(0), Id.createLinkId(0), "car"),
+					new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car")));
+	}
+
+	/**
+	 * Many more events than slots in the ring, so that it wraps around several times; every handler must still see
+	 * every event, in order.  Runs twice, to check that the manager can be re-used for the next iteration.
+	 */
+	@Test
+	public void testAllHandlersSeeAllEventsInOrder() {
+		RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(3, false, 64);
+		OrderCheckingHandler[] handlers = new OrderCheckingHandler[5];
+		for (int i = 0; i < handlers.length; i++) {
+			handlers[i] = new OrderCheckingHandler();
+			events.addHandler(handlers[i]);
+		}
+		for (int iteration = 0; iteration < 2; iteration++) {
+			events.resetHandlers(iteration);
+			events.initProcessing();
+			for (int time = 0; time < 100; time++) {
+				for (int i = 0; i < 100; i++) {
+					events.processEvent(new LinkEnterEvent(time, Id.createVehicleId(i), Id.createLinkId(0)));
+				}
+				events.afterSimStep(time);
+			}
+			events.finishProcessing();
+
+			for (OrderCheckingHandler handler : handlers) {
+				Assert.assertEquals(10000, handler.count);
+				Assert.assertTrue(handler.ordered);
+			}
+		}
+	}
+
+	@Test
+	public void testExceptionInEventHandler() {
+		RingBufferEventsManagerImpl events = new RingBufferEventsManagerImpl(2, false, 16);
+		events.addHandler((LinkEnterEventHandler) event -> {
+			throw new ArithmeticException();
+		});
+		events.addHandler(new OrderCheckingHandler());
+		events.initProcessing();
+		for (int i = 0; i < 100; i++) {
+			events.processEvent(new LinkEnterEvent(i, Id.createVehicleId(i), Id.createLinkId(0)));
+		}
+		try {
+			events.finishProcessing();
+			Assert.fail("expected exception, but got none.");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+		}
+	}
+
+	private static class OrderCheckingHandler implements LinkEnterEventHandler {
+		int count = 0;
+		double lastTime = 0.0;
+		boolean ordered = true;
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			if (event.getTime() < this.lastTime) {
+				this.ordered = false;
+			}
+			this.lastTime = event.getTime();
+			this.count++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+			this.count = 0;
+			this.lastTime = 0.0;
+			this.ordered = true;
+		}
+	}
+}
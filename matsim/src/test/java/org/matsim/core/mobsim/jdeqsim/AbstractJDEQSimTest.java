@@ -35,6 +35,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.events.EventsManagerImpl;
 import org.matsim.core.mobsim.jdeqsim.util.CppEventFileParser;
@@ -76,10 +77,14 @@ public abstract class AbstractJDEQSimTest {
 		EventsManagerImpl events = new EventsManagerImpl();
 		events.addHandler(new PersonEventCollector());
 		events.initProcessing();
-		new JDEQSimulation(ConfigUtils.addOrGetModule(scenario.getConfig(), JDEQSimConfigGroup.NAME, JDEQSimConfigGroup.class), scenario, events).run();
+		createJDEQSimulation(ConfigUtils.addOrGetModule(scenario.getConfig(), JDEQSimConfigGroup.NAME, JDEQSimConfigGroup.class), scenario, events).run();
 		events.finishProcessing();
 	}
 
+	protected JDEQSimulation createJDEQSimulation(JDEQSimConfigGroup config, Scenario scenario, EventsManager events) {
+		return new JDEQSimulation(config, scenario, events);
+	}
+
 	protected void checkAscendingTimeStamps() {
 		// all events of one agent must have ascending time stamps
 		double lastTimeStamp;
@@ -0,0 +1,85 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelJDEQSimulationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.jdeqsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class ParallelJDEQSimulationTest extends AbstractJDEQSimTest {
+
+	@Override
+	protected JDEQSimulation createJDEQSimulation(JDEQSimConfigGroup config, Scenario scenario, EventsManager events) {
+		config.setNumberOfThreads(4);
+		return new ParallelJDEQSimulation(config, scenario, events);
+	}
+
+	@Test
+	public void test_equilPlans100() {
+		Config config = ConfigUtils.loadConfig("test/scenarios/equil/config.xml");
+		MatsimRandom.reset(config.global().getRandomSeed());
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		ScenarioUtils.loadScenario(scenario);
+
+		this.runJDEQSim(scenario);
+
+		assertEquals(scenario.getPopulation().getPersons().size(), super.eventsByPerson.size());
+		super.checkAscendingTimeStamps();
+		super.checkEventsCorrespondToPlans(scenario.getPopulation());
+
+		// the events of the partitions are merged by time
+		double lastTime = Double.NEGATIVE_INFINITY;
+		for (Event event : super.allEvents) {
+			if (!(event instanceof ActivityStartEvent)) {
+				// the activity start is reported at the planned start time, which may be later than the arrival
+				assertTrue(lastTime <= event.getTime());
+				lastTime = event.getTime();
+			}
+		}
+
+		// the simulation is deterministic
+		List<String> events1 = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			events1.add(event.toString());
+		}
+		super.allEvents.clear();
+		super.eventsByPerson.clear();
+		this.runJDEQSim(scenario);
+		List<String> events2 = new ArrayList<>();
+		for (Event event : super.allEvents) {
+			events2.add(event.toString());
+		}
+		assertEquals(events1, events2);
+	}
+
+}
@@ -0,0 +1,87 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+
+public class QNetsimEngineWorkStealingTest {
+
+	@Test
+	public void testSameTrafficAsWithFixedRunners() {
+		EventCounter withRunners = runEquil(false, 1);
+		EventCounter withWorkStealing = runEquil(true, 4);
+
+		Assert.assertTrue(withRunners.arrivals > 0);
+		Assert.assertEquals("wrong number of arrivals.", withRunners.arrivals, withWorkStealing.arrivals);
+		Assert.assertEquals("wrong number of link enter events.", withRunners.linkEnters, withWorkStealing.linkEnters);
+	}
+
+	private static EventCounter runEquil(boolean usingWorkStealing, int numberOfThreads) {
+		Config config = ConfigUtils.loadConfig(IOUtils.newUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setInputFile("plans100.xml");
+		config.qsim().setUsingWorkStealing(usingWorkStealing);
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventCounter counter = new EventCounter();
+		events.addHandler(counter);
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		new QSimBuilder(config) //
+				.useDefaults() //
+				.build(scenario, events) //
+				.run();
+		return counter;
+	}
+
+	private static class EventCounter implements PersonArrivalEventHandler, LinkEnterEventHandler {
+		int arrivals = 0;
+		int linkEnters = 0;
+
+		@Override
+		public void handleEvent(PersonArrivalEvent event) {
+			this.arrivals++;
+		}
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.linkEnters++;
+		}
+
+		@Override
+		public void reset(int iteration) {
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QueueWithBufferHolesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueueWithBufferHolesTest {
+
+	@Test
+	public void testFirstInFirstOut() {
+		QueueWithBuffer.Holes holes = new QueueWithBuffer.Holes();
+		Assert.assertTrue(holes.isEmpty());
+
+		// wrap around the ring buffer several times, with up to 40 holes so that it has to grow
+		int added = 0;
+		int polled = 0;
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 4 * round; i++) {
+				holes.add(added, 1.0 + added % 3);
+				added++;
+			}
+			Assert.assertEquals(added - polled, holes.size());
+			while (holes.size() > round) {
+				Assert.assertEquals(polled, holes.peekEarliestLinkExitTime(), 0.0);
+				Assert.assertEquals(1.0 + polled % 3, holes.pollSizeInEquivalents(), 0.0);
+				polled++;
+			}
+		}
+
+		Queue<QueueWithBuffer.Hole> queue = holes.toQueue();
+		Assert.assertEquals(holes.size(), queue.size());
+		for (QueueWithBuffer.Hole hole : queue) {
+			Assert.assertEquals(polled, hole.getEarliestLinkExitTime(), 0.0);
+			Assert.assertEquals(1.0 + polled % 3, hole.getSizeInEquivalents(), 0.0);
+			polled++;
+		}
+		Assert.assertEquals(added, polled);
+
+		holes.clear();
+		Assert.assertTrue(holes.isEmpty());
+		holes.add(5.0, 2.0);
+		Assert.assertEquals(5.0, holes.peekEarliestLinkExitTime(), 0.0);
+	}
+
+}
@@ -0,0 +1,89 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class RegionGrowingQNodePartitionerTest {
+
+	/**
+	 * Ten nodes on a line, connected in both directions.
+	 */
+	private static Network createLineNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node previous = null;
+		for (int i = 0; i < 10; i++) {
+			Node node = NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(i * 100., 0.));
+			if (previous != null) {
+				NetworkUtils.createAndAddLink(network, Id.createLinkId(previous.getId() + "_" + node.getId()), previous, node, 100., 10., 1000., 1.);
+				NetworkUtils.createAndAddLink(network, Id.createLinkId(node.getId() + "_" + previous.getId()), node, previous, 100., 10., 1000., 1.);
+			}
+			previous = node;
+		}
+		return network;
+	}
+
+	@Test
+	public void testContiguousRegions() {
+		Network network = createLineNetwork();
+		Map<Id<Node>, Integer> assignment = new RegionGrowingQNodePartitioner().partition(network, 2);
+
+		Assert.assertEquals(10, assignment.size());
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("node " + i, 0, (int) assignment.get(Id.createNodeId(i)));
+		}
+		for (int i = 5; i < 10; i++) {
+			Assert.assertEquals("node " + i, 1, (int) assignment.get(Id.createNodeId(i)));
+		}
+	}
+
+	@Test
+	public void testRebalancing() {
+		Network network = createLineNetwork();
+		RegionGrowingQNodePartitioner partitioner = new RegionGrowingQNodePartitioner();
+		Map<Id<Node>, Integer> assignment = partitioner.partition(network, 2);
+		Assert.assertEquals(0, (int) assignment.get(Id.createNodeId(4)));
+
+		// runner 0 was much slower than runner 1, so it should get less work in the next iteration:
+		partitioner.notifyRunTimes(assignment, new long[]{9000, 1000});
+		Map<Id<Node>, Integer> rebalanced = partitioner.partition(network, 2);
+
+		Assert.assertEquals(0, (int) rebalanced.get(Id.createNodeId(3)));
+		Assert.assertEquals(1, (int) rebalanced.get(Id.createNodeId(4)));
+	}
+
+	@Test
+	public void testRoundRobin() {
+		Network network = createLineNetwork();
+		Map<Id<Node>, Integer> assignment = new RoundRobinQNodePartitioner().partition(network, 3);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("node " + i, i % 3, (int) assignment.get(Id.createNodeId(i)));
+		}
+	}
+
+}
@@ -24,6 +24,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -37,6 +45,7 @@ import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.routes.NetworkRoute;
@@ -378,4 +387,110 @@ public class PlanImplTest {
 		Assert.assertTrue(p.getPlanElements().get(3) instanceof Activity);
 	}
 
+	@Test
+	public void testCompact() {
+		Plan plan = PopulationUtils.createPlan();
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+		home.setLinkId(Id.create("1", Link.class));
+		home.setEndTime(7.5 * 3600);
+		Leg car = PopulationUtils.createAndAddLeg(plan, TransportMode.car);
+		car.setDepartureTime(7.5 * 3600);
+		car.setTravelTime(1234.5);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.create("1", Link.class),
+				new Id[] {Id.create("2", Link.class), Id.create("3", Link.class)}, Id.create("4", Link.class));
+		route.setDistance(3456.7);
+		route.setTravelCost(12.0);
+		car.setRoute(route);
+		Activity work = PopulationUtils.createAndAddActivityFromCoord(plan, "w", new Coord(100.25, -200, 3));
+		work.setLinkId(Id.create("4", Link.class));
+		work.setMaximumDuration(8 * 3600);
+		PopulationUtils.createAndAddLeg(plan, TransportMode.walk);
+		PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+		String before = plan.getPlanElements().toString();
+
+		Assert.assertTrue(PopulationUtils.compactPlan(plan));
+		Assert.assertTrue(PopulationUtils.compactPlan(plan));
+		Assert.assertEquals(5, plan.getPlanElements().size());
+		Assert.assertEquals(before, plan.getPlanElements().toString());
+		Assert.assertNotSame(home, plan.getPlanElements().get(0));
+
+		Activity decodedWork = (Activity) plan.getPlanElements().get(2);
+		Assert.assertEquals(new Coord(100.25, -200, 3), decodedWork.getCoord());
+		Assert.assertEquals(8 * 3600, decodedWork.getMaximumDuration(), 0.0);
+		NetworkRoute decodedRoute = (NetworkRoute) ((Leg) plan.getPlanElements().get(1)).getRoute();
+		Assert.assertEquals(route.getLinkIds(), decodedRoute.getLinkIds());
+		Assert.assertEquals(3456.7, decodedRoute.getDistance(), 0.0);
+		Assert.assertEquals(12.0, decodedRoute.getTravelCost(), 0.0);
+		Assert.assertNull(((Leg) plan.getPlanElements().get(3)).getRoute());
+
+		// the decoded plan can be modified as usual
+		PopulationUtils.createAndAddLeg(plan, TransportMode.bike);
+		Assert.assertTrue(PopulationUtils.compactPlan(plan));
+		PopulationUtils.createAndAddActivityFromCoord(plan, "l", new Coord(1, 1));
+		Assert.assertEquals(7, plan.getPlanElements().size());
+		Assert.assertEquals(TransportMode.bike, ((Leg) plan.getPlanElements().get(5)).getMode());
+	}
+
+	@Test
+	public void testCompact_getPlanElementsKeepingCompacted() {
+		Plan plan = PopulationUtils.createPlan();
+		PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+		PopulationUtils.createAndAddLeg(plan, TransportMode.walk);
+		PopulationUtils.createAndAddActivityFromCoord(plan, "w", new Coord(100, 0));
+		String before = plan.getPlanElements().toString();
+		Assert.assertTrue(PopulationUtils.compactPlan(plan));
+
+		// decoded for each call, as the plan stays compacted
+		List<PlanElement> elements1 = PopulationUtils.getPlanElementsKeepingCompacted(plan);
+		List<PlanElement> elements2 = PopulationUtils.getPlanElementsKeepingCompacted(plan);
+		Assert.assertEquals(before, elements1.toString());
+		Assert.assertNotSame(elements1, elements2);
+
+		List<PlanElement> decoded = plan.getPlanElements();
+		Assert.assertEquals(before, decoded.toString());
+		Assert.assertSame(decoded, PopulationUtils.getPlanElementsKeepingCompacted(plan));
+	}
+
+	@Test
+	public void testCompact_concurrentDecoding() throws InterruptedException, ExecutionException {
+		int numberOfThreads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			for (int i = 0; i < 100; i++) {
+				Plan plan = PopulationUtils.createPlan();
+				PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+				PopulationUtils.createAndAddLeg(plan, TransportMode.walk);
+				PopulationUtils.createAndAddActivityFromCoord(plan, "w", new Coord(100, 0));
+				Assert.assertTrue(PopulationUtils.compactPlan(plan));
+
+				CyclicBarrier barrier = new CyclicBarrier(numberOfThreads);
+				List<Future<List<PlanElement>>> futures = new ArrayList<>();
+				for (int t = 0; t < numberOfThreads; t++) {
+					futures.add(executor.submit(() -> {
+						barrier.await();
+						return plan.getPlanElements();
+					}));
+				}
+				// all threads see the one decoded list
+				List<PlanElement> decoded = futures.get(0).get();
+				Assert.assertEquals(3, decoded.size());
+				for (Future<List<PlanElement>> future : futures) {
+					Assert.assertSame(decoded, future.get());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testCompact_withAttributes() {
+		Plan plan = PopulationUtils.createPlan();
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+		home.getAttributes().putAttribute("attr", "value");
+
+		Assert.assertFalse(PopulationUtils.compactPlan(plan));
+		Assert.assertSame(home, plan.getPlanElements().get(0));
+	}
+
 }
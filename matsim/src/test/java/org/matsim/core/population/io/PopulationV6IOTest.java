@@ -1,15 +1,24 @@
 package org.matsim.core.population.io;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.*;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.testcases.MatsimTestUtils;
 
 /**
@@ -208,4 +217,66 @@ public class PopulationV6IOTest {
 				population.getAttributes().getAttribute( "type" ) ,
 				readScenario.getPopulation().getAttributes().getAttribute( "type" ) );
 	}
+	@Test
+	public void testParallelIO() throws IOException {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		population.getAttributes().putAttribute( "type" , "candidates" );
+		final PopulationFactory factory = population.getFactory();
+		for ( int i = 0; i < 2345; i++ ) {
+			final Person person = factory.createPerson(Id.createPersonId( "p" + i ));
+			person.getAttributes().putAttribute( "number" , i );
+			population.addPerson( person );
+			for ( int j = 0; j < 2; j++ ) {
+				final Plan plan = factory.createPlan();
+				person.addPlan( plan );
+				final Activity home = factory.createActivityFromCoord( "home" , new Coord( i , j ) );
+				home.setEndTime( 3600 * 7 + i );
+				plan.addActivity( home );
+				final Leg leg = factory.createLeg( "car" );
+				leg.setRoute( RouteUtils.createLinkNetworkRouteImpl( Id.create( i , Link.class ) , new Id[] { Id.create( j , Link.class ) } , Id.create( i + 1 , Link.class ) ) );
+				plan.addLeg( leg );
+				plan.addActivity( factory.createActivityFromCoord( "work" , new Coord( -i , j ) ) );
+			}
+		}
+
+		final String sequentialFile = utils.getOutputDirectory()+"/population.xml.gz";
+		new PopulationWriter( population ).writeV6( sequentialFile );
+		final String parallelFile = utils.getOutputDirectory()+"/population_parallel.xml.gz";
+		final PopulationWriter writer = new PopulationWriter( population );
+		writer.setNumberOfThreads( 4 );
+		writer.writeV6( parallelFile );
+
+		// the parallel writer produces a multi-member gzip file with the same content
+		Assert.assertEquals( readLines( sequentialFile ) , readLines( parallelFile ) );
+
+		final Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads( 4 );
+		final Scenario readScenario = ScenarioUtils.createScenario( config );
+		new PopulationReader( readScenario ).readFile( parallelFile );
+
+		Assert.assertEquals( "candidates" , readScenario.getPopulation().getAttributes().getAttribute( "type" ) );
+		// the persons are read in the order of the file
+		Assert.assertEquals( new ArrayList<>( PopulationUtils.getSortedPersons( population ).keySet() ) ,
+				new ArrayList<>( readScenario.getPopulation().getPersons().keySet() ) );
+		final Person readPerson = readScenario.getPopulation().getPersons().get( Id.createPersonId( "p1234" ) );
+		Assert.assertEquals( 1234 , readPerson.getAttributes().getAttribute( "number" ) );
+		Assert.assertEquals( 2 , readPerson.getPlans().size() );
+		final Leg readLeg = (Leg) readPerson.getPlans().get( 1 ).getPlanElements().get( 1 );
+		Assert.assertEquals( Id.create( 1235 , Link.class ) , readLeg.getRoute().getEndLinkId() );
+
+		final String rewrittenFile = utils.getOutputDirectory()+"/population_rewritten.xml.gz";
+		new PopulationWriter( readScenario.getPopulation() ).writeV6( rewrittenFile );
+		Assert.assertEquals( readLines( sequentialFile ) , readLines( rewrittenFile ) );
+	}
+
+	private static List<String> readLines( final String file ) throws IOException {
+		final List<String> lines = new ArrayList<>();
+		try ( BufferedReader reader = IOUtils.getBufferedReader( file ) ) {
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				lines.add( line );
+			}
+		}
+		return lines;
+	}
 }
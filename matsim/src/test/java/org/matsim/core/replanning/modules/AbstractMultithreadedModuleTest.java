@@ -20,12 +20,20 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup.ReplanningThreadScheduling;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.algorithms.BatchPlanAlgorithm;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
 /**
@@ -60,6 +68,41 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	public void testSharedQueue() {
+		for (ReplanningThreadScheduling threadScheduling : ReplanningThreadScheduling.values()) {
+			final Map<Plan, Integer> handled = new IdentityHashMap<>();
+			AbstractMultithreadedModule testee = new AbstractMultithreadedModule(4, threadScheduling) {
+				@Override
+				public PlanAlgorithm getPlanAlgoInstance() {
+					return new CountingBatchPlanAlgo(handled);
+				}
+			};
+			List<Plan> plans = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				plans.add(PopulationUtils.createPlan());
+			}
+			testee.prepareReplanning(null);
+			for (Plan plan : plans) {
+				testee.handlePlan(plan);
+			}
+			testee.finishReplanning();
+
+			// every plan is handled exactly once, also by the batch algorithms
+			Assert.assertEquals(plans.size(), handled.size());
+			for (Plan plan : plans) {
+				Assert.assertEquals(Integer.valueOf(1), handled.get(plan));
+			}
+			int sum = 0;
+			for (AbstractMultithreadedModule.ThreadStatistics statistics : testee.getThreadStatistics()) {
+				sum += statistics.getHandledPlans();
+				Assert.assertTrue(statistics.getBusyNanos() <= statistics.getWallTimeNanos());
+			}
+			Assert.assertEquals(4, testee.getThreadStatistics().size());
+			Assert.assertEquals(plans.size(), sum);
+		}
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
@@ -80,6 +123,31 @@ public class AbstractMultithreadedModuleTest {
 		}
 	}
 
+	private static class CountingBatchPlanAlgo implements BatchPlanAlgorithm {
+		private final Map<Plan, Integer> handled;
+		private final List<Plan> batch = new ArrayList<>();
+
+		CountingBatchPlanAlgo(Map<Plan, Integer> handled) {
+			this.handled = handled;
+		}
+
+		@Override
+		public void run(Plan plan) {
+			this.batch.add(plan);
+		}
+
+		@Override
+		public void finishBatch() {
+			synchronized (this.handled) {
+				for (Plan plan : this.batch) {
+					Integer count = this.handled.get(plan);
+					this.handled.put(plan, count == null ? 1 : count + 1);
+				}
+			}
+			this.batch.clear();
+		}
+	}
+
 	private static class CrashingPlanAlgo implements PlanAlgorithm {
 		@Override
 		public void run(Plan plan) {
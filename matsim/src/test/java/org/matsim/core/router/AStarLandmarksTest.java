@@ -20,11 +20,28 @@
 
 package org.matsim.core.router;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
 import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.vehicles.Vehicle;
 
 public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 
@@ -36,4 +53,46 @@ public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 		return new AStarLandmarks(network, preProcessData, travelTimeCostCalculator);
 	}
 
+	/**
+	 * The landmarks are computed once from the minimal travel disutilities, and stay valid for the routers of later
+	 * iterations with time-dependent (congested) travel times.
+	 */
+	@Test
+	public void testTimeDependentTravelTimes() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/berlin/network.xml.gz");
+
+		FastAStarLandmarksFactory factory = new FastAStarLandmarksFactory(4);
+		// the first router, e.g. in the first iteration, triggers the preprocessing with free speed travel times
+		factory.createPathCalculator(network, new OnlyTimeDependentTravelDisutility(new FreeSpeedTravelTime()), new FreeSpeedTravelTime());
+
+		TravelTime congestedTravelTime = new TravelTime() {
+			private final TravelTime freeSpeed = new FreeSpeedTravelTime();
+			@Override
+			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+				// up to four times the free speed travel time, depending on the link and the time of day
+				int factor = 1 + Math.abs(link.getId().hashCode() + (int) (time / 900)) % 4;
+				return factor * this.freeSpeed.getLinkTravelTime(link, time, person, vehicle);
+			}
+		};
+		TravelDisutility congestedDisutility = new OnlyTimeDependentTravelDisutility(congestedTravelTime);
+		LeastCostPathCalculator landmarks = factory.createPathCalculator(network, congestedDisutility, congestedTravelTime);
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, congestedDisutility, congestedTravelTime);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(4711);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			double departureTime = 6 * 3600 + random.nextInt(4 * 3600);
+			Path expected = dijkstra.calcLeastCostPath(from, to, departureTime, null, null);
+			Path actual = landmarks.calcLeastCostPath(from, to, departureTime, null, null);
+			if (expected == null) {
+				Assert.assertNull(actual);
+			} else {
+				Assert.assertEquals(expected.travelCost, actual.travelCost, 1e-6);
+			}
+		}
+	}
+
 }
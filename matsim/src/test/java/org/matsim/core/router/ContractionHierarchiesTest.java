@@ -0,0 +1,275 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchiesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.ContractionHierarchy.Customisation;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class ContractionHierarchiesTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new ContractionHierarchiesFactory(900, 30 * 3600).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstra() {
+		Network network = createGridNetwork(15, new Random(4711));
+		CongestedTravelTime travelTime = new CongestedTravelTime(1);
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(900, 30 * 3600);
+		LeastCostPathCalculator ch = factory.createPathCalculator(network, travelTime, travelTime);
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTime, travelTime);
+		assertSameCosts(network, ch, dijkstra, new Random(42));
+
+		// new travel times, e.g. after the next mobsim, are only used after the reset
+		travelTime.seed = 2;
+		factory.resetCustomisations();
+		assertSameCosts(network, ch, dijkstra, new Random(43));
+	}
+
+	public void testInstancesOfSameClassWithDifferentCosts() {
+		Network network = createGridNetwork(15, new Random(4711));
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(900, 30 * 3600);
+		CongestedTravelTime travelTime1 = new CongestedTravelTime(1);
+		CongestedTravelTime travelTime2 = new CongestedTravelTime(2);
+		LeastCostPathCalculator ch1 = factory.createPathCalculator(network, travelTime1, travelTime1);
+		LeastCostPathCalculator ch2 = factory.createPathCalculator(network, travelTime2, travelTime2);
+
+		// no reset in between, both calculators are used alternately
+		assertSameCosts(network, ch1, new Dijkstra(network, travelTime1, travelTime1), new Random(42));
+		assertSameCosts(network, ch2, new Dijkstra(network, travelTime2, travelTime2), new Random(43));
+		assertSameCosts(network, ch1, new Dijkstra(network, travelTime1, travelTime1), new Random(44));
+	}
+
+	public void testInstancesWithSameCostsShareCustomisation() {
+		Network network = createGridNetwork(5, new Random(4711));
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(900, 30 * 3600);
+		factory.createPathCalculator(network, new CongestedTravelTime(1), new CongestedTravelTime(1));// creates the placeholder person
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+
+		CongestedTravelTime a = new CongestedTravelTime(1);
+		CongestedTravelTime b = new CongestedTravelTime(1);
+		CongestedTravelTime c = new CongestedTravelTime(3);
+		assertSame(factory.getCustomisation(hierarchy, a, a, 8 * 3600), factory.getCustomisation(hierarchy, b, b, 8 * 3600));
+		assertNotSame(factory.getCustomisation(hierarchy, a, a, 8 * 3600), factory.getCustomisation(hierarchy, c, c, 8 * 3600));
+	}
+
+	public void testCombinedTimeBins() {
+		Network network = createGridNetwork(5, new Random(4711));
+		// 121 travel time bins, customised in 2 bins of 61 travel time bins each
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(900, 30 * 3600, 2);
+		factory.createPathCalculator(network, new CongestedTravelTime(1), new CongestedTravelTime(1));// creates the placeholder person
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+
+		CongestedTravelTime a = new CongestedTravelTime(1) {
+			@Override
+			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+				return super.getLinkTravelTime(link, time, person, vehicle) * (time < 20 * 3600 ? 1 : 2);
+			}
+		};
+		assertSame(factory.getCustomisation(hierarchy, a, a, 0), factory.getCustomisation(hierarchy, a, a, 61 * 900 - 1));
+		assertNotSame(factory.getCustomisation(hierarchy, a, a, 0), factory.getCustomisation(hierarchy, a, a, 61 * 900));
+		assertSame(factory.getCustomisation(hierarchy, a, a, 61 * 900), factory.getCustomisation(hierarchy, a, a, 40 * 3600));
+	}
+
+	public void testResetBeforeMobsim() {
+		Network network = createGridNetwork(5, new Random(4711));
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(900, 30 * 3600);
+		factory.createPathCalculator(network, new CongestedTravelTime(1), new CongestedTravelTime(1));// creates the placeholder person
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+
+		CongestedTravelTime a = new CongestedTravelTime(1);
+		Customisation customisation = factory.getCustomisation(hierarchy, a, a, 8 * 3600);
+		assertSame(customisation, factory.getCustomisation(hierarchy, a, a, 8 * 3600));
+		factory.notifyBeforeMobsim(null);
+		assertNotSame(customisation, factory.getCustomisation(hierarchy, a, a, 8 * 3600));
+	}
+
+	public void testEqualTravelDisutilitiesAreEvaluatedOnce() {
+		Network network = createGridNetwork(5, new Random(4711));
+		// one travel time bin per customisation
+		ContractionHierarchiesFactory factory = new ContractionHierarchiesFactory(3600, 30 * 3600);
+		CongestedTravelTime travelTime = new CongestedTravelTime(1);
+		factory.createPathCalculator(network, travelTime, travelTime);// creates the placeholder person
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+
+		// e.g. the instances of different threads
+		CountingTravelDisutility a = new CountingTravelDisutility(travelTime);
+		CountingTravelDisutility b = new CountingTravelDisutility(travelTime);
+		assertSame(factory.getCustomisation(hierarchy, a, travelTime, 8 * 3600), factory.getCustomisation(hierarchy, b, travelTime, 8 * 3600));
+		assertEquals(network.getLinks().size(), a.count + b.count);
+	}
+
+	/**
+	 * A realistic network, on which the number of shortcuts and thus the memory required per customisation have to
+	 * stay small.
+	 */
+	public void testBerlinNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/berlin/network.xml.gz");
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(network);
+		// 27664 links, about 48000 edges
+		assertTrue(hierarchy.getNumberOfEdges() < 2 * network.getLinks().size());
+
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator ch = new ContractionHierarchiesFactory(900, 30 * 3600).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		assertSameCosts(network, ch, new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator), new Random(42));
+	}
+
+	private static void assertSameCosts(Network network, LeastCostPathCalculator ch, LeastCostPathCalculator dijkstra, Random random) {
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes[random.nextInt(nodes.length)];
+			Node to = nodes[random.nextInt(nodes.length)];
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			Path actual = ch.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			if (expected == null) {
+				assertNull(actual);
+				continue;
+			}
+			assertEquals(expected.travelCost, actual.travelCost, 1e-6);
+			assertEquals(from, actual.getFromNode());
+			assertEquals(to, actual.getToNode());
+			assertEquals(actual.links.size() + 1, actual.nodes.size());
+			for (int l = 0; l < actual.links.size(); l++) {
+				assertEquals(actual.nodes.get(l), actual.links.get(l).getFromNode());
+				assertEquals(actual.nodes.get(l + 1), actual.links.get(l).getToNode());
+			}
+		}
+	}
+
+	private static Network createGridNetwork(int size, Random random) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory factory = network.getFactory();
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				network.addNode(factory.createNode(Id.createNodeId("ch_" + x + "_" + y), new Coord(x * 1000, y * 1000)));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				Node node = network.getNodes().get(Id.createNodeId("ch_" + x + "_" + y));
+				if (x + 1 < size) {
+					connect(network, node, network.getNodes().get(Id.createNodeId("ch_" + (x + 1) + "_" + y)), random);
+				}
+				if (y + 1 < size) {
+					connect(network, node, network.getNodes().get(Id.createNodeId("ch_" + x + "_" + (y + 1))), random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void connect(Network network, Node a, Node b, Random random) {
+		// some streets are one-way only
+		int directions = random.nextInt(4);
+		if (directions != 1) {
+			addLink(network, a, b, random);
+		}
+		if (directions != 2) {
+			addLink(network, b, a, random);
+		}
+	}
+
+	private static void addLink(Network network, Node from, Node to, Random random) {
+		Link link = network.getFactory().createLink(Id.createLinkId(from.getId() + "-" + to.getId()), from, to);
+		link.setLength(500 + random.nextInt(1000));
+		link.setFreespeed(10 + random.nextInt(20));
+		link.setCapacity(1000);
+		network.addLink(link);
+	}
+
+	/**
+	 * Counts its evaluations, instances with the same travel time are equal.
+	 */
+	private static class CountingTravelDisutility implements TravelDisutility {
+		private final TravelTime travelTime;
+		int count = 0;
+
+		CountingTravelDisutility(TravelTime travelTime) {
+			this.travelTime = travelTime;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			this.count++;
+			return this.travelTime.getLinkTravelTime(link, time, person, vehicle);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CountingTravelDisutility && ((CountingTravelDisutility) obj).travelTime == this.travelTime;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.travelTime);
+		}
+	}
+
+	/**
+	 * Travel times that do not depend on the time of day, but change with the seed.
+	 */
+	private static class CongestedTravelTime implements TravelTime, TravelDisutility {
+		int seed;
+
+		CongestedTravelTime(int seed) {
+			this.seed = seed;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return link.getLength() / link.getFreespeed() * (1 + ((link.getId().index() * 7 + this.seed) % 5));
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkTravelTime(link, time, person, vehicle);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+}
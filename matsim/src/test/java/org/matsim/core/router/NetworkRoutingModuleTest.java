@@ -19,6 +19,7 @@
 
 package org.matsim.core.router;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Assert;
@@ -142,6 +143,48 @@ public class NetworkRoutingModuleTest {
 		}
 	}
 
+	@Test
+	public void testCalcRoutesOneToMany() {
+		Fixture f = new Fixture();
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(-6.0/3600, +6.0/3600, 0.0);
+		LeastCostPathCalculator routeAlgo = new Dijkstra(f.s.getNetwork(), freespeed, freespeed);
+		MultiNodePathCalculator oneToManyAlgo = (MultiNodePathCalculator) new FastMultiNodeDijkstraFactory(true).createPathCalculator(f.s.getNetwork(), freespeed, freespeed);
+
+		Person person = PopulationUtils.getFactory().createPerson(Id.create(1, Person.class));
+		Activity fromAct = PopulationUtils.createActivityFromCoord("h", new Coord(0, 0));
+		fromAct.setLinkId(Id.create("1", Link.class));
+		Activity toAct3 = PopulationUtils.createActivityFromCoord("w", new Coord(0, 3000));
+		toAct3.setLinkId(Id.create("3", Link.class));
+		Activity toAct2 = PopulationUtils.createActivityFromCoord("w", new Coord(0, 2000));
+		toAct2.setLinkId(Id.create("2", Link.class));
+
+		final NetworkRoutingModule routingModule = new NetworkRoutingModule(
+				TransportMode.car,
+				f.s.getPopulation().getFactory(),
+				f.s.getNetwork(),
+				routeAlgo,
+				oneToManyAlgo);
+		Facility fromFacility = FacilitiesUtils.toFacility( fromAct, f.s.getActivityFacilities() );
+		List<Facility> toFacilities = Arrays.asList(
+				FacilitiesUtils.toFacility( toAct3, f.s.getActivityFacilities() ),
+				FacilitiesUtils.toFacility( toAct2, f.s.getActivityFacilities() ),
+				fromFacility);
+		List<List<? extends PlanElement>> results = routingModule.calcRoutes(fromFacility, toFacilities,
+				new double[] {7.0*3600, 7.0*3600 + 60, 7.0*3600 + 120}, Arrays.asList(person, person, person));
+		Assert.assertEquals(3, results.size());
+		for (int i = 0; i < toFacilities.size(); i++) {
+			Assert.assertEquals(1, results.get(i).size());
+			Leg leg = (Leg) results.get(i).get(0);
+			Leg expected = (Leg) routingModule.calcRoute(fromFacility, toFacilities.get(i), 7.0*3600 + 60*i, person).get(0);
+			Assert.assertEquals(expected.getDepartureTime(), leg.getDepartureTime(), 1e-8);
+			Assert.assertEquals(expected.getTravelTime(), leg.getTravelTime(), 1e-8);
+			Assert.assertEquals(((NetworkRoute) expected.getRoute()).getLinkIds(), ((NetworkRoute) leg.getRoute()).getLinkIds());
+			Assert.assertEquals(expected.getRoute().getEndLinkId(), leg.getRoute().getEndLinkId());
+		}
+		Assert.assertEquals(100.0, ((Leg) results.get(0).get(0)).getTravelTime(), 1e-8);
+		Assert.assertEquals(0.0, ((Leg) results.get(2).get(0)).getTravelTime(), 1e-8);
+	}
+
 	private static class Fixture {
 		public final Scenario s = ScenarioUtils.createScenario(ConfigUtils.createConfig());
 
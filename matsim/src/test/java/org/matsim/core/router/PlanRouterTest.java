@@ -0,0 +1,102 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanRouterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.replanning.modules.ReRoute;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+
+public class PlanRouterTest {
+
+	private static Scenario createScenario(boolean batched) {
+		Config config = ConfigUtils.loadConfig(IOUtils.newUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setInputFile("plans100.xml");
+		// (A* is not exact on equil, since some links are shorter than the euclidean distance.)
+		config.controler().setRoutingAlgorithmType(ControlerConfigGroup.RoutingAlgorithmType.Dijkstra);
+		config.plansCalcRoute().setRoutingRandomness(0.);
+		config.plansCalcRoute().setBatchedRouting(batched);
+		config.global().setNumberOfThreads(2);
+		return ScenarioUtils.loadScenario(config);
+	}
+
+	private static void reRoute(Scenario scenario) {
+		ReRoute module = new ReRoute(scenario, TripRouterFactoryBuilderWithDefaults.createDefaultTripRouterFactoryImpl(scenario));
+		module.prepareReplanning(null);
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				// make sure the routes are really computed again
+				for (Leg leg : TripStructureUtils.getLegs(plan)) {
+					leg.setRoute(null);
+				}
+				module.handlePlan(plan);
+			}
+		}
+		module.finishReplanning();
+	}
+
+	@Test
+	public void testBatchedRoutingGivesSameRoutes() {
+		Scenario expected = createScenario(false);
+		Scenario batched = createScenario(true);
+		reRoute(expected);
+		reRoute(batched);
+
+		for (Person person : expected.getPopulation().getPersons().values()) {
+			Plan expectedPlan = person.getSelectedPlan();
+			Plan batchedPlan = batched.getPopulation().getPersons().get(person.getId()).getSelectedPlan();
+			Assert.assertEquals(expectedPlan.getPlanElements().size(), batchedPlan.getPlanElements().size());
+			for (int i = 0; i < TripStructureUtils.getLegs(expectedPlan).size(); i++) {
+				Leg expectedLeg = TripStructureUtils.getLegs(expectedPlan).get(i);
+				Leg batchedLeg = TripStructureUtils.getLegs(batchedPlan).get(i);
+				Assert.assertEquals(expectedLeg.getDepartureTime(), batchedLeg.getDepartureTime(), 1e-8);
+				// equil has several routes with the same costs, so different algorithms may choose different ones
+				Assert.assertEquals(((NetworkRoute) expectedLeg.getRoute()).getTravelCost(), ((NetworkRoute) batchedLeg.getRoute()).getTravelCost(), 1e-8);
+				Assert.assertEquals(expectedLeg.getTravelTime(), batchedLeg.getTravelTime(), 1e-8);
+				Assert.assertEquals(expectedLeg.getRoute().getEndLinkId(), batchedLeg.getRoute().getEndLinkId());
+			}
+		}
+	}
+
+	@Test
+	public void testNotBatchedByDefault() {
+		Scenario scenario = createScenario(false);
+		TripRouter tripRouter = TripRouterFactoryBuilderWithDefaults.createDefaultTripRouterFactoryImpl(scenario).get();
+		Plan plan = scenario.getPopulation().getPersons().values().iterator().next().getSelectedPlan();
+		for (Leg leg : TripStructureUtils.getLegs(plan)) {
+			leg.setRoute(null);
+		}
+		new PlanRouter(tripRouter, null).run(plan);
+		for (Leg leg : TripStructureUtils.getLegs(plan)) {
+			Assert.assertNotNull(leg.getRoute());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.matsim.core.scenario;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ScenarioSnapshotTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static Config createConfig() {
+		return ConfigUtils.loadConfig(IOUtils.newUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+	}
+
+	@Test
+	public void testWriteReadSnapshot() {
+		Scenario scenario = ScenarioUtils.loadScenario(createConfig());
+		Link link = scenario.getNetwork().getLinks().get(Id.createLinkId(1));
+		link.getAttributes().putAttribute("lanes", 3);
+		Person person = scenario.getPopulation().getPersons().get(Id.createPersonId(1));
+		person.getAttributes().putAttribute("age", 42.5);
+		Plan plan = person.getSelectedPlan();
+		plan.setScore(12.25);
+		Route route = scenario.getPopulation().getFactory().getRouteFactories().createRoute(Route.class, Id.createLinkId(1), Id.createLinkId(20));
+		route.setDistance(1234.5);
+		route.setTravelTime(600);
+		((Leg) plan.getPlanElements().get(1)).setMode(TransportMode.walk);
+		((Leg) plan.getPlanElements().get(1)).setRoute(route);
+
+		String filename = this.utils.getOutputDirectory() + "snapshot.bin";
+		new ScenarioSnapshotWriter(scenario).write(filename);
+
+		Config config = createConfig();
+		config.controler().setInputScenarioSnapshotFile(new File(filename).getAbsolutePath());
+		Scenario read = ScenarioUtils.loadScenario(config);
+
+		Assert.assertEquals(scenario.getNetwork().getNodes().size(), read.getNetwork().getNodes().size());
+		Assert.assertEquals(scenario.getNetwork().getLinks().size(), read.getNetwork().getLinks().size());
+		Link readLink = read.getNetwork().getLinks().get(Id.createLinkId(1));
+		Assert.assertEquals(link.getCapacity(), readLink.getCapacity(), 0.0);
+		Assert.assertEquals(link.getAllowedModes(), readLink.getAllowedModes());
+		Assert.assertEquals(3, readLink.getAttributes().getAttribute("lanes"));
+
+		Person readPerson = read.getPopulation().getPersons().get(Id.createPersonId(1));
+		Assert.assertEquals(42.5, readPerson.getAttributes().getAttribute("age"));
+		Assert.assertEquals(12.25, readPerson.getSelectedPlan().getScore(), 0.0);
+		Route readRoute = ((Leg) readPerson.getSelectedPlan().getPlanElements().get(1)).getRoute();
+		Assert.assertFalse(readRoute instanceof NetworkRoute);
+		Assert.assertEquals(1234.5, readRoute.getDistance(), 0.0);
+		Assert.assertTrue(((Leg) readPerson.getSelectedPlan().getPlanElements().get(3)).getRoute() instanceof NetworkRoute);
+		Assert.assertTrue(PopulationUtils.equalPopulation(scenario.getPopulation(), read.getPopulation()));
+	}
+
+	@Test
+	public void testReadSnapshotFromUrl() throws IOException {
+		Scenario scenario = ScenarioUtils.loadScenario(createConfig());
+		String filename = this.utils.getOutputDirectory() + "snapshot.bin";
+		new ScenarioSnapshotWriter(scenario).write(filename);
+
+		// a jar URL is not a local file, so the snapshot has to be copied before it can be mapped
+		String jarFilename = this.utils.getOutputDirectory() + "snapshot.jar";
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jarFilename))) {
+			zip.putNextEntry(new ZipEntry("snapshot.bin"));
+			Files.copy(Paths.get(filename), zip);
+			zip.closeEntry();
+		}
+		URL jarUrl = new URL("jar:" + new File(jarFilename).toURI().toURL() + "!/snapshot.bin");
+
+		for (URL url : new URL[] { new File(filename).toURI().toURL(), jarUrl }) {
+			Scenario read = ScenarioUtils.createScenario(createConfig());
+			new ScenarioSnapshotReader(read).readURL(url);
+			Assert.assertEquals(scenario.getNetwork().getLinks().size(), read.getNetwork().getLinks().size());
+			Assert.assertTrue(PopulationUtils.equalPopulation(scenario.getPopulation(), read.getPopulation()));
+		}
+	}
+
+	@Test
+	public void testOutdatedSnapshotIsIgnored() throws IOException {
+		URL equil = ExamplesUtils.getTestScenarioURL("equil");
+		File plans = new File(this.utils.getOutputDirectory() + "plans.xml");
+		Files.copy(IOUtils.newUrl(equil, "plans100.xml").openStream(), plans.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Config config = createConfig();
+		config.plans().setInputFile(plans.getAbsolutePath());
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String filename = this.utils.getOutputDirectory() + "snapshot.bin";
+		new ScenarioSnapshotWriter(scenario).write(filename);
+
+		Assert.assertTrue(new ScenarioSnapshotReader(ScenarioUtils.createScenario(config)).isUpToDate(filename));
+
+		Files.write(plans.toPath(), "<!-- changed -->".getBytes(), StandardOpenOption.APPEND);
+		Assert.assertFalse(new ScenarioSnapshotReader(ScenarioUtils.createScenario(config)).isUpToDate(filename));
+
+		// falls back to the plans file
+		config.controler().setInputScenarioSnapshotFile(new File(filename).getAbsolutePath());
+		Scenario read = ScenarioUtils.loadScenario(config);
+		Assert.assertEquals(100, read.getPopulation().getPersons().size());
+	}
+
+	@Test
+	public void testSnapshotIsIgnoredAfterConfigChange() {
+		Config config = createConfig();
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String filename = this.utils.getOutputDirectory() + "snapshot.bin";
+		new ScenarioSnapshotWriter(scenario).write(filename);
+		Assert.assertTrue(new ScenarioSnapshotReader(ScenarioUtils.createScenario(createConfig())).isUpToDate(filename));
+
+		Config otherMainModes = createConfig();
+		otherMainModes.qsim().setMainModes(Arrays.asList(TransportMode.car, TransportMode.bike));
+		Assert.assertFalse(new ScenarioSnapshotReader(ScenarioUtils.createScenario(otherMainModes)).isUpToDate(filename));
+
+		Config otherNetworkModes = createConfig();
+		otherNetworkModes.plansCalcRoute().setNetworkModes(Arrays.asList(TransportMode.car, TransportMode.ride));
+		Assert.assertFalse(new ScenarioSnapshotReader(ScenarioUtils.createScenario(otherNetworkModes)).isUpToDate(filename));
+
+		Config otherNetworkCrs = createConfig();
+		otherNetworkCrs.network().setInputCRS("EPSG:25832");
+		Assert.assertFalse(new ScenarioSnapshotReader(ScenarioUtils.createScenario(otherNetworkCrs)).isUpToDate(filename));
+
+		Config otherFlowCapacity = createConfig();
+		otherFlowCapacity.qsim().setFlowCapFactor(0.5);
+		Assert.assertTrue(new ScenarioSnapshotReader(ScenarioUtils.createScenario(otherFlowCapacity)).isUpToDate(filename));
+	}
+}
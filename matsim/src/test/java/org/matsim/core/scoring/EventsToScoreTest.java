@@ -20,21 +20,41 @@
 
 package org.matsim.core.scoring;
 
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ActivityParams;
 import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.ParallelEventsManagerImpl;
+import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.scenario.MutableScenario;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.scoring.functions.CharyparNagelScoringFunctionFactory;
 import org.matsim.testcases.MatsimTestCase;
+import org.matsim.vehicles.Vehicle;
 
 /**
  * @author mrieser
@@ -142,6 +162,78 @@ public class EventsToScoreTest extends MatsimTestCase {
 		}
 	}
 
+	/**
+	 * Tests that scoring the population in several partitions, with a parallel events manager, gives the same scores
+	 * as scoring it with a single event handler.
+	 */
+	public void testPartitionedScoring() {
+		double[] expected = scoreWithPartitions(1, EventsUtils.createEventsManager());
+		double[] actual = scoreWithPartitions(4, new ParallelEventsManagerImpl(4));
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i], EPSILON);
+		}
+	}
+
+	private static double[] scoreWithPartitions(int numberOfPartitions, EventsManager events) {
+		Config config = ConfigUtils.createConfig();
+		config.planCalcScore().setNumberOfScoringPartitions(numberOfPartitions);
+		config.planCalcScore().setMarginalUtilityOfMoney(1.0);
+		ActivityParams home = new ActivityParams("home");
+		home.setTypicalDuration(16 * 3600);
+		config.planCalcScore().addActivityParams(home);
+		ActivityParams work = new ActivityParams("work");
+		work.setTypicalDuration(8 * 3600);
+		config.planCalcScore().addActivityParams(work);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+
+		Network network = scenario.getNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId(1), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId(2), new Coord(1000, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId(3), new Coord(2000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.createLinkId(1), node1, node2, 1000, 10, 1000, 1);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.createLinkId(2), node2, node3, 1000, 10, 1000, 1);
+
+		Population population = scenario.getPopulation();
+		int numberOfPersons = 20;
+		for (int i = 0; i < numberOfPersons; i++) {
+			Person person = population.getFactory().createPerson(Id.createPersonId("p" + i));
+			person.addPlan(population.getFactory().createPlan());
+			population.addPerson(person);
+		}
+
+		EventsToScore e2s = EventsToScore.createWithoutScoreUpdating(scenario, new CharyparNagelScoringFunctionFactory(scenario), events);
+		e2s.beginIteration(0);
+		events.initProcessing();
+		for (int i = 0; i < numberOfPersons; i++) {
+			Id<Person> personId = Id.createPersonId("p" + i);
+			Id<Vehicle> vehicleId = Id.createVehicleId("v" + i);
+			double time = 7 * 3600 + i * 60;
+			events.processEvent(new ActivityEndEvent(time, personId, link1.getId(), null, "home"));
+			events.processEvent(new PersonDepartureEvent(time, personId, link1.getId(), i % 2 == 0 ? TransportMode.car : TransportMode.walk));
+			if (i % 2 == 0) {
+				events.processEvent(new PersonEntersVehicleEvent(time, personId, vehicleId));
+				events.processEvent(new VehicleEntersTrafficEvent(time, personId, link1.getId(), vehicleId, TransportMode.car, 1.0));
+				events.processEvent(new LinkLeaveEvent(time + 100, vehicleId, link1.getId()));
+				events.processEvent(new LinkEnterEvent(time + 100, vehicleId, link2.getId()));
+				events.processEvent(new VehicleLeavesTrafficEvent(time + 200 + i, personId, link2.getId(), vehicleId, TransportMode.car, 1.0));
+				events.processEvent(new PersonLeavesVehicleEvent(time + 200 + i, personId, vehicleId));
+			} else {
+				events.processEvent(new TeleportationArrivalEvent(time + 1200 + i, personId, 1500));
+			}
+			events.processEvent(new PersonArrivalEvent(time + 1200 + i, personId, link2.getId(), i % 2 == 0 ? TransportMode.car : TransportMode.walk));
+			events.processEvent(new ActivityStartEvent(time + 1200 + i, personId, link2.getId(), null, "work"));
+			events.processEvent(new PersonMoneyEvent(time + 1800, personId, -i));
+		}
+		events.finishProcessing();
+		e2s.finish();
+
+		double[] scores = new double[numberOfPersons];
+		for (int i = 0; i < numberOfPersons; i++) {
+			scores[i] = e2s.getAgentScore(Id.createPersonId("p" + i));
+		}
+		return scores;
+	}
+
 	private static class MockScoringFunctionFactory implements ScoringFunctionFactory {
 
 		@Override
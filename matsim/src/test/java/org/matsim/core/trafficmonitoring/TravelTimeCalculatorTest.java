@@ -46,6 +46,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.TravelTimeCalculatorType;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.network.NetworkUtils;
@@ -276,6 +277,54 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		assertEquals(freeSpeedTT, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 5*timeBinSize + offset, null, null), EPSILON);
 	}
 	
+	/**
+	 * Same as {@link #testLongTravelTimeInEmptySlot()}, but with all travel time data in one flat array. Also checks that
+	 * a reset brings all links back to free speed travel times.
+	 */
+	public void testLongTravelTimeInEmptySlot_FlatArray() {
+		Config config = ConfigUtils.createConfig();
+		int timeBinSize = 15*60;
+		config.travelTimeCalculator().setTraveltimeBinSize(timeBinSize);
+		config.travelTimeCalculator().setMaxTime(12*3600);
+		config.travelTimeCalculator().setTravelTimeCalculatorType(TravelTimeCalculatorType.TravelTimeCalculatorFlatArray.name());
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		network.setCapacityPeriod(3600.0);
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		Link link2 = NetworkUtils.createAndAddLink(network,Id.create("2", Link.class), toNode, fromNode, 1000.0, 10.0, 3600.0, 1.0 );
+		double freeSpeedTT1 = NetworkUtils.getFreespeedTravelTime(link1);
+		double freeSpeedTT2 = NetworkUtils.getFreespeedTravelTime(link2);
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		TravelTimeCalculator ttcalc = TravelTimeCalculator.create(network, config.travelTimeCalculator());
+		double firstTimeBinStart = 7.0 * 3600;
+
+		double linkTravelTime1 = 50.0 * 60; // 50minutes in first time bin
+		double linkTravelTime2 = 10.0 * 60; // 10minutes in forth time bin
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + linkTravelTime1, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart + 3*timeBinSize, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + 3*timeBinSize + linkTravelTime2, vehId, link1.getId()));
+		ttcalc.handleEvent(new LinkEnterEvent(firstTimeBinStart + 3*timeBinSize + linkTravelTime2, vehId, link2.getId()));
+		ttcalc.handleEvent(new LinkLeaveEvent(firstTimeBinStart + 3*timeBinSize + linkTravelTime2 + 200.0, vehId, link2.getId()));
+
+		double offset = 5*60;
+		assertEquals(linkTravelTime1, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + offset, null, null), EPSILON);
+		assertEquals(linkTravelTime1-timeBinSize, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 1*timeBinSize + offset, null, null), EPSILON);
+		assertEquals(linkTravelTime1-2*timeBinSize, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 2*timeBinSize + offset, null, null), EPSILON);
+		assertEquals(linkTravelTime2, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 3*timeBinSize + offset, null, null), EPSILON);
+		assertEquals(freeSpeedTT1, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 4*timeBinSize + offset, null, null), EPSILON);
+		assertEquals(200.0, ttcalc.getLinkTravelTimes().getLinkTravelTime(link2, firstTimeBinStart + 3*timeBinSize + offset, null, null), EPSILON);
+		assertEquals(freeSpeedTT2, ttcalc.getLinkTravelTimes().getLinkTravelTime(link2, firstTimeBinStart + 2*timeBinSize + offset, null, null), EPSILON);
+
+		ttcalc.reset(1);
+		assertEquals(freeSpeedTT1, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + offset, null, null), EPSILON);
+		assertEquals(freeSpeedTT2, ttcalc.getLinkTravelTimes().getLinkTravelTime(link2, firstTimeBinStart + 3*timeBinSize + offset, null, null), EPSILON);
+	}
+
 	/**
 	 * Test linear interpolation of aggregated travel times at different positions of a time bin. (Previous tests only test the midpoint of each time bin.)
 	 * 
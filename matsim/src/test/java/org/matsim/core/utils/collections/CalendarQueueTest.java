@@ -0,0 +1,174 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CalendarQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class CalendarQueueTest extends TestCase {
+
+	private static final Comparator<Integer> LARGER_FIRST = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o2.compareTo(o1);
+		}
+	};
+
+	public void testPollInOrder() {
+		CalendarQueue<Integer> queue = new CalendarQueue<>(LARGER_FIRST);
+		queue.add(1, 10.0);
+		queue.add(2, 5.5);
+		queue.add(3, 10.0);
+		queue.add(4, 5.0);
+		queue.add(5, 200000.0); // beyond the wheel
+		assertEquals(5, queue.size());
+
+		assertNull(queue.poll(4.0));
+		assertEquals(Integer.valueOf(4), queue.poll(5.0));
+		assertNull(queue.poll(5.0)); // 5.5 is in the same bucket, but not yet due
+		assertEquals(Integer.valueOf(2), queue.poll(6.0));
+		assertNull(queue.poll(9.0));
+		assertEquals(Integer.valueOf(3), queue.poll(10.0));
+		assertEquals(Integer.valueOf(1), queue.poll(10.0));
+		assertNull(queue.poll(10.0));
+		assertEquals(1, queue.size());
+		assertEquals(Integer.valueOf(5), queue.poll(300000.0));
+		assertTrue(queue.isEmpty());
+	}
+
+	public void testAddWhilePolling() {
+		CalendarQueue<Integer> queue = new CalendarQueue<>(LARGER_FIRST);
+		queue.add(1, 10.0);
+		queue.add(2, 10.0);
+		assertEquals(Integer.valueOf(2), queue.poll(10.0));
+		queue.add(3, 9.0); // already due, before the remaining element
+		queue.add(4, 11.0);
+		assertEquals(Integer.valueOf(3), queue.poll(10.0));
+		assertEquals(Integer.valueOf(1), queue.poll(10.0));
+		assertNull(queue.poll(10.0));
+		queue.add(5, 3.0); // in the past
+		assertEquals(Integer.valueOf(5), queue.poll(10.0));
+		assertEquals(Integer.valueOf(4), queue.poll(11.0));
+		assertTrue(queue.isEmpty());
+	}
+
+	public void testRemoveAndForEach() {
+		CalendarQueue<Integer> queue = new CalendarQueue<>(1.0, 16, LARGER_FIRST);
+		Integer a = 1;
+		Integer b = 2;
+		Integer c = 3;
+		queue.add(a, 1.0);
+		queue.add(b, 2.0);
+		queue.add(c, 100.0); // beyond the wheel
+		final double[] sum = new double[1];
+		queue.forEach((element, time) -> sum[0] += time);
+		assertEquals(103.0, sum[0], 0.0);
+
+		assertTrue(queue.remove(b));
+		assertFalse(queue.remove(b));
+		assertTrue(queue.remove(c));
+		assertEquals(1, queue.size());
+		assertEquals(a, queue.poll(200.0));
+		assertNull(queue.poll(200.0));
+
+		queue.add(a, 300.0);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll(1000.0));
+	}
+
+	public void testRemoveWithTime() {
+		CalendarQueue<Integer> queue = new CalendarQueue<>(1.0, 16, LARGER_FIRST);
+		Integer a = 1;
+		Integer b = 2;
+		Integer c = 3;
+		Integer d = 4;
+		Integer e = 5;
+		queue.add(a, 3.0);
+		queue.add(b, 3.5);
+		queue.add(c, 5.0);
+		queue.add(d, 100.0); // beyond the wheel
+		queue.add(e, Double.POSITIVE_INFINITY);
+		assertEquals(a, queue.poll(3.5)); // b is now due
+
+		assertFalse(queue.remove(c, 6.0)); // wrong time, other bucket
+		assertTrue(queue.remove(b, 3.5)); // due
+		assertFalse(queue.remove(b, 3.5));
+		assertTrue(queue.remove(c, 5.0)); // on the wheel
+		assertTrue(queue.remove(d, 100.0)); // in the overflow queue
+		assertTrue(queue.remove(e, Double.POSITIVE_INFINITY));
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll(200.0));
+
+		queue.add(a, 100.0);
+		assertNull(queue.poll(95.0)); // now a has moved from the overflow queue to the wheel
+		assertTrue(queue.remove(a, 100.0));
+		queue.add(b, 90.0); // in the past, goes into the current bucket
+		assertTrue(queue.remove(b, 90.0));
+		assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Compares with a priority queue, with a small wheel so that elements move from the overflow queue to the wheel.
+	 */
+	public void testSameOrderAsPriorityQueue() {
+		Random random = new Random(4711);
+		CalendarQueue<Integer> queue = new CalendarQueue<>(1.0, 64, LARGER_FIRST);
+		PriorityQueue<Tuple<Double, Integer>> expected = new PriorityQueue<>(new Comparator<Tuple<Double, Integer>>() {
+			@Override
+			public int compare(Tuple<Double, Integer> o1, Tuple<Double, Integer> o2) {
+				int cmp = o1.getFirst().compareTo(o2.getFirst());
+				return cmp != 0 ? cmp : LARGER_FIRST.compare(o1.getSecond(), o2.getSecond());
+			}
+		});
+		int next = 0;
+		for (; next < 1000; next++) {
+			double time = random.nextInt(500) + (random.nextBoolean() ? 0.0 : random.nextDouble());
+			queue.add(next, time);
+			expected.add(new Tuple<>(time, next));
+		}
+		for (double now = 0.0; now <= 600.0; now += 1.0) {
+			List<Integer> polled = new ArrayList<>();
+			List<Integer> expectedPolled = new ArrayList<>();
+			Integer element;
+			while ((element = queue.poll(now)) != null) {
+				polled.add(element);
+				expectedPolled.add(expected.poll().getSecond());
+				if (random.nextInt(10) == 0) {
+					// like an agent whose next activity ends soon
+					double time = now + random.nextInt(3) - 1 + random.nextDouble();
+					queue.add(next, time);
+					expected.add(new Tuple<>(time, next));
+					next++;
+				}
+			}
+			assertEquals(expectedPolled, polled);
+			assertTrue(expected.isEmpty() || expected.peek().getFirst() > now);
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+}
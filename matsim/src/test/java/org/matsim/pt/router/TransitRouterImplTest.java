@@ -78,7 +78,7 @@ public class TransitRouterImplTest {
 	public static Collection<Object> createRouterTypes() {
 		Object[] router = new Object [] { 
 				"standard"
-//				,TransitRouterType.raptor
+				,"raptor"
 		};
 		return Arrays.asList(router);
 	}
@@ -130,6 +130,9 @@ public class TransitRouterImplTest {
 		case "standard":
 			router = new TransitRouterImpl(trConfig, schedule);
 			break;
+		case "raptor":
+			router = new TransitRouterRaptor(trConfig, schedule);
+			break;
 		default:
 			break;
 		}
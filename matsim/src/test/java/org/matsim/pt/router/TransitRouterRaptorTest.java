@@ -0,0 +1,105 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TransitRouterRaptorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2019 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.pt.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.pt.routes.ExperimentalTransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestCase;
+
+/**
+ * The tests of a single query are in {@link TransitRouterImplTest}, which runs for both transit routers.
+ */
+public class TransitRouterRaptorTest {
+
+	@Test
+	public void testRangeQuery() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		TransitRouterRaptor router = new TransitRouterRaptor(trConfig, f.schedule);
+		Coord fromCoord = new Coord(3800, 5100);
+		Coord toCoord = new Coord(16100, 5050);
+		TransitStopFacility accessStop = f.schedule.getFacilities().get(Id.create("0", TransitStopFacility.class));
+		TransitStopFacility egressStop = f.schedule.getFacilities().get(Id.create("6", TransitStopFacility.class));
+		double accessTime = CoordUtils.calcEuclideanDistance(fromCoord, accessStop.getCoord()) / trConfig.getBeelineWalkSpeed();
+		double egressTime = CoordUtils.calcEuclideanDistance(egressStop.getCoord(), toCoord) / trConfig.getBeelineWalkSpeed();
+
+		// the blue line departs at *:06, *:26 and *:46, the passenger leaves just in time for each of them
+		List<List<Leg>> journeys = router.calcRoutes(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, 6.0*3600, null);
+		assertEquals(3, journeys.size());
+		for (List<Leg> legs : journeys) {
+			assertEquals(3, legs.size());
+			assertEquals(TransportMode.transit_walk, legs.get(0).getMode());
+			assertEquals(TransportMode.pt, legs.get(1).getMode());
+			assertEquals(TransportMode.transit_walk, legs.get(2).getMode());
+			ExperimentalTransitRoute ptRoute = (ExperimentalTransitRoute) legs.get(1).getRoute();
+			assertEquals(accessStop.getId(), ptRoute.getAccessStopId());
+			assertEquals(egressStop.getId(), ptRoute.getEgressStopId());
+			assertEquals(f.blueLine.getId(), ptRoute.getLineId());
+			double actualTravelTime = 0.0;
+			for (Leg leg : legs) {
+				actualTravelTime += leg.getTravelTime();
+			}
+			assertEquals(accessTime + 23.0 * 60 + egressTime, actualTravelTime, MatsimTestCase.EPSILON);
+		}
+
+		// a single departure time waits for the next course, as with calcRoute
+		journeys = router.calcRoutes(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, 5.0*3600, null);
+		assertEquals(1, journeys.size());
+		List<Leg> legs = router.calcRoute(new FakeFacility(fromCoord), new FakeFacility(toCoord), 5.0*3600, null);
+		assertEquals(legs.size(), journeys.get(0).size());
+		double travelTime = 0.0;
+		for (Leg leg : journeys.get(0)) {
+			travelTime += leg.getTravelTime();
+		}
+		assertEquals(29.0 * 60 + egressTime, travelTime, MatsimTestCase.EPSILON);
+	}
+
+	@Test
+	public void testFactorySharesSearchData() {
+		Fixture f = new Fixture();
+		f.init();
+		TransitRouterConfig trConfig = new TransitRouterConfig(f.scenario.getConfig());
+		TransitRouterRaptorFactory factory = new TransitRouterRaptorFactory(f.schedule, trConfig);
+		TransitRouter router1 = factory.get();
+		TransitRouter router2 = factory.get();
+		assertNotSame(router1, router2);
+		assertSame(((TransitRouterRaptor) router1).getData(), ((TransitRouterRaptor) router2).getData());
+		List<Leg> legs1 = router1.calcRoute(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(new Coord(16100, 5050)), 5.0*3600, null);
+		List<Leg> legs2 = router2.calcRoute(new FakeFacility(new Coord(3800, 5100)), new FakeFacility(new Coord(16100, 5050)), 5.0*3600, null);
+		assertEquals(legs1.size(), legs2.size());
+		for (int i = 0; i < legs1.size(); i++) {
+			assertEquals(legs1.get(i).getTravelTime(), legs2.get(i).getTravelTime(), MatsimTestCase.EPSILON);
+		}
+	}
+}